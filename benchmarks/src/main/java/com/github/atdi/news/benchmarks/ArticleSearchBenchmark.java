@@ -0,0 +1,179 @@
+package com.github.atdi.news.benchmarks;
+
+import com.github.atdi.news.model.Article;
+import com.github.atdi.news.model.Author;
+import com.github.atdi.news.server.Bootstrap;
+import com.github.atdi.news.server.services.ArticleBatchService;
+import com.github.atdi.news.server.services.ArticleService;
+import com.github.atdi.news.server.services.AuthorService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+/**
+ * Benchmark of the article service searches against the embedded
+ * H2 database, seeded with the given number of articles.
+ * <p>
+ * The application runs with its own settings, so the repeated
+ * searches are answered from the second level cache as they would
+ * be in production. Every invocation searches the next keyword,
+ * author or period of the seeded data.
+ */
+@State(Scope.Benchmark)
+public class ArticleSearchBenchmark {
+
+    private static final int KEYWORDS = 50;
+
+    private static final int AUTHORS = 20;
+
+    private static final int DAYS = 365;
+
+    private static final int MINUTES = DAYS * 24 * 60;
+
+    private static final int KEYWORDS_PER_ARTICLE = 3;
+
+    private static final int PAGE_SIZE = 20;
+
+    private static final long SEED = 42;
+
+    @Param({ "1000", "10000" })
+    private int articles;
+
+    @Param({ "jpa", "index", "lucene" })
+    private String engine;
+
+    private ConfigurableApplicationContext context;
+
+    private ArticleService articleService;
+
+    private final List<String> authorIds = new ArrayList<>();
+
+    private final LocalDateTime now = LocalDateTime.now();
+
+    private final Pageable pageable = new PageRequest(0, PAGE_SIZE);
+
+    private int next;
+
+    /**
+     * Start the application and seed the database.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(Bootstrap.class)
+                .web(false)
+                .run("--news.search.engine=" + engine,
+                        "--logging.level.root=WARN");
+        articleService = context.getBean(ArticleService.class);
+        AuthorService authorService = context.getBean(AuthorService.class);
+        List<Author> authors = new ArrayList<>();
+        for (int i = 0; i < AUTHORS; i++) {
+            Author author = authorService.save(Author.builder()
+                    .id(authorService.generateId())
+                    .firstName("First" + i)
+                    .lastName("Last" + i)
+                    .build());
+            authors.add(author);
+            authorIds.add(author.getId());
+        }
+        Random random = new Random(SEED);
+        context.getBean(ArticleBatchService.class).save(IntStream
+                .range(0, articles)
+                .mapToObj(i -> article(i, random, authors))
+                .iterator());
+    }
+
+    /**
+     * Stop the application.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * Search by keyword.
+     *
+     * @return articles
+     */
+    @Benchmark
+    public Page<Article> searchByKeyword() {
+        return articleService.getAllByKeyword(pageable,
+                keyword(next++ % KEYWORDS));
+    }
+
+    /**
+     * Search by author.
+     *
+     * @return articles
+     */
+    @Benchmark
+    public Page<Article> searchByAuthor() {
+        return articleService.getAllByAuthor(pageable,
+                authorIds.get(next++ % AUTHORS));
+    }
+
+    /**
+     * Search the articles published in a week.
+     *
+     * @return articles
+     */
+    @Benchmark
+    public Page<Article> searchPublishedBetween() {
+        LocalDateTime start = now.minusDays(next++ % DAYS);
+        return articleService.getAllPublishedBetween(pageable,
+                start, start.plusWeeks(1));
+    }
+
+    /**
+     * Full text search.
+     *
+     * @return articles
+     */
+    @Benchmark
+    public Page<Article> searchByText() {
+        return articleService.searchByText(pageable,
+                keyword(next++ % KEYWORDS));
+    }
+
+    private Article article(final int index,
+                            final Random random,
+                            final List<Author> authors) {
+        List<String> keywords = new ArrayList<>();
+        for (int i = 0; i < KEYWORDS_PER_ARTICLE; i++) {
+            keywords.add(keyword(random.nextInt(KEYWORDS)));
+        }
+        return Article.builder()
+                .id(UUID.randomUUID().toString())
+                .header("Header " + index + " " + keywords.get(0))
+                .description("Description of article " + index)
+                .text("Text of article " + index + " about "
+                        + String.join(" ", keywords))
+                .publishDate(now.minusMinutes(random.nextInt(MINUTES)))
+                .keywords(new HashSet<>(keywords))
+                .authors(new HashSet<>(Arrays.asList(
+                        authors.get(random.nextInt(AUTHORS)))))
+                .build();
+    }
+
+    private static String keyword(final int index) {
+        return "keyword" + index;
+    }
+}
@@ -0,0 +1,82 @@
+package com.github.atdi.news.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.atdi.news.model.Article;
+import com.github.atdi.news.model.Author;
+import com.github.atdi.news.server.util.JacksonContextResolver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.UUID;
+
+/**
+ * Benchmark of the article JSON mapping, with the object mapper
+ * of the jersey JSON provider.
+ */
+@State(Scope.Benchmark)
+public class ArticleSerializationBenchmark {
+
+    @Param({ "600", "6000" })
+    private int textLength;
+
+    private ObjectMapper objectMapper;
+
+    private Article article;
+
+    private byte[] json;
+
+    /**
+     * Build the article and its JSON.
+     *
+     * @throws IOException if the article can't be serialized
+     */
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = new JacksonContextResolver().getContext(Article.class);
+        char[] text = new char[textLength];
+        Arrays.fill(text, 'a');
+        article = Article.builder()
+                .id(UUID.randomUUID().toString())
+                .header("Benchmark header")
+                .description("Benchmark description of the article")
+                .text(new String(text))
+                .publishDate(LocalDateTime.now())
+                .keywords(new HashSet<>(Arrays.asList("java", "jmh", "news")))
+                .authors(new HashSet<>(Arrays.asList(Author.builder()
+                        .id(UUID.randomUUID().toString())
+                        .firstName("First")
+                        .lastName("Last")
+                        .build())))
+                .build();
+        json = objectMapper.writeValueAsBytes(article);
+    }
+
+    /**
+     * Serialize the article.
+     *
+     * @return JSON
+     * @throws IOException if the article can't be serialized
+     */
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return objectMapper.writeValueAsBytes(article);
+    }
+
+    /**
+     * Deserialize the article.
+     *
+     * @return article
+     * @throws IOException if the JSON can't be read
+     */
+    @Benchmark
+    public Article deserialize() throws IOException {
+        return objectMapper.readValue(json, Article.class);
+    }
+}
@@ -0,0 +1,48 @@
+package com.github.atdi.news.benchmarks;
+
+import com.github.atdi.news.server.services.IdGenerator;
+import com.github.atdi.news.server.services.RandomIdGenerator;
+import com.github.atdi.news.server.services.TimeOrderedIdGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * Benchmark of the id generators, shared by several threads.
+ */
+@State(Scope.Benchmark)
+@Threads(4)
+public class IdGeneratorBenchmark {
+
+    private static final String TIME_ORDERED = "time-ordered";
+
+    @Param({ "random", TIME_ORDERED })
+    private String generator;
+
+    private IdGenerator idGenerator;
+
+    /**
+     * Create the generator.
+     */
+    @Setup
+    public void setUp() {
+        if (TIME_ORDERED.equals(generator)) {
+            idGenerator = new TimeOrderedIdGenerator();
+        } else {
+            idGenerator = new RandomIdGenerator();
+        }
+    }
+
+    /**
+     * Generate an id.
+     *
+     * @return id
+     */
+    @Benchmark
+    public String generateId() {
+        return idGenerator.generateId();
+    }
+}
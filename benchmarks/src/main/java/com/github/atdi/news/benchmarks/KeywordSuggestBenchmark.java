@@ -0,0 +1,71 @@
+package com.github.atdi.news.benchmarks;
+
+import com.github.atdi.news.model.KeywordCount;
+import com.github.atdi.news.server.services.KeywordTrie;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the keyword suggestions, over a trie of random
+ * keywords whose weights follow a power law.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class KeywordSuggestBenchmark {
+
+    private static final int ALPHABET = 26;
+
+    private static final int MIN_LENGTH = 3;
+
+    private static final int MAX_LENGTH = 12;
+
+    private static final int MAX_WEIGHT = 10000;
+
+    private static final int LIMIT = 10;
+
+    @Param({ "100000" })
+    private int keywords;
+
+    @Param({ "j", "ja", "jav" })
+    private String prefix;
+
+    private final KeywordTrie trie = new KeywordTrie();
+
+    /**
+     * Fill the trie.
+     */
+    @Setup
+    public void setUp() {
+        Random random = new Random(keywords);
+        for (int i = 0; i < keywords; i++) {
+            int length = MIN_LENGTH + random.nextInt(MAX_LENGTH - MIN_LENGTH);
+            StringBuilder keyword = new StringBuilder(length);
+            for (int j = 0; j < length; j++) {
+                keyword.append((char) ('a' + random.nextInt(ALPHABET)));
+            }
+            trie.add(keyword.toString(),
+                    1 + (int) (MAX_WEIGHT / (1 + random.nextInt(MAX_WEIGHT))));
+        }
+    }
+
+    /**
+     * Suggest the heaviest keywords of the prefix.
+     *
+     * @return keywords
+     */
+    @Benchmark
+    public List<KeywordCount> suggest() {
+        return trie.suggest(prefix, LIMIT);
+    }
+}
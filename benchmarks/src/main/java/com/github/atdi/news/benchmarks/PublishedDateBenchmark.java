@@ -0,0 +1,80 @@
+package com.github.atdi.news.benchmarks;
+
+import com.github.atdi.news.server.resources.ArticleResource;
+import com.github.atdi.news.server.services.ArticleSearchService;
+import com.github.atdi.news.server.services.ArticleService;
+import com.github.atdi.news.server.services.SearchExecutor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import javax.ws.rs.container.AsyncResponse;
+import java.lang.reflect.Proxy;
+
+/**
+ * Benchmark of the published date listing request handling,
+ * the search service returns nothing and the search executor runs
+ * on the calling thread, so the date parsing and the dispatch are
+ * measured.
+ */
+@State(Scope.Benchmark)
+public class PublishedDateBenchmark {
+
+    private static final String START_DATE = "2015-10-01T00:00:00";
+
+    private static final String END_DATE = "2015-12-01T10:30:00";
+
+    private static final int SIZE = 10;
+
+    private static final long TIMEOUT = 1000;
+
+    private ArticleResource articleResource;
+
+    private AsyncResponse asyncResponse;
+
+    /**
+     * Build the resource.
+     */
+    @Setup
+    public void setUp() {
+        ArticleSearchService searchService = (ArticleSearchService) Proxy
+                .newProxyInstance(ArticleSearchService.class.getClassLoader(),
+                        new Class<?>[]{ArticleSearchService.class},
+                        (proxy, method, args) -> null);
+        articleResource = new ArticleResource(
+                new ArticleService(null, searchService, null, null, null,
+                        null),
+                null,
+                null,
+                new SearchExecutor(Runnable::run, TIMEOUT),
+                null);
+        asyncResponse = (AsyncResponse) Proxy.newProxyInstance(
+                AsyncResponse.class.getClassLoader(),
+                new Class<?>[]{AsyncResponse.class},
+                (proxy, method, args) -> {
+                    if (method.getReturnType() == boolean.class) {
+                        return true;
+                    }
+                    return null;
+                });
+    }
+
+    /**
+     * List the articles published between two dates.
+     */
+    @Benchmark
+    public void publishedBetween() {
+        articleResource.getByPublishedDate(asyncResponse, START_DATE,
+                END_DATE, 0, SIZE, null, null);
+    }
+
+    /**
+     * List the articles published after a date.
+     */
+    @Benchmark
+    public void publishedAfter() {
+        articleResource.getByPublishedDate(asyncResponse, START_DATE,
+                null, 0, SIZE, null, null);
+    }
+}
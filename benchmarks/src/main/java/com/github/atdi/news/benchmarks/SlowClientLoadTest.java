@@ -0,0 +1,235 @@
+package com.github.atdi.news.benchmarks;
+
+import com.github.atdi.news.server.Bootstrap;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.embedded.EmbeddedWebApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test of the server with slow clients.
+ * <p>
+ * Every client saves an author, it sends the request headers with
+ * Expect: 100-continue and only once the server has started reading
+ * the request, i.e. once a server thread is busy with it, trickles
+ * the body over the given number of seconds. The concurrency ceiling
+ * is the highest number of requests the server was reading at once,
+ * with platform threads it's the tomcat pool size, with virtual
+ * threads it's the number of clients.
+ * <p>
+ * Arguments: clients (1000), seconds (2), virtual (false). The
+ * virtual threads mode needs a Java 21 runtime. All the clients are
+ * driven by a single selector thread, so the peak thread count is
+ * the server's.
+ */
+public final class SlowClientLoadTest {
+
+    private static final int DEFAULT_CLIENTS = 1000;
+
+    private static final int DEFAULT_SECONDS = 2;
+
+    private static final int CHUNKS = 10;
+
+    private static final int BUFFER_SIZE = 1024;
+
+    private static final long TIMEOUT_MINUTES = 5;
+
+    private static final String CONTINUE = "HTTP/1.1 100";
+
+    private static final String HEADERS_END = "\r\n\r\n";
+
+    private static final String STATUS_OK = "HTTP/1.1 200";
+
+    private SlowClientLoadTest() {
+    }
+
+    /**
+     * Start the server and run the slow clients against it.
+     *
+     * @param args clients, seconds and virtual
+     * @throws IOException if a client connection fails
+     */
+    public static void main(final String[] args) throws IOException {
+        int clients = DEFAULT_CLIENTS;
+        int seconds = DEFAULT_SECONDS;
+        boolean virtual = false;
+        if (args.length > 0) {
+            clients = Integer.parseInt(args[0]);
+        }
+        if (args.length > 1) {
+            seconds = Integer.parseInt(args[1]);
+        }
+        if (args.length > 2) {
+            virtual = Boolean.parseBoolean(args[2]);
+        }
+        ConfigurableApplicationContext context =
+                new SpringApplicationBuilder(Bootstrap.class)
+                        .run("--server.port=0",
+                                "--news.threads.virtual=" + virtual,
+                                "--logging.level.root=WARN");
+        try {
+            int port = ((EmbeddedWebApplicationContext) context)
+                    .getEmbeddedServletContainer().getPort();
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            threads.resetPeakThreadCount();
+            long start = System.nanoTime();
+            Result result = run(port, clients,
+                    TimeUnit.SECONDS.toNanos(seconds) / CHUNKS);
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(
+                    System.nanoTime() - start);
+            System.out.printf("virtual threads: %s%n"
+                            + "clients: %d, body sent over %d s%n"
+                            + "elapsed: %d ms%n"
+                            + "successful requests: %d%n"
+                            + "concurrency ceiling: %d requests%n"
+                            + "peak live threads: %d%n",
+                    virtual, clients, seconds, elapsed, result.successful,
+                    result.peakConcurrency, threads.getPeakThreadCount());
+        } finally {
+            context.close();
+        }
+    }
+
+    private static Result run(final int port,
+                              final int clients,
+                              final long chunkInterval) throws IOException {
+        Result result = new Result();
+        List<Client> sending = new ArrayList<>();
+        int done = 0;
+        try (Selector selector = Selector.open()) {
+            for (int i = 0; i < clients; i++) {
+                Client client = new Client(port);
+                client.channel.register(selector, SelectionKey.OP_READ,
+                        client);
+            }
+            long deadline = System.nanoTime()
+                    + TimeUnit.MINUTES.toNanos(TIMEOUT_MINUTES);
+            long nextChunk = System.nanoTime();
+            while (done < clients && System.nanoTime() < deadline) {
+                long wait = Math.max(1, TimeUnit.NANOSECONDS.toMillis(
+                        nextChunk - System.nanoTime()));
+                selector.select(wait);
+                for (SelectionKey key : selector.selectedKeys()) {
+                    Client client = (Client) key.attachment();
+                    if (!client.read()) {
+                        if (client.streaming) {
+                            result.concurrency--;
+                            sending.remove(client);
+                        }
+                        if (client.response.startsWith(STATUS_OK)) {
+                            result.successful++;
+                        }
+                        key.cancel();
+                        client.channel.close();
+                        done++;
+                    } else if (client.isContinued()) {
+                        client.streaming = true;
+                        sending.add(client);
+                        result.concurrency++;
+                        result.peakConcurrency = Math.max(
+                                result.peakConcurrency, result.concurrency);
+                    }
+                }
+                selector.selectedKeys().clear();
+                if (System.nanoTime() >= nextChunk) {
+                    for (Client client : sending) {
+                        client.writeChunk();
+                    }
+                    nextChunk = System.nanoTime() + chunkInterval;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Load test result.
+     */
+    private static final class Result {
+
+        private int concurrency;
+
+        private int peakConcurrency;
+
+        private int successful;
+    }
+
+    /**
+     * Slow client, saving an author.
+     */
+    private static final class Client {
+
+        private final SocketChannel channel;
+
+        private final byte[] body;
+
+        private final ByteBuffer readBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+        private String response = "";
+
+        private boolean streaming;
+
+        private int chunk;
+
+        Client(final int port) throws IOException {
+            String id = UUID.randomUUID().toString();
+            body = ("{\"id\":\"" + id + "\",\"firstName\":\"Slow\","
+                    + "\"lastName\":\"Client\"}")
+                    .getBytes(StandardCharsets.UTF_8);
+            channel = SocketChannel.open(
+                    new InetSocketAddress("localhost", port));
+            channel.write(ByteBuffer.wrap(("PUT /api/author/" + id
+                    + " HTTP/1.1\r\n"
+                    + "Host: localhost\r\n"
+                    + "Content-Type: application/json\r\n"
+                    + "Content-Length: " + body.length + "\r\n"
+                    + "Expect: 100-continue\r\n"
+                    + "Connection: close" + HEADERS_END)
+                    .getBytes(StandardCharsets.US_ASCII)));
+            channel.configureBlocking(false);
+        }
+
+        boolean read() throws IOException {
+            readBuffer.clear();
+            int read = channel.read(readBuffer);
+            if (read > 0) {
+                response += new String(readBuffer.array(), 0, read,
+                        StandardCharsets.US_ASCII);
+            }
+            return read >= 0;
+        }
+
+        boolean isContinued() {
+            if (!streaming && response.startsWith(CONTINUE)
+                    && response.contains(HEADERS_END)) {
+                response = response.substring(
+                        response.indexOf(HEADERS_END) + HEADERS_END.length());
+                return true;
+            }
+            return false;
+        }
+
+        void writeChunk() throws IOException {
+            int chunkSize = (body.length + CHUNKS - 1) / CHUNKS;
+            int offset = chunk * chunkSize;
+            if (offset < body.length) {
+                channel.write(ByteBuffer.wrap(body, offset,
+                        Math.min(chunkSize, body.length - offset)));
+                chunk++;
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.github.atdi.news.benchmarks;
+
+import com.github.atdi.news.server.util.UUIDUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.UUID;
+
+/**
+ * Benchmark of the uuid check done on every id path parameter.
+ */
+@State(Scope.Benchmark)
+public class UUIDBenchmark {
+
+    private final String id = UUID.randomUUID().toString();
+
+    /**
+     * Check a valid uuid.
+     *
+     * @return checked uuid
+     */
+    @Benchmark
+    public String checkUUID() {
+        UUIDUtils.checkUUID(id);
+        return id;
+    }
+}
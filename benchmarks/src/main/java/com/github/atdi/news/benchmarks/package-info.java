@@ -0,0 +1,5 @@
+/**
+ * JMH benchmarks of the service hot paths, run them with
+ * ./gradlew :benchmarks:jmh.
+ */
+package com.github.atdi.news.benchmarks;
@@ -1,5 +1,6 @@
 package com.github.atdi.news.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
@@ -8,6 +9,8 @@ import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 
+import javax.persistence.Cacheable;
+import javax.persistence.CollectionTable;
 import javax.persistence.Column;
 import javax.persistence.ElementCollection;
 import javax.persistence.Entity;
@@ -30,6 +33,7 @@ import java.util.Set;
 @JsonInclude(JsonInclude.Include.NON_NULL)
 @Table(name = "articles")
 @Entity
+@Cacheable
 @Getter
 @Builder(toBuilder = true)
 @EqualsAndHashCode(of = { "id" })
@@ -56,7 +60,18 @@ public class Article {
     @Column(name = "publish_date")
     private LocalDateTime publishDate;
 
+    @JsonIgnore
+    private long version;
+
+    @JsonIgnore
+    private long generation;
+
     @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(
+            name = "article_keywords",
+            joinColumns = {@JoinColumn(name = "article_id",
+                    referencedColumnName = "id")})
+    @Column(name = "keyword")
     @NotNull
     private Set<String> keywords;
 
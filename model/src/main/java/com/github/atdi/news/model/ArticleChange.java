@@ -0,0 +1,64 @@
+package com.github.atdi.news.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * Entry of the article change feed.
+ * <p>
+ * The sequence numbers increase with every save or delete, the
+ * version is the saved version of the article, 0 for deletes.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Table(name = "article_changes")
+@Entity
+@Getter
+@Builder(toBuilder = true)
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class ArticleChange {
+
+    @Id
+    @Column(name = "sequence_number")
+    private long sequence;
+
+    @Column(name = "article_id")
+    private String articleId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "change_type")
+    private Type type;
+
+    private long version;
+
+    @Column(name = "change_time")
+    private LocalDateTime changeTime;
+
+    /**
+     * Change types.
+     */
+    public enum Type {
+
+        /**
+         * Article was created or updated.
+         */
+        SAVED,
+
+        /**
+         * Article was deleted.
+         */
+        DELETED
+    }
+}
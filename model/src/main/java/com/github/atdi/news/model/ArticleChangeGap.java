@@ -0,0 +1,35 @@
+package com.github.atdi.news.model;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * Sequence numbers of the article change feed skipped on a start.
+ * <p>
+ * The changes not spilled when the server stopped abruptly are
+ * lost, their numbers may have been read already, so the sequence
+ * continues after them and they are never given to other changes.
+ */
+@Table(name = "article_change_gaps")
+@Entity
+@Getter
+@Builder(toBuilder = true)
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class ArticleChangeGap {
+
+    @Id
+    @Column(name = "first_sequence")
+    private long first;
+
+    @Column(name = "last_sequence")
+    private long last;
+}
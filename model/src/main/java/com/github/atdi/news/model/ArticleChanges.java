@@ -0,0 +1,28 @@
+package com.github.atdi.news.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Changes of the article change feed following a sequence number.
+ * <p>
+ * The next changes are requested by sending back the last sequence
+ * number, which is the requested one when there are no changes.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@Getter
+@Builder(toBuilder = true)
+public class ArticleChanges {
+
+    private List<ArticleChange> changes;
+
+    private long last;
+}
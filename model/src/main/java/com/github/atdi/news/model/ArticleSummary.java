@@ -0,0 +1,33 @@
+package com.github.atdi.news.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Article summary, the fields rendered by article listings.
+ * <p>
+ * The text, keywords and authors of the article are left out.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Getter
+@Builder(toBuilder = true)
+@EqualsAndHashCode(of = { "id" })
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+@AllArgsConstructor
+public class ArticleSummary {
+
+    private String id;
+
+    private String header;
+
+    private String description;
+
+    private LocalDateTime publishDate;
+}
@@ -9,6 +9,7 @@ import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.Id;
@@ -26,6 +27,7 @@ import java.util.Set;
 @JsonInclude(JsonInclude.Include.NON_NULL)
 @Table(name = "authors")
 @Entity
+@Cacheable
 @Getter
 @Builder(toBuilder = true)
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
@@ -47,6 +49,9 @@ public class Author {
     @NotNull
     private String lastName;
 
+    @JsonIgnore
+    private long version;
+
     @JsonIgnore
     @ManyToMany(mappedBy = "authors")
     private Set<Article> articles;
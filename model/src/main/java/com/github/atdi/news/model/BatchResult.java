@@ -0,0 +1,30 @@
+package com.github.atdi.news.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Result of one item of a batch request.
+ * <p>
+ * The status is 201 for created items, 200 for updated items
+ * and an error status, with a message, for rejected items.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@Getter
+@Builder(toBuilder = true)
+public class BatchResult {
+
+    private int index;
+
+    private String id;
+
+    private int status;
+
+    private String message;
+}
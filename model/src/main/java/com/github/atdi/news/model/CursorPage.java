@@ -0,0 +1,30 @@
+package com.github.atdi.news.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Page of a cursor based listing.
+ * <p>
+ * The next page is requested by sending back the next token,
+ * it is missing on the last page.
+ *
+ * @param <T> content type
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@Getter
+@Builder(toBuilder = true)
+public class CursorPage<T> {
+
+    private List<T> content;
+
+    private String next;
+}
@@ -0,0 +1,30 @@
+package com.github.atdi.news.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Number of articles published per hour or per day.
+ * <p>
+ * Only the buckets with published articles are listed, in
+ * chronological order, the total is the sum of their counts.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@Getter
+@Builder(toBuilder = true)
+public class DateHistogram {
+
+    private String bucket;
+
+    private long total;
+
+    private List<DateBucket> buckets;
+}
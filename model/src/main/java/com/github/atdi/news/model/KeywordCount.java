@@ -0,0 +1,29 @@
+package com.github.atdi.news.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Approximate number of occurrences of a keyword.
+ * <p>
+ * The count may overestimate the real number of occurrences by up
+ * to error, it is never below it: the keyword occurred at least
+ * count - error times.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@Getter
+@Builder(toBuilder = true)
+public class KeywordCount {
+
+    private String keyword;
+
+    private long count;
+
+    private long error;
+}
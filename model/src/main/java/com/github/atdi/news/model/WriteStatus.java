@@ -0,0 +1,57 @@
+package com.github.atdi.news.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * State of an article accepted by the write-behind ingestion.
+ * <p>
+ * The status is 202 while the article is queued, then the status
+ * of its save: 201 created, 200 updated or an error status, with
+ * a message, for rejected or failed articles.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@Getter
+@Builder(toBuilder = true)
+public class WriteStatus {
+
+    private String id;
+
+    private State state;
+
+    private int status;
+
+    private String message;
+
+    /**
+     * Write states.
+     */
+    public enum State {
+
+        /**
+         * Waiting in the queue.
+         */
+        QUEUED,
+
+        /**
+         * Saved in the database.
+         */
+        SAVED,
+
+        /**
+         * Not saved, the article is invalid.
+         */
+        REJECTED,
+
+        /**
+         * Not saved, the database write failed.
+         */
+        FAILED
+    }
+}
@@ -0,0 +1,106 @@
+package com.github.atdi.news.server.config;
+
+import com.github.atdi.news.server.services.ArticleBatchService;
+import com.github.atdi.news.server.services.ArticleJournal;
+import com.github.atdi.news.server.services.ArticleWriteBehind;
+import com.github.atdi.news.server.services.IdGenerator;
+import com.github.atdi.news.server.services.repositories.ArticleJpaRepository;
+import com.github.atdi.news.server.services.repositories.AuthorJpaRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.inject.Inject;
+import javax.validation.Validation;
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * Spring config for batch ingestion.
+ * <p>
+ * With news.batch.write-behind=true the saved articles are queued
+ * and written in batches by the {@link ArticleWriteBehind}, journaled
+ * to news.batch.write-behind.journal when set.
+ */
+@Configuration
+public class BatchConfig {
+
+    @Inject
+    private ArticleJpaRepository articleJpaRepository;
+
+    @Inject
+    private AuthorJpaRepository authorJpaRepository;
+
+    @Inject
+    private ApplicationEventPublisher eventPublisher;
+
+    @Inject
+    private IdGenerator idGenerator;
+
+    @Value("${news.batch.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${news.batch.write-behind:false}")
+    private boolean writeBehind;
+
+    @Value("${news.batch.write-behind.queue-size:10000}")
+    private int queueSize;
+
+    @Value("${news.batch.write-behind.batch-size:500}")
+    private int batchSize;
+
+    @Value("${news.batch.write-behind.linger:50}")
+    private long linger;
+
+    @Value("${news.batch.write-behind.retries:3}")
+    private int retries;
+
+    @Value("${news.batch.write-behind.status-capacity:10000}")
+    private int statusCapacity;
+
+    @Value("${news.batch.write-behind.journal:}")
+    private String journal;
+
+    @Value("${news.batch.write-behind.journal.sync:false}")
+    private boolean journalSync;
+
+    /**
+     * Create the article batch service.
+     *
+     * @return article batch service
+     */
+    @Bean
+    public ArticleBatchService articleBatchService() {
+        return new ArticleBatchService(articleJpaRepository,
+                authorJpaRepository,
+                Validation.buildDefaultValidatorFactory().getValidator(),
+                eventPublisher,
+                idGenerator,
+                chunkSize);
+    }
+
+    /**
+     * Create the write-behind ingestion, started when enabled.
+     *
+     * @param articleBatchService article batch service
+     * @return write-behind ingestion
+     * @throws IOException if the journal can't be opened
+     */
+    @Bean(destroyMethod = "stop")
+    public ArticleWriteBehind articleWriteBehind(
+            final ArticleBatchService articleBatchService) throws IOException {
+        ArticleJournal articleJournal = null;
+        if (!journal.isEmpty()) {
+            articleJournal = new ArticleJournal(Paths.get(journal),
+                    journalSync, batchSize);
+        }
+        ArticleWriteBehind articleWriteBehind = new ArticleWriteBehind(
+                articleBatchService, articleJournal, queueSize, batchSize,
+                linger, retries, statusCapacity);
+        if (writeBehind) {
+            articleWriteBehind.start();
+        }
+        return articleWriteBehind;
+    }
+}
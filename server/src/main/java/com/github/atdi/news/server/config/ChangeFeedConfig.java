@@ -0,0 +1,39 @@
+package com.github.atdi.news.server.config;
+
+import com.github.atdi.news.server.services.ArticleChangeLog;
+import com.github.atdi.news.server.services.repositories.ArticleChangeJpaRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.inject.Inject;
+
+/**
+ * Spring config for the article change feed.
+ */
+@Configuration
+public class ChangeFeedConfig {
+
+    @Inject
+    private ArticleChangeJpaRepository articleChangeJpaRepository;
+
+    @Value("${news.changes.capacity:10000}")
+    private int capacity;
+
+    @Value("${news.changes.flush-interval:1}")
+    private long flushInterval;
+
+    @Value("${news.changes.overwrite-wait:1000}")
+    private long overwriteWait;
+
+    /**
+     * Create the article change log.
+     *
+     * @return article change log
+     */
+    @Bean
+    public ArticleChangeLog articleChangeLog() {
+        return new ArticleChangeLog(articleChangeJpaRepository, capacity,
+                flushInterval, overwriteWait);
+    }
+}
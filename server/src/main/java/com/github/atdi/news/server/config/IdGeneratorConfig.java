@@ -0,0 +1,36 @@
+package com.github.atdi.news.server.config;
+
+import com.github.atdi.news.server.services.IdGenerator;
+import com.github.atdi.news.server.services.RandomIdGenerator;
+import com.github.atdi.news.server.services.TimeOrderedIdGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Spring config for the id generation.
+ * <p>
+ * The generator is selected with the news.id.generator property:
+ * random or time-ordered (default), as set in application.properties.
+ */
+@Configuration
+public class IdGeneratorConfig {
+
+    private static final String TIME_ORDERED = "time-ordered";
+
+    @Value("${news.id.generator:time-ordered}")
+    private String generator;
+
+    /**
+     * Create the id generator.
+     *
+     * @return {@link RandomIdGenerator} or {@link TimeOrderedIdGenerator}
+     */
+    @Bean
+    public IdGenerator idGenerator() {
+        if (TIME_ORDERED.equals(generator)) {
+            return new TimeOrderedIdGenerator();
+        }
+        return new RandomIdGenerator();
+    }
+}
@@ -1,12 +1,16 @@
 package com.github.atdi.news.server.config;
 
 import com.fasterxml.jackson.jaxrs.json.JacksonJaxbJsonProvider;
+import com.github.atdi.news.server.datasource.ReadYourWritesListener;
+import com.github.atdi.news.server.metrics.RequestMetrics;
+import com.github.atdi.news.server.metrics.RequestMetricsListener;
 import com.github.atdi.news.server.util.JacksonContextResolver;
 import org.glassfish.jersey.server.ResourceConfig;
 import org.glassfish.jersey.server.ServerProperties;
 import org.glassfish.jersey.server.validation.ValidationError;
 import org.springframework.stereotype.Component;
 
+import javax.inject.Inject;
 import javax.ws.rs.ApplicationPath;
 
 /**
@@ -20,14 +24,19 @@ public class JerseyConfig extends ResourceConfig {
 
     /**
      * Register jersey resources.
+     *
+     * @param requestMetrics request metrics
      */
-    public JerseyConfig() {
+    @Inject
+    public JerseyConfig(final RequestMetrics requestMetrics) {
         property(ServerProperties.BV_SEND_ERROR_IN_RESPONSE, true);
         property(ServerProperties.
                 BV_DISABLE_VALIDATE_ON_EXECUTABLE_OVERRIDE_CHECK, true);
         register(ValidationError.class);
         register(JacksonJaxbJsonProvider.class);
         register(JacksonContextResolver.class);
+        register(new RequestMetricsListener(requestMetrics));
+        register(ReadYourWritesListener.class);
         packages("com.github.atdi.news.server.resources");
     }
 }
@@ -1,31 +1,78 @@
 package com.github.atdi.news.server.config;
 
+import com.github.atdi.news.server.services.ArticleIndexSearch;
 import com.github.atdi.news.server.services.ArticleJpaSearch;
+import com.github.atdi.news.server.services.ArticleLuceneSearch;
 import com.github.atdi.news.server.services.ArticleSearchService;
+import com.github.atdi.news.server.services.KeywordIndex;
 import com.github.atdi.news.server.services.repositories.ArticleJpaRepository;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.store.RAMDirectory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import javax.inject.Inject;
+import java.io.IOException;
+import java.nio.file.Paths;
 
 /**
  * Spring config for jpa search.
  * <p>
+ * The search engine is selected with the news.search.engine
+ * property: jpa (default), index or lucene.
+ * <p>
  * Created by aurelavramescu on 13/11/15.
  */
 @Configuration
 public class JpaSearchConfig {
 
+    private static final String INDEX_ENGINE = "index";
+
+    private static final String LUCENE_ENGINE = "lucene";
+
     @Inject
     private ArticleJpaRepository articleJpaRepository;
 
+    @Value("${news.search.engine:jpa}")
+    private String searchEngine;
+
+    @Value("${news.search.index.max-candidates:1000}")
+    private int indexMaxCandidates;
+
+    @Value("${news.search.lucene.directory:}")
+    private String luceneDirectory;
+
+    @Value("${news.search.lucene.commit-interval:5}")
+    private long luceneCommitInterval;
+
     /**
-     * Create article jpa search service.
+     * Create article search service.
      *
-     * @return {@link ArticleJpaSearch}
+     * @return {@link ArticleJpaSearch}, {@link ArticleIndexSearch}
+     * or {@link ArticleLuceneSearch}
+     * @throws IOException if the lucene directory can't be opened
      */
     @Bean
-    public ArticleSearchService articleSearchService() {
+    public ArticleSearchService articleSearchService() throws IOException {
+        if (INDEX_ENGINE.equals(searchEngine)) {
+            return new ArticleIndexSearch(articleJpaRepository,
+                    new KeywordIndex(),
+                    indexMaxCandidates);
+        }
+        if (LUCENE_ENGINE.equals(searchEngine)) {
+            return new ArticleLuceneSearch(articleJpaRepository,
+                    luceneDirectory(),
+                    luceneCommitInterval);
+        }
         return new ArticleJpaSearch(articleJpaRepository);
     }
+
+    private Directory luceneDirectory() throws IOException {
+        if (luceneDirectory.isEmpty()) {
+            return new RAMDirectory();
+        }
+        return FSDirectory.open(Paths.get(luceneDirectory));
+    }
 }
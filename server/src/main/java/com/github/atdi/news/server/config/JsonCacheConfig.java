@@ -0,0 +1,35 @@
+package com.github.atdi.news.server.config;
+
+import com.github.atdi.news.model.Article;
+import com.github.atdi.news.server.services.ArticleJsonCache;
+import com.github.atdi.news.server.util.JacksonContextResolver;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Spring config for the serialized article cache.
+ */
+@Configuration
+public class JsonCacheConfig {
+
+    @Value("${news.cache.json.max-entries:1000}")
+    private int maxEntries;
+
+    @Value("${news.cache.json.gzip:true}")
+    private boolean gzip;
+
+    /**
+     * Create the serialized article cache, it serializes with the
+     * same object mapper as the jersey JSON provider.
+     *
+     * @return article JSON cache
+     */
+    @Bean
+    public ArticleJsonCache articleJsonCache() {
+        return new ArticleJsonCache(
+                new JacksonContextResolver().getContext(Article.class),
+                maxEntries,
+                gzip);
+    }
+}
@@ -0,0 +1,54 @@
+package com.github.atdi.news.server.config;
+
+import com.github.atdi.news.server.metrics.MeteredDataSource;
+import com.github.atdi.news.server.metrics.RequestMetrics;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Spring config for the request metrics.
+ * <p>
+ * The data source is wrapped so the database statements are
+ * accounted to the request executing them.
+ */
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Create the request metrics.
+     *
+     * @return request metrics
+     */
+    @Bean
+    public RequestMetrics requestMetrics() {
+        return new RequestMetrics();
+    }
+
+    /**
+     * Wrap the data source with a {@link MeteredDataSource}.
+     *
+     * @return data source post processor
+     */
+    @Bean
+    public static BeanPostProcessor meteredDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(
+                    final Object bean, final String beanName) {
+                return bean;
+            }
+
+            @Override
+            public Object postProcessAfterInitialization(
+                    final Object bean, final String beanName) {
+                if (bean instanceof DataSource) {
+                    return MeteredDataSource.wrap((DataSource) bean);
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,84 @@
+package com.github.atdi.news.server.config;
+
+import com.github.atdi.news.server.datasource.AdaptivePoolSizer;
+import com.github.atdi.news.server.datasource.ConnectionPools;
+import com.github.atdi.news.server.datasource.PoolMonitoringPostProcessor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spring config for the connection pools.
+ * <p>
+ * The pools are tomcat jdbc pools configured with the
+ * spring.datasource properties, they are monitored and, with
+ * news.datasource.pool.adaptive=true, resized every interval seconds
+ * between min-active and max-active connections.
+ */
+@Configuration
+public class PoolConfig {
+
+    @Value("${news.datasource.pool.adaptive:false}")
+    private boolean adaptive;
+
+    @Value("${news.datasource.pool.adaptive.interval:10}")
+    private long interval;
+
+    @Value("${news.datasource.pool.adaptive.min-active:10}")
+    private int minActive;
+
+    @Value("${news.datasource.pool.adaptive.max-active:100}")
+    private int maxActive;
+
+    @Value("${news.datasource.pool.adaptive.step:5}")
+    private int step;
+
+    @Value("${news.datasource.pool.adaptive.target-wait:5}")
+    private long targetWait;
+
+    @Value("${news.datasource.pool.adaptive.latency-tolerance:2}")
+    private double latencyTolerance;
+
+    /**
+     * Create the pool registry, static as the data source post
+     * processors need it.
+     *
+     * @return pool registry
+     */
+    @Bean
+    public static ConnectionPools connectionPools() {
+        return new ConnectionPools();
+    }
+
+    /**
+     * Monitor the primary pool.
+     *
+     * @param connectionPools pool registry
+     * @return data source post processor
+     */
+    @Bean
+    public static PoolMonitoringPostProcessor poolMonitoringPostProcessor(
+            final ConnectionPools connectionPools) {
+        return new PoolMonitoringPostProcessor(connectionPools);
+    }
+
+    /**
+     * Create the pool sizer, started when adaptive sizing is enabled.
+     *
+     * @param connectionPools pool registry
+     * @return pool sizer
+     */
+    @Bean(destroyMethod = "stop")
+    public AdaptivePoolSizer adaptivePoolSizer(
+            final ConnectionPools connectionPools) {
+        AdaptivePoolSizer sizer = new AdaptivePoolSizer(connectionPools,
+                minActive, maxActive, step,
+                TimeUnit.MILLISECONDS.toNanos(targetWait), latencyTolerance);
+        if (adaptive) {
+            sizer.start(interval);
+        }
+        return sizer;
+    }
+}
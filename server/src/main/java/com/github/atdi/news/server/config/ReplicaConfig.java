@@ -0,0 +1,64 @@
+package com.github.atdi.news.server.config;
+
+import com.github.atdi.news.server.datasource.ConnectionPools;
+import com.github.atdi.news.server.datasource.ReplicaRoutingDataSource;
+import com.github.atdi.news.server.datasource.ReplicaRoutingPostProcessor;
+import com.github.atdi.news.server.datasource.TomcatReplicaPools;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+import java.util.Arrays;
+
+/**
+ * Spring config for the read replicas.
+ * <p>
+ * The read only transactions are routed to the replicas listed in
+ * news.datasource.replicas, comma separated jdbc urls, the replica
+ * is selected with news.datasource.replicas.selection: round-robin
+ * (default) or least-connections. The replicas are checked every
+ * news.datasource.replicas.check-interval seconds. For
+ * news.datasource.replicas.max-lag milliseconds after a write the
+ * reads go to the primary, the replicas may miss it. Without replicas
+ * everything goes to the primary data source.
+ */
+@Configuration
+public class ReplicaConfig {
+
+    private static final String LEAST_CONNECTIONS = "least-connections";
+
+    /**
+     * Create the replica routing post processor, static as it must be
+     * created before the data source.
+     *
+     * @param replicas        comma separated replica jdbc urls
+     * @param selection       replica selection
+     * @param checkInterval   health check interval in seconds
+     * @param maxLag          replica lag in milliseconds
+     * @param connectionPools pool registry, the replica pools are
+     *                        monitored too
+     * @return data source post processor
+     */
+    @Bean
+    public static ReplicaRoutingPostProcessor replicaRoutingPostProcessor(
+            @Value("${news.datasource.replicas:}") final String replicas,
+            @Value("${news.datasource.replicas.selection:round-robin}")
+            final String selection,
+            @Value("${news.datasource.replicas.check-interval:5}")
+            final long checkInterval,
+            @Value("${news.datasource.replicas.max-lag:2000}")
+            final long maxLag,
+            final ConnectionPools connectionPools) {
+        ReplicaRoutingDataSource.Selection replicaSelection =
+                ReplicaRoutingDataSource.Selection.ROUND_ROBIN;
+        if (LEAST_CONNECTIONS.equals(selection)) {
+            replicaSelection =
+                    ReplicaRoutingDataSource.Selection.LEAST_CONNECTIONS;
+        }
+        return new ReplicaRoutingPostProcessor(
+                Arrays.asList(StringUtils.tokenizeToStringArray(replicas, ",")),
+                replicaSelection, checkInterval, maxLag,
+                new TomcatReplicaPools(connectionPools));
+    }
+}
@@ -0,0 +1,66 @@
+package com.github.atdi.news.server.config;
+
+import com.github.atdi.news.server.services.BoundedExecutor;
+import com.github.atdi.news.server.services.SearchExecutor;
+import com.github.atdi.news.server.util.VirtualThreads;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Spring config for the search executor.
+ * <p>
+ * The searches run on a fixed pool of news.search.async.threads
+ * threads with a queue of news.search.async.queue-size searches,
+ * 0 threads runs them on the request threads. In the virtual threads
+ * mode every search runs on its own virtual thread and at most
+ * threads + queue-size searches are accepted, the database
+ * connection pool bounds the searches actually running.
+ */
+@Configuration
+public class SearchExecutorConfig {
+
+    @Value("${news.search.async.threads:8}")
+    private int threads;
+
+    @Value("${news.search.async.queue-size:100}")
+    private int queueSize;
+
+    @Value("${news.search.async.timeout:5000}")
+    private long timeout;
+
+    @Value("${news.threads.virtual:false}")
+    private boolean virtual;
+
+    /**
+     * Create the search executor.
+     *
+     * @return search executor
+     */
+    @Bean
+    public SearchExecutor searchExecutor() {
+        if (threads == 0) {
+            return new SearchExecutor(Runnable::run, timeout);
+        }
+        if (virtual) {
+            return new SearchExecutor(new BoundedExecutor(
+                    VirtualThreads.newExecutor("search-"),
+                    threads + queueSize), timeout);
+        }
+        AtomicInteger count = new AtomicInteger();
+        return new SearchExecutor(new ThreadPoolExecutor(threads, threads,
+                0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                runnable -> {
+                    Thread thread = new Thread(runnable,
+                            "search-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }), timeout);
+    }
+}
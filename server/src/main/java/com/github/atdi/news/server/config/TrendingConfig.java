@@ -0,0 +1,39 @@
+package com.github.atdi.news.server.config;
+
+import com.github.atdi.news.server.services.TrendingKeywords;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spring config for the trending keywords.
+ */
+@Configuration
+public class TrendingConfig {
+
+    @Value("${news.trending.capacity:100}")
+    private int capacity;
+
+    @Value("${news.trending.slot-minutes:5}")
+    private int slotMinutes;
+
+    @Value("${news.trending.slots:288}")
+    private int slots;
+
+    @Value("${news.trending.queries:true}")
+    private boolean queries;
+
+    /**
+     * Create the trending keywords, the longest window is the number
+     * of slots times their duration.
+     *
+     * @return trending keywords
+     */
+    @Bean
+    public TrendingKeywords trendingKeywords() {
+        return new TrendingKeywords(capacity,
+                TimeUnit.MINUTES.toMillis(slotMinutes), slots, queries);
+    }
+}
@@ -0,0 +1,65 @@
+package com.github.atdi.news.server.config;
+
+import com.github.atdi.news.server.util.VirtualThreads;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.coyote.AbstractProtocol;
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.embedded.EmbeddedServletContainerCustomizer;
+import org.springframework.boot.context.embedded.tomcat.TomcatEmbeddedServletContainerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Spring config for the virtual threads mode.
+ * <p>
+ * With news.threads.virtual=true the searches, and so the repository
+ * calls, run on virtual threads from Java 21, see
+ * {@link SearchExecutorConfig}. From Java 24 every request is also
+ * served on its own virtual thread instead of the tomcat worker pool,
+ * the number of open connections is then bounded by
+ * news.threads.virtual.max-connections. Tomcat 8 processes a request
+ * while holding the socket monitor, on older runtimes the request
+ * threads would pin the few carrier threads, so tomcat keeps its
+ * worker pool.
+ */
+@Slf4j
+@Configuration
+public class VirtualThreadConfig {
+
+    @Value("${news.threads.virtual:false}")
+    private boolean virtual;
+
+    @Value("${news.threads.virtual.max-connections:10000}")
+    private int maxConnections;
+
+    /**
+     * Replace the tomcat worker pool with virtual threads when enabled.
+     *
+     * @return container customizer
+     */
+    @Bean
+    public EmbeddedServletContainerCustomizer virtualThreadsCustomizer() {
+        return container -> {
+            if (!virtual || !(container
+                    instanceof TomcatEmbeddedServletContainerFactory)) {
+                return;
+            }
+            if (VirtualThreads.isMonitorUnpinned()) {
+                ((TomcatEmbeddedServletContainerFactory) container)
+                        .addConnectorCustomizers(connector ->
+                                useVirtualThreads(
+                                        connector.getProtocolHandler()));
+            } else {
+                log.warn("Tomcat requests run on platform threads, "
+                        + "virtual threads would be pinned before Java 24");
+            }
+        };
+    }
+
+    private void useVirtualThreads(final ProtocolHandler protocolHandler) {
+        AbstractProtocol<?> protocol = (AbstractProtocol<?>) protocolHandler;
+        protocol.setExecutor(VirtualThreads.newExecutor("http-"));
+        protocol.setMaxConnections(maxConnections);
+    }
+}
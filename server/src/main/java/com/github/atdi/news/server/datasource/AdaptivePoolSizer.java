@@ -0,0 +1,152 @@
+package com.github.atdi.news.server.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resizes the connection pools from their wait and usage times.
+ * <p>
+ * Every interval each pool is resized by a step, within the limits:
+ * <ul>
+ * <li>shrunk when the mean usage time is above the tolerance times
+ * its baseline, the database is slowing down and more concurrent
+ * transactions would only queue there,</li>
+ * <li>else grown when the mean wait time is above the target or a
+ * get timed out,</li>
+ * <li>else shrunk when the peak of connections in use stayed a step
+ * below the size.</li>
+ * </ul>
+ * The baseline is the lowest mean usage time seen, drifting up by
+ * 5% an interval, so a lasting change of the workload becomes the
+ * new baseline.
+ */
+@Slf4j
+public class AdaptivePoolSizer {
+
+    private static final double BASELINE_DRIFT = 1.05;
+
+    private final ConnectionPools connectionPools;
+
+    private final int minActive;
+
+    private final int maxActive;
+
+    private final int step;
+
+    private final long targetWaitNanos;
+
+    private final double latencyTolerance;
+
+    private final Map<MonitoredPool, Double> baselines =
+            new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService resizer;
+
+    /**
+     * Constructor.
+     *
+     * @param connectionPools  pools to resize
+     * @param minActive        smallest pool size
+     * @param maxActive        largest pool size
+     * @param step             connections added or removed at once
+     * @param targetWaitNanos  mean wait time above which a pool grows
+     * @param latencyTolerance mean usage time over its baseline above
+     *                         which a pool shrinks
+     */
+    public AdaptivePoolSizer(final ConnectionPools connectionPools,
+                             final int minActive,
+                             final int maxActive,
+                             final int step,
+                             final long targetWaitNanos,
+                             final double latencyTolerance) {
+        this.connectionPools = connectionPools;
+        this.minActive = minActive;
+        this.maxActive = maxActive;
+        this.step = step;
+        this.targetWaitNanos = targetWaitNanos;
+        this.latencyTolerance = latencyTolerance;
+        connectionPools.addUnregisterListener(baselines::remove);
+    }
+
+    /**
+     * Resize the pools every interval.
+     *
+     * @param interval resize interval in seconds
+     */
+    public synchronized void start(final long interval) {
+        if (resizer != null) {
+            return;
+        }
+        resizer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "pool-resizer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        resizer.scheduleWithFixedDelay(this::resize,
+                interval, interval, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stop resizing the pools.
+     */
+    public synchronized void stop() {
+        if (resizer != null) {
+            resizer.shutdown();
+            resizer = null;
+        }
+    }
+
+    /**
+     * Resize every pool from its last window.
+     */
+    public void resize() {
+        for (MonitoredPool pool : connectionPools.getPools()) {
+            int size = pool.getMaxActive();
+            int next = nextSize(pool, size, pool.window());
+            if (next != size) {
+                log.info("Pool {} resized from {} to {} connections",
+                        pool.getName(), size, next);
+                pool.setMaxActive(next);
+            }
+        }
+    }
+
+    /**
+     * Size of a pool after a window.
+     *
+     * @param pool   pool, its usage baseline is updated
+     * @param size   current size
+     * @param window measures of the window
+     * @return next size
+     */
+    int nextSize(final MonitoredPool pool,
+                 final int size,
+                 final MonitoredPool.Window window) {
+        long usage = window.getMeanUsageNanos();
+        boolean slower = false;
+        if (usage >= 0) {
+            double baseline = baselines.getOrDefault(pool, (double) usage);
+            slower = usage > baseline * latencyTolerance;
+            baselines.put(pool, Math.min(usage, baseline * BASELINE_DRIFT));
+            if (!connectionPools.getPools().contains(pool)) {
+                // unregistered while resized
+                baselines.remove(pool);
+            }
+        }
+        int next = size;
+        if (slower) {
+            next = size - step;
+        } else if (window.getMeanWaitNanos() > targetWaitNanos
+                || window.getTimeouts() > 0) {
+            next = size + step;
+        } else if (window.getPeakActive() <= size - step) {
+            next = size - step;
+        }
+        return Math.max(minActive, Math.min(maxActive, next));
+    }
+}
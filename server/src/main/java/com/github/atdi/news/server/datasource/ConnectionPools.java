@@ -0,0 +1,116 @@
+package com.github.atdi.news.server.datasource;
+
+import org.apache.tomcat.jdbc.pool.DataSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static com.github.atdi.news.server.metrics.PrometheusText.family;
+import static com.github.atdi.news.server.metrics.PrometheusText.label;
+import static com.github.atdi.news.server.metrics.PrometheusText.sample;
+import static com.github.atdi.news.server.metrics.PrometheusText.summary;
+
+/**
+ * Connection pools of the server, the primary one and the replica
+ * ones, and their metrics in the Prometheus text format.
+ */
+public class ConnectionPools {
+
+    private static final double NANOS_PER_SECOND =
+            TimeUnit.SECONDS.toNanos(1);
+
+    private final List<MonitoredPool> pools = new CopyOnWriteArrayList<>();
+
+    private final List<Consumer<MonitoredPool>> unregisterListeners =
+            new CopyOnWriteArrayList<>();
+
+    /**
+     * Monitor a pool.
+     *
+     * @param name pool name
+     * @param pool tomcat jdbc pool
+     * @return monitored pool
+     */
+    public MonitoredPool register(final String name, final DataSource pool) {
+        MonitoredPool monitored = new MonitoredPool(name, pool);
+        pools.add(monitored);
+        return monitored;
+    }
+
+    /**
+     * Stop monitoring a pool.
+     *
+     * @param pool monitored pool
+     */
+    public void unregister(final MonitoredPool pool) {
+        if (pools.remove(pool)) {
+            unregisterListeners.forEach(listener -> listener.accept(pool));
+        }
+    }
+
+    /**
+     * Notify a listener of the pools no longer monitored, to drop
+     * what it keeps about them.
+     *
+     * @param listener listener, called with the unregistered pool
+     */
+    public void addUnregisterListener(
+            final Consumer<MonitoredPool> listener) {
+        unregisterListeners.add(listener);
+    }
+
+    /**
+     * Monitored pools, in their registration order.
+     *
+     * @return pools
+     */
+    public List<MonitoredPool> getPools() {
+        return new ArrayList<>(pools);
+    }
+
+    /**
+     * Write the pool metrics in the Prometheus text format.
+     *
+     * @return metrics
+     */
+    public String scrape() {
+        StringBuilder out = new StringBuilder();
+        List<MonitoredPool> current = getPools();
+        family(out, "news_db_pool_connections", "gauge",
+                "Open connections by state.");
+        for (MonitoredPool pool : current) {
+            sample(out, "news_db_pool_connections",
+                    labels(pool) + ",state=\"active\"", pool.getActive());
+            sample(out, "news_db_pool_connections",
+                    labels(pool) + ",state=\"idle\"", pool.getIdle());
+        }
+        family(out, "news_db_pool_max_connections", "gauge",
+                "Largest number of open connections.");
+        current.forEach(pool -> sample(out, "news_db_pool_max_connections",
+                labels(pool), pool.getMaxActive()));
+        family(out, "news_db_pool_pending", "gauge",
+                "Threads waiting for a connection.");
+        current.forEach(pool -> sample(out, "news_db_pool_pending",
+                labels(pool), pool.getPending()));
+        family(out, "news_db_pool_timeouts_total", "counter",
+                "Connection gets which timed out.");
+        current.forEach(pool -> sample(out, "news_db_pool_timeouts_total",
+                labels(pool), pool.getTimeouts()));
+        family(out, "news_db_pool_wait_seconds", "summary",
+                "Time waited for a connection.");
+        current.forEach(pool -> summary(out, "news_db_pool_wait_seconds",
+                labels(pool), pool.getWaitTime(), NANOS_PER_SECOND));
+        family(out, "news_db_pool_usage_seconds", "summary",
+                "Time a connection was held.");
+        current.forEach(pool -> summary(out, "news_db_pool_usage_seconds",
+                labels(pool), pool.getUsageTime(), NANOS_PER_SECOND));
+        return out.toString();
+    }
+
+    private static String labels(final MonitoredPool pool) {
+        return label("pool", pool.getName());
+    }
+}
@@ -0,0 +1,329 @@
+package com.github.atdi.news.server.datasource;
+
+import com.github.atdi.news.server.metrics.Histogram;
+import org.apache.tomcat.jdbc.pool.DataSource;
+import org.apache.tomcat.jdbc.pool.PoolExhaustedException;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tomcat jdbc pool measuring how long connections are waited for and
+ * held.
+ * <p>
+ * The wait is the time to get a connection from the pool, including
+ * the time to open it, a get failing after max-wait counts as a
+ * timeout. The usage is the time from the get to the close, i.e. the
+ * database latency of the transaction. The measures are kept since
+ * the start in histograms and for the current window, which
+ * {@link #window()} ends, for the {@link AdaptivePoolSizer}. The
+ * tomcat pool opens on its first connection, the connection counts
+ * are 0 until then rather than opening it.
+ */
+public class MonitoredPool extends DelegatingDataSource {
+
+    private final String name;
+
+    private final DataSource pool;
+
+    private final Histogram waitTime = new Histogram();
+
+    private final Histogram usageTime = new Histogram();
+
+    private final LongAdder timeouts = new LongAdder();
+
+    private final AtomicInteger active = new AtomicInteger();
+
+    private final AtomicInteger peakActive = new AtomicInteger();
+
+    private final LongAdder windowBorrows = new LongAdder();
+
+    private final LongAdder windowWaitNanos = new LongAdder();
+
+    private final LongAdder windowReleases = new LongAdder();
+
+    private final LongAdder windowUsageNanos = new LongAdder();
+
+    private final LongAdder windowTimeouts = new LongAdder();
+
+    private volatile boolean opened;
+
+    /**
+     * Constructor.
+     *
+     * @param name pool name
+     * @param pool tomcat jdbc pool
+     */
+    public MonitoredPool(final String name, final DataSource pool) {
+        super(pool);
+        this.name = name;
+        this.pool = pool;
+    }
+
+    /**
+     * Pool name.
+     *
+     * @return name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Tomcat jdbc pool.
+     *
+     * @return pool
+     */
+    public DataSource getPool() {
+        return pool;
+    }
+
+    /**
+     * Connections in use.
+     *
+     * @return active connections count
+     */
+    public int getActive() {
+        if (!opened) {
+            return 0;
+        }
+        return pool.getActive();
+    }
+
+    /**
+     * Open connections which aren't in use.
+     *
+     * @return idle connections count
+     */
+    public int getIdle() {
+        if (!opened) {
+            return 0;
+        }
+        return pool.getIdle();
+    }
+
+    /**
+     * Threads waiting for a connection.
+     *
+     * @return pending gets count
+     */
+    public int getPending() {
+        if (!opened) {
+            return 0;
+        }
+        return pool.getWaitCount();
+    }
+
+    /**
+     * Largest number of open connections.
+     *
+     * @return max active
+     */
+    public int getMaxActive() {
+        return pool.getMaxActive();
+    }
+
+    /**
+     * Resize the pool, the idle connections above the new size are
+     * closed as they are returned.
+     *
+     * @param maxActive largest number of open connections
+     */
+    public void setMaxActive(final int maxActive) {
+        pool.setMaxActive(maxActive);
+        pool.setMaxIdle(maxActive);
+        if (pool.getMinIdle() > maxActive) {
+            pool.setMinIdle(maxActive);
+        }
+    }
+
+    /**
+     * Time waited for the connections, in nanoseconds.
+     *
+     * @return wait time histogram
+     */
+    public Histogram getWaitTime() {
+        return waitTime;
+    }
+
+    /**
+     * Time the connections were held, in nanoseconds.
+     *
+     * @return usage time histogram
+     */
+    public Histogram getUsageTime() {
+        return usageTime;
+    }
+
+    /**
+     * Gets which timed out waiting for a connection.
+     *
+     * @return timeouts count
+     */
+    public long getTimeouts() {
+        return timeouts.sum();
+    }
+
+    /**
+     * End the current window and start a new one.
+     *
+     * @return measures of the ended window
+     */
+    public Window window() {
+        return new Window(windowBorrows.sumThenReset(),
+                windowWaitNanos.sumThenReset(),
+                windowReleases.sumThenReset(),
+                windowUsageNanos.sumThenReset(),
+                windowTimeouts.sumThenReset(),
+                peakActive.getAndSet(active.get()));
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return borrow(null, null);
+    }
+
+    @Override
+    public Connection getConnection(final String username,
+                                    final String password)
+            throws SQLException {
+        return borrow(username, password);
+    }
+
+    private Connection borrow(final String username, final String password)
+            throws SQLException {
+        long start = System.nanoTime();
+        Connection connection;
+        try {
+            if (username == null) {
+                connection = pool.getConnection();
+            } else {
+                connection = pool.getConnection(username, password);
+            }
+        } catch (PoolExhaustedException e) {
+            timeouts.increment();
+            windowTimeouts.increment();
+            throw e;
+        } finally {
+            long wait = System.nanoTime() - start;
+            waitTime.record(wait);
+            windowWaitNanos.add(wait);
+            windowBorrows.increment();
+        }
+        opened = true;
+        peakActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+        return track(connection, System.nanoTime());
+    }
+
+    private Connection track(final Connection connection, final long start) {
+        AtomicBoolean closed = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if ("close".equals(method.getName())
+                            && closed.compareAndSet(false, true)) {
+                        long usage = System.nanoTime() - start;
+                        usageTime.record(usage);
+                        windowUsageNanos.add(usage);
+                        windowReleases.increment();
+                        active.decrementAndGet();
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    /**
+     * Measures of a pool over a window.
+     */
+    public static final class Window {
+
+        private final long borrows;
+
+        private final long waitNanos;
+
+        private final long releases;
+
+        private final long usageNanos;
+
+        private final long timeouts;
+
+        private final int peakActive;
+
+        /**
+         * Constructor.
+         *
+         * @param borrows    connection gets
+         * @param waitNanos  total wait time of the gets
+         * @param releases   connection closes
+         * @param usageNanos total usage time of the closed connections
+         * @param timeouts   gets which timed out
+         * @param peakActive most connections in use at once
+         */
+        public Window(final long borrows,
+                      final long waitNanos,
+                      final long releases,
+                      final long usageNanos,
+                      final long timeouts,
+                      final int peakActive) {
+            this.borrows = borrows;
+            this.waitNanos = waitNanos;
+            this.releases = releases;
+            this.usageNanos = usageNanos;
+            this.timeouts = timeouts;
+            this.peakActive = peakActive;
+        }
+
+        /**
+         * Mean wait time.
+         *
+         * @return mean wait in nanoseconds, 0 without gets
+         */
+        public long getMeanWaitNanos() {
+            if (borrows == 0) {
+                return 0;
+            }
+            return waitNanos / borrows;
+        }
+
+        /**
+         * Mean usage time.
+         *
+         * @return mean usage in nanoseconds, -1 without closes
+         */
+        public long getMeanUsageNanos() {
+            if (releases == 0) {
+                return -1;
+            }
+            return usageNanos / releases;
+        }
+
+        /**
+         * Gets which timed out.
+         *
+         * @return timeouts count
+         */
+        public long getTimeouts() {
+            return timeouts;
+        }
+
+        /**
+         * Most connections in use at once.
+         *
+         * @return peak active connections
+         */
+        public int getPeakActive() {
+            return peakActive;
+        }
+    }
+}
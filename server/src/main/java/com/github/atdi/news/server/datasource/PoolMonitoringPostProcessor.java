@@ -0,0 +1,53 @@
+package com.github.atdi.news.server.datasource;
+
+import org.apache.tomcat.jdbc.pool.DataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.PriorityOrdered;
+
+/**
+ * Registers the tomcat jdbc data source as the primary
+ * {@link MonitoredPool}.
+ * <p>
+ * It is priority ordered, so it runs before the replica routing and
+ * the metrics post processors, which wrap the monitored pool.
+ */
+public class PoolMonitoringPostProcessor implements BeanPostProcessor,
+        PriorityOrdered {
+
+    /**
+     * Name of the primary pool.
+     */
+    public static final String PRIMARY = "primary";
+
+    private final ConnectionPools connectionPools;
+
+    /**
+     * Constructor.
+     *
+     * @param connectionPools pool registry
+     */
+    public PoolMonitoringPostProcessor(
+            final ConnectionPools connectionPools) {
+        this.connectionPools = connectionPools;
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(final Object bean,
+                                                  final String beanName) {
+        return bean;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(final Object bean,
+                                                 final String beanName) {
+        if (bean instanceof DataSource) {
+            return connectionPools.register(PRIMARY, (DataSource) bean);
+        }
+        return bean;
+    }
+
+    @Override
+    public int getOrder() {
+        return PriorityOrdered.LOWEST_PRECEDENCE;
+    }
+}
@@ -0,0 +1,89 @@
+package com.github.atdi.news.server.datasource;
+
+/**
+ * Writes of a single request.
+ * <p>
+ * Once a request has written to the primary database its reads go to
+ * the primary too, the replicas may not have the write yet. The state
+ * of the request being served is attached to the current thread,
+ * tasks handed to other threads carry it with
+ * {@link #propagate(Runnable)}.
+ */
+public final class ReadYourWrites {
+
+    private static final ThreadLocal<ReadYourWrites> CURRENT =
+            new ThreadLocal<>();
+
+    private volatile boolean written;
+
+    /**
+     * State of the request served by the current thread.
+     *
+     * @return state or null outside of a request
+     */
+    public static ReadYourWrites current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Attach the state to the current thread.
+     */
+    public void attach() {
+        CURRENT.set(this);
+    }
+
+    /**
+     * Detach the state from the current thread.
+     */
+    public static void detach() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Detach the state from the current thread if attached to it, a
+     * thread completing the request for another one keeps its own.
+     */
+    public void detachIfCurrent() {
+        if (CURRENT.get() == this) {
+            CURRENT.remove();
+        }
+    }
+
+    /**
+     * Wrap the task so it runs with the state of the current thread.
+     *
+     * @param task task
+     * @return task attaching the current state while it runs
+     */
+    public static Runnable propagate(final Runnable task) {
+        ReadYourWrites state = current();
+        if (state == null) {
+            return task;
+        }
+        return () -> {
+            ReadYourWrites previous = current();
+            state.attach();
+            try {
+                task.run();
+            } finally {
+                CURRENT.set(previous);
+            }
+        };
+    }
+
+    /**
+     * Record a write of the request.
+     */
+    public void markWritten() {
+        written = true;
+    }
+
+    /**
+     * Whether the request has written.
+     *
+     * @return true once the request has written
+     */
+    public boolean isWritten() {
+        return written;
+    }
+}
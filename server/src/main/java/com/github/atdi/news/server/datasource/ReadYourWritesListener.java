@@ -0,0 +1,38 @@
+package com.github.atdi.news.server.datasource;
+
+import org.glassfish.jersey.server.monitoring.ApplicationEvent;
+import org.glassfish.jersey.server.monitoring.ApplicationEventListener;
+import org.glassfish.jersey.server.monitoring.RequestEvent;
+import org.glassfish.jersey.server.monitoring.RequestEventListener;
+
+/**
+ * Jersey event listener attaching a new {@link ReadYourWrites} to
+ * every request.
+ * <p>
+ * The state is detached from the container thread once the resource
+ * method returns, not once the response is written, which an async
+ * resource does on another thread.
+ */
+public class ReadYourWritesListener implements ApplicationEventListener {
+
+    @Override
+    public void onEvent(final ApplicationEvent event) {
+        // the requests only
+    }
+
+    @Override
+    public RequestEventListener onRequest(final RequestEvent event) {
+        ReadYourWrites state = new ReadYourWrites();
+        state.attach();
+        return requestEvent -> {
+            switch (requestEvent.getType()) {
+                case RESOURCE_METHOD_FINISHED:
+                case FINISHED:
+                    state.detachIfCurrent();
+                    break;
+                default:
+                    break;
+            }
+        };
+    }
+}
@@ -0,0 +1,25 @@
+package com.github.atdi.news.server.datasource;
+
+import javax.sql.DataSource;
+
+/**
+ * Connection pools of the read replicas.
+ */
+public interface ReplicaPools {
+
+    /**
+     * Create the pool of a replica, configured like the primary pool.
+     *
+     * @param primary primary pool
+     * @param url     replica jdbc url
+     * @return replica pool
+     */
+    DataSource create(DataSource primary, String url);
+
+    /**
+     * Close the pool of a replica.
+     *
+     * @param pool replica pool
+     */
+    void close(DataSource pool);
+}
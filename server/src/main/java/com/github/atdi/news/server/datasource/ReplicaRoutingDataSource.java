@@ -0,0 +1,387 @@
+package com.github.atdi.news.server.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Data source routing the read only transactions to read replicas.
+ * <p>
+ * Connections of read only transactions are taken from a replica,
+ * every other connection from the primary, as are the reads of a
+ * request which has written ({@link ReadYourWrites}). The transaction
+ * is only known to be read only once it has begun, the data source
+ * must be wrapped in a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}
+ * so the connection is taken on the first statement.
+ * <p>
+ * The replicas lag behind the primary: for the max lag after a write
+ * of any request, the read only transactions go to the primary too,
+ * so the entities, queries and documents cached meanwhile are not read
+ * from a replica missing the write. A transaction has written once
+ * its connection prepared a statement other than a select.
+ * <p>
+ * The replica is picked round robin or with the least open
+ * connections. Replicas are checked periodically, a replica failing
+ * the check or a connection is skipped until it passes a check again,
+ * the primary serves the reads when no replica is up.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource {
+
+    private static final int VALID_TIMEOUT_SECONDS = 2;
+
+    private static final String SELECT = "select";
+
+    private final DataSource primary;
+
+    private final List<Replica> replicas;
+
+    private final Selection selection;
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    private final AtomicLong primaryConnections = new AtomicLong();
+
+    private final long maxLagNanos;
+
+    private final AtomicLong writtenAt = new AtomicLong();
+
+    private ScheduledExecutorService checker;
+
+    /**
+     * Replica selection.
+     */
+    public enum Selection {
+
+        /**
+         * Replicas in turn.
+         */
+        ROUND_ROBIN,
+
+        /**
+         * Replica with the least open connections.
+         */
+        LEAST_CONNECTIONS
+    }
+
+    /**
+     * Constructor, the replicas are up until checked.
+     *
+     * @param primary   primary data source
+     * @param replicas  replica data sources by name, e.g. their url
+     * @param selection replica selection
+     * @param maxLag    milliseconds the replicas may lag behind the
+     *                  primary, 0 if they never lag
+     */
+    public ReplicaRoutingDataSource(final DataSource primary,
+                                    final Map<String, DataSource> replicas,
+                                    final Selection selection,
+                                    final long maxLag) {
+        this.primary = primary;
+        List<Replica> list = new ArrayList<>(replicas.size());
+        replicas.forEach((name, dataSource) ->
+                list.add(new Replica(name, dataSource)));
+        this.replicas = Collections.unmodifiableList(list);
+        this.selection = selection;
+        this.maxLagNanos = TimeUnit.MILLISECONDS.toNanos(maxLag);
+        this.writtenAt.set(System.nanoTime() - maxLagNanos);
+    }
+
+    /**
+     * Check the replicas now and then every interval.
+     *
+     * @param interval check interval in seconds
+     */
+    public synchronized void startHealthChecks(final long interval) {
+        if (checker != null) {
+            return;
+        }
+        checker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-checker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        checker.scheduleWithFixedDelay(this::checkHealth,
+                0, interval, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stop the health checks.
+     */
+    public synchronized void stopHealthChecks() {
+        if (checker != null) {
+            checker.shutdown();
+            checker = null;
+        }
+    }
+
+    /**
+     * Check every replica, with a connection of its pool.
+     */
+    public void checkHealth() {
+        for (Replica replica : replicas) {
+            boolean valid;
+            try (Connection connection = replica.dataSource.getConnection()) {
+                valid = connection.isValid(VALID_TIMEOUT_SECONDS);
+            } catch (SQLException e) {
+                valid = false;
+            }
+            replica.setUp(valid);
+        }
+    }
+
+    /**
+     * Replicas, in their configuration order.
+     *
+     * @return replicas
+     */
+    public List<Replica> getReplicas() {
+        return replicas;
+    }
+
+    /**
+     * Number of connections taken from the primary.
+     *
+     * @return primary connections count
+     */
+    public long getPrimaryConnections() {
+        return primaryConnections.get();
+    }
+
+    /**
+     * Whether a write may be missing on the replicas, less than the
+     * max lag ago.
+     *
+     * @return true if the reads go to the primary
+     */
+    public boolean isLagging() {
+        return System.nanoTime() - writtenAt.get() < maxLagNanos;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return route(DataSource::getConnection);
+    }
+
+    @Override
+    public Connection getConnection(final String username,
+                                    final String password)
+            throws SQLException {
+        return route(dataSource ->
+                dataSource.getConnection(username, password));
+    }
+
+    private Connection route(final ConnectionSource source)
+            throws SQLException {
+        ReadYourWrites request = ReadYourWrites.current();
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && (request == null || !request.isWritten())
+                && !isLagging()) {
+            for (Replica replica = select(); replica != null;
+                 replica = select()) {
+                try {
+                    return replica.connect(source,
+                            selection == Selection.LEAST_CONNECTIONS);
+                } catch (SQLException e) {
+                    log.warn("Replica {} failed a connection: {}",
+                            replica.name, e.getMessage());
+                    replica.setUp(false);
+                }
+            }
+        }
+        primaryConnections.incrementAndGet();
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                || !TransactionSynchronizationManager
+                .isActualTransactionActive()) {
+            return source.get(primary);
+        }
+        if (request != null) {
+            request.markWritten();
+        }
+        return watchWrites(source.get(primary));
+    }
+
+    private Connection watchWrites(final Connection connection) {
+        AtomicBoolean written = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    String name = method.getName();
+                    if (name.startsWith("prepare") && !isSelect(args[0])
+                            || "createStatement".equals(name)) {
+                        written.set(true);
+                        written();
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    } finally {
+                        // committed or rolled back, lagging from now on
+                        if ("close".equals(name) && written.get()) {
+                            written();
+                        }
+                    }
+                });
+    }
+
+    private void written() {
+        writtenAt.set(System.nanoTime());
+    }
+
+    private static boolean isSelect(final Object sql) {
+        return sql.toString().trim().regionMatches(true, 0,
+                SELECT, 0, SELECT.length());
+    }
+
+    private Replica select() {
+        Replica selected = null;
+        if (selection == Selection.ROUND_ROBIN) {
+            int start = next.getAndIncrement();
+            for (int i = 0; i < replicas.size() && selected == null; i++) {
+                Replica replica = replicas.get(
+                        Math.floorMod(start + i, replicas.size()));
+                if (replica.up) {
+                    selected = replica;
+                }
+            }
+        } else {
+            for (Replica replica : replicas) {
+                if (replica.up && (selected == null
+                        || replica.active.get() < selected.active.get())) {
+                    selected = replica;
+                }
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Connection factory of a data source.
+     */
+    @FunctionalInterface
+    private interface ConnectionSource {
+
+        Connection get(DataSource dataSource) throws SQLException;
+    }
+
+    /**
+     * Replica data source and its state.
+     */
+    public static final class Replica {
+
+        private final String name;
+
+        private final DataSource dataSource;
+
+        private final AtomicInteger active = new AtomicInteger();
+
+        private final AtomicLong connections = new AtomicLong();
+
+        private volatile boolean up = true;
+
+        Replica(final String name, final DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        /**
+         * Replica name.
+         *
+         * @return name
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Replica pool.
+         *
+         * @return data source
+         */
+        DataSource getDataSource() {
+            return dataSource;
+        }
+
+        /**
+         * Whether the replica passed its last check.
+         *
+         * @return true if the replica is up
+         */
+        public boolean isUp() {
+            return up;
+        }
+
+        /**
+         * Number of open connections, counted with the least
+         * connections selection only.
+         *
+         * @return open connections count
+         */
+        public int getActive() {
+            return active.get();
+        }
+
+        /**
+         * Number of connections taken from the replica.
+         *
+         * @return connections count
+         */
+        public long getConnections() {
+            return connections.get();
+        }
+
+        private void setUp(final boolean valid) {
+            if (up && !valid) {
+                log.warn("Replica {} is down", name);
+            } else if (!up && valid) {
+                log.info("Replica {} is up", name);
+            }
+            up = valid;
+        }
+
+        private Connection connect(final ConnectionSource source,
+                                   final boolean track)
+                throws SQLException {
+            Connection connection = source.get(dataSource);
+            connections.incrementAndGet();
+            if (!track) {
+                return connection;
+            }
+            active.incrementAndGet();
+            AtomicBoolean closed = new AtomicBoolean();
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        if ("close".equals(method.getName())
+                                && closed.compareAndSet(false, true)) {
+                            active.decrementAndGet();
+                        }
+                        try {
+                            return method.invoke(connection, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+        }
+    }
+}
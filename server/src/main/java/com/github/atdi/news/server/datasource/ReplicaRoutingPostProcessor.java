@@ -0,0 +1,100 @@
+package com.github.atdi.news.server.datasource;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Wraps the data source with a {@link ReplicaRoutingDataSource},
+ * behind a {@link LazyConnectionDataSourceProxy}, when there are
+ * replicas.
+ * <p>
+ * It is ordered, so it runs before the plain post processors, e.g.
+ * the metrics one: the statements run on the replicas are metered
+ * too. The replica pools are closed with the context.
+ */
+public class ReplicaRoutingPostProcessor implements BeanPostProcessor,
+        Ordered, DisposableBean {
+
+    private final List<String> urls;
+
+    private final ReplicaRoutingDataSource.Selection selection;
+
+    private final long checkInterval;
+
+    private final long maxLag;
+
+    private final ReplicaPools replicaPools;
+
+    private final List<ReplicaRoutingDataSource> routings = new ArrayList<>();
+
+    /**
+     * Constructor.
+     *
+     * @param urls          replica jdbc urls
+     * @param selection     replica selection
+     * @param checkInterval health check interval in seconds
+     * @param maxLag        replica lag in milliseconds
+     * @param replicaPools  replica pools factory
+     */
+    public ReplicaRoutingPostProcessor(
+            final List<String> urls,
+            final ReplicaRoutingDataSource.Selection selection,
+            final long checkInterval,
+            final long maxLag,
+            final ReplicaPools replicaPools) {
+        this.urls = urls;
+        this.selection = selection;
+        this.checkInterval = checkInterval;
+        this.maxLag = maxLag;
+        this.replicaPools = replicaPools;
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(final Object bean,
+                                                  final String beanName) {
+        return bean;
+    }
+
+    @Override
+    public synchronized Object postProcessAfterInitialization(
+            final Object bean, final String beanName) {
+        if (urls.isEmpty() || !(bean instanceof DataSource)) {
+            return bean;
+        }
+        DataSource primary = (DataSource) bean;
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (String url : urls) {
+            replicas.put(url, replicaPools.create(primary, url));
+        }
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(
+                primary, replicas, selection, maxLag);
+        routing.startHealthChecks(checkInterval);
+        routings.add(routing);
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.LOWEST_PRECEDENCE;
+    }
+
+    @Override
+    public synchronized void destroy() {
+        for (ReplicaRoutingDataSource routing : routings) {
+            routing.stopHealthChecks();
+            for (ReplicaRoutingDataSource.Replica replica
+                    : routing.getReplicas()) {
+                replicaPools.close(replica.getDataSource());
+            }
+        }
+        routings.clear();
+    }
+}
@@ -0,0 +1,64 @@
+package com.github.atdi.news.server.datasource;
+
+import org.apache.tomcat.jdbc.pool.PoolConfiguration;
+import org.apache.tomcat.jdbc.pool.PoolProperties;
+
+import javax.sql.DataSource;
+
+/**
+ * Tomcat jdbc pools of the read replicas, they take the settings of
+ * the primary pool, e.g. the credentials, the sizing and the
+ * statement cache, and are monitored like it.
+ */
+public class TomcatReplicaPools implements ReplicaPools {
+
+    private final ConnectionPools connectionPools;
+
+    /**
+     * Constructor.
+     *
+     * @param connectionPools pool registry
+     */
+    public TomcatReplicaPools(final ConnectionPools connectionPools) {
+        this.connectionPools = connectionPools;
+    }
+
+    @Override
+    public DataSource create(final DataSource primary, final String url) {
+        if (!(primary instanceof MonitoredPool)) {
+            throw new IllegalStateException("The replicas need a tomcat "
+                    + "jdbc primary pool, not " + primary.getClass());
+        }
+        PoolConfiguration source =
+                ((MonitoredPool) primary).getPool().getPoolProperties();
+        PoolProperties properties = new PoolProperties();
+        properties.setUrl(url);
+        properties.setDriverClassName(source.getDriverClassName());
+        properties.setUsername(source.getUsername());
+        properties.setPassword(source.getPassword());
+        properties.setInitialSize(source.getInitialSize());
+        properties.setMaxActive(source.getMaxActive());
+        properties.setMaxIdle(source.getMaxIdle());
+        properties.setMinIdle(source.getMinIdle());
+        properties.setMaxWait(source.getMaxWait());
+        properties.setFairQueue(source.isFairQueue());
+        properties.setValidationQuery(source.getValidationQuery());
+        properties.setValidationInterval(source.getValidationInterval());
+        properties.setTestOnBorrow(source.isTestOnBorrow());
+        properties.setTestWhileIdle(source.isTestWhileIdle());
+        properties.setTimeBetweenEvictionRunsMillis(
+                source.getTimeBetweenEvictionRunsMillis());
+        properties.setMinEvictableIdleTimeMillis(
+                source.getMinEvictableIdleTimeMillis());
+        properties.setJdbcInterceptors(source.getJdbcInterceptors());
+        return connectionPools.register(url,
+                new org.apache.tomcat.jdbc.pool.DataSource(properties));
+    }
+
+    @Override
+    public void close(final DataSource pool) {
+        MonitoredPool monitored = (MonitoredPool) pool;
+        connectionPools.unregister(monitored);
+        monitored.getPool().close();
+    }
+}
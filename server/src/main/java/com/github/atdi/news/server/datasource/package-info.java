@@ -0,0 +1,5 @@
+/**
+ * Monitored connection pools and the data source routing the read
+ * only transactions to the read replicas.
+ */
+package com.github.atdi.news.server.datasource;
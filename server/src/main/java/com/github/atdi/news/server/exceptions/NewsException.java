@@ -54,7 +54,7 @@ public class NewsException extends WebApplicationException {
      * @param e       exception
      */
     public NewsException(final String message,
-                         final Response.Status status,
+                         final Response.StatusType status,
                          final Throwable e) {
         super(e, Response.status(status).
                 entity(HttpError.builder()
@@ -86,7 +86,8 @@ public class NewsException extends WebApplicationException {
      * @param message error message
      * @param status  response status
      */
-    public NewsException(final String message, final Response.Status status) {
+    public NewsException(final String message,
+                         final Response.StatusType status) {
         super(Response.status(status).
                 entity(HttpError.builder()
                         .message(message)
@@ -0,0 +1,98 @@
+package com.github.atdi.news.server.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of non negative values.
+ * <p>
+ * Every power of two is split in 16 linear sub buckets, so the
+ * quantiles are within 1/16 of the recorded values over the whole
+ * long range, in a fixed array of counters. Recording doesn't lock
+ * and doesn't allocate. The values are kept since the start.
+ */
+public class Histogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private static final int BUCKETS =
+            (Long.SIZE - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private static final int HIGHEST_BIT = Long.SIZE - 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    private final LongAdder sum = new LongAdder();
+
+    /**
+     * Record a value, negative values are recorded as 0.
+     *
+     * @param value value
+     */
+    public void record(final long value) {
+        long recorded = Math.max(0, value);
+        counts.incrementAndGet(index(recorded));
+        sum.add(recorded);
+    }
+
+    /**
+     * Number of recorded values.
+     *
+     * @return count
+     */
+    public long count() {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * Sum of the recorded values.
+     *
+     * @return sum
+     */
+    public long sum() {
+        return sum.sum();
+    }
+
+    /**
+     * Value at the given quantile, the highest value of its bucket.
+     *
+     * @param quantile quantile between 0 and 1
+     * @return value or 0 if nothing was recorded
+     */
+    public long quantile(final double quantile) {
+        long rank = (long) Math.ceil(quantile * count());
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen > 0 && seen >= rank) {
+                return highestValue(i);
+            }
+        }
+        return 0;
+    }
+
+    static int index(final long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = HIGHEST_BIT - Long.numberOfLeadingZeros(value)
+                - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) - SUB_BUCKETS;
+        return SUB_BUCKETS + shift * SUB_BUCKETS + subBucket;
+    }
+
+    static long highestValue(final int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKETS) / SUB_BUCKETS;
+        long lowest = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,83 @@
+package com.github.atdi.news.server.metrics;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+
+/**
+ * Data source decorator accounting the executed statements to the
+ * current {@link RequestSample}.
+ * <p>
+ * The connections and the statements they create are wrapped with
+ * dynamic proxies, nothing else is, every execute call is timed, a
+ * batch counting as a single statement.
+ */
+public final class MeteredDataSource {
+
+    private static final String EXECUTE = "execute";
+
+    private MeteredDataSource() {
+    }
+
+    /**
+     * Wrap the data source.
+     *
+     * @param dataSource data source
+     * @return metered data source
+     */
+    public static DataSource wrap(final DataSource dataSource) {
+        return proxy(DataSource.class, dataSource);
+    }
+
+    private static <T> T proxy(final Class<T> type, final T target) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (Statement.class.isAssignableFrom(type)
+                    && method.getName().startsWith(EXECUTE)) {
+                return execute(target, method, args);
+            }
+            Object result = invoke(target, method, args);
+            Class<?> returnType = method.getReturnType();
+            if (result != null && (type == DataSource.class
+                    && returnType == Connection.class
+                    || type == Connection.class
+                    && Statement.class.isAssignableFrom(returnType))) {
+                return wrap(returnType, result);
+            }
+            return result;
+        };
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(),
+                new Class<?>[]{type}, handler));
+    }
+
+    private static <T> T wrap(final Class<T> type, final Object target) {
+        return proxy(type, type.cast(target));
+    }
+
+    private static Object execute(final Object target,
+                                  final Method method,
+                                  final Object[] args) throws Throwable {
+        long start = System.nanoTime();
+        try {
+            return invoke(target, method, args);
+        } finally {
+            RequestSample sample = RequestSample.current();
+            if (sample != null) {
+                sample.recordQuery(System.nanoTime() - start);
+            }
+        }
+    }
+
+    private static Object invoke(final Object target,
+                                 final Method method,
+                                 final Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.github.atdi.news.server.metrics;
+
+/**
+ * Writer of metrics in the Prometheus text format.
+ * <p>
+ * Histograms are written as summaries with the 0.5, 0.99 and 0.999
+ * quantiles since the start.
+ */
+public final class PrometheusText {
+
+    private static final double[] QUANTILES = { 0.5, 0.99, 0.999 };
+
+    private PrometheusText() {
+    }
+
+    /**
+     * Write the header of a metric family.
+     *
+     * @param out  output
+     * @param name metric name
+     * @param type metric type, e.g. counter
+     * @param help description
+     */
+    public static void family(final StringBuilder out,
+                              final String name,
+                              final String type,
+                              final String help) {
+        out.append("# HELP ").append(name).append(' ').append(help)
+                .append('\n')
+                .append("# TYPE ").append(name).append(' ').append(type)
+                .append('\n');
+    }
+
+    /**
+     * Write a sample.
+     *
+     * @param out    output
+     * @param name   metric name
+     * @param labels labels, without the braces
+     * @param value  value
+     */
+    public static void sample(final StringBuilder out,
+                              final String name,
+                              final String labels,
+                              final Number value) {
+        out.append(name).append('{').append(labels).append("} ")
+                .append(value).append('\n');
+    }
+
+    /**
+     * Write the samples of a summary.
+     *
+     * @param out       output
+     * @param name      metric name
+     * @param labels    labels, without the braces
+     * @param histogram recorded values
+     * @param unit      recorded values per written unit
+     */
+    public static void summary(final StringBuilder out,
+                               final String name,
+                               final String labels,
+                               final Histogram histogram,
+                               final double unit) {
+        for (double quantile : QUANTILES) {
+            sample(out, name, labels + ",quantile=\"" + quantile + "\"",
+                    histogram.quantile(quantile) / unit);
+        }
+        sample(out, name + "_sum", labels, histogram.sum() / unit);
+        sample(out, name + "_count", labels, histogram.count());
+    }
+
+    /**
+     * Write a label.
+     *
+     * @param name  label name
+     * @param value label value, escaped
+     * @return label
+     */
+    public static String label(final String name, final String value) {
+        return name + "=\"" + value.replace("\\", "\\\\")
+                .replace("\"", "\\\"").replace("\n", "\\n") + "\"";
+    }
+}
@@ -0,0 +1,129 @@
+package com.github.atdi.news.server.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import static com.github.atdi.news.server.metrics.PrometheusText.family;
+import static com.github.atdi.news.server.metrics.PrometheusText.label;
+import static com.github.atdi.news.server.metrics.PrometheusText.sample;
+
+/**
+ * Metrics of the served requests, by endpoint.
+ * <p>
+ * Every endpoint keeps its request and error counts and the
+ * histograms of the request latency, of the database statements
+ * and their time per request, and of the response serialization
+ * time. They are written in the Prometheus text format, the
+ * histograms as summaries with the 0.5, 0.99 and 0.999 quantiles
+ * since the start.
+ */
+public class RequestMetrics {
+
+    private static final double NANOS_PER_SECOND =
+            TimeUnit.SECONDS.toNanos(1);
+
+    private final ConcurrentMap<String, Endpoint> endpoints =
+            new ConcurrentSkipListMap<>();
+
+    /**
+     * Record a served request.
+     *
+     * @param endpoint endpoint name
+     * @param status   response status
+     * @param sample   request sample
+     */
+    public void record(final String endpoint,
+                       final int status,
+                       final RequestSample sample) {
+        long latency = System.nanoTime() - sample.getStart();
+        endpoints.computeIfAbsent(endpoint, name -> new Endpoint())
+                .record(status, latency, sample);
+    }
+
+    /**
+     * Write the metrics in the Prometheus text format.
+     *
+     * @return metrics
+     */
+    public String scrape() {
+        StringBuilder out = new StringBuilder();
+        family(out, "news_http_requests_total", "counter",
+                "Served requests.");
+        endpoints.forEach((name, endpoint) -> sample(out,
+                "news_http_requests_total", labels(name),
+                endpoint.requests.sum()));
+        family(out, "news_http_errors_total", "counter",
+                "Error responses by status.");
+        endpoints.forEach((name, endpoint) -> endpoint.errors.forEach(
+                (status, count) -> sample(out, "news_http_errors_total",
+                        labels(name) + ",status=\"" + status + "\"",
+                        count.sum())));
+        summary(out, "news_http_request_seconds", "Request latency.",
+                endpoint -> endpoint.latency, NANOS_PER_SECOND);
+        summary(out, "news_http_db_queries",
+                "Database statements per request.",
+                endpoint -> endpoint.queries, 1);
+        summary(out, "news_http_db_seconds",
+                "Database statements time per request.",
+                endpoint -> endpoint.queryTime, NANOS_PER_SECOND);
+        summary(out, "news_http_serialization_seconds",
+                "Response entity serialization time.",
+                endpoint -> endpoint.serialization, NANOS_PER_SECOND);
+        return out.toString();
+    }
+
+    private void summary(final StringBuilder out,
+                         final String name,
+                         final String help,
+                         final Function<Endpoint, Histogram> histogram,
+                         final double unit) {
+        family(out, name, "summary", help);
+        for (Map.Entry<String, Endpoint> entry : endpoints.entrySet()) {
+            PrometheusText.summary(out, name, labels(entry.getKey()),
+                    histogram.apply(entry.getValue()), unit);
+        }
+    }
+
+    private static String labels(final String endpoint) {
+        return label("endpoint", endpoint);
+    }
+
+    /**
+     * Metrics of an endpoint.
+     */
+    private static final class Endpoint {
+
+        private static final int ERROR_STATUS = 400;
+
+        private final LongAdder requests = new LongAdder();
+
+        private final ConcurrentMap<Integer, LongAdder> errors =
+                new ConcurrentSkipListMap<>();
+
+        private final Histogram latency = new Histogram();
+
+        private final Histogram queries = new Histogram();
+
+        private final Histogram queryTime = new Histogram();
+
+        private final Histogram serialization = new Histogram();
+
+        void record(final int status,
+                    final long latencyNanos,
+                    final RequestSample sample) {
+            requests.increment();
+            if (status >= ERROR_STATUS) {
+                errors.computeIfAbsent(status, s -> new LongAdder())
+                        .increment();
+            }
+            latency.record(latencyNanos);
+            queries.record(sample.getQueries());
+            queryTime.record(sample.getQueryNanos());
+            serialization.record(sample.getSerializationNanos());
+        }
+    }
+}
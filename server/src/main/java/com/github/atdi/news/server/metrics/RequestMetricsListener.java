@@ -0,0 +1,102 @@
+package com.github.atdi.news.server.metrics;
+
+import lombok.RequiredArgsConstructor;
+import org.glassfish.jersey.server.ContainerResponse;
+import org.glassfish.jersey.server.model.ResourceMethod;
+import org.glassfish.jersey.server.monitoring.ApplicationEvent;
+import org.glassfish.jersey.server.monitoring.ApplicationEventListener;
+import org.glassfish.jersey.server.monitoring.RequestEvent;
+import org.glassfish.jersey.server.monitoring.RequestEventListener;
+
+import javax.ws.rs.core.Response;
+import java.lang.reflect.Method;
+
+/**
+ * Jersey event listener recording the request metrics.
+ * <p>
+ * The request sample starts with the request and is attached to the
+ * container thread until the resource method returns, an async
+ * resource hands it to its own threads. The request is recorded once
+ * finished, whichever thread completed the response and whether an
+ * entity was written or not, under the name of the matched resource
+ * method, e.g. ArticleResource.getById, or unmatched. The latency
+ * includes the serialization, measured after the response filters.
+ */
+@RequiredArgsConstructor
+public class RequestMetricsListener implements ApplicationEventListener {
+
+    private static final String UNMATCHED = "unmatched";
+
+    private final RequestMetrics requestMetrics;
+
+    @Override
+    public void onEvent(final ApplicationEvent event) {
+        // the requests only
+    }
+
+    @Override
+    public RequestEventListener onRequest(final RequestEvent event) {
+        RequestSample sample = new RequestSample();
+        sample.attach();
+        return new SampleListener(sample);
+    }
+
+    private static String endpoint(final RequestEvent event) {
+        ResourceMethod resourceMethod = event.getUriInfo()
+                .getMatchedResourceMethod();
+        if (resourceMethod == null) {
+            return UNMATCHED;
+        }
+        Method method = resourceMethod.getInvocable().getDefinitionMethod();
+        return method.getDeclaringClass().getSimpleName() + "."
+                + method.getName();
+    }
+
+    private static int status(final RequestEvent event) {
+        ContainerResponse response = event.getContainerResponse();
+        if (response == null) {
+            return Response.Status.INTERNAL_SERVER_ERROR.getStatusCode();
+        }
+        return response.getStatus();
+    }
+
+    /**
+     * Events of one request.
+     */
+    private final class SampleListener implements RequestEventListener {
+
+        private final RequestSample sample;
+
+        private volatile long writeStart;
+
+        private SampleListener(final RequestSample sample) {
+            this.sample = sample;
+        }
+
+        @Override
+        public void onEvent(final RequestEvent event) {
+            switch (event.getType()) {
+                case RESOURCE_METHOD_FINISHED:
+                    sample.detachIfCurrent();
+                    break;
+                case RESP_FILTERS_FINISHED:
+                    writeStart = System.nanoTime();
+                    break;
+                case FINISHED:
+                    // requests which never reached a resource method
+                    sample.detachIfCurrent();
+                    ContainerResponse response = event.getContainerResponse();
+                    if (writeStart > 0 && response != null
+                            && !response.isChunked()) {
+                        sample.recordSerialization(
+                                System.nanoTime() - writeStart);
+                    }
+                    requestMetrics.record(endpoint(event), status(event),
+                            sample);
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.github.atdi.news.server.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures of a single request.
+ * <p>
+ * The sample of the request being served is attached to the current
+ * thread, so the database statements can be accounted to it, tasks
+ * handed to other threads carry it with {@link #propagate(Runnable)}.
+ */
+public final class RequestSample {
+
+    private static final ThreadLocal<RequestSample> CURRENT =
+            new ThreadLocal<>();
+
+    private final long start = System.nanoTime();
+
+    private final AtomicLong queries = new AtomicLong();
+
+    private final AtomicLong queryNanos = new AtomicLong();
+
+    private final AtomicLong serializationNanos = new AtomicLong();
+
+    /**
+     * Sample of the request served by the current thread.
+     *
+     * @return sample or null outside of a request
+     */
+    public static RequestSample current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Attach the sample to the current thread.
+     */
+    public void attach() {
+        CURRENT.set(this);
+    }
+
+    /**
+     * Detach the sample from the current thread.
+     */
+    public static void detach() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Detach the sample from the current thread if attached to it, a
+     * thread completing the request for another one keeps its own.
+     */
+    public void detachIfCurrent() {
+        if (CURRENT.get() == this) {
+            CURRENT.remove();
+        }
+    }
+
+    /**
+     * Wrap the task so it runs with the sample of the current thread.
+     *
+     * @param task task
+     * @return task attaching the current sample while it runs
+     */
+    public static Runnable propagate(final Runnable task) {
+        RequestSample sample = current();
+        if (sample == null) {
+            return task;
+        }
+        return () -> {
+            RequestSample previous = current();
+            sample.attach();
+            try {
+                task.run();
+            } finally {
+                CURRENT.set(previous);
+            }
+        };
+    }
+
+    /**
+     * Account a database statement.
+     *
+     * @param nanos statement execution time
+     */
+    public void recordQuery(final long nanos) {
+        queries.incrementAndGet();
+        queryNanos.addAndGet(nanos);
+    }
+
+    /**
+     * Account the response entity serialization.
+     *
+     * @param nanos serialization time
+     */
+    public void recordSerialization(final long nanos) {
+        serializationNanos.addAndGet(nanos);
+    }
+
+    long getStart() {
+        return start;
+    }
+
+    long getQueries() {
+        return queries.get();
+    }
+
+    long getQueryNanos() {
+        return queryNanos.get();
+    }
+
+    long getSerializationNanos() {
+        return serializationNanos.get();
+    }
+}
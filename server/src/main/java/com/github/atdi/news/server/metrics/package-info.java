@@ -0,0 +1,4 @@
+/**
+ * Request metrics, exposed in the Prometheus text format.
+ */
+package com.github.atdi.news.server.metrics;
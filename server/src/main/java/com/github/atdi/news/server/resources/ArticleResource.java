@@ -1,8 +1,26 @@
 package com.github.atdi.news.server.resources;
 
 import com.github.atdi.news.model.Article;
+import com.github.atdi.news.model.CursorPage;
+import com.github.atdi.news.model.WriteStatus;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.github.atdi.news.server.exceptions.NewsException;
+import com.github.atdi.news.server.services.ArticleBatchService;
+import com.github.atdi.news.server.services.ArticleCriteria;
+import com.github.atdi.news.server.services.ArticleJsonCache;
 import com.github.atdi.news.server.services.ArticleService;
+import com.github.atdi.news.server.services.ArticleWriteBehind;
+import com.github.atdi.news.server.services.SearchExecutor;
+import com.github.atdi.news.server.services.repositories.VersionStamp;
+import com.github.atdi.news.server.util.HttpPreconditions;
+import com.github.atdi.news.server.util.JacksonContextResolver;
+import com.github.atdi.news.server.util.NewsMediaType;
+import com.github.atdi.news.server.util.PublishCursor;
 import com.github.atdi.news.server.util.UUIDUtils;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
@@ -14,6 +32,7 @@ import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
 import javax.ws.rs.Consumes;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
 import javax.ws.rs.POST;
 import javax.ws.rs.PUT;
@@ -21,16 +40,30 @@ import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.Iterator;
 
 /**
  * Article REST resource.
  * <p>
+ * The listings and searches run on the {@link SearchExecutor},
+ * their parameters are checked on the request thread.
+ * <p>
  * Created by aurelavramescu on 13/11/15.
  */
 @RequiredArgsConstructor(onConstructor = @__({@Inject}))
@@ -40,8 +73,40 @@ public class ArticleResource {
 
     private static final String DATE_PATTERN = "uuuu-MM-dd'T'HH:mm:ss";
 
+    private static final DateTimeFormatter DATE_FORMATTER =
+            DateTimeFormatter.ofPattern(DATE_PATTERN);
+
+    private static final String GZIP = "gzip";
+
+    private static final String QUALITY = "q=";
+
+    private static final String FULL_VIEW = "full";
+
+    private static final String SUMMARY_VIEW = "summary";
+
+    private static final String HOUR_BUCKET = "hour";
+
+    private static final String DAY_BUCKET = "day";
+
+    private static final ObjectMapper OBJECT_MAPPER =
+            new JacksonContextResolver().getContext(Article.class);
+
+    private static final ObjectReader ARTICLE_READER =
+            OBJECT_MAPPER.reader(Article.class);
+
+    private static final ObjectWriter ARTICLE_WRITER = OBJECT_MAPPER
+            .writerWithType(Article.class)
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
     private final ArticleService articleService;
 
+    private final ArticleJsonCache articleJsonCache;
+
+    private final ArticleBatchService articleBatchService;
+
+    private final SearchExecutor searchExecutor;
+
+    private final ArticleWriteBehind articleWriteBehind;
 
     /**
      * Generate the article id.
@@ -59,11 +124,13 @@ public class ArticleResource {
     }
 
     /**
-     * Save article.
+     * Save article. In the write-behind mode the article is queued
+     * and 202 is answered with the location of its write status,
+     * 429 when the queue is full.
      *
      * @param id      article id
      * @param article article
-     * @return article
+     * @return article or write status
      */
     @Path("{id}")
     @Consumes(MediaType.APPLICATION_JSON)
@@ -82,143 +149,520 @@ public class ArticleResource {
                 .toBuilder()
                 .publishDate(LocalDateTime.now()).build();
 
+        if (articleWriteBehind.isRunning()) {
+            return Response.accepted(articleWriteBehind.submit(toBeSaved))
+                    .location(URI.create("article/" + id + "/status"))
+                    .build();
+        }
         return Response.ok(articleService.save(toBeSaved)).build();
     }
 
-
     /**
-     * Get article.
+     * Get the state of the latest write-behind save of an article.
      *
      * @param id article id
+     * @return write status
+     */
+    @Path("{id}/status")
+    @Produces(MediaType.APPLICATION_JSON)
+    @GET
+    public Response getWriteStatus(@PathParam("id") final String id) {
+
+        UUIDUtils.checkUUID(id);
+
+        WriteStatus status = articleWriteBehind.getStatus(id);
+        if (status == null) {
+            throw new NewsException("Write status not found",
+                    Response.Status.NOT_FOUND);
+        }
+        return Response.ok(status).build();
+    }
+
+
+    /**
+     * Create or update articles in bulk. The body is a JSON array
+     * or newline delimited JSON, articles without id get a new one.
+     * Articles are saved in chunks, one transaction per chunk.
+     *
+     * @param articles articles
+     * @return one result per article
+     */
+    @Path("batch")
+    @Consumes({MediaType.APPLICATION_JSON,
+            NewsMediaType.APPLICATION_NDJSON})
+    @Produces(MediaType.APPLICATION_JSON)
+    @POST
+    public Response saveBatch(final InputStream articles) {
+        MappingIterator<Article> values;
+        try {
+            values = ARTICLE_READER.readValues(articles);
+        } catch (IOException e) {
+            throw invalidBatch(e);
+        }
+        return Response.ok(articleBatchService.save(new Iterator<Article>() {
+            @Override
+            public boolean hasNext() {
+                try {
+                    return values.hasNextValue();
+                } catch (IOException e) {
+                    throw invalidBatch(e);
+                }
+            }
+
+            @Override
+            public Article next() {
+                try {
+                    return values.nextValue();
+                } catch (IOException e) {
+                    throw invalidBatch(e);
+                }
+            }
+        })).build();
+    }
+
+    /**
+     * Export all articles as newline delimited JSON, ordered by
+     * publish date. The articles are streamed from a database cursor.
+     *
+     * @return articles
+     */
+    @Path("export")
+    @Produces(NewsMediaType.APPLICATION_NDJSON)
+    @GET
+    public Response export() {
+        StreamingOutput output = stream -> {
+            JsonGenerator generator = OBJECT_MAPPER.getFactory()
+                    .createGenerator(stream);
+            generator.setRootValueSeparator(null);
+            try {
+                articleService.export(article -> {
+                    try {
+                        ARTICLE_WRITER.writeValue(generator, article);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.flush();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+        return Response.ok(output, NewsMediaType.APPLICATION_NDJSON_TYPE)
+                .build();
+    }
+
+    /**
+     * Get article. The JSON comes from the serialized article cache,
+     * compressed when the client accepts gzip. Conditional requests
+     * are answered with 304 when the version or the publish date
+     * didn't change, without loading the article.
+     *
+     * @param id      article id
+     * @param request request
+     * @param headers request headers
      * @return article
      */
     @Path("{id}")
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
     @GET
-    public Response getById(@PathParam("id") final String id) {
+    public Response getById(@PathParam("id") final String id,
+                            @Context final Request request,
+                            @Context final HttpHeaders headers) {
 
         UUIDUtils.checkUUID(id);
 
-        Article article = articleService.find(id);
-        if (article == null) {
+        ArticleJsonCache.Json json = articleJsonCache.getIfPresent(id);
+        VersionStamp stamp = null;
+        if (json != null) {
+            stamp = json.getStamp();
+        } else if (HttpPreconditions.isConditional(headers)) {
+            stamp = articleService.findStamp(id);
+            if (stamp == null) {
+                throw new NewsException("Article not found",
+                        Response.Status.NOT_FOUND);
+            }
+        }
+        if (stamp != null) {
+            Response.ResponseBuilder notModified = HttpPreconditions
+                    .evaluate(request, stamp);
+            if (notModified != null) {
+                return notModified.build();
+            }
+        }
+        if (json == null) {
+            json = articleJsonCache.get(id, articleService::find);
+        }
+        if (json == null) {
             throw new NewsException("Article not found",
                     Response.Status.NOT_FOUND);
         }
 
-        return Response.ok(article).build();
+        Response.ResponseBuilder response = Response.ok()
+                .type(MediaType.APPLICATION_JSON_TYPE)
+                .lastModified(HttpPreconditions.lastModified(json.getStamp()));
+        if (json.getGzipBytes() == null) {
+            return response.entity(json.getBytes())
+                    .tag(HttpPreconditions.entityTag(json.getStamp(), false))
+                    .build();
+        }
+        response.header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (acceptsGzip(headers.getHeaderString(
+                HttpHeaders.ACCEPT_ENCODING))) {
+            return response.entity(json.getGzipBytes())
+                    .tag(HttpPreconditions.entityTag(json.getStamp(), true))
+                    .header(HttpHeaders.CONTENT_ENCODING, GZIP)
+                    .build();
+        }
+        return response.entity(json.getBytes())
+                .tag(HttpPreconditions.entityTag(json.getStamp(), false))
+                .build();
     }
 
     /**
      * Get all articles by author.
      *
-     * @param authorId author id
-     * @param page     page
-     * @param size     size
-     * @return articles
+     * @param asyncResponse suspended response, resumed with the
+     *                      articles or article summaries
+     * @param authorId      author id
+     * @param page          page
+     * @param size          size
+     * @param view          full (default) or summary
      */
     @Path("author/{authorId}")
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
     @GET
-    public Response getByAuthorId(
+    public void getByAuthorId(
+            @Suspended final AsyncResponse asyncResponse,
             @PathParam("authorId") final String authorId,
             @QueryParam("page") final int page,
-            @QueryParam("size") final int size) {
+            @QueryParam("size") final int size,
+            @QueryParam("view") final String view) {
 
         UUIDUtils.checkUUID(authorId);
+        PageRequest pageRequest = new PageRequest(page, size);
 
-        Page<Article> articles = articleService.getAllByAuthor(
-                new PageRequest(page, size),
-                authorId);
+        if (isSummaryView(view)) {
+            searchExecutor.execute(asyncResponse, () -> Response.ok(
+                    articleService.getSummariesByAuthor(pageRequest,
+                            authorId)).build());
+            return;
+        }
 
-        return Response.ok(articles).build();
+        searchExecutor.execute(asyncResponse, () -> {
+            Page<Article> articles = articleService.getAllByAuthor(
+                    pageRequest,
+                    authorId);
+
+            return Response.ok(articles).build();
+        });
     }
 
 
     /**
      * Get all articles by keyword.
      *
-     * @param keyword keyword
-     * @param page    page
-     * @param size    size
-     * @return articles
+     * @param asyncResponse suspended response, resumed with the
+     *                      articles or article summaries
+     * @param keyword       keyword
+     * @param page          page
+     * @param size          size
+     * @param view          full (default) or summary
      */
     @Path("keyword")
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
     @GET
-    public Response getByKeyword(
+    public void getByKeyword(
+            @Suspended final AsyncResponse asyncResponse,
             @NotNull
             @Size(min = 3)
             @QueryParam("keyword")
             final String keyword,
             @QueryParam("page") final int page,
+            @QueryParam("size") final int size,
+            @QueryParam("view") final String view) {
+
+        PageRequest pageRequest = new PageRequest(page, size);
+
+        if (isSummaryView(view)) {
+            searchExecutor.execute(asyncResponse, () -> Response.ok(
+                    articleService.getSummariesByKeyword(pageRequest,
+                            keyword)).build());
+            return;
+        }
+
+        searchExecutor.execute(asyncResponse, () -> {
+            Page<Article> articles = articleService.getAllByKeyword(
+                    pageRequest,
+                    keyword);
+
+            return Response.ok(articles).build();
+        });
+    }
+
+    /**
+     * Search the articles matching all the given criteria, in one
+     * request: "keyword X by author Y last week" is
+     * ?keyword=X&amp;author=Y&amp;from=...&amp;to=...
+     * <p>
+     * A text only search is a full text search over article header,
+     * description and text, best matches first. Searches with other
+     * criteria are ordered by publish date, newest first, the search
+     * engine picks the most selective criterion to start from.
+     *
+     * @param asyncResponse suspended response, resumed with the
+     *                      articles
+     * @param query         search query
+     * @param keyword       keyword
+     * @param authorId      author id
+     * @param from          earliest publish date, inclusive
+     * @param to            latest publish date, inclusive
+     * @param page          page number
+     * @param size          page size
+     */
+    @Path("search")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    @GET
+    public void search(
+            @Suspended final AsyncResponse asyncResponse,
+            @Size(min = 1)
+            @QueryParam("q")
+            final String query,
+            @QueryParam("keyword") final String keyword,
+            @QueryParam("author") final String authorId,
+            @QueryParam("from") final String from,
+            @QueryParam("to") final String to,
+            @QueryParam("page") final int page,
             @QueryParam("size") final int size) {
+        if (authorId != null) {
+            UUIDUtils.checkUUID(authorId);
+        }
+        ArticleCriteria criteria = ArticleCriteria.builder()
+                .text(query)
+                .keyword(keyword)
+                .authorId(authorId)
+                .publishedFrom(parseDate(from))
+                .publishedTo(parseDate(to))
+                .build();
+        if (criteria.isEmpty()) {
+            throw new NewsException("You must specify at least one of"
+                    + " q, keyword, author, from or to",
+                    Response.Status.BAD_REQUEST);
+        }
 
-        Page<Article> articles = articleService.getAllByKeyword(
-                new PageRequest(page, size),
-                keyword);
+        PageRequest pageRequest = new PageRequest(page, size);
 
-        return Response.ok(articles).build();
+        searchExecutor.execute(asyncResponse, () -> {
+            Page<Article> articles = articleService.searchByCriteria(
+                    pageRequest,
+                    criteria);
+
+            return Response.ok(articles).build();
+        });
     }
 
     /**
      * Get all articles published between specified dates.
+     * <p>
+     * When the cursor parameter is present the articles are listed
+     * in publish date order instead of by page number: send an empty
+     * cursor for the first page and the returned next token for the
+     * following ones. Listings with a start date are ascending and
+     * include the start date, listings with only an end date are
+     * descending.
+     * <p>
+     * The summary view lists the id, header, description and publish
+     * date of the articles only.
      *
-     * @param startDate from date
-     * @param endDate   to date
-     * @param page      page number
-     * @param size      page size
-     * @return articles
+     * @param asyncResponse suspended response, resumed with the
+     *                      articles or article summaries
+     * @param startDate     from date
+     * @param endDate       to date
+     * @param page          page number
+     * @param size          page size
+     * @param cursor        cursor token
+     * @param view          full (default) or summary
      */
     @Path("published")
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
     @GET
-    public Response getByPublishedDate(
+    public void getByPublishedDate(
+            @Suspended final AsyncResponse asyncResponse,
             @QueryParam("startDate") final String startDate,
             @QueryParam("endDate") final String endDate,
             @QueryParam("page") final int page,
-            @QueryParam("size") final int size) {
-        try {
+            @QueryParam("size") final int size,
+            @QueryParam("cursor") final String cursor,
+            @QueryParam("view") final String view) {
 
-            if (startDate != null && endDate != null) {
-                LocalDateTime sDate = LocalDateTime.parse(startDate,
-                        DateTimeFormatter.ofPattern(DATE_PATTERN));
-                LocalDateTime eDate = LocalDateTime.parse(endDate,
-                        DateTimeFormatter.ofPattern(DATE_PATTERN));
-                Page<Article> articles = articleService.
-                        getAllPublishedBetween(
-                        new PageRequest(page, size),
-                        sDate,
-                        eDate);
-                return Response.ok(articles).build();
-            }
+        LocalDateTime start = parseDate(startDate);
+        LocalDateTime end = parseDate(endDate);
+        if (start == null && end == null) {
+            throw new NewsException("You must specify at least one date",
+                    Response.Status.BAD_REQUEST);
+        }
+
+        boolean summary = isSummaryView(view);
+
+        if (cursor == null) {
+            PageRequest pageRequest = new PageRequest(page, size);
+            searchExecutor.execute(asyncResponse, () -> listByPublishedDate(
+                    start, end, pageRequest, summary));
+            return;
+        }
+
+        if (size < 1) {
+            throw new NewsException("Size must be greater than 0",
+                    Response.Status.BAD_REQUEST);
+        }
 
-            if (startDate != null) {
-                LocalDateTime sDate = LocalDateTime.parse(startDate,
-                        DateTimeFormatter.ofPattern(DATE_PATTERN));
-                Page<Article> articles = articleService.
-                        getAllPublishedAfter(
-                        new PageRequest(page, size),
-                        sDate);
-                return Response.ok(articles).build();
+        PublishCursor position;
+        if (!cursor.isEmpty()) {
+            position = PublishCursor.decode(cursor);
+        } else if (start != null) {
+            position = PublishCursor.at(start);
+        } else {
+            position = PublishCursor.at(end);
+        }
+        searchExecutor.execute(asyncResponse, () -> seekByPublishedDate(
+                start, end, size, position, summary));
+    }
+
+    /**
+     * Get the number of articles published per hour or per day,
+     * answered from the in memory publish counts instead of counting
+     * the articles. The buckets starting before the end date are
+     * counted whole, the first one is the bucket of the start date,
+     * only the buckets with articles are listed.
+     *
+     * @param from   start date
+     * @param to     end date, exclusive
+     * @param bucket hour or day (default)
+     * @return histogram
+     */
+    @Path("stats/histogram")
+    @Produces(MediaType.APPLICATION_JSON)
+    @GET
+    public Response getPublishHistogram(
+            @QueryParam("from") final String from,
+            @QueryParam("to") final String to,
+            @QueryParam("bucket") @DefaultValue(DAY_BUCKET)
+            final String bucket) {
+        LocalDateTime start = parseDate(from);
+        LocalDateTime end = parseDate(to);
+        if (start == null || end == null) {
+            throw new NewsException("You must specify the from and to dates",
+                    Response.Status.BAD_REQUEST);
+        }
+        if (!start.isBefore(end)) {
+            throw new NewsException("The from date must be before the to date",
+                    Response.Status.BAD_REQUEST);
+        }
+        ChronoUnit unit;
+        if (HOUR_BUCKET.equals(bucket)) {
+            unit = ChronoUnit.HOURS;
+        } else if (DAY_BUCKET.equals(bucket)) {
+            unit = ChronoUnit.DAYS;
+        } else {
+            throw new NewsException("Unknown bucket " + bucket
+                    + ", expected " + HOUR_BUCKET + " or " + DAY_BUCKET,
+                    Response.Status.BAD_REQUEST);
+        }
+        return Response.ok(articleService.getPublishHistogram(
+                start, end, unit)).build();
+    }
+
+    private Response listByPublishedDate(final LocalDateTime start,
+                                         final LocalDateTime end,
+                                         final PageRequest pageRequest,
+                                         final boolean summary) {
+        Page<?> articles;
+        if (start != null && end != null) {
+            if (summary) {
+                articles = articleService.getSummariesPublishedBetween(
+                        pageRequest, start, end);
+            } else {
+                articles = articleService.getAllPublishedBetween(
+                        pageRequest, start, end);
+            }
+        } else if (start != null) {
+            if (summary) {
+                articles = articleService.getSummariesPublishedAfter(
+                        pageRequest, start);
+            } else {
+                articles = articleService.getAllPublishedAfter(
+                        pageRequest, start);
             }
+        } else if (summary) {
+            articles = articleService.getSummariesPublishedBefore(
+                    pageRequest, end);
+        } else {
+            articles = articleService.getAllPublishedBefore(
+                    pageRequest, end);
+        }
+        return Response.ok(articles).build();
+    }
 
-            if (endDate != null) {
-                LocalDateTime eDate = LocalDateTime.parse(endDate,
-                        DateTimeFormatter.ofPattern(DATE_PATTERN));
-                Page<Article> articles = articleService.
-                        getAllPublishedBefore(
-                        new PageRequest(page, size),
-                        eDate);
-                return Response.ok(articles).build();
+    private Response seekByPublishedDate(final LocalDateTime start,
+                                         final LocalDateTime end,
+                                         final int size,
+                                         final PublishCursor position,
+                                         final boolean summary) {
+        CursorPage<?> articles;
+        if (start != null && end != null) {
+            if (summary) {
+                articles = articleService.getSummariesPublishedBetween(
+                        position, end, size);
+            } else {
+                articles = articleService.getAllPublishedBetween(
+                        position, end, size);
+            }
+        } else if (start != null) {
+            if (summary) {
+                articles = articleService.getSummariesPublishedAfter(
+                        position, size);
+            } else {
+                articles = articleService.getAllPublishedAfter(
+                        position, size);
             }
+        } else if (summary) {
+            articles = articleService.getSummariesPublishedBefore(
+                    position, size);
+        } else {
+            articles = articleService.getAllPublishedBefore(position, size);
+        }
+        return Response.ok(articles).build();
+    }
 
-            throw new NewsException("You must specify at least one date",
-                    Response.Status.BAD_REQUEST);
+    private static NewsException invalidBatch(final IOException e) {
+        return new NewsException("Invalid batch, the articles before the"
+                + " invalid one may have been saved",
+                Response.Status.BAD_REQUEST, e);
+    }
 
+    private static boolean isSummaryView(final String view) {
+        if (view == null || FULL_VIEW.equals(view)) {
+            return false;
+        }
+        if (SUMMARY_VIEW.equals(view)) {
+            return true;
+        }
+        throw new NewsException("Unknown view " + view
+                + ", expected " + FULL_VIEW + " or " + SUMMARY_VIEW,
+                Response.Status.BAD_REQUEST);
+    }
+
+    private static LocalDateTime parseDate(final String date) {
+        if (date == null) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(date, DATE_FORMATTER);
         } catch (DateTimeParseException e) {
             throw new NewsException("Date pattern is not matching: "
                     + DATE_PATTERN,
@@ -226,4 +670,28 @@ public class ArticleResource {
         }
     }
 
+    private static boolean acceptsGzip(final String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] params = coding.split(";");
+            String name = params[0].trim();
+            if (GZIP.equalsIgnoreCase(name) || "*".equals(name)) {
+                return params.length < 2 || hasQuality(params[1].trim());
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasQuality(final String param) {
+        if (!param.startsWith(QUALITY)) {
+            return true;
+        }
+        try {
+            return Double.parseDouble(param.substring(QUALITY.length())) > 0;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
 }
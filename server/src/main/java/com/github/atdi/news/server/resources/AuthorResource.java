@@ -3,6 +3,8 @@ package com.github.atdi.news.server.resources;
 import com.github.atdi.news.model.Author;
 import com.github.atdi.news.server.exceptions.NewsException;
 import com.github.atdi.news.server.services.AuthorService;
+import com.github.atdi.news.server.services.repositories.VersionStamp;
+import com.github.atdi.news.server.util.HttpPreconditions;
 import com.github.atdi.news.server.util.UUIDUtils;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
@@ -16,7 +18,10 @@ import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 import java.net.URI;
 
@@ -72,26 +77,47 @@ public class AuthorResource {
     }
 
     /**
-     * Get author.
+     * Get author. Conditional requests are answered with 304 when
+     * the version didn't change, without loading the author.
      *
-     * @param id author id
+     * @param id      author id
+     * @param request request
+     * @param headers request headers
      * @return author
      */
     @Path("{id}")
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
     @GET
-    public Response getById(@PathParam("id") final String id) {
+    public Response getById(@PathParam("id") final String id,
+                            @Context final Request request,
+                            @Context final HttpHeaders headers) {
 
         UUIDUtils.checkUUID(id);
 
+        if (HttpPreconditions.isConditional(headers)) {
+            VersionStamp stamp = authorService.findStamp(id);
+            if (stamp == null) {
+                throw new NewsException("Author not found",
+                        Response.Status.NOT_FOUND);
+            }
+            Response.ResponseBuilder notModified = HttpPreconditions
+                    .evaluate(request, stamp);
+            if (notModified != null) {
+                return notModified.build();
+            }
+        }
+
         Author author = authorService.find(id);
         if (author == null) {
             throw new NewsException("Author not found",
                     Response.Status.NOT_FOUND);
         }
 
-        return Response.ok(author).build();
+        return Response.ok(author)
+                .tag(HttpPreconditions.entityTag(
+                        new VersionStamp(author.getVersion()), false))
+                .build();
     }
 
 
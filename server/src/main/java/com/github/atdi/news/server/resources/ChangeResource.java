@@ -0,0 +1,333 @@
+package com.github.atdi.news.server.resources;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.atdi.news.model.ArticleChange;
+import com.github.atdi.news.model.ArticleChanges;
+import com.github.atdi.news.server.exceptions.NewsException;
+import com.github.atdi.news.server.services.ArticleChangeLog;
+import com.github.atdi.news.server.util.JacksonContextResolver;
+import com.github.atdi.news.server.util.NewsMediaType;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.glassfish.jersey.server.ChunkedOutput;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Article change feed REST resource.
+ * <p>
+ * Consumers read the saves and deletes following the sequence number
+ * of the last change they read, by long polling or as a server-sent
+ * events stream, instead of polling the article listings.
+ * <p>
+ * The waiting requests and the streams are answered by a bounded
+ * pool of writer threads, at most one at a time per consumer, so a
+ * slow consumer only holds its own writer. The idle streams get a
+ * comment line every heartbeat, the streams of the clients gone are
+ * closed at the latest then. The streams left are closed on
+ * shutdown.
+ */
+@Slf4j
+@RequiredArgsConstructor(onConstructor = @__({@Inject}))
+@Component
+@Path("changes")
+public class ChangeResource {
+
+    private static final int MAX_LIMIT = 1000;
+
+    private static final int MAX_WAIT = 60;
+
+    private static final int MAX_BACKLOG = 10000;
+
+    private static final int WRITERS = 16;
+
+    private static final long HEARTBEAT_SECONDS = 15;
+
+    private static final String HEARTBEAT = ":\n\n";
+
+    private static final String LAST_EVENT_ID = "Last-Event-ID";
+
+    private static final ObjectWriter CHANGE_WRITER =
+            new JacksonContextResolver().getContext(ArticleChange.class)
+                    .writerWithType(ArticleChange.class);
+
+    private final ArticleChangeLog articleChangeLog;
+
+    private final ScheduledExecutorService writers =
+            Executors.newScheduledThreadPool(WRITERS, runnable -> {
+                Thread thread = new Thread(runnable, "change-writer");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    private final Set<EventStream> streams = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Start the heartbeats of the streams.
+     */
+    @PostConstruct
+    public void open() {
+        writers.scheduleWithFixedDelay(
+                () -> streams.forEach(EventStream::beat),
+                HEARTBEAT_SECONDS, HEARTBEAT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Get the changes following a sequence number. Without changes
+     * the request waits for the next one, answered with no changes
+     * when the wait is over.
+     *
+     * @param asyncResponse suspended response, resumed with the changes
+     * @param since         sequence number of the last change read,
+     *                      the last change by default
+     * @param limit         most changes answered, 100 by default
+     * @param wait          most seconds to wait for a change,
+     *                      30 by default
+     */
+    @Produces(MediaType.APPLICATION_JSON)
+    @GET
+    public void getChanges(
+            @Suspended final AsyncResponse asyncResponse,
+            @QueryParam("since") final Long since,
+            @QueryParam("limit") @DefaultValue("100") final int limit,
+            @QueryParam("wait") @DefaultValue("30") final int wait) {
+        checkLimit(limit);
+        if (wait < 0 || wait > MAX_WAIT) {
+            throw new NewsException("The wait must be between 0 and "
+                    + MAX_WAIT, Response.Status.BAD_REQUEST);
+        }
+        long start = start(since);
+        ArticleChanges changes = articleChangeLog.read(start, limit);
+        if (!changes.getChanges().isEmpty() || wait == 0) {
+            asyncResponse.resume(changes);
+            return;
+        }
+        AtomicBoolean scheduled = new AtomicBoolean();
+        Runnable listener = new Runnable() {
+            @Override
+            public void run() {
+                if (scheduled.compareAndSet(false, true)) {
+                    writers.execute(() -> resume(this));
+                }
+            }
+
+            private void resume(final Runnable listener) {
+                ArticleChanges next = articleChangeLog.read(start, limit);
+                if (next.getChanges().isEmpty()) {
+                    scheduled.set(false);
+                    return;
+                }
+                articleChangeLog.removeListener(listener);
+                asyncResponse.resume(next);
+            }
+        };
+        asyncResponse.setTimeout(wait, TimeUnit.SECONDS);
+        asyncResponse.setTimeoutHandler(response -> {
+            articleChangeLog.removeListener(listener);
+            response.resume(articleChangeLog.read(start, limit));
+        });
+        articleChangeLog.addListener(listener);
+        // a change may have come before the listener was added
+        listener.run();
+    }
+
+    /**
+     * Stream the changes following a sequence number as server-sent
+     * events, the event id is the sequence number and the event name
+     * the change type. A reconnecting client resumes after the
+     * Last-Event-ID it sends. A stream starts at most 10000 changes
+     * behind, a consumer further behind reads them with the long
+     * polling first.
+     *
+     * @param since       sequence number of the last change read,
+     *                    the last change by default
+     * @param lastEventId sequence number of the last event received
+     * @param limit       most changes read from the feed at once,
+     *                    100 by default
+     * @return event stream
+     */
+    @Produces(NewsMediaType.TEXT_EVENT_STREAM)
+    @GET
+    public ChunkedOutput<String> streamChanges(
+            @QueryParam("since") final Long since,
+            @HeaderParam(LAST_EVENT_ID) final Long lastEventId,
+            @QueryParam("limit") @DefaultValue("100") final int limit) {
+        checkLimit(limit);
+        Long resumeAfter = since;
+        if (lastEventId != null) {
+            resumeAfter = lastEventId;
+        }
+        long start = start(resumeAfter);
+        // the events written before the response is sent are queued
+        if (articleChangeLog.countSince(start) > MAX_BACKLOG) {
+            throw new NewsException("The stream can't start more than "
+                    + MAX_BACKLOG + " changes behind, read them first",
+                    Response.Status.BAD_REQUEST);
+        }
+        ChunkedOutput<String> output = new ChunkedOutput<>(String.class);
+        EventStream stream = new EventStream(output, start, limit);
+        streams.add(stream);
+        articleChangeLog.addListener(stream);
+        stream.run();
+        return output;
+    }
+
+    /**
+     * Close the streams and stop the writers.
+     */
+    @PreDestroy
+    public void close() {
+        streams.forEach(EventStream::close);
+        writers.shutdownNow();
+    }
+
+    /**
+     * Streams open.
+     *
+     * @return stream count
+     */
+    public int getStreams() {
+        return streams.size();
+    }
+
+    private long start(final Long since) {
+        if (since == null) {
+            return articleChangeLog.getLastSequence();
+        }
+        if (since < 0) {
+            throw new NewsException("The sequence number can't be negative",
+                    Response.Status.BAD_REQUEST);
+        }
+        return since;
+    }
+
+    private static void checkLimit(final int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new NewsException("The limit must be between 1 and "
+                    + MAX_LIMIT, Response.Status.BAD_REQUEST);
+        }
+    }
+
+    /**
+     * Server-sent events stream of one consumer, writes the changes
+     * following the last written one on a writer when notified, and
+     * a comment line on every heartbeat.
+     */
+    private final class EventStream implements Runnable {
+
+        private final ChunkedOutput<String> output;
+
+        private final int limit;
+
+        private final AtomicBoolean notified = new AtomicBoolean();
+
+        private final AtomicBoolean beating = new AtomicBoolean();
+
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        private long last;
+
+        private EventStream(final ChunkedOutput<String> output,
+                            final long since,
+                            final int limit) {
+            this.output = output;
+            this.last = since;
+            this.limit = limit;
+        }
+
+        @Override
+        public void run() {
+            notified.set(true);
+            schedule();
+        }
+
+        private void beat() {
+            beating.set(true);
+            schedule();
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                writers.execute(this::write);
+            }
+        }
+
+        private boolean isPending() {
+            return notified.get() || beating.get();
+        }
+
+        private void write() {
+            try {
+                do {
+                    while (isPending()) {
+                        if (output.isClosed()) {
+                            throw new IOException("Stream closed");
+                        }
+                        if (notified.getAndSet(false)) {
+                            writeChanges();
+                        }
+                        if (beating.getAndSet(false)) {
+                            output.write(HEARTBEAT);
+                        }
+                    }
+                    scheduled.set(false);
+                    // notified after the last write, before unscheduling
+                } while (isPending() && scheduled.compareAndSet(false,
+                        true));
+            } catch (IOException e) {
+                // the client went away
+                close();
+            }
+        }
+
+        private void close() {
+            streams.remove(this);
+            articleChangeLog.removeListener(this);
+            try {
+                output.close();
+            } catch (IOException e) {
+                log.debug("Change stream not closed", e);
+            }
+        }
+
+        private void writeChanges() throws IOException {
+            ArticleChanges changes;
+            do {
+                changes = articleChangeLog.read(last, limit);
+                for (ArticleChange change : changes.getChanges()) {
+                    output.write(event(change));
+                }
+                last = changes.getLast();
+            } while (changes.getChanges().size() == limit);
+        }
+
+        private String event(final ArticleChange change) throws IOException {
+            return "id: " + change.getSequence()
+                    + "\nevent: "
+                    + change.getType().name().toLowerCase(Locale.ROOT)
+                    + "\ndata: " + CHANGE_WRITER.writeValueAsString(change)
+                    + "\n\n";
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.github.atdi.news.server.resources;
+
+import com.github.atdi.news.model.KeywordCount;
+import com.github.atdi.news.server.exceptions.NewsException;
+import com.github.atdi.news.server.services.KeywordSuggestions;
+import com.github.atdi.news.server.services.TrendingKeywords;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import javax.inject.Inject;
+import javax.validation.constraints.NotNull;
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keyword REST resource.
+ */
+@RequiredArgsConstructor(onConstructor = @__({@Inject}))
+@Component
+@Path("keyword")
+public class KeywordResource {
+
+    private static final int MAX_LIMIT = 100;
+
+    private final TrendingKeywords trendingKeywords;
+
+    private final KeywordSuggestions keywordSuggestions;
+
+    /**
+     * Get the most frequent keywords of the saved articles and of the
+     * keyword queries over the last window. The counts are approximate,
+     * see {@link KeywordCount}.
+     *
+     * @param window window, a number of minutes (m), hours (h)
+     *               or days (d), 1h by default
+     * @param limit  maximum number of keywords, 10 by default
+     * @return keywords by decreasing count
+     */
+    @Path("trending")
+    @Produces(MediaType.APPLICATION_JSON)
+    @GET
+    public List<KeywordCount> getTrending(
+            @QueryParam("window") @DefaultValue("1h") final String window,
+            @QueryParam("limit") @DefaultValue("10") final int limit) {
+        checkLimit(limit);
+        return trendingKeywords.getTop(parseWindow(window), limit);
+    }
+
+    /**
+     * Get the keywords starting with the prefix, by decreasing number
+     * of articles, answered from memory.
+     *
+     * @param prefix keyword prefix, case sensitive
+     * @param limit  maximum number of keywords, 10 by default
+     * @return keywords with their number of articles
+     */
+    @Path("suggest")
+    @Produces(MediaType.APPLICATION_JSON)
+    @GET
+    public List<KeywordCount> suggest(
+            @NotNull @QueryParam("prefix") final String prefix,
+            @QueryParam("limit") @DefaultValue("10") final int limit) {
+        checkLimit(limit);
+        return keywordSuggestions.suggest(prefix, limit);
+    }
+
+    private static void checkLimit(final int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new NewsException("The limit must be between 1 and "
+                    + MAX_LIMIT, Response.Status.BAD_REQUEST);
+        }
+    }
+
+    private static long parseWindow(final String window) {
+        TimeUnit unit = null;
+        if (!window.isEmpty()) {
+            switch (window.charAt(window.length() - 1)) {
+                case 'm':
+                    unit = TimeUnit.MINUTES;
+                    break;
+                case 'h':
+                    unit = TimeUnit.HOURS;
+                    break;
+                case 'd':
+                    unit = TimeUnit.DAYS;
+                    break;
+                default:
+                    break;
+            }
+        }
+        try {
+            if (unit != null) {
+                return unit.toMillis(Long.parseLong(
+                        window.substring(0, window.length() - 1)));
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new NewsException("Invalid window " + window
+                + ", expected minutes (30m), hours (1h) or days (1d)",
+                Response.Status.BAD_REQUEST);
+    }
+}
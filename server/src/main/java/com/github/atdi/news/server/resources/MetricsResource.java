@@ -0,0 +1,37 @@
+package com.github.atdi.news.server.resources;
+
+import com.github.atdi.news.server.datasource.ConnectionPools;
+import com.github.atdi.news.server.metrics.RequestMetrics;
+import com.github.atdi.news.server.util.NewsMediaType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import javax.inject.Inject;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+
+/**
+ * Metrics REST resource, scraped by Prometheus.
+ */
+@RequiredArgsConstructor(onConstructor = @__({@Inject}))
+@Component
+@Path("metrics")
+public class MetricsResource {
+
+    private final RequestMetrics requestMetrics;
+
+    private final ConnectionPools connectionPools;
+
+    /**
+     * Get the request and connection pool metrics in the Prometheus
+     * text format.
+     *
+     * @return metrics
+     */
+    @Produces(NewsMediaType.TEXT_PROMETHEUS)
+    @GET
+    public String getMetrics() {
+        return requestMetrics.scrape() + connectionPools.scrape();
+    }
+}
@@ -0,0 +1,225 @@
+package com.github.atdi.news.server.services;
+
+import com.github.atdi.news.model.Article;
+import com.github.atdi.news.model.Author;
+import com.github.atdi.news.model.BatchResult;
+import com.github.atdi.news.server.exceptions.NewsException;
+import com.github.atdi.news.server.services.repositories.ArticleJpaRepository;
+import com.github.atdi.news.server.services.repositories.AuthorJpaRepository;
+import com.github.atdi.news.server.services.repositories.UpsertedArticle;
+import com.github.atdi.news.server.util.UUIDUtils;
+import org.springframework.context.ApplicationEventPublisher;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import javax.ws.rs.core.Response;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Batch article ingestion.
+ * <p>
+ * Articles are read in chunks, every chunk is validated at once
+ * and the valid articles are saved in one transaction. Articles
+ * without id get a new one, articles without publish date are
+ * published now. A failing chunk doesn't roll back the chunks
+ * saved before it.
+ */
+public class ArticleBatchService {
+
+    private final ArticleJpaRepository articleJpaRepository;
+
+    private final AuthorJpaRepository authorJpaRepository;
+
+    private final Validator validator;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final IdGenerator idGenerator;
+
+    private final int chunkSize;
+
+    /**
+     * Constructor.
+     *
+     * @param articleJpaRepository article repository
+     * @param authorJpaRepository  author repository
+     * @param validator            bean validator
+     * @param eventPublisher       article events publisher
+     * @param idGenerator          id generator of the new articles
+     * @param chunkSize            articles saved per transaction
+     */
+    public ArticleBatchService(final ArticleJpaRepository articleJpaRepository,
+                               final AuthorJpaRepository authorJpaRepository,
+                               final Validator validator,
+                               final ApplicationEventPublisher eventPublisher,
+                               final IdGenerator idGenerator,
+                               final int chunkSize) {
+        this.articleJpaRepository = articleJpaRepository;
+        this.authorJpaRepository = authorJpaRepository;
+        this.validator = validator;
+        this.eventPublisher = eventPublisher;
+        this.idGenerator = idGenerator;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Create or update the articles.
+     *
+     * @param articles articles
+     * @return one result per article, in the same order
+     */
+    public List<BatchResult> save(final Iterator<Article> articles) {
+        List<BatchResult> results = new ArrayList<>();
+        List<Article> chunk = new ArrayList<>(chunkSize);
+        while (articles.hasNext()) {
+            chunk.add(articles.next());
+            if (chunk.size() == chunkSize) {
+                saveChunk(chunk, results);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            saveChunk(chunk, results);
+        }
+        return results;
+    }
+
+    private void saveChunk(final List<Article> chunk,
+                           final List<BatchResult> results) {
+        int offset = results.size();
+        BatchResult[] chunkResults = new BatchResult[chunk.size()];
+        List<Article> valid = new ArrayList<>(chunk.size());
+        List<Integer> positions = new ArrayList<>(chunk.size());
+        Set<String> ids = new HashSet<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < chunk.size(); i++) {
+            Article article = prepare(chunk.get(i), now);
+            String message = validate(article, ids);
+            if (message == null) {
+                valid.add(article);
+                positions.add(i);
+            } else {
+                chunkResults[i] = rejected(offset + i, chunk.get(i),
+                        message);
+            }
+        }
+        Set<String> missingAuthors = findMissingAuthors(valid);
+        if (!missingAuthors.isEmpty()) {
+            for (int i = valid.size() - 1; i >= 0; i--) {
+                Author missing = findAuthor(valid.get(i), missingAuthors);
+                if (missing != null) {
+                    int position = positions.remove(i);
+                    chunkResults[position] = rejected(offset + position,
+                            valid.remove(i),
+                            "Author not found " + missing.getId());
+                }
+            }
+        }
+        List<UpsertedArticle> saved = articleJpaRepository.upsert(valid);
+        for (int i = 0; i < saved.size(); i++) {
+            Article article = saved.get(i).getArticle();
+            int position = positions.get(i);
+            Response.Status status = Response.Status.OK;
+            if (saved.get(i).isCreated()) {
+                status = Response.Status.CREATED;
+            }
+            chunkResults[position] = BatchResult.builder()
+                    .index(offset + position)
+                    .id(article.getId())
+                    .status(status.getStatusCode())
+                    .build();
+            eventPublisher.publishEvent(ArticleEvent.saved(this, article));
+        }
+        for (BatchResult result : chunkResults) {
+            results.add(result);
+        }
+    }
+
+    private Article prepare(final Article article,
+                                   final LocalDateTime now) {
+        if (article == null) {
+            return null;
+        }
+        Article.ArticleBuilder builder = article.toBuilder();
+        if (article.getId() == null) {
+            builder.id(idGenerator.generateId());
+        }
+        if (article.getPublishDate() == null) {
+            builder.publishDate(now);
+        }
+        return builder.build();
+    }
+
+    private String validate(final Article article, final Set<String> ids) {
+        if (article == null) {
+            return "Empty article";
+        }
+        try {
+            UUIDUtils.checkUUID(article.getId());
+        } catch (NewsException e) {
+            return "Invalid uuid";
+        }
+        if (!ids.add(article.getId())) {
+            return "Duplicate id";
+        }
+        Set<ConstraintViolation<Article>> violations = validator
+                .validate(article);
+        if (!violations.isEmpty()) {
+            ConstraintViolation<Article> violation = violations.iterator()
+                    .next();
+            return violation.getPropertyPath() + " "
+                    + violation.getMessage();
+        }
+        return null;
+    }
+
+    private Set<String> findMissingAuthors(final List<Article> articles) {
+        Set<String> missing = new HashSet<>();
+        for (Article article : articles) {
+            if (article.getAuthors() != null) {
+                for (Author author : article.getAuthors()) {
+                    missing.add(author.getId());
+                }
+            }
+        }
+        if (missing.isEmpty()) {
+            return missing;
+        }
+        for (Author author : authorJpaRepository.findAll(
+                new ArrayList<>(missing))) {
+            missing.remove(author.getId());
+        }
+        return missing;
+    }
+
+    private static Author findAuthor(final Article article,
+                                     final Set<String> ids) {
+        if (article.getAuthors() == null) {
+            return null;
+        }
+        for (Author author : article.getAuthors()) {
+            if (ids.contains(author.getId())) {
+                return author;
+            }
+        }
+        return null;
+    }
+
+    private static BatchResult rejected(final int index,
+                                        final Article article,
+                                        final String message) {
+        BatchResult.BatchResultBuilder result = BatchResult.builder()
+                .index(index)
+                .status(Response.Status.BAD_REQUEST.getStatusCode())
+                .message(message);
+        if (article != null) {
+            result.id(article.getId());
+        }
+        return result.build();
+    }
+}
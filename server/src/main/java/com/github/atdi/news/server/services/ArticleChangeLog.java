@@ -0,0 +1,399 @@
+package com.github.atdi.news.server.services;
+
+import com.github.atdi.news.model.ArticleChange;
+import com.github.atdi.news.model.ArticleChangeGap;
+import com.github.atdi.news.model.ArticleChanges;
+import com.github.atdi.news.server.services.repositories.ArticleChangeJpaRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationListener;
+import org.springframework.data.domain.PageRequest;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ordered log of the article saves and deletes, the change feed.
+ * <p>
+ * Every article event gets the next sequence number. The latest
+ * changes are kept in a ring buffer and spilled to the database
+ * every flush interval, and before being overwritten: a change is
+ * only overwritten once spilled, the event waits up to the overwrite
+ * wait for a spill to succeed, then drops the changes not spilled and
+ * records their numbers as a gap, spilled with the next changes. The
+ * spills write the database outside the lock, the events and the
+ * reads don't wait for them. Consumers close behind are answered
+ * from memory and the others from the primary database.
+ * <p>
+ * Changes not spilled yet are lost if the server stops abruptly.
+ * At most capacity changes are not spilled, so on start the sequence
+ * skips as many numbers after the last spilled or skipped one and
+ * records the gap, a number already read before the stop is never
+ * reused. The numbers increase but are not contiguous, the reads
+ * step over the recorded gaps and stop before any other missing
+ * number rather than skip it.
+ * <p>
+ * Listeners are notified on their own thread after every change,
+ * a slow consumer doesn't delay the saves. The listeners must not
+ * block, they share the thread.
+ */
+@Slf4j
+public class ArticleChangeLog implements ApplicationListener<ArticleEvent> {
+
+    private static final long SPILL_RETRY_MILLIS = 1000;
+
+    private final ArticleChangeJpaRepository articleChangeJpaRepository;
+
+    private final ArticleChange[] ring;
+
+    private final long flushInterval;
+
+    private final long overwriteWait;
+
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+
+    private final TreeMap<Long, Long> gaps = new TreeMap<>();
+
+    private final List<ArticleChangeGap> dropped = new ArrayList<>();
+
+    private long next;
+
+    private long first;
+
+    private long flushed;
+
+    private boolean spilling;
+
+    private long retryAt;
+
+    private ScheduledExecutorService flusher;
+
+    private ExecutorService notifier;
+
+    /**
+     * Constructor.
+     *
+     * @param articleChangeJpaRepository change repository
+     * @param capacity                   changes kept in memory
+     * @param flushInterval              spill interval in seconds, 0 to
+     *                                   spill only the changes about to
+     *                                   be overwritten and on close
+     * @param overwriteWait              most milliseconds a change waits
+     *                                   for the spill of the one it
+     *                                   overwrites
+     */
+    public ArticleChangeLog(
+            final ArticleChangeJpaRepository articleChangeJpaRepository,
+            final int capacity,
+            final long flushInterval,
+            final long overwriteWait) {
+        this.articleChangeJpaRepository = articleChangeJpaRepository;
+        this.ring = new ArticleChange[capacity];
+        this.flushInterval = flushInterval;
+        this.overwriteWait = overwriteWait;
+    }
+
+    /**
+     * Skip the numbers of the changes possibly lost, continue the
+     * sequence after them and start spilling.
+     */
+    @PostConstruct
+    public void open() {
+        List<ArticleChangeGap> skipped =
+                articleChangeJpaRepository.skip(ring.length);
+        synchronized (this) {
+            gaps.clear();
+            dropped.clear();
+            for (ArticleChangeGap gap : skipped) {
+                gaps.put(gap.getFirst(), gap.getLast());
+            }
+            next = skipped.get(skipped.size() - 1).getLast() + 1;
+            first = next;
+            flushed = next - 1;
+        }
+        notifier = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "change-notifier");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (flushInterval > 0) {
+            flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "change-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            flusher.scheduleWithFixedDelay(this::flush,
+                    flushInterval, flushInterval, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Stop notifying and spill the changes left in memory.
+     */
+    @PreDestroy
+    public void close() {
+        if (flusher != null) {
+            flusher.shutdown();
+        }
+        notifier.shutdown();
+        flush();
+    }
+
+    @Override
+    public void onApplicationEvent(final ArticleEvent event) {
+        ArticleChange.ArticleChangeBuilder change = ArticleChange.builder()
+                .articleId(event.getArticleId())
+                .type(ArticleChange.Type.valueOf(event.getType().name()))
+                .changeTime(LocalDateTime.now());
+        if (event.getArticle() != null) {
+            change.version(event.getArticle().getVersion());
+        }
+        long deadline = System.currentTimeMillis() + overwriteWait;
+        while (!add(change, deadline)) {
+            // the ring is full, spilled by this thread
+            spill();
+        }
+        notifier.execute(() -> listeners.forEach(Runnable::run));
+    }
+
+    /**
+     * Sequence number of the last change.
+     *
+     * @return last sequence number, the last skipped one without
+     * changes since the start
+     */
+    public synchronized long getLastSequence() {
+        return next - 1;
+    }
+
+    /**
+     * Count the changes following a sequence number.
+     *
+     * @param since sequence number of the last change already read
+     * @return changes following it, skipped numbers not counted
+     */
+    public synchronized long countSince(final long since) {
+        long count = Math.max(0, next - 1 - since);
+        for (Map.Entry<Long, Long> gap
+                : gaps.tailMap(since, false).entrySet()) {
+            count -= gap.getValue() - gap.getKey() + 1;
+        }
+        // a gap containing since is only counted after it
+        Map.Entry<Long, Long> containing = gaps.floorEntry(since);
+        if (containing != null && containing.getValue() > since) {
+            count -= containing.getValue() - since;
+        }
+        return count;
+    }
+
+    /**
+     * Read the changes following a sequence number.
+     *
+     * @param since sequence number of the last change already read
+     * @param limit most changes read
+     * @return changes ordered by sequence number
+     */
+    public ArticleChanges read(final long since, final int limit) {
+        List<ArticleChange> changes = new ArrayList<>();
+        long ringStart;
+        synchronized (this) {
+            ringStart = Math.max(first, next - ring.length);
+            long sequence = Math.max(since + 1, ringStart);
+            for (; sequence < next && changes.size() < limit; sequence++) {
+                changes.add(ring[slot(sequence)]);
+            }
+        }
+        if (since + 1 < ringStart) {
+            changes = readSpilled(since, limit, ringStart, changes);
+        }
+        long last = since;
+        if (!changes.isEmpty()) {
+            last = changes.get(changes.size() - 1).getSequence();
+        }
+        return ArticleChanges.builder()
+                .changes(changes)
+                .last(last)
+                .build();
+    }
+
+    /**
+     * Notify a listener after every change, on the notifier thread.
+     *
+     * @param listener listener, must not block
+     */
+    public void addListener(final Runnable listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Stop notifying a listener.
+     *
+     * @param listener listener
+     */
+    public void removeListener(final Runnable listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Spill the changes not in the database yet, after the spill in
+     * progress if any.
+     */
+    public void flush() {
+        spill();
+    }
+
+    private List<ArticleChange> readSpilled(final long since,
+                                            final int limit,
+                                            final long ringStart,
+                                            final List<ArticleChange> ringed) {
+        List<ArticleChange> spilled = articleChangeJpaRepository
+                .findBySequenceBetweenOrderBySequenceAsc(since + 1,
+                        ringStart - 1, new PageRequest(0, limit));
+        List<ArticleChange> changes = new ArrayList<>(limit);
+        long expected = afterGaps(since + 1);
+        for (ArticleChange change : spilled) {
+            if (change.getSequence() != expected) {
+                log.warn("Article change {} missing, read up to {}",
+                        expected, expected - 1);
+                return changes;
+            }
+            changes.add(change);
+            expected = afterGaps(change.getSequence() + 1);
+        }
+        // all the spilled changes up to the ring were read
+        if (changes.size() < limit && expected >= ringStart) {
+            changes.addAll(ringed.subList(0,
+                    Math.min(ringed.size(), limit - changes.size())));
+        }
+        return changes;
+    }
+
+    private synchronized long afterGaps(final long sequence) {
+        long after = sequence;
+        Map.Entry<Long, Long> gap = gaps.floorEntry(after);
+        while (gap != null && after <= gap.getValue()) {
+            after = gap.getValue() + 1;
+            gap = gaps.floorEntry(after);
+        }
+        return after;
+    }
+
+    private boolean isUnspilled(final ArticleChange change) {
+        return change != null && change.getSequence() > flushed;
+    }
+
+    private synchronized boolean add(
+            final ArticleChange.ArticleChangeBuilder change,
+            final long deadline) {
+        while (isUnspilled(ring[slot(next)])) {
+            long now = System.currentTimeMillis();
+            if (now >= deadline) {
+                drop();
+            } else if (!spilling && now >= retryAt) {
+                return false;
+            } else {
+                long until = deadline;
+                if (!spilling) {
+                    until = Math.min(deadline, retryAt);
+                }
+                try {
+                    // releases the monitor, the readers go on meanwhile
+                    wait(until - now);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    drop();
+                }
+            }
+        }
+        ring[slot(next)] = change.sequence(next).build();
+        next++;
+        return true;
+    }
+
+    private boolean spill() {
+        List<ArticleChange> changes = new ArrayList<>();
+        List<ArticleChangeGap> gapsSpilled;
+        long last;
+        synchronized (this) {
+            while (spilling) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            for (long sequence = Math.max(flushed + 1, next - ring.length);
+                 sequence < next; sequence++) {
+                changes.add(ring[slot(sequence)]);
+            }
+            gapsSpilled = new ArrayList<>(dropped);
+            last = next - 1;
+            if (changes.isEmpty() && gapsSpilled.isEmpty()) {
+                return true;
+            }
+            spilling = true;
+        }
+        boolean spilled = true;
+        try {
+            articleChangeJpaRepository.append(changes, gapsSpilled);
+        } catch (RuntimeException e) {
+            log.error("{} article changes not spilled", changes.size(), e);
+            spilled = false;
+        }
+        synchronized (this) {
+            spilling = false;
+            if (spilled) {
+                flushed = Math.max(flushed, last);
+                dropped.removeAll(gapsSpilled);
+                trimDropped(last);
+            } else {
+                retryAt = System.currentTimeMillis() + SPILL_RETRY_MILLIS;
+            }
+            notifyAll();
+        }
+        return spilled;
+    }
+
+    private void drop() {
+        ArticleChangeGap gap = ArticleChangeGap.builder()
+                .first(flushed + 1)
+                .last(next - 1)
+                .build();
+        log.error("Article changes {} to {} dropped, not spilled within {}"
+                + " ms", gap.getFirst(), gap.getLast(), overwriteWait);
+        dropped.add(gap);
+        gaps.put(gap.getFirst(), gap.getLast());
+        flushed = gap.getLast();
+    }
+
+    private void trimDropped(final long spilledUpTo) {
+        // dropped while being spilled, the spilled ones are no gap
+        List<ArticleChangeGap> trimmed = new ArrayList<>();
+        for (ArticleChangeGap gap : dropped) {
+            gaps.remove(gap.getFirst());
+            if (gap.getLast() > spilledUpTo) {
+                ArticleChangeGap kept = gap.toBuilder()
+                        .first(Math.max(gap.getFirst(), spilledUpTo + 1))
+                        .build();
+                trimmed.add(kept);
+                gaps.put(kept.getFirst(), kept.getLast());
+            }
+        }
+        dropped.clear();
+        dropped.addAll(trimmed);
+    }
+
+    private int slot(final long sequence) {
+        return (int) (sequence % ring.length);
+    }
+}
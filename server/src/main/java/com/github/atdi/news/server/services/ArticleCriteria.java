@@ -0,0 +1,71 @@
+package com.github.atdi.news.server.services;
+
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Criteria of a combined article search, every criterion which is
+ * set must match.
+ */
+@Getter
+@EqualsAndHashCode
+@Builder(toBuilder = true)
+public final class ArticleCriteria {
+
+    /**
+     * Text searched in the header, description and text.
+     */
+    private final String text;
+
+    /**
+     * Keyword of the articles.
+     */
+    private final String keyword;
+
+    /**
+     * Id of one of the authors of the articles.
+     */
+    private final String authorId;
+
+    /**
+     * Earliest publish date, inclusive.
+     */
+    private final LocalDateTime publishedFrom;
+
+    /**
+     * Latest publish date, inclusive.
+     */
+    private final LocalDateTime publishedTo;
+
+    /**
+     * Check if no criterion is set.
+     *
+     * @return true if every article matches
+     */
+    public boolean isEmpty() {
+        return text == null && keyword == null && authorId == null
+                && publishedFrom == null && publishedTo == null;
+    }
+
+    /**
+     * Check if the text is the only criterion.
+     *
+     * @return true for a plain text search
+     */
+    public boolean isTextOnly() {
+        return text != null && keyword == null && authorId == null
+                && publishedFrom == null && publishedTo == null;
+    }
+
+    /**
+     * Check if the publish date is constrained.
+     *
+     * @return true if a publish date bound is set
+     */
+    public boolean hasPublishRange() {
+        return publishedFrom != null || publishedTo != null;
+    }
+}
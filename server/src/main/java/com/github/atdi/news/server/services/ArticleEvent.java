@@ -0,0 +1,79 @@
+package com.github.atdi.news.server.services;
+
+import com.github.atdi.news.model.Article;
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Event published by {@link ArticleService} after an article
+ * was saved or deleted.
+ * <p>
+ * In-process structures that mirror the articles table
+ * (search indexes, caches, statistics) listen to it in order
+ * to stay in step with the database.
+ */
+@Getter
+public class ArticleEvent extends ApplicationEvent {
+
+    /**
+     * Article mutation type.
+     */
+    public enum Type {
+        /**
+         * Article was created or updated.
+         */
+        SAVED,
+        /**
+         * Article was deleted.
+         */
+        DELETED
+    }
+
+    private final Type type;
+
+    private final String articleId;
+
+    private final Article article;
+
+    /**
+     * Constructor.
+     *
+     * @param source    event source
+     * @param type      mutation type
+     * @param articleId article id
+     * @param article   saved article, null for deletes
+     */
+    public ArticleEvent(final Object source,
+                        final Type type,
+                        final String articleId,
+                        final Article article) {
+        super(source);
+        this.type = type;
+        this.articleId = articleId;
+        this.article = article;
+    }
+
+    /**
+     * Create a saved event.
+     *
+     * @param source  event source
+     * @param article saved article
+     * @return event
+     */
+    public static ArticleEvent saved(final Object source,
+                                     final Article article) {
+        return new ArticleEvent(source, Type.SAVED, article.getId(), article);
+    }
+
+    /**
+     * Create a deleted event.
+     *
+     * @param source    event source
+     * @param articleId deleted article id
+     * @return event
+     */
+    public static ArticleEvent deleted(final Object source,
+                                       final String articleId) {
+        return new ArticleEvent(source, Type.DELETED, articleId, null);
+    }
+}
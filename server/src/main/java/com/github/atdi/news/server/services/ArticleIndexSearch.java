@@ -0,0 +1,130 @@
+package com.github.atdi.news.server.services;
+
+import com.github.atdi.news.model.Article;
+import com.github.atdi.news.server.services.repositories.ArticleJpaRepository;
+import org.springframework.context.ApplicationListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * {@link ArticleSearchService} which answers keyword searches from
+ * an in memory {@link KeywordIndex}.
+ * <p>
+ * Only the articles of the requested page are loaded from the
+ * database, by primary key. The total count comes from the posting
+ * list size, so no count query is issued. Keyword results are
+ * always ordered by publish date, newest first. The other searches
+ * are delegated to {@link ArticleJpaSearch}.
+ * <p>
+ * Combined searches with a keyword are planned on the size of its
+ * posting list: up to max candidates articles, the publish date
+ * range is cut out of the posting list in memory and the other
+ * criteria, if any, are checked by the database on these ids only.
+ * Larger posting lists aren't selective enough, the search is sent
+ * whole to the database.
+ */
+public class ArticleIndexSearch extends ArticleJpaSearch
+        implements ApplicationListener<ArticleEvent> {
+
+    private final KeywordIndex keywordIndex;
+
+    private final int maxCandidates;
+
+    /**
+     * Constructor.
+     *
+     * @param articleJpaRepository article repository
+     * @param keywordIndex         keyword index
+     * @param maxCandidates        largest posting list a combined
+     *                             search starts from
+     */
+    public ArticleIndexSearch(final ArticleJpaRepository articleJpaRepository,
+                              final KeywordIndex keywordIndex,
+                              final int maxCandidates) {
+        super(articleJpaRepository);
+        this.keywordIndex = keywordIndex;
+        this.maxCandidates = maxCandidates;
+    }
+
+    /**
+     * Load all the stored articles in the index.
+     */
+    @PostConstruct
+    public void rebuild() {
+        keywordIndex.clear();
+        forEachArticle(this::index);
+    }
+
+    @Override
+    public Page<Article> searchByKeyword(final Pageable pageable,
+                                         final String keyword) {
+        int total = keywordIndex.count(keyword);
+        List<String> ids = keywordIndex.find(keyword,
+                pageable.getOffset(),
+                pageable.getPageSize());
+        return new PageImpl<>(findAllInOrder(ids), pageable, total);
+    }
+
+    @Override
+    public Page<Article> searchByCriteria(final Pageable pageable,
+                                          final ArticleCriteria criteria) {
+        String keyword = criteria.getKeyword();
+        if (keyword == null || keywordIndex.count(keyword) > maxCandidates) {
+            return super.searchByCriteria(pageable, criteria);
+        }
+        // articles without publish date don't match a date range
+        long fromTime = Long.MIN_VALUE;
+        long toTime = Long.MAX_VALUE;
+        if (criteria.hasPublishRange()) {
+            fromTime = Long.MIN_VALUE + 1;
+        }
+        if (criteria.getPublishedFrom() != null) {
+            fromTime = toTime(criteria.getPublishedFrom());
+        }
+        if (criteria.getPublishedTo() != null) {
+            toTime = toTime(criteria.getPublishedTo());
+        }
+        if (criteria.getText() == null && criteria.getAuthorId() == null) {
+            int total = keywordIndex.count(keyword, fromTime, toTime);
+            List<String> ids = keywordIndex.find(keyword, fromTime, toTime,
+                    pageable.getOffset(), pageable.getPageSize());
+            return new PageImpl<>(findAllInOrder(ids), pageable, total);
+        }
+        List<String> candidates = keywordIndex.find(keyword, fromTime,
+                toTime, 0, maxCandidates);
+        if (candidates.isEmpty()) {
+            return new PageImpl<>(Collections.emptyList(), pageable, 0);
+        }
+        return findByCriteria(pageable, criteria.toBuilder()
+                .keyword(null)
+                .publishedFrom(null)
+                .publishedTo(null)
+                .build(), candidates);
+    }
+
+    @Override
+    public void onApplicationEvent(final ArticleEvent event) {
+        if (event.getType() == ArticleEvent.Type.DELETED) {
+            keywordIndex.remove(event.getArticleId());
+        } else {
+            index(event.getArticle());
+        }
+    }
+
+    private void index(final Article article) {
+        keywordIndex.put(article.getId(),
+                article.getPublishDate(),
+                article.getKeywords());
+    }
+
+    private static long toTime(final LocalDateTime date) {
+        return date.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+}
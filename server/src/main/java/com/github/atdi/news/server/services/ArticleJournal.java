@@ -0,0 +1,301 @@
+package com.github.atdi.news.server.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.atdi.news.model.Article;
+import com.github.atdi.news.server.util.JacksonContextResolver;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Local append-only journal of the articles accepted by the
+ * {@link ArticleWriteBehind} and not yet written to the database,
+ * one JSON article per line.
+ * <p>
+ * The journal is a sequence of segment files, path.1, path.2...,
+ * a new one is started every segment size articles. Every article
+ * is released once written, a segment is deleted once all its
+ * articles are released, the current one is emptied. On start the
+ * articles left in the segments are written again, the saves being
+ * upserts.
+ * <p>
+ * Without sync the appended articles survive a crash of the server
+ * but not of the machine. With sync the appends are forced to the
+ * disk by {@link #sync()}, concurrent callers share one force, a
+ * group commit.
+ */
+@Slf4j
+public class ArticleJournal implements Closeable {
+
+    private static final ObjectMapper OBJECT_MAPPER =
+            new JacksonContextResolver().getContext(Article.class);
+
+    private static final ObjectReader ARTICLE_READER =
+            OBJECT_MAPPER.reader(Article.class);
+
+    private static final ObjectWriter ARTICLE_WRITER =
+            OBJECT_MAPPER.writerWithType(Article.class);
+
+    private static final byte NEW_LINE = '\n';
+
+    private final Path path;
+
+    private final boolean sync;
+
+    private final int segmentSize;
+
+    private final Object syncLock = new Object();
+
+    private final Map<Long, Integer> unreleased = new TreeMap<>();
+
+    private long segment;
+
+    private int segmentAppends;
+
+    private FileChannel channel;
+
+    private long appended;
+
+    private volatile long synced;
+
+    /**
+     * Constructor.
+     *
+     * @param path        journal path, the segments add a number to it
+     * @param sync        force the appends to the disk on sync
+     * @param segmentSize articles appended per segment
+     */
+    public ArticleJournal(final Path path,
+                          final boolean sync,
+                          final int segmentSize) {
+        this.path = path;
+        this.sync = sync;
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Open the journal for appending, in a new segment.
+     *
+     * @return articles left in the segments, in append order, a line
+     * torn by a crash is skipped
+     * @throws IOException if the journal can't be read or opened
+     */
+    public synchronized List<Entry> open() throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        for (Map.Entry<Long, Path> file : segments().entrySet()) {
+            int count = read(file.getKey(), file.getValue(), entries);
+            if (count == 0) {
+                Files.delete(file.getValue());
+            } else {
+                unreleased.put(file.getKey(), count);
+            }
+            segment = file.getKey();
+        }
+        roll();
+        return entries;
+    }
+
+    /**
+     * Append an article to the current segment, it is on the disk
+     * once {@link #sync()} returns.
+     *
+     * @param article article
+     * @return segment of the article, to release it
+     * @throws IOException if the article can't be written
+     */
+    public synchronized long append(final Article article)
+            throws IOException {
+        if (segmentAppends == segmentSize) {
+            syncChannel();
+            roll();
+        }
+        byte[] json = ARTICLE_WRITER.writeValueAsBytes(article);
+        ByteBuffer buffer = ByteBuffer.allocate(json.length + 1);
+        buffer.put(json).put(NEW_LINE).flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        segmentAppends++;
+        appended++;
+        unreleased.merge(segment, 1, Integer::sum);
+        return segment;
+    }
+
+    /**
+     * Force the appended articles to the disk, with sync. A caller
+     * finding a force in progress waits for it and forces the
+     * articles appended meanwhile at once, unless that force covered
+     * them.
+     *
+     * @throws IOException if the journal can't be forced
+     */
+    public void sync() throws IOException {
+        if (!sync) {
+            return;
+        }
+        long target;
+        synchronized (this) {
+            target = appended;
+        }
+        synchronized (syncLock) {
+            if (synced >= target) {
+                return;
+            }
+            long forced;
+            FileChannel current;
+            synchronized (this) {
+                forced = appended;
+                current = channel;
+            }
+            try {
+                current.force(false);
+            } catch (ClosedChannelException e) {
+                // rolled meanwhile, the segment was forced before closing
+                log.debug("Journal segment forced on roll", e);
+            }
+            synced = forced;
+        }
+    }
+
+    /**
+     * Release a written article, its segment is deleted once all
+     * its articles are released.
+     *
+     * @param articleSegment segment of the article
+     * @throws IOException if the segment can't be deleted
+     */
+    public synchronized void release(final long articleSegment)
+            throws IOException {
+        int count = unreleased.merge(articleSegment, -1, Integer::sum);
+        if (count > 0) {
+            return;
+        }
+        unreleased.remove(articleSegment);
+        if (articleSegment == segment) {
+            channel.truncate(0);
+            segmentAppends = 0;
+        } else {
+            Files.deleteIfExists(segmentPath(articleSegment));
+        }
+    }
+
+    /**
+     * Segments holding unreleased articles.
+     *
+     * @return segment count
+     */
+    public synchronized int getSegments() {
+        return unreleased.size();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            syncChannel();
+            channel.close();
+            channel = null;
+            if (!unreleased.containsKey(segment)) {
+                Files.deleteIfExists(segmentPath(segment));
+            }
+        }
+    }
+
+    private void roll() throws IOException {
+        if (channel != null) {
+            channel.close();
+            if (!unreleased.containsKey(segment)) {
+                Files.deleteIfExists(segmentPath(segment));
+            }
+        }
+        segment++;
+        segmentAppends = 0;
+        channel = FileChannel.open(segmentPath(segment),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    private void syncChannel() throws IOException {
+        if (sync) {
+            channel.force(false);
+        }
+    }
+
+    private Map<Long, Path> segments() throws IOException {
+        Map<Long, Path> segments = new TreeMap<>();
+        Path directory = path.toAbsolutePath().getParent();
+        String prefix = path.getFileName() + ".";
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(
+                directory, prefix + "*")) {
+            for (Path file : files) {
+                try {
+                    segments.put(Long.parseLong(file.getFileName()
+                            .toString().substring(prefix.length())), file);
+                } catch (NumberFormatException e) {
+                    log.warn("Skipped {}, not a journal segment", file);
+                }
+            }
+        }
+        return segments;
+    }
+
+    private Path segmentPath(final long number) {
+        return path.resolveSibling(path.getFileName() + "." + number);
+    }
+
+    private static int read(final long number,
+                            final Path file,
+                            final List<Entry> entries) throws IOException {
+        int count = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file,
+                StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                try {
+                    entries.add(new Entry(ARTICLE_READER.readValue(line),
+                            number));
+                    count++;
+                } catch (IOException e) {
+                    log.warn("Skipped unreadable journal entry in {}",
+                            file, e);
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Article left in the journal and its segment.
+     */
+    @Getter
+    public static final class Entry {
+
+        private final Article article;
+
+        private final long segment;
+
+        private Entry(final Article article, final long segment) {
+            this.article = article;
+            this.segment = segment;
+        }
+    }
+}
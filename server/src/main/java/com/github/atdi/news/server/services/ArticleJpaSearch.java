@@ -2,12 +2,22 @@ package com.github.atdi.news.server.services;
 
 import com.github.atdi.news.model.Article;
 import com.github.atdi.news.server.services.repositories.ArticleJpaRepository;
+import com.github.atdi.news.server.services.repositories.ArticleSpecifications;
+import com.github.atdi.news.server.util.PublishCursor;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 
 import javax.inject.Inject;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * Jpa implementation for {@link ArticleSearchService}.
@@ -17,6 +27,11 @@ import java.time.LocalDateTime;
 @RequiredArgsConstructor(onConstructor = @__({@Inject}))
 public class ArticleJpaSearch implements ArticleSearchService {
 
+    private static final int SCAN_PAGE_SIZE = 500;
+
+    private static final Sort NEWEST_FIRST = new Sort(Sort.Direction.DESC,
+            "publishDate", "id");
+
     private final ArticleJpaRepository articleJpaRepository;
 
 
@@ -46,6 +61,35 @@ public class ArticleJpaSearch implements ArticleSearchService {
         return articleJpaRepository.findByPublishDateBefore(pageable, endDate);
     }
 
+    @Override
+    public List<Article> seekPublishedBetween(final PublishCursor after,
+                                              final LocalDateTime endDate,
+                                              final int size) {
+        return articleJpaRepository.seekPublishedBetween(
+                after.getPublishDate(),
+                after.getId(),
+                endDate,
+                new PageRequest(0, size));
+    }
+
+    @Override
+    public List<Article> seekPublishedAfter(final PublishCursor after,
+                                            final int size) {
+        return articleJpaRepository.seekPublishedAfter(
+                after.getPublishDate(),
+                after.getId(),
+                new PageRequest(0, size));
+    }
+
+    @Override
+    public List<Article> seekPublishedBefore(final PublishCursor before,
+                                             final int size) {
+        return articleJpaRepository.seekPublishedBefore(
+                before.getPublishDate(),
+                before.getId(),
+                new PageRequest(0, size));
+    }
+
     @Override
     public Page<Article> searchByKeyword(final Pageable pageable,
                                          final String keyword) {
@@ -57,4 +101,96 @@ public class ArticleJpaSearch implements ArticleSearchService {
                                         final String authorId) {
         return articleJpaRepository.findByAuthor(pageable, authorId);
     }
+
+    /**
+     * Substring search, the database scans every article.
+     *
+     * @param pageable pagination details
+     * @param query    search query
+     * @return articles
+     */
+    @Override
+    public Page<Article> searchByText(final Pageable pageable,
+                                      final String query) {
+        return articleJpaRepository.findByText(pageable,
+                "%" + ArticleSpecifications.escape(query) + "%");
+    }
+
+    /**
+     * Combined search, the criteria are sent to the database as one
+     * query, see {@link ArticleSpecifications}.
+     *
+     * @param pageable pagination details
+     * @param criteria search criteria
+     * @return articles
+     */
+    @Override
+    public Page<Article> searchByCriteria(final Pageable pageable,
+                                          final ArticleCriteria criteria) {
+        return findByCriteria(pageable, criteria, null);
+    }
+
+    /**
+     * Find the articles matching the criteria among the candidates,
+     * newest first.
+     *
+     * @param pageable   pagination details
+     * @param criteria   search criteria
+     * @param candidates candidate article ids, null for all articles
+     * @return articles
+     */
+    protected Page<Article> findByCriteria(final Pageable pageable,
+                                           final ArticleCriteria criteria,
+                                           final List<String> candidates) {
+        return articleJpaRepository.findAll(ArticleSpecifications.matching(
+                candidates,
+                criteria.getText(),
+                criteria.getKeyword(),
+                criteria.getAuthorId(),
+                criteria.getPublishedFrom(),
+                criteria.getPublishedTo()),
+                new PageRequest(pageable.getPageNumber(),
+                        pageable.getPageSize(),
+                        NEWEST_FIRST));
+    }
+
+    /**
+     * Load articles by id keeping the order of the ids.
+     * Ids of articles which no longer exist are skipped.
+     *
+     * @param ids article ids
+     * @return articles
+     */
+    protected List<Article> findAllInOrder(final List<String> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<String, Article> articles = new HashMap<>();
+        for (Article article : articleJpaRepository.findAll(ids)) {
+            articles.put(article.getId(), article);
+        }
+        List<Article> content = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            Article article = articles.get(id);
+            if (article != null) {
+                content.add(article);
+            }
+        }
+        return content;
+    }
+
+    /**
+     * Visit all the stored articles, page by page.
+     *
+     * @param consumer article consumer
+     */
+    protected void forEachArticle(final Consumer<Article> consumer) {
+        Pageable pageable = new PageRequest(0, SCAN_PAGE_SIZE);
+        Page<Article> page;
+        do {
+            page = articleJpaRepository.findAll(pageable);
+            page.getContent().forEach(consumer);
+            pageable = pageable.next();
+        } while (page.hasNext());
+    }
 }
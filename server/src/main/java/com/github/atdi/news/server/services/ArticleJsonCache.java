@@ -0,0 +1,178 @@
+package com.github.atdi.news.server.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.atdi.news.model.Article;
+import com.github.atdi.news.server.exceptions.NewsException;
+import com.github.atdi.news.server.services.repositories.VersionStamp;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationListener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cache of articles already serialized to JSON.
+ * <p>
+ * Entries hold the UTF-8 encoded JSON and, when enabled, its gzip
+ * compressed form, along with the article version stamp, so hot
+ * articles are written to the response without going through
+ * Jackson. The least recently used entries
+ * are evicted once the maximum number of entries is reached.
+ * Saved and deleted articles are evicted on the article event,
+ * a generation counter keeps a load which raced with an eviction
+ * from caching the old state.
+ */
+public class ArticleJsonCache implements ApplicationListener<ArticleEvent> {
+
+    private static final int MIN_GZIP_SIZE = 1024;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private final ObjectMapper objectMapper;
+
+    private final boolean gzip;
+
+    private final Map<String, Json> entries;
+
+    private long generation;
+
+    /**
+     * Constructor.
+     *
+     * @param objectMapper object mapper used by the JSON provider
+     * @param maxEntries   maximum number of cached articles,
+     *                     0 disables the cache
+     * @param gzip         also keep the gzip compressed JSON
+     */
+    public ArticleJsonCache(final ObjectMapper objectMapper,
+                            final int maxEntries,
+                            final boolean gzip) {
+        this.objectMapper = objectMapper;
+        this.gzip = gzip;
+        this.entries = new LinkedHashMap<String, Json>(INITIAL_CAPACITY,
+                LOAD_FACTOR, true) {
+            @Override
+            protected boolean removeEldestEntry(
+                    final Map.Entry<String, Json> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Get the serialized article, loading and caching it on a miss.
+     *
+     * @param id     article id
+     * @param loader article loader
+     * @return serialized article or null if the loader found nothing
+     */
+    public Json get(final String id, final Function<String, Article> loader) {
+        long loadGeneration;
+        synchronized (entries) {
+            Json json = entries.get(id);
+            if (json != null) {
+                return json;
+            }
+            loadGeneration = generation;
+        }
+        Article article = loader.apply(id);
+        if (article == null) {
+            return null;
+        }
+        Json json = encode(article);
+        synchronized (entries) {
+            if (loadGeneration == generation) {
+                entries.put(id, json);
+            }
+        }
+        return json;
+    }
+
+    /**
+     * Get the serialized article if cached.
+     *
+     * @param id article id
+     * @return serialized article or null
+     */
+    public Json getIfPresent(final String id) {
+        synchronized (entries) {
+            return entries.get(id);
+        }
+    }
+
+    /**
+     * Evict the article.
+     *
+     * @param id article id
+     */
+    public void evict(final String id) {
+        synchronized (entries) {
+            generation++;
+            entries.remove(id);
+        }
+    }
+
+    /**
+     * Number of cached articles.
+     *
+     * @return cached articles count
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    @Override
+    public void onApplicationEvent(final ArticleEvent event) {
+        evict(event.getArticleId());
+    }
+
+    private Json encode(final Article article) {
+        try {
+            byte[] bytes = objectMapper.writeValueAsBytes(article);
+            byte[] compressed = null;
+            if (gzip && bytes.length >= MIN_GZIP_SIZE) {
+                compressed = compress(bytes);
+            }
+            return new Json(bytes, compressed, new VersionStamp(
+                    article.getVersion(), article.getPublishDate(),
+                    article.getGeneration()));
+        } catch (JsonProcessingException e) {
+            throw new NewsException("Article serialization failed", e);
+        }
+    }
+
+    private static byte[] compress(final byte[] bytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length);
+        try (GZIPOutputStream gzipOut = new GZIPOutputStream(out)) {
+            gzipOut.write(bytes);
+        } catch (IOException e) {
+            throw new NewsException("Article compression failed", e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Serialized article.
+     */
+    @Getter
+    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+    public static final class Json {
+
+        private final byte[] bytes;
+
+        private final byte[] gzipBytes;
+
+        private final VersionStamp stamp;
+    }
+}
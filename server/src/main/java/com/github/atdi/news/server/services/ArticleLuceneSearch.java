@@ -0,0 +1,353 @@
+package com.github.atdi.news.server.services;
+
+import com.github.atdi.news.model.Article;
+import com.github.atdi.news.model.Author;
+import com.github.atdi.news.server.exceptions.NewsException;
+import com.github.atdi.news.server.services.repositories.ArticleJpaRepository;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.core.KeywordAnalyzer;
+import org.apache.lucene.analysis.en.EnglishAnalyzer;
+import org.apache.lucene.analysis.miscellaneous.PerFieldAnalyzerWrapper;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.LongField;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.classic.MultiFieldQueryParser;
+import org.apache.lucene.queryparser.classic.ParseException;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.NumericRangeQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherFactory;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.similarities.BM25Similarity;
+import org.apache.lucene.store.Directory;
+import org.springframework.context.ApplicationListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.ws.rs.core.Response;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * {@link ArticleSearchService} backed by an embedded Lucene index.
+ * <p>
+ * Header, description and text are analyzed with the english
+ * analyzer and ranked with BM25, header matches weigh the most.
+ * The query syntax is the classic Lucene one, so phrase queries
+ * ("breaking news"), boolean operators and field prefixes work.
+ * Keyword searches are answered from the index as well, the date
+ * and author searches are delegated to {@link ArticleJpaSearch}.
+ * <p>
+ * Combined searches are one boolean query, the text must match and
+ * the keyword, author and publish time clauses filter without
+ * scoring. Lucene intersects the clauses starting from the one
+ * with the fewest documents, so the most selective criterion leads
+ * whatever its kind.
+ * <p>
+ * Changes are visible to searches right after the article event,
+ * they are committed to the directory every commit interval.
+ */
+public class ArticleLuceneSearch extends ArticleJpaSearch
+        implements ApplicationListener<ArticleEvent> {
+
+    static final String ID = "id";
+
+    static final String HEADER = "header";
+
+    static final String DESCRIPTION = "description";
+
+    static final String TEXT = "text";
+
+    static final String KEYWORD = "keyword";
+
+    static final String AUTHOR = "author";
+
+    static final String PUBLISH_TIME = "publishTime";
+
+    private static final float HEADER_BOOST = 3f;
+
+    private static final float DESCRIPTION_BOOST = 2f;
+
+    private static final Sort NEWEST_FIRST = new Sort(
+            new SortField(PUBLISH_TIME, SortField.Type.LONG, true));
+
+    private final Directory directory;
+
+    private final long commitInterval;
+
+    private final Analyzer analyzer;
+
+    private final Map<String, Float> boosts = new HashMap<>();
+
+    private final AtomicBoolean changed = new AtomicBoolean();
+
+    private IndexWriter indexWriter;
+
+    private SearcherManager searcherManager;
+
+    private ScheduledExecutorService committer;
+
+    /**
+     * Constructor.
+     *
+     * @param articleJpaRepository article repository
+     * @param directory            lucene index directory
+     * @param commitInterval       commit interval in seconds
+     */
+    public ArticleLuceneSearch(final ArticleJpaRepository articleJpaRepository,
+                               final Directory directory,
+                               final long commitInterval) {
+        super(articleJpaRepository);
+        this.directory = directory;
+        this.commitInterval = commitInterval;
+        Map<String, Analyzer> analyzers = new HashMap<>();
+        analyzers.put(ID, new KeywordAnalyzer());
+        analyzers.put(KEYWORD, new KeywordAnalyzer());
+        analyzers.put(AUTHOR, new KeywordAnalyzer());
+        this.analyzer = new PerFieldAnalyzerWrapper(new EnglishAnalyzer(),
+                analyzers);
+        boosts.put(HEADER, HEADER_BOOST);
+        boosts.put(DESCRIPTION, DESCRIPTION_BOOST);
+    }
+
+    /**
+     * Open the index, it is built from the database when empty.
+     *
+     * @throws IOException if the index can't be opened
+     */
+    @PostConstruct
+    public void open() throws IOException {
+        IndexWriterConfig config = new IndexWriterConfig(analyzer);
+        config.setSimilarity(new BM25Similarity());
+        config.setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
+        indexWriter = new IndexWriter(directory, config);
+        searcherManager = new SearcherManager(indexWriter, true,
+                new SearcherFactory() {
+                    @Override
+                    public IndexSearcher newSearcher(
+                            final IndexReader reader,
+                            final IndexReader previous) {
+                        IndexSearcher searcher = new IndexSearcher(reader);
+                        searcher.setSimilarity(new BM25Similarity());
+                        return searcher;
+                    }
+                });
+        if (indexWriter.numDocs() == 0) {
+            forEachArticle(this::index);
+            indexWriter.commit();
+            searcherManager.maybeRefresh();
+        }
+        committer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "lucene-committer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        committer.scheduleWithFixedDelay(this::commit,
+                commitInterval, commitInterval, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Commit pending changes and close the index.
+     *
+     * @throws IOException if the index can't be closed
+     */
+    @PreDestroy
+    public void close() throws IOException {
+        committer.shutdown();
+        searcherManager.close();
+        indexWriter.close();
+        directory.close();
+    }
+
+    @Override
+    public Page<Article> searchByText(final Pageable pageable,
+                                      final String query) {
+        return search(pageable, parse(query), null);
+    }
+
+    @Override
+    public Page<Article> searchByCriteria(final Pageable pageable,
+                                          final ArticleCriteria criteria) {
+        BooleanQuery.Builder query = new BooleanQuery.Builder();
+        if (criteria.getText() != null) {
+            query.add(parse(criteria.getText()), BooleanClause.Occur.MUST);
+        }
+        if (criteria.getKeyword() != null) {
+            query.add(new TermQuery(new Term(KEYWORD, criteria.getKeyword())),
+                    BooleanClause.Occur.FILTER);
+        }
+        if (criteria.getAuthorId() != null) {
+            query.add(new TermQuery(new Term(AUTHOR, criteria.getAuthorId())),
+                    BooleanClause.Occur.FILTER);
+        }
+        if (criteria.hasPublishRange()) {
+            // articles without publish date are indexed at the
+            // minimum time, they don't match a date range
+            long fromTime = Long.MIN_VALUE + 1;
+            Long toTime = null;
+            if (criteria.getPublishedFrom() != null) {
+                fromTime = toTime(criteria.getPublishedFrom());
+            }
+            if (criteria.getPublishedTo() != null) {
+                toTime = toTime(criteria.getPublishedTo());
+            }
+            query.add(NumericRangeQuery.newLongRange(PUBLISH_TIME,
+                    fromTime, toTime, true, true),
+                    BooleanClause.Occur.FILTER);
+        }
+        return search(pageable, query.build(), NEWEST_FIRST);
+    }
+
+    @Override
+    public Page<Article> searchByKeyword(final Pageable pageable,
+                                         final String keyword) {
+        return search(pageable, new TermQuery(new Term(KEYWORD, keyword)),
+                NEWEST_FIRST);
+    }
+
+    @Override
+    public void onApplicationEvent(final ArticleEvent event) {
+        try {
+            if (event.getType() == ArticleEvent.Type.DELETED) {
+                indexWriter.deleteDocuments(
+                        new Term(ID, event.getArticleId()));
+            } else {
+                index(event.getArticle());
+            }
+            changed.set(true);
+            searcherManager.maybeRefresh();
+        } catch (IOException e) {
+            throw new NewsException("Search index update failed", e);
+        }
+    }
+
+    /**
+     * Search the index.
+     *
+     * @param pageable pagination details
+     * @param query    lucene query
+     * @param sort     sort order, null to rank by relevance
+     * @return articles
+     */
+    protected Page<Article> search(final Pageable pageable,
+                                   final Query query,
+                                   final Sort sort) {
+        int limit = pageable.getOffset() + pageable.getPageSize();
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                TopDocs topDocs;
+                if (sort == null) {
+                    topDocs = searcher.search(query, limit);
+                } else {
+                    topDocs = searcher.search(query, limit, sort);
+                }
+                List<String> ids = new ArrayList<>();
+                ScoreDoc[] hits = topDocs.scoreDocs;
+                for (int i = pageable.getOffset(); i < hits.length; i++) {
+                    ids.add(searcher.doc(hits[i].doc,
+                            Collections.singleton(ID)).get(ID));
+                }
+                return new PageImpl<>(findAllInOrder(ids), pageable,
+                        topDocs.totalHits);
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new NewsException("Search index read failed", e);
+        }
+    }
+
+    private void index(final Article article) {
+        Document document = new Document();
+        document.add(new StringField(ID, article.getId(), Field.Store.YES));
+        document.add(new TextField(HEADER, article.getHeader(),
+                Field.Store.NO));
+        document.add(new TextField(DESCRIPTION, article.getDescription(),
+                Field.Store.NO));
+        document.add(new TextField(TEXT, article.getText(), Field.Store.NO));
+        if (article.getKeywords() != null) {
+            for (String keyword : article.getKeywords()) {
+                document.add(new StringField(KEYWORD, keyword,
+                        Field.Store.NO));
+            }
+        }
+        if (article.getAuthors() != null) {
+            for (Author author : article.getAuthors()) {
+                document.add(new StringField(AUTHOR, author.getId(),
+                        Field.Store.NO));
+            }
+        }
+        long publishTime = toTime(article.getPublishDate());
+        document.add(new LongField(PUBLISH_TIME, publishTime,
+                Field.Store.NO));
+        document.add(new NumericDocValuesField(PUBLISH_TIME, publishTime));
+        try {
+            indexWriter.updateDocument(new Term(ID, article.getId()),
+                    document);
+        } catch (IOException e) {
+            throw new NewsException("Search index update failed", e);
+        }
+    }
+
+    private Query parse(final String query) {
+        MultiFieldQueryParser parser = new MultiFieldQueryParser(
+                new String[]{HEADER, DESCRIPTION, TEXT}, analyzer, boosts);
+        try {
+            return parser.parse(query);
+        } catch (ParseException e) {
+            throw new NewsException("Invalid search query",
+                    Response.Status.BAD_REQUEST, e);
+        }
+    }
+
+    private void commit() {
+        if (changed.getAndSet(false)) {
+            try {
+                indexWriter.commit();
+            } catch (IOException e) {
+                changed.set(true);
+            }
+        }
+    }
+
+    /**
+     * Convert a publish date to the indexed time value.
+     *
+     * @param publishDate publish date, may be null
+     * @return epoch milliseconds
+     */
+    static long toTime(final LocalDateTime publishDate) {
+        if (publishDate == null) {
+            return Long.MIN_VALUE;
+        }
+        return publishDate.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+}
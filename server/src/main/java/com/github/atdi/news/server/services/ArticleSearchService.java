@@ -1,16 +1,23 @@
 package com.github.atdi.news.server.services;
 
 import com.github.atdi.news.model.Article;
+import com.github.atdi.news.server.util.PublishCursor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * Interface for search articles.
+ * <p>
+ * Searches run in read only transactions, which may be served by a
+ * read replica.
  *
  * Created by aurelavramescu on 13/11/15.
  */
+@Transactional(readOnly = true)
 public interface ArticleSearchService {
 
     /**
@@ -48,6 +55,39 @@ public interface ArticleSearchService {
             Pageable pageable,
             LocalDateTime endDate);
 
+    /**
+     * Find the articles published up to the end date which come
+     * after the cursor, oldest first.
+     *
+     * @param after   cursor
+     * @param endDate end date
+     * @param size    maximum number of articles
+     * @return articles
+     */
+    List<Article> seekPublishedBetween(PublishCursor after,
+                                       LocalDateTime endDate,
+                                       int size);
+
+    /**
+     * Find the articles which come after the cursor, oldest first.
+     *
+     * @param after cursor
+     * @param size  maximum number of articles
+     * @return articles
+     */
+    List<Article> seekPublishedAfter(PublishCursor after,
+                                     int size);
+
+    /**
+     * Find the articles which come before the cursor, newest first.
+     *
+     * @param before cursor
+     * @param size   maximum number of articles
+     * @return articles
+     */
+    List<Article> seekPublishedBefore(PublishCursor before,
+                                      int size);
+
     /**
      * Find all articles for specified keyword.
      *
@@ -68,4 +108,25 @@ public interface ArticleSearchService {
     Page<Article> searchByAuthor(Pageable pageable,
                                  String authorId);
 
+    /**
+     * Full text search over article header, description and text.
+     *
+     * @param pageable pagination details
+     * @param query    search query
+     * @return articles, best matches first
+     */
+    Page<Article> searchByText(Pageable pageable,
+                               String query);
+
+    /**
+     * Combined search, the articles matching all the criteria,
+     * newest first.
+     *
+     * @param pageable pagination details
+     * @param criteria search criteria
+     * @return articles
+     */
+    Page<Article> searchByCriteria(Pageable pageable,
+                                   ArticleCriteria criteria);
+
 }
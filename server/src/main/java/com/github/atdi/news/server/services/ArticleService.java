@@ -1,19 +1,35 @@
 package com.github.atdi.news.server.services;
 
 import com.github.atdi.news.model.Article;
+import com.github.atdi.news.model.ArticleSummary;
+import com.github.atdi.news.model.CursorPage;
+import com.github.atdi.news.model.DateHistogram;
 import com.github.atdi.news.server.services.repositories.ArticleJpaRepository;
+import com.github.atdi.news.server.services.repositories.VersionStamp;
+import com.github.atdi.news.server.util.PublishCursor;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import javax.inject.Inject;
 import java.time.LocalDateTime;
-import java.util.UUID;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * Article service.
  * <p>
+ * The summary listings are always answered by the database, they
+ * don't go through the search service.
+ * <p>
  * Created by aurelavramescu on 12/11/15.
  */
 @RequiredArgsConstructor(onConstructor = @__({@Inject}))
@@ -24,35 +40,70 @@ public class ArticleService {
 
     private final ArticleSearchService articleSearchService;
 
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final IdGenerator idGenerator;
+
+    private final PublishCounts publishCounts;
+
+    private final TrendingKeywords trendingKeywords;
+
     /**
      * Generate a new id.
      *
      * @return id
      */
     public String generateId() {
-        return UUID.randomUUID().toString();
+        return idGenerator.generateId();
     }
 
     /**
-     * Save an article.
+     * Save an article, its version is incremented and its generation
+     * kept, a new article gets a new generation.
+     * The saved event is published after the commit.
      *
      * @param article article to be saved
      * @return article
      */
+    @Transactional
     public Article save(final Article article) {
-        return articleJpaRepository.save(article);
+        VersionStamp stamp = articleJpaRepository
+                .findStampForUpdate(article.getId());
+        Article.ArticleBuilder builder = article.toBuilder();
+        if (stamp == null) {
+            builder.version(1).generation(VersionStamp.newGeneration());
+        } else {
+            builder.version(stamp.getVersion() + 1)
+                    .generation(stamp.getGeneration());
+        }
+        Article saved = articleJpaRepository.save(builder.build());
+        publishAfterCommit(ArticleEvent.saved(this, saved));
+        return saved;
     }
 
     /**
-     * Find article by id.
+     * Find article by id, in a read only transaction.
      *
      * @param id article id
      * @return article article
      */
+    @Transactional(readOnly = true)
     public Article find(final String id) {
         return articleJpaRepository.findOne(id);
     }
 
+    /**
+     * Find the version and publish date of an article,
+     * the article itself is not loaded. Read only transaction.
+     *
+     * @param id article id
+     * @return version stamp or null if the article doesn't exist
+     */
+    @Transactional(readOnly = true)
+    public VersionStamp findStamp(final String id) {
+        return articleJpaRepository.findStamp(id);
+    }
+
     /**
      * Delete specified article.
      *
@@ -60,6 +111,7 @@ public class ArticleService {
      */
     public void delete(final String id) {
         articleJpaRepository.delete(id);
+        eventPublisher.publishEvent(ArticleEvent.deleted(this, id));
     }
 
     /**
@@ -72,6 +124,16 @@ public class ArticleService {
         return articleJpaRepository.findAll(pageable);
     }
 
+    /**
+     * Visit all articles ordered by publish date, without
+     * keeping them in memory.
+     *
+     * @param consumer article consumer
+     */
+    public void export(final Consumer<Article> consumer) {
+        articleJpaRepository.scrollAll(consumer);
+    }
+
     /**
      * Find all articles published between specified dates.
      *
@@ -118,7 +180,56 @@ public class ArticleService {
     }
 
     /**
-     * Get all articles by specified keyword.
+     * Find the articles published up to the end date which come
+     * after the cursor, oldest first.
+     *
+     * @param after   cursor
+     * @param endDate end date
+     * @param size    page size
+     * @return articles and the cursor of the next page
+     */
+    public CursorPage<Article> getAllPublishedBetween(
+            final PublishCursor after,
+            final LocalDateTime endDate,
+            final int size) {
+        return cursorPage(articleSearchService.
+                seekPublishedBetween(after, endDate, size), size,
+                ArticleService::cursorOf);
+    }
+
+    /**
+     * Find the articles which come after the cursor, oldest first.
+     *
+     * @param after cursor
+     * @param size  page size
+     * @return articles and the cursor of the next page
+     */
+    public CursorPage<Article> getAllPublishedAfter(
+            final PublishCursor after,
+            final int size) {
+        return cursorPage(articleSearchService.
+                seekPublishedAfter(after, size), size,
+                ArticleService::cursorOf);
+    }
+
+    /**
+     * Find the articles which come before the cursor, newest first.
+     *
+     * @param before cursor
+     * @param size   page size
+     * @return articles and the cursor of the next page
+     */
+    public CursorPage<Article> getAllPublishedBefore(
+            final PublishCursor before,
+            final int size) {
+        return cursorPage(articleSearchService.
+                seekPublishedBefore(before, size), size,
+                ArticleService::cursorOf);
+    }
+
+    /**
+     * Get all articles by specified keyword, the keyword is counted
+     * by the trending keywords.
      *
      * @param pageable pagination details
      * @param keyword keyword
@@ -126,6 +237,7 @@ public class ArticleService {
      */
     public Page<Article> getAllByKeyword(final Pageable pageable,
                                          final String keyword) {
+        trendingKeywords.recordQuery(keyword);
         return articleSearchService.searchByKeyword(pageable, keyword);
     }
 
@@ -141,4 +253,209 @@ public class ArticleService {
         return articleSearchService.searchByAuthor(pageable, authorId);
     }
 
+    /**
+     * Find summaries of the articles published between specified dates.
+     *
+     * @param pageable  pagination details
+     * @param startDate start date
+     * @param endDate   end date
+     * @return article summaries
+     */
+    public Page<ArticleSummary> getSummariesPublishedBetween(
+            final Pageable pageable,
+            final LocalDateTime startDate,
+            final LocalDateTime endDate) {
+        return articleJpaRepository.findSummariesPublishedBetween(pageable,
+                startDate,
+                endDate);
+    }
+
+    /**
+     * Find summaries of the articles published after specified date.
+     *
+     * @param pageable  pagination details
+     * @param startDate start date
+     * @return article summaries
+     */
+    public Page<ArticleSummary> getSummariesPublishedAfter(
+            final Pageable pageable,
+            final LocalDateTime startDate) {
+        return articleJpaRepository.findSummariesPublishedAfter(pageable,
+                startDate);
+    }
+
+    /**
+     * Find summaries of the articles published before specified date.
+     *
+     * @param pageable pagination details
+     * @param endDate  end date
+     * @return article summaries
+     */
+    public Page<ArticleSummary> getSummariesPublishedBefore(
+            final Pageable pageable,
+            final LocalDateTime endDate) {
+        return articleJpaRepository.findSummariesPublishedBefore(pageable,
+                endDate);
+    }
+
+    /**
+     * Summaries of {@link #getAllPublishedBetween(PublishCursor,
+     * LocalDateTime, int)}.
+     *
+     * @param after   cursor
+     * @param endDate end date
+     * @param size    page size
+     * @return article summaries and the cursor of the next page
+     */
+    public CursorPage<ArticleSummary> getSummariesPublishedBetween(
+            final PublishCursor after,
+            final LocalDateTime endDate,
+            final int size) {
+        return cursorPage(articleJpaRepository.seekSummariesPublishedBetween(
+                after.getPublishDate(),
+                after.getId(),
+                endDate,
+                new PageRequest(0, size)), size, ArticleService::cursorOf);
+    }
+
+    /**
+     * Summaries of {@link #getAllPublishedAfter(PublishCursor, int)}.
+     *
+     * @param after cursor
+     * @param size  page size
+     * @return article summaries and the cursor of the next page
+     */
+    public CursorPage<ArticleSummary> getSummariesPublishedAfter(
+            final PublishCursor after,
+            final int size) {
+        return cursorPage(articleJpaRepository.seekSummariesPublishedAfter(
+                after.getPublishDate(),
+                after.getId(),
+                new PageRequest(0, size)), size, ArticleService::cursorOf);
+    }
+
+    /**
+     * Summaries of {@link #getAllPublishedBefore(PublishCursor, int)}.
+     *
+     * @param before cursor
+     * @param size   page size
+     * @return article summaries and the cursor of the next page
+     */
+    public CursorPage<ArticleSummary> getSummariesPublishedBefore(
+            final PublishCursor before,
+            final int size) {
+        return cursorPage(articleJpaRepository.seekSummariesPublishedBefore(
+                before.getPublishDate(),
+                before.getId(),
+                new PageRequest(0, size)), size, ArticleService::cursorOf);
+    }
+
+    /**
+     * Get summaries of the articles by specified keyword, the keyword
+     * is counted by the trending keywords.
+     *
+     * @param pageable pagination details
+     * @param keyword  keyword
+     * @return article summaries
+     */
+    public Page<ArticleSummary> getSummariesByKeyword(final Pageable pageable,
+                                                      final String keyword) {
+        trendingKeywords.recordQuery(keyword);
+        return articleJpaRepository.findSummariesByKeyword(pageable, keyword);
+    }
+
+    /**
+     * Get summaries of the articles by specified author.
+     *
+     * @param pageable pagination details
+     * @param authorId author id
+     * @return article summaries
+     */
+    public Page<ArticleSummary> getSummariesByAuthor(final Pageable pageable,
+                                                     final String authorId) {
+        return articleJpaRepository.findSummariesByAuthor(pageable, authorId);
+    }
+
+    /**
+     * Full text search over article header, description and text.
+     *
+     * @param pageable pagination details
+     * @param query    search query
+     * @return articles, best matches first
+     */
+    public Page<Article> searchByText(final Pageable pageable,
+                                      final String query) {
+        return articleSearchService.searchByText(pageable, query);
+    }
+
+    /**
+     * Combined search, the articles matching all the criteria. A text
+     * only search is ranked by relevance, see
+     * {@link #searchByText(Pageable, String)}, the other searches are
+     * ordered newest first. The keyword is counted by the trending
+     * keywords.
+     *
+     * @param pageable pagination details
+     * @param criteria search criteria, at least one
+     * @return articles
+     */
+    public Page<Article> searchByCriteria(final Pageable pageable,
+                                          final ArticleCriteria criteria) {
+        if (criteria.isTextOnly()) {
+            return searchByText(pageable, criteria.getText());
+        }
+        trendingKeywords.recordQuery(criteria.getKeyword());
+        return articleSearchService.searchByCriteria(pageable, criteria);
+    }
+
+    /**
+     * Count the articles published in the given range by hour or by
+     * day, answered from the {@link PublishCounts} rollup.
+     *
+     * @param from start date
+     * @param to   end date, exclusive
+     * @param unit {@link ChronoUnit#HOURS} or {@link ChronoUnit#DAYS}
+     * @return histogram
+     */
+    public DateHistogram getPublishHistogram(final LocalDateTime from,
+                                             final LocalDateTime to,
+                                             final ChronoUnit unit) {
+        return publishCounts.histogram(from, to, unit);
+    }
+
+    private void publishAfterCommit(final ArticleEvent event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            eventPublisher.publishEvent(event);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronizationAdapter() {
+                    @Override
+                    public void afterCommit() {
+                        eventPublisher.publishEvent(event);
+                    }
+                });
+    }
+
+    private static <T> CursorPage<T> cursorPage(
+            final List<T> content,
+            final int size,
+            final Function<T, PublishCursor> cursor) {
+        CursorPage.CursorPageBuilder<T> page = CursorPage
+                .<T>builder()
+                .content(content);
+        if (content.size() == size) {
+            page.next(cursor.apply(content.get(size - 1)).encode());
+        }
+        return page.build();
+    }
+
+    private static PublishCursor cursorOf(final Article article) {
+        return new PublishCursor(article.getPublishDate(), article.getId());
+    }
+
+    private static PublishCursor cursorOf(final ArticleSummary summary) {
+        return new PublishCursor(summary.getPublishDate(), summary.getId());
+    }
+
 }
@@ -0,0 +1,437 @@
+package com.github.atdi.news.server.services;
+
+import com.github.atdi.news.model.Article;
+import com.github.atdi.news.model.BatchResult;
+import com.github.atdi.news.model.WriteStatus;
+import com.github.atdi.news.server.exceptions.NewsException;
+import com.github.atdi.news.server.util.NewsStatus;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.ws.rs.core.Response;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind article ingestion.
+ * <p>
+ * Accepted articles are appended to the optional
+ * {@link ArticleJournal}, forced to the disk and queued in the order
+ * they were appended, a background writer takes them
+ * from the queue in batches and saves every batch with the
+ * {@link ArticleBatchService}, so in one transaction with JDBC
+ * batching. The writer waits up to the linger time for a batch to
+ * fill, the latest write of an article in a batch wins. A full queue
+ * is answered with 429. A failing batch is retried, then its articles
+ * are saved one by one so a bad article doesn't fail the others, the
+ * articles still failing are marked failed and kept in the journal,
+ * to be written again on start. The other articles are released from
+ * the journal once written. A journaled article is always queued, a
+ * failed force is reported by its write state, it is written anyway.
+ * <p>
+ * The states of the latest writes are kept, the least recently used
+ * ones are dropped once the status capacity is reached.
+ */
+@Slf4j
+public class ArticleWriteBehind {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private static final long RETRY_DELAY_MILLIS = 100;
+
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    private static final long NO_SEGMENT = -1;
+
+    private static final String NOT_FORCED_MESSAGE =
+            "Article queued, not forced to the journal disk";
+
+    private final ArticleBatchService articleBatchService;
+
+    private final ArticleJournal journal;
+
+    private final BlockingQueue<Write> queue;
+
+    private final int batchSize;
+
+    private final long lingerNanos;
+
+    private final int retries;
+
+    private final Map<String, WriteStatus> statuses;
+
+    private final Object lock = new Object();
+
+    private volatile boolean running;
+
+    private volatile boolean closed;
+
+    private long accepted;
+
+    private long enqueued;
+
+    private Thread writer;
+
+    /**
+     * Constructor.
+     *
+     * @param articleBatchService article batch service
+     * @param journal             journal or null to keep the queued
+     *                            articles in memory only
+     * @param queueSize           articles waiting to be written
+     * @param batchSize           articles written per transaction
+     * @param lingerMillis        time waited for a batch to fill
+     * @param retries             attempts to write a batch
+     * @param statusCapacity      write states kept
+     */
+    public ArticleWriteBehind(final ArticleBatchService articleBatchService,
+                              final ArticleJournal journal,
+                              final int queueSize,
+                              final int batchSize,
+                              final long lingerMillis,
+                              final int retries,
+                              final int statusCapacity) {
+        this.articleBatchService = articleBatchService;
+        this.journal = journal;
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+        this.batchSize = batchSize;
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+        this.retries = retries;
+        this.statuses = new LinkedHashMap<String, WriteStatus>(
+                INITIAL_CAPACITY, LOAD_FACTOR, true) {
+            @Override
+            protected boolean removeEldestEntry(
+                    final Map.Entry<String, WriteStatus> eldest) {
+                return size() > statusCapacity;
+            }
+        };
+    }
+
+    /**
+     * Open the journal and start the writer, which first writes the
+     * articles left in the journal.
+     *
+     * @throws IOException if the journal can't be opened
+     */
+    public synchronized void start() throws IOException {
+        if (writer != null) {
+            return;
+        }
+        List<Write> replay = new ArrayList<>();
+        if (journal != null) {
+            for (ArticleJournal.Entry entry : journal.open()) {
+                Article article = entry.getArticle();
+                WriteStatus status = queued(article.getId());
+                synchronized (statuses) {
+                    statuses.put(article.getId(), status);
+                }
+                replay.add(new Write(article, status, entry.getSegment()));
+            }
+            if (!replay.isEmpty()) {
+                log.info("Writing {} articles left in the journal",
+                        replay.size());
+            }
+        }
+        running = true;
+        closed = false;
+        writer = new Thread(() -> run(replay), "article-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Stop accepting articles, write the queued ones and close the
+     * journal.
+     *
+     * @throws IOException if the journal can't be closed
+     * @throws InterruptedException if interrupted while writing
+     */
+    public synchronized void stop() throws IOException, InterruptedException {
+        if (writer == null) {
+            return;
+        }
+        synchronized (lock) {
+            running = false;
+            // the articles accepted and being forced are queued first
+            while (enqueued < accepted) {
+                lock.wait();
+            }
+        }
+        closed = true;
+        writer.join();
+        writer = null;
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    /**
+     * Whether the articles are accepted.
+     *
+     * @return true once started
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Accept an article, it is written later. With a journal the
+     * article is appended to it first, and on the disk once this
+     * returns when the journal syncs. The article is queued only
+     * then, a failed force is reported by the queued state.
+     *
+     * @param article valid article
+     * @return queued state
+     * @throws NewsException 429 if the queue is full, 503 if stopped,
+     *                       500 if the article can't be journaled
+     */
+    public WriteStatus submit(final Article article) {
+        long ticket;
+        long segment = NO_SEGMENT;
+        synchronized (lock) {
+            if (!running) {
+                throw new NewsException("Write-behind is stopped",
+                        Response.Status.SERVICE_UNAVAILABLE);
+            }
+            // the articles being forced have a place in the queue
+            if (queue.remainingCapacity() <= accepted - enqueued) {
+                throw new NewsException("Write queue is full, retry later",
+                        NewsStatus.TOO_MANY_REQUESTS);
+            }
+            if (journal != null) {
+                try {
+                    segment = journal.append(article);
+                } catch (IOException e) {
+                    throw new NewsException("Article not journaled", e);
+                }
+            }
+            ticket = accepted++;
+        }
+        WriteStatus status = queued(article.getId());
+        if (journal != null) {
+            // outside the lock, the concurrent submits share the force
+            try {
+                journal.sync();
+            } catch (IOException e) {
+                log.error("Article {} journaled but not forced to the disk",
+                        article.getId(), e);
+                status = status.toBuilder()
+                        .message(NOT_FORCED_MESSAGE)
+                        .build();
+            }
+        }
+        enqueue(ticket, new Write(article, status, segment));
+        return status;
+    }
+
+    /**
+     * State of the latest write of an article.
+     *
+     * @param id article id
+     * @return write state or null if unknown
+     */
+    public WriteStatus getStatus(final String id) {
+        synchronized (statuses) {
+            return statuses.get(id);
+        }
+    }
+
+    /**
+     * Articles waiting in the queue.
+     *
+     * @return queue length
+     */
+    public int getQueued() {
+        return queue.size();
+    }
+
+    private void enqueue(final long ticket, final Write write) {
+        boolean interrupted = false;
+        synchronized (lock) {
+            // in the append order, the latest write of an article wins
+            while (enqueued < ticket) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            synchronized (statuses) {
+                statuses.put(write.article.getId(), write.status);
+            }
+            queue.add(write);
+            enqueued++;
+            lock.notifyAll();
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run(final List<Write> replay) {
+        for (int i = 0; i < replay.size(); i += batchSize) {
+            write(replay.subList(i, Math.min(replay.size(), i + batchSize)));
+        }
+        List<Write> batch = new ArrayList<>(batchSize);
+        try {
+            while (!closed || !queue.isEmpty()) {
+                Write first = queue.poll(IDLE_POLL_MILLIS,
+                        TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + lingerNanos;
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long wait = deadline - System.nanoTime();
+                    if (batch.size() == batchSize || wait <= 0) {
+                        break;
+                    }
+                    Write next = queue.poll(wait, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                write(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void write(final List<Write> batch) {
+        Map<String, Write> latest = new LinkedHashMap<>();
+        for (Write write : batch) {
+            Write superseded = latest.remove(write.article.getId());
+            if (superseded != null) {
+                // the journal has the newer write
+                release(superseded);
+            }
+            latest.put(write.article.getId(), write);
+        }
+        List<Write> writes = new ArrayList<>(latest.values());
+        List<Article> articles = new ArrayList<>(writes.size());
+        writes.forEach(write -> articles.add(write.article));
+        List<BatchResult> results = save(articles);
+        for (int i = 0; i < writes.size(); i++) {
+            Write write = writes.get(i);
+            BatchResult result;
+            if (results == null) {
+                result = saveAlone(write.article);
+            } else {
+                result = results.get(i);
+            }
+            WriteStatus.WriteStatusBuilder status = write.status.toBuilder();
+            if (result == null) {
+                status.state(WriteStatus.State.FAILED)
+                        .status(Response.Status.INTERNAL_SERVER_ERROR
+                                .getStatusCode())
+                        .message(failedMessage());
+            } else {
+                status.status(result.getStatus())
+                        .message(result.getMessage());
+                if (result.getMessage() == null) {
+                    status.state(WriteStatus.State.SAVED);
+                } else {
+                    status.state(WriteStatus.State.REJECTED);
+                }
+                release(write);
+            }
+            synchronized (statuses) {
+                // a newer write of the article keeps its queued state
+                if (statuses.get(write.article.getId()) == write.status) {
+                    statuses.put(write.article.getId(), status.build());
+                }
+            }
+        }
+    }
+
+    private BatchResult saveAlone(final Article article) {
+        try {
+            return articleBatchService.save(
+                    Collections.singletonList(article).iterator()).get(0);
+        } catch (RuntimeException e) {
+            log.error("Article {} not saved", article.getId(), e);
+            return null;
+        }
+    }
+
+    private String failedMessage() {
+        if (journal == null) {
+            return "Article not saved";
+        }
+        return "Article not saved, kept in the journal";
+    }
+
+    private void release(final Write write) {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.release(write.segment);
+        } catch (IOException e) {
+            log.error("Journal segment {} not released", write.segment, e);
+        }
+    }
+
+    private List<BatchResult> save(final List<Article> articles) {
+        for (int attempt = 1;; attempt++) {
+            try {
+                return articleBatchService.save(articles.iterator());
+            } catch (RuntimeException e) {
+                if (attempt >= retries) {
+                    log.error("Batch of {} articles not saved after {}"
+                            + " attempts", articles.size(), attempt, e);
+                    return null;
+                }
+                log.warn("Batch of {} articles not saved, retrying",
+                        articles.size(), e);
+            }
+            try {
+                Thread.sleep(RETRY_DELAY_MILLIS * attempt);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+    }
+
+    private static WriteStatus queued(final String id) {
+        return WriteStatus.builder()
+                .id(id)
+                .state(WriteStatus.State.QUEUED)
+                .status(Response.Status.ACCEPTED.getStatusCode())
+                .build();
+    }
+
+    /**
+     * Queued article, its queued state and its journal segment.
+     */
+    private static final class Write {
+
+        private final Article article;
+
+        private final WriteStatus status;
+
+        private final long segment;
+
+        private Write(final Article article,
+                      final WriteStatus status,
+                      final long segment) {
+            this.article = article;
+            this.status = status;
+            this.segment = segment;
+        }
+    }
+}
@@ -2,11 +2,12 @@ package com.github.atdi.news.server.services;
 
 import com.github.atdi.news.model.Author;
 import com.github.atdi.news.server.services.repositories.AuthorJpaRepository;
+import com.github.atdi.news.server.services.repositories.VersionStamp;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import javax.inject.Inject;
-import java.util.UUID;
 
 /**
  * Author service.
@@ -19,23 +20,34 @@ public class AuthorService {
 
     private final AuthorJpaRepository authorJpaRepository;
 
+    private final IdGenerator idGenerator;
+
     /**
      * Generate a new id.
      *
      * @return id
      */
     public String generateId() {
-        return UUID.randomUUID().toString();
+        return idGenerator.generateId();
     }
 
     /**
-     * Save an author.
+     * Save an author, its version is incremented.
      *
      * @param author author
      * @return saved author
      */
+    @Transactional
     public Author save(final Author author) {
-        return authorJpaRepository.save(author);
+        Long version = authorJpaRepository
+                .findVersionForUpdate(author.getId());
+        long nextVersion = 1;
+        if (version != null) {
+            nextVersion = version + 1;
+        }
+        return authorJpaRepository.save(author.toBuilder()
+                .version(nextVersion)
+                .build());
     }
 
     /**
@@ -47,4 +59,14 @@ public class AuthorService {
     public Author find(final String id) {
         return authorJpaRepository.findOne(id);
     }
+
+    /**
+     * Find the version of an author, the author itself is not loaded.
+     *
+     * @param id author id
+     * @return version stamp or null if the author doesn't exist
+     */
+    public VersionStamp findStamp(final String id) {
+        return authorJpaRepository.findStamp(id);
+    }
 }
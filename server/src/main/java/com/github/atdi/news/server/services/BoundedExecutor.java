@@ -0,0 +1,47 @@
+package com.github.atdi.news.server.services;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Executor which rejects the tasks once the given number of tasks
+ * are running, for executors which don't bound themselves, like the
+ * thread per task executors of virtual threads.
+ */
+public class BoundedExecutor implements Executor {
+
+    private final Executor executor;
+
+    private final Semaphore permits;
+
+    /**
+     * Constructor.
+     *
+     * @param executor unbounded executor
+     * @param maxTasks maximum number of submitted and running tasks
+     */
+    public BoundedExecutor(final Executor executor, final int maxTasks) {
+        this.executor = executor;
+        this.permits = new Semaphore(maxTasks);
+    }
+
+    @Override
+    public void execute(final Runnable command) {
+        if (!permits.tryAcquire()) {
+            throw new RejectedExecutionException("Too many tasks");
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    command.run();
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.github.atdi.news.server.services;
+
+/**
+ * Generator of article and author ids.
+ * <p>
+ * The generated ids are uuids accepted by
+ * {@link com.github.atdi.news.server.util.UUIDUtils#checkUUID}.
+ */
+public interface IdGenerator {
+
+    /**
+     * Generate a new id.
+     *
+     * @return id
+     */
+    String generateId();
+}
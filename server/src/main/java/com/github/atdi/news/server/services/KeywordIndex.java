@@ -0,0 +1,385 @@
+package com.github.atdi.news.server.services;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In memory inverted index from keyword to articles.
+ * <p>
+ * Every article gets a compact int document number, the posting
+ * list of a keyword is an int array of document numbers sorted by
+ * publish date, newest first. Reads share a lock, writes are
+ * exclusive.
+ */
+public class KeywordIndex {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private static final int INITIAL_POSTING_CAPACITY = 4;
+
+    private static final String[] NO_KEYWORDS = new String[0];
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Integer> docs = new HashMap<>();
+
+    private final Map<String, Posting> postings = new HashMap<>();
+
+    private String[] articleIds = new String[INITIAL_CAPACITY];
+
+    private long[] publishTimes = new long[INITIAL_CAPACITY];
+
+    private String[][] docKeywords = new String[INITIAL_CAPACITY][];
+
+    private int[] freeDocs = new int[INITIAL_CAPACITY];
+
+    private int freeCount;
+
+    private int maxDoc;
+
+    /**
+     * Add or replace the article in the index.
+     *
+     * @param articleId   article id
+     * @param publishDate publish date, may be null
+     * @param keywords    article keywords, may be null
+     */
+    public void put(final String articleId,
+                    final LocalDateTime publishDate,
+                    final Collection<String> keywords) {
+        lock.writeLock().lock();
+        try {
+            Integer existing = docs.get(articleId);
+            int doc;
+            if (existing == null) {
+                doc = allocate(articleId);
+            } else {
+                doc = existing;
+                unlink(doc);
+            }
+            publishTimes[doc] = toTime(publishDate);
+            String[] terms = NO_KEYWORDS;
+            if (keywords != null) {
+                terms = keywords.toArray(new String[keywords.size()]);
+            }
+            docKeywords[doc] = terms;
+            for (String keyword : terms) {
+                Posting posting = postings.get(keyword);
+                if (posting == null) {
+                    posting = new Posting();
+                    postings.put(keyword, posting);
+                }
+                posting.add(doc);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove the article from the index.
+     *
+     * @param articleId article id
+     */
+    public void remove(final String articleId) {
+        lock.writeLock().lock();
+        try {
+            Integer doc = docs.remove(articleId);
+            if (doc == null) {
+                return;
+            }
+            unlink(doc);
+            articleIds[doc] = null;
+            docKeywords[doc] = null;
+            if (freeCount == freeDocs.length) {
+                freeDocs = Arrays.copyOf(freeDocs, freeCount * 2);
+            }
+            freeDocs[freeCount++] = doc;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove all the articles from the index.
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            docs.clear();
+            postings.clear();
+            Arrays.fill(articleIds, null);
+            Arrays.fill(docKeywords, null);
+            freeCount = 0;
+            maxDoc = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Count the articles tagged with the keyword.
+     *
+     * @param keyword keyword
+     * @return number of articles
+     */
+    public int count(final String keyword) {
+        lock.readLock().lock();
+        try {
+            Posting posting = postings.get(keyword);
+            if (posting == null) {
+                return 0;
+            }
+            return posting.size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Find the ids of the articles tagged with the keyword,
+     * newest first.
+     *
+     * @param keyword keyword
+     * @param offset  number of articles to skip
+     * @param limit   maximum number of articles
+     * @return article ids
+     */
+    public List<String> find(final String keyword,
+                             final int offset,
+                             final int limit) {
+        lock.readLock().lock();
+        try {
+            Posting posting = postings.get(keyword);
+            if (posting == null || offset >= posting.size) {
+                return Collections.emptyList();
+            }
+            int end = (int) Math.min((long) offset + limit, posting.size);
+            List<String> ids = new ArrayList<>(end - offset);
+            for (int i = offset; i < end; i++) {
+                ids.add(articleIds[posting.docs[i]]);
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Count the articles tagged with the keyword and published in
+     * the time range.
+     *
+     * @param keyword  keyword
+     * @param fromTime earliest publish time in epoch milliseconds,
+     *                 inclusive
+     * @param toTime   latest publish time in epoch milliseconds,
+     *                 inclusive
+     * @return number of articles
+     */
+    public int count(final String keyword,
+                     final long fromTime,
+                     final long toTime) {
+        lock.readLock().lock();
+        try {
+            Posting posting = postings.get(keyword);
+            if (posting == null) {
+                return 0;
+            }
+            return Math.max(0, posting.positionBefore(fromTime)
+                    - posting.positionAtOrBefore(toTime));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Find the ids of the articles tagged with the keyword and
+     * published in the time range, newest first. The posting list
+     * is ordered by publish time, the range is found by binary
+     * search.
+     *
+     * @param keyword  keyword
+     * @param fromTime earliest publish time in epoch milliseconds,
+     *                 inclusive
+     * @param toTime   latest publish time in epoch milliseconds,
+     *                 inclusive
+     * @param offset   number of articles to skip
+     * @param limit    maximum number of articles
+     * @return article ids
+     */
+    public List<String> find(final String keyword,
+                             final long fromTime,
+                             final long toTime,
+                             final int offset,
+                             final int limit) {
+        lock.readLock().lock();
+        try {
+            Posting posting = postings.get(keyword);
+            if (posting == null) {
+                return Collections.emptyList();
+            }
+            int start = posting.positionAtOrBefore(toTime) + offset;
+            int end = (int) Math.min((long) start + limit,
+                    posting.positionBefore(fromTime));
+            if (start >= end) {
+                return Collections.emptyList();
+            }
+            List<String> ids = new ArrayList<>(end - start);
+            for (int i = start; i < end; i++) {
+                ids.add(articleIds[posting.docs[i]]);
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of indexed articles.
+     *
+     * @return articles count
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docs.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int allocate(final String articleId) {
+        int doc;
+        if (freeCount > 0) {
+            doc = freeDocs[--freeCount];
+        } else {
+            if (maxDoc == articleIds.length) {
+                int capacity = maxDoc * 2;
+                articleIds = Arrays.copyOf(articleIds, capacity);
+                publishTimes = Arrays.copyOf(publishTimes, capacity);
+                docKeywords = Arrays.copyOf(docKeywords, capacity);
+            }
+            doc = maxDoc++;
+        }
+        articleIds[doc] = articleId;
+        docs.put(articleId, doc);
+        return doc;
+    }
+
+    private void unlink(final int doc) {
+        for (String keyword : docKeywords[doc]) {
+            Posting posting = postings.get(keyword);
+            if (posting != null) {
+                posting.remove(doc);
+                if (posting.size == 0) {
+                    postings.remove(keyword);
+                }
+            }
+        }
+    }
+
+    private static long toTime(final LocalDateTime publishDate) {
+        if (publishDate == null) {
+            return Long.MIN_VALUE;
+        }
+        return publishDate.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    /**
+     * Posting list, document numbers ordered by publish time
+     * descending and by document number for the same time.
+     */
+    private final class Posting {
+
+        private int[] docs = new int[INITIAL_POSTING_CAPACITY];
+
+        private int size;
+
+        private void add(final int doc) {
+            int position = search(doc);
+            if (position >= 0) {
+                return;
+            }
+            position = -position - 1;
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+            }
+            System.arraycopy(docs, position, docs, position + 1,
+                    size - position);
+            docs[position] = doc;
+            size++;
+        }
+
+        private void remove(final int doc) {
+            int position = search(doc);
+            if (position < 0) {
+                return;
+            }
+            System.arraycopy(docs, position + 1, docs, position,
+                    size - position - 1);
+            size--;
+        }
+
+        /**
+         * First position of a document published at or before the
+         * time.
+         */
+        private int positionAtOrBefore(final long time) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (publishTimes[docs[mid]] > time) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * First position of a document published before the time.
+         */
+        private int positionBefore(final long time) {
+            if (time == Long.MIN_VALUE) {
+                return size;
+            }
+            return positionAtOrBefore(time - 1);
+        }
+
+        private int search(final int doc) {
+            int low = 0;
+            int high = size - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int cmp = compare(docs[mid], doc);
+                if (cmp < 0) {
+                    low = mid + 1;
+                } else if (cmp > 0) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(low + 1);
+        }
+
+        private int compare(final int left, final int right) {
+            int cmp = Long.compare(publishTimes[right], publishTimes[left]);
+            if (cmp != 0) {
+                return cmp;
+            }
+            return Integer.compare(left, right);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.github.atdi.news.server.services;
+
+import com.github.atdi.news.model.Article;
+import com.github.atdi.news.model.KeywordCount;
+import com.github.atdi.news.server.services.repositories.ArticleJpaRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Keyword suggestions, the keywords starting with a prefix ordered
+ * by their number of articles.
+ * <p>
+ * The distinct keywords are kept in a {@link KeywordTrie}, loaded
+ * from the database on startup and kept in step with the article
+ * events. The keywords of every article are kept too, so a saved
+ * article only moves the weight of the keywords it gained or lost.
+ * Reads share a lock, writes are exclusive.
+ */
+@RequiredArgsConstructor(onConstructor = @__({@Inject}))
+@Service
+public class KeywordSuggestions implements ApplicationListener<ArticleEvent> {
+
+    private final ArticleJpaRepository articleJpaRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final KeywordTrie trie = new KeywordTrie();
+
+    private final Map<String, Set<String>> articleKeywords = new HashMap<>();
+
+    /**
+     * Load the keywords of the stored articles.
+     */
+    @PostConstruct
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            trie.clear();
+            articleKeywords.clear();
+            for (Object[] row : articleJpaRepository.findAllKeywords()) {
+                String keyword = (String) row[1];
+                if (articleKeywords.computeIfAbsent((String) row[0],
+                        id -> new HashSet<>()).add(keyword)) {
+                    trie.add(keyword, 1);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Get the keywords starting with the prefix.
+     *
+     * @param prefix keyword prefix, case sensitive
+     * @param limit  maximum number of keywords
+     * @return keywords by decreasing number of articles
+     */
+    public List<KeywordCount> suggest(final String prefix, final int limit) {
+        lock.readLock().lock();
+        try {
+            return trie.suggest(prefix, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void onApplicationEvent(final ArticleEvent event) {
+        Set<String> keywords = Collections.emptySet();
+        Article article = event.getArticle();
+        if (article != null && article.getKeywords() != null) {
+            keywords = new HashSet<>(article.getKeywords());
+        }
+        lock.writeLock().lock();
+        try {
+            Set<String> previous;
+            if (keywords.isEmpty()) {
+                previous = articleKeywords.remove(event.getArticleId());
+            } else {
+                previous = articleKeywords.put(event.getArticleId(),
+                        keywords);
+            }
+            if (previous == null) {
+                previous = Collections.emptySet();
+            }
+            for (String keyword : previous) {
+                if (!keywords.contains(keyword)) {
+                    trie.add(keyword, -1);
+                }
+            }
+            for (String keyword : keywords) {
+                if (!previous.contains(keyword)) {
+                    trie.add(keyword, 1);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
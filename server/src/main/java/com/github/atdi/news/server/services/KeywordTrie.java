@@ -0,0 +1,270 @@
+package com.github.atdi.news.server.services;
+
+import com.github.atdi.news.model.KeywordCount;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Radix trie of keywords weighted by their number of articles.
+ * <p>
+ * Edges are labelled with strings, a node with a single child which
+ * isn't a keyword is merged with it, so the trie has at most two
+ * nodes per keyword. Every node keeps the highest weight of its
+ * subtree: the heaviest keywords of a prefix are found best first,
+ * visiting the nodes by decreasing subtree weight, without walking
+ * the whole subtree. Keywords of the same weight are ordered
+ * alphabetically. Not thread safe.
+ */
+public class KeywordTrie {
+
+    private static final char[] NO_KEYS = new char[0];
+
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private static final Comparator<Candidate> BY_WEIGHT =
+            Comparator.comparingInt((Candidate candidate) -> candidate.weight)
+                    .reversed()
+                    .thenComparing(candidate -> candidate.text);
+
+    private final Node root = new Node("");
+
+    private int size;
+
+    /**
+     * Add to the weight of a keyword, a keyword whose weight drops
+     * to 0 is removed.
+     *
+     * @param keyword keyword, empty keywords are ignored
+     * @param delta   weight change, e.g. 1 for a new article tagged
+     *                with the keyword and -1 for a removed one
+     */
+    public void add(final String keyword, final int delta) {
+        if (!keyword.isEmpty()) {
+            update(root, keyword, 0, delta);
+        }
+    }
+
+    /**
+     * Get the heaviest keywords starting with the prefix.
+     *
+     * @param prefix keyword prefix, case sensitive
+     * @param limit  maximum number of keywords
+     * @return keywords by decreasing weight
+     */
+    public List<KeywordCount> suggest(final String prefix, final int limit) {
+        Node node = root;
+        String text = "";
+        int position = 0;
+        while (position < prefix.length()) {
+            Node child = node.child(prefix.charAt(position));
+            if (child == null) {
+                return new ArrayList<>();
+            }
+            int common = commonLength(child.label, prefix, position);
+            if (position + common == prefix.length()) {
+                text = prefix.substring(0, position) + child.label;
+                node = child;
+                break;
+            }
+            if (common < child.label.length()) {
+                return new ArrayList<>();
+            }
+            position += common;
+            text = prefix.substring(0, position);
+            node = child;
+        }
+        List<KeywordCount> keywords = new ArrayList<>(limit);
+        PriorityQueue<Candidate> queue = new PriorityQueue<>(BY_WEIGHT);
+        if (node.maxWeight > 0) {
+            queue.add(new Candidate(node, text, node.maxWeight));
+        }
+        while (!queue.isEmpty() && keywords.size() < limit) {
+            Candidate candidate = queue.poll();
+            if (candidate.node == null) {
+                keywords.add(KeywordCount.builder()
+                        .keyword(candidate.text)
+                        .count(candidate.weight)
+                        .build());
+                continue;
+            }
+            Node current = candidate.node;
+            if (current.weight > 0) {
+                queue.add(new Candidate(null, candidate.text, current.weight));
+            }
+            for (int i = 0; i < current.childCount; i++) {
+                Node child = current.children[i];
+                queue.add(new Candidate(child, candidate.text + child.label,
+                        child.maxWeight));
+            }
+        }
+        return keywords;
+    }
+
+    /**
+     * Number of keywords.
+     *
+     * @return keywords count
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Remove all the keywords.
+     */
+    public void clear() {
+        root.keys = NO_KEYS;
+        root.children = NO_CHILDREN;
+        root.childCount = 0;
+        root.maxWeight = 0;
+        size = 0;
+    }
+
+    private void update(final Node node,
+                        final String keyword,
+                        final int position,
+                        final int delta) {
+        if (position == keyword.length()) {
+            int weight = Math.max(0, node.weight + delta);
+            if (node.weight == 0 && weight > 0) {
+                size++;
+            } else if (node.weight > 0 && weight == 0) {
+                size--;
+            }
+            node.weight = weight;
+        } else {
+            char key = keyword.charAt(position);
+            int index = node.indexOf(key);
+            if (index < 0) {
+                if (delta > 0) {
+                    Node leaf = new Node(keyword.substring(position));
+                    leaf.weight = delta;
+                    leaf.maxWeight = delta;
+                    node.insert(-index - 1, key, leaf);
+                    size++;
+                    node.maxWeight = Math.max(node.maxWeight, delta);
+                }
+                return;
+            }
+            Node child = node.children[index];
+            int common = commonLength(child.label, keyword, position);
+            if (common < child.label.length()) {
+                if (delta <= 0) {
+                    return;
+                }
+                Node split = new Node(child.label.substring(0, common));
+                child.label = child.label.substring(common);
+                split.insert(0, child.label.charAt(0), child);
+                split.maxWeight = child.maxWeight;
+                node.children[index] = split;
+                child = split;
+            }
+            update(child, keyword, position + common, delta);
+            if (child.weight == 0 && child.childCount == 0) {
+                node.remove(index);
+            } else if (child.weight == 0 && child.childCount == 1) {
+                Node grandChild = child.children[0];
+                grandChild.label = child.label + grandChild.label;
+                node.children[index] = grandChild;
+            }
+        }
+        int maxWeight = node.weight;
+        for (int i = 0; i < node.childCount; i++) {
+            maxWeight = Math.max(maxWeight, node.children[i].maxWeight);
+        }
+        node.maxWeight = maxWeight;
+    }
+
+    private static int commonLength(final String label,
+                                    final String keyword,
+                                    final int position) {
+        int max = Math.min(label.length(), keyword.length() - position);
+        int length = 0;
+        while (length < max
+                && label.charAt(length) == keyword.charAt(position + length)) {
+            length++;
+        }
+        return length;
+    }
+
+    /**
+     * Trie node, children are sorted by the first char of their label.
+     */
+    private static final class Node {
+
+        private String label;
+
+        private int weight;
+
+        private int maxWeight;
+
+        private char[] keys = NO_KEYS;
+
+        private Node[] children = NO_CHILDREN;
+
+        private int childCount;
+
+        Node(final String label) {
+            this.label = label;
+        }
+
+        int indexOf(final char key) {
+            return Arrays.binarySearch(keys, 0, childCount, key);
+        }
+
+        Node child(final char key) {
+            int index = indexOf(key);
+            if (index < 0) {
+                return null;
+            }
+            return children[index];
+        }
+
+        void insert(final int index, final char key, final Node child) {
+            if (childCount == keys.length) {
+                int capacity = Math.max(1, childCount * 2);
+                keys = Arrays.copyOf(keys, capacity);
+                children = Arrays.copyOf(children, capacity);
+            }
+            System.arraycopy(keys, index, keys, index + 1,
+                    childCount - index);
+            System.arraycopy(children, index, children, index + 1,
+                    childCount - index);
+            keys[index] = key;
+            children[index] = child;
+            childCount++;
+        }
+
+        void remove(final int index) {
+            System.arraycopy(keys, index + 1, keys, index,
+                    childCount - index - 1);
+            System.arraycopy(children, index + 1, children, index,
+                    childCount - index - 1);
+            childCount--;
+            children[childCount] = null;
+        }
+    }
+
+    /**
+     * Node to visit or keyword found by a suggestion, keywords have
+     * no node.
+     */
+    private static final class Candidate {
+
+        private final Node node;
+
+        private final String text;
+
+        private final int weight;
+
+        Candidate(final Node node, final String text, final int weight) {
+            this.node = node;
+            this.text = text;
+            this.weight = weight;
+        }
+    }
+}
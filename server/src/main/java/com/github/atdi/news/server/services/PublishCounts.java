@@ -0,0 +1,156 @@
+package com.github.atdi.news.server.services;
+
+import com.github.atdi.news.model.Article;
+import com.github.atdi.news.model.DateBucket;
+import com.github.atdi.news.model.DateHistogram;
+import com.github.atdi.news.server.services.repositories.ArticleJpaRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rollup of the number of articles published per hour.
+ * <p>
+ * The counts are loaded from the database on startup and kept in
+ * step with the article events, so the histograms are answered
+ * without querying the articles table. The publish hour of every
+ * article is kept, updates move the article to its new hour and
+ * deletes remove it. Writes are serialized, reads go through the
+ * concurrent hour map without locking. Articles without a publish
+ * date aren't counted.
+ */
+@RequiredArgsConstructor(onConstructor = @__({@Inject}))
+@Service
+public class PublishCounts implements ApplicationListener<ArticleEvent> {
+
+    private static final long SECONDS_PER_HOUR = TimeUnit.HOURS.toSeconds(1);
+
+    private static final long HOURS_PER_DAY = TimeUnit.DAYS.toHours(1);
+
+    private static final String HOUR = "hour";
+
+    private static final String DAY = "day";
+
+    private final ArticleJpaRepository articleJpaRepository;
+
+    private final Map<String, Long> articleHours = new HashMap<>();
+
+    private final ConcurrentNavigableMap<Long, Long> hourCounts =
+            new ConcurrentSkipListMap<>();
+
+    /**
+     * Load the publish dates of the stored articles.
+     */
+    @PostConstruct
+    public synchronized void rebuild() {
+        articleHours.clear();
+        hourCounts.clear();
+        for (Object[] row : articleJpaRepository.findAllPublishDates()) {
+            put((String) row[0], (LocalDateTime) row[1]);
+        }
+    }
+
+    /**
+     * Count the articles published in the given range, by hour or
+     * by day. The buckets starting before the end date are counted
+     * whole, the first one being the bucket of the start date.
+     *
+     * @param from start date
+     * @param to   end date, exclusive, after the start date
+     * @param unit {@link ChronoUnit#HOURS} or {@link ChronoUnit#DAYS}
+     * @return histogram
+     */
+    public DateHistogram histogram(final LocalDateTime from,
+                                   final LocalDateTime to,
+                                   final ChronoUnit unit) {
+        long bucketHours = 1;
+        String bucketName = HOUR;
+        if (unit == ChronoUnit.DAYS) {
+            bucketHours = HOURS_PER_DAY;
+            bucketName = DAY;
+        }
+        long first = Math.floorDiv(hour(from), bucketHours);
+        long end = Math.floorDiv(hour(to.minusNanos(1)), bucketHours) + 1;
+        List<DateBucket> buckets = new ArrayList<>();
+        long total = 0;
+        long bucket = first;
+        long count = 0;
+        for (Map.Entry<Long, Long> entry : hourCounts.subMap(
+                first * bucketHours, end * bucketHours).entrySet()) {
+            long entryBucket = Math.floorDiv(entry.getKey(), bucketHours);
+            if (entryBucket != bucket && count > 0) {
+                buckets.add(bucket(bucket * bucketHours, count));
+                count = 0;
+            }
+            bucket = entryBucket;
+            count += entry.getValue();
+            total += entry.getValue();
+        }
+        if (count > 0) {
+            buckets.add(bucket(bucket * bucketHours, count));
+        }
+        return DateHistogram.builder()
+                .bucket(bucketName)
+                .total(total)
+                .buckets(buckets)
+                .build();
+    }
+
+    @Override
+    public synchronized void onApplicationEvent(final ArticleEvent event) {
+        if (event.getType() == ArticleEvent.Type.DELETED) {
+            remove(event.getArticleId());
+        } else {
+            Article article = event.getArticle();
+            put(article.getId(), article.getPublishDate());
+        }
+    }
+
+    private void put(final String articleId,
+                     final LocalDateTime publishDate) {
+        remove(articleId);
+        if (publishDate != null) {
+            long hour = hour(publishDate);
+            articleHours.put(articleId, hour);
+            hourCounts.merge(hour, 1L, Long::sum);
+        }
+    }
+
+    private void remove(final String articleId) {
+        Long hour = articleHours.remove(articleId);
+        if (hour != null) {
+            hourCounts.computeIfPresent(hour, (key, count) -> {
+                if (count == 1) {
+                    return null;
+                }
+                return count - 1;
+            });
+        }
+    }
+
+    private static long hour(final LocalDateTime date) {
+        return Math.floorDiv(date.toEpochSecond(ZoneOffset.UTC),
+                SECONDS_PER_HOUR);
+    }
+
+    private static DateBucket bucket(final long hour, final long count) {
+        return DateBucket.builder()
+                .start(LocalDateTime.ofEpochSecond(hour * SECONDS_PER_HOUR,
+                        0, ZoneOffset.UTC))
+                .count(count)
+                .build();
+    }
+}
@@ -0,0 +1,14 @@
+package com.github.atdi.news.server.services;
+
+import java.util.UUID;
+
+/**
+ * {@link IdGenerator} of random, version 4, uuids.
+ */
+public class RandomIdGenerator implements IdGenerator {
+
+    @Override
+    public String generateId() {
+        return UUID.randomUUID().toString();
+    }
+}
@@ -0,0 +1,84 @@
+package com.github.atdi.news.server.services;
+
+import com.github.atdi.news.server.datasource.ReadYourWrites;
+import com.github.atdi.news.server.exceptions.NewsException;
+import com.github.atdi.news.server.metrics.RequestSample;
+
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.core.Response;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Runs the searches of suspended requests on a dedicated executor,
+ * so slow searches don't hold the container threads.
+ * <p>
+ * A search which isn't answered within the timeout, or which
+ * doesn't fit in the executor queue, is answered with 503. Searches
+ * still queued when their request times out are skipped. The searches
+ * run with the {@link RequestSample} and the {@link ReadYourWrites} of
+ * their request.
+ */
+public class SearchExecutor {
+
+    private final Executor executor;
+
+    private final long timeout;
+
+    /**
+     * Constructor.
+     *
+     * @param executor search executor, it should reject the searches
+     *                 when saturated
+     * @param timeout  search timeout in milliseconds
+     */
+    public SearchExecutor(final Executor executor, final long timeout) {
+        this.executor = executor;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Run the search and resume the request with its result.
+     *
+     * @param asyncResponse suspended request
+     * @param search        search, returns the response entity
+     */
+    public void execute(final AsyncResponse asyncResponse,
+                        final Supplier<?> search) {
+        asyncResponse.setTimeoutHandler(response -> response.resume(
+                new NewsException("Search timed out",
+                        Response.Status.SERVICE_UNAVAILABLE)));
+        asyncResponse.setTimeout(timeout, TimeUnit.MILLISECONDS);
+        try {
+            executor.execute(ReadYourWrites.propagate(RequestSample
+                    .propagate(() -> run(asyncResponse, search))));
+        } catch (RejectedExecutionException e) {
+            asyncResponse.resume(new NewsException("Too many searches",
+                    Response.Status.SERVICE_UNAVAILABLE, e));
+        }
+    }
+
+    /**
+     * Stop the executor, the running searches complete.
+     */
+    public void shutdown() {
+        if (executor instanceof ExecutorService) {
+            ((ExecutorService) executor).shutdown();
+        }
+    }
+
+    private static void run(final AsyncResponse asyncResponse,
+                            final Supplier<?> search) {
+        if (!asyncResponse.isSuspended()) {
+            return;
+        }
+        try {
+            asyncResponse.resume(search.get());
+        } catch (RuntimeException e) {
+            asyncResponse.resume(e);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.github.atdi.news.server.services;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Space-Saving summary of the most frequent keys of a stream.
+ * <p>
+ * At most capacity keys are counted. When a new key arrives on a
+ * full summary it takes over the counter of the least counted key,
+ * whose count becomes the error of the new key. Every key occurring
+ * more than n / capacity times out of n is guaranteed to be counted,
+ * counts never underestimate and overestimate by at most their
+ * error. The counters are kept in a min heap, an occurrence costs
+ * O(log capacity). Not thread safe.
+ */
+class SpaceSaving {
+
+    private final Counter[] heap;
+
+    private final Map<String, Counter> counters;
+
+    private int size;
+
+    private boolean evicted;
+
+    /**
+     * Constructor.
+     *
+     * @param capacity maximum number of counted keys
+     */
+    SpaceSaving(final int capacity) {
+        this.heap = new Counter[capacity];
+        this.counters = new HashMap<>(capacity * 2);
+    }
+
+    /**
+     * Count an occurrence of the key.
+     *
+     * @param key key
+     */
+    void add(final String key) {
+        Counter counter = counters.get(key);
+        if (counter != null) {
+            counter.count++;
+            siftDown(counter.index);
+        } else if (size < heap.length) {
+            counter = new Counter(key, size);
+            counter.count = 1;
+            heap[size++] = counter;
+            counters.put(key, counter);
+            siftUp(counter.index);
+        } else {
+            counter = heap[0];
+            counters.remove(counter.key);
+            evicted = true;
+            counter.key = key;
+            counter.error = counter.count;
+            counter.count++;
+            counters.put(key, counter);
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Upper bound of the count of the keys which aren't counted.
+     *
+     * @return count of the least counted key once a key was evicted,
+     * else 0
+     */
+    long missingCount() {
+        if (!evicted) {
+            return 0;
+        }
+        return heap[0].count;
+    }
+
+    /**
+     * Visit the counted keys, with their count and error.
+     *
+     * @param visitor key and counter visitor
+     */
+    void forEach(final BiConsumer<String, Counter> visitor) {
+        for (int i = 0; i < size; i++) {
+            visitor.accept(heap[i].key, heap[i]);
+        }
+    }
+
+    /**
+     * Forget all keys.
+     */
+    void clear() {
+        counters.clear();
+        for (int i = 0; i < size; i++) {
+            heap[i] = null;
+        }
+        size = 0;
+        evicted = false;
+    }
+
+    private void siftUp(final int start) {
+        int index = start;
+        Counter counter = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (heap[parent].count <= counter.count) {
+                break;
+            }
+            heap[index] = heap[parent];
+            heap[index].index = index;
+            index = parent;
+        }
+        heap[index] = counter;
+        counter.index = index;
+    }
+
+    private void siftDown(final int start) {
+        int index = start;
+        Counter counter = heap[index];
+        int half = size / 2;
+        while (index < half) {
+            int child = 2 * index + 1;
+            if (child + 1 < size
+                    && heap[child + 1].count < heap[child].count) {
+                child++;
+            }
+            if (counter.count <= heap[child].count) {
+                break;
+            }
+            heap[index] = heap[child];
+            heap[index].index = index;
+            index = child;
+        }
+        heap[index] = counter;
+        counter.index = index;
+    }
+
+    /**
+     * Counter of a key.
+     */
+    static final class Counter {
+
+        private String key;
+
+        private int index;
+
+        private long count;
+
+        private long error;
+
+        Counter(final String key, final int index) {
+            this.key = key;
+            this.index = index;
+        }
+
+        long getCount() {
+            return count;
+        }
+
+        long getError() {
+            return error;
+        }
+    }
+}
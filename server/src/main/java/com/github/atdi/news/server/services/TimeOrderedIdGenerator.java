@@ -0,0 +1,86 @@
+package com.github.atdi.news.server.services;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongSupplier;
+
+/**
+ * {@link IdGenerator} of time ordered, version 7, uuids.
+ * <p>
+ * The ids start with the unix time in milliseconds followed by a
+ * 12 bits sequence and 62 random bits, so new rows are appended at
+ * the end of the primary key indexes instead of being spread over
+ * them. Every thread keeps its own timestamp and sequence: the ids
+ * of a thread are strictly increasing, the ids generated by several
+ * threads in the same millisecond are ordered by their random bits.
+ * When the sequence of a millisecond is exhausted, or the clock
+ * goes back, the thread keeps counting from its last timestamp.
+ * The random bits come from {@link ThreadLocalRandom}, no lock is
+ * shared between the threads.
+ */
+public class TimeOrderedIdGenerator implements IdGenerator {
+
+    private static final int TIMESTAMP_SHIFT = 16;
+
+    private static final long VERSION = 0x7000L;
+
+    private static final long SEQUENCE_MAX = 0xfffL;
+
+    // a new millisecond starts in the lower half of the sequence,
+    // leaving room for the ids that follow
+    private static final int SEQUENCE_START_BOUND = 0x800;
+
+    private static final long VARIANT = 0x8000000000000000L;
+
+    private static final long RANDOM_MASK = 0x3fffffffffffffffL;
+
+    private final LongSupplier clock;
+
+    private final ThreadLocal<State> states =
+            ThreadLocal.withInitial(State::new);
+
+    /**
+     * Constructor, ids are timestamped with the system clock.
+     */
+    public TimeOrderedIdGenerator() {
+        this(System::currentTimeMillis);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param clock clock in milliseconds
+     */
+    TimeOrderedIdGenerator(final LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public String generateId() {
+        State state = states.get();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long now = clock.getAsLong();
+        if (now > state.timestamp) {
+            state.timestamp = now;
+            state.sequence = random.nextInt(SEQUENCE_START_BOUND);
+        } else if (state.sequence < SEQUENCE_MAX) {
+            state.sequence++;
+        } else {
+            state.timestamp++;
+            state.sequence = random.nextInt(SEQUENCE_START_BOUND);
+        }
+        return new UUID(state.timestamp << TIMESTAMP_SHIFT
+                | VERSION | state.sequence,
+                VARIANT | (random.nextLong() & RANDOM_MASK)).toString();
+    }
+
+    /**
+     * Last timestamp and sequence of a thread.
+     */
+    private static final class State {
+
+        private long timestamp = Long.MIN_VALUE;
+
+        private long sequence;
+    }
+}
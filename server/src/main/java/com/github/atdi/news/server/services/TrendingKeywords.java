@@ -0,0 +1,191 @@
+package com.github.atdi.news.server.services;
+
+import com.github.atdi.news.model.KeywordCount;
+import com.github.atdi.news.server.exceptions.NewsException;
+import org.springframework.context.ApplicationListener;
+
+import javax.ws.rs.core.Response;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Approximate most frequent keywords over a sliding time window.
+ * <p>
+ * Time is cut in slots, every slot counts its keywords in a
+ * {@link SpaceSaving} summary of a fixed capacity, the slots are
+ * reused in a ring once they are older than the longest window.
+ * Memory is bounded by the number of slots times the capacity,
+ * whatever the number of distinct keywords. A window is answered
+ * by merging the summaries of its slots: a keyword missing from a
+ * slot which evicted keywords may have occurred there up to the
+ * slot's least count, which is added to its count and to its
+ * error. The window is rounded up to whole slots.
+ * <p>
+ * Keywords are counted when an article is saved and, when enabled,
+ * when the articles of a keyword are queried.
+ */
+public class TrendingKeywords implements ApplicationListener<ArticleEvent> {
+
+    private static final Comparator<KeywordCount> BY_COUNT =
+            Comparator.comparingLong(KeywordCount::getCount).reversed()
+                    .thenComparing(KeywordCount::getKeyword);
+
+    private final Slot[] slots;
+
+    private final long slotMillis;
+
+    private final boolean countQueries;
+
+    private final LongSupplier clock;
+
+    /**
+     * Constructor, slots are timed with the system clock.
+     *
+     * @param capacity     keywords counted per slot
+     * @param slotMillis   slot duration in milliseconds
+     * @param slots        number of slots, the longest window
+     * @param countQueries count the queried keywords
+     */
+    public TrendingKeywords(final int capacity,
+                            final long slotMillis,
+                            final int slots,
+                            final boolean countQueries) {
+        this(capacity, slotMillis, slots, countQueries,
+                System::currentTimeMillis);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param capacity     keywords counted per slot
+     * @param slotMillis   slot duration in milliseconds
+     * @param slots        number of slots, the longest window
+     * @param countQueries count the queried keywords
+     * @param clock        clock in milliseconds
+     */
+    TrendingKeywords(final int capacity,
+                     final long slotMillis,
+                     final int slots,
+                     final boolean countQueries,
+                     final LongSupplier clock) {
+        this.slots = new Slot[slots];
+        for (int i = 0; i < slots; i++) {
+            this.slots[i] = new Slot(capacity);
+        }
+        this.slotMillis = slotMillis;
+        this.countQueries = countQueries;
+        this.clock = clock;
+    }
+
+    /**
+     * Longest window.
+     *
+     * @return longest window in milliseconds
+     */
+    public long getMaxWindowMillis() {
+        return slotMillis * slots.length;
+    }
+
+    /**
+     * Count a queried keyword, if the queries are counted.
+     *
+     * @param keyword keyword
+     */
+    public void recordQuery(final String keyword) {
+        if (countQueries && keyword != null) {
+            synchronized (this) {
+                currentSlot().summary.add(keyword);
+            }
+        }
+    }
+
+    @Override
+    public void onApplicationEvent(final ArticleEvent event) {
+        if (event.getType() == ArticleEvent.Type.SAVED
+                && event.getArticle().getKeywords() != null) {
+            synchronized (this) {
+                SpaceSaving summary = currentSlot().summary;
+                event.getArticle().getKeywords().forEach(summary::add);
+            }
+        }
+    }
+
+    /**
+     * Get the most frequent keywords of the last window.
+     *
+     * @param windowMillis window in milliseconds, at most
+     *                     {@link #getMaxWindowMillis()}
+     * @param limit        maximum number of keywords
+     * @return keywords by decreasing count
+     */
+    public List<KeywordCount> getTop(final long windowMillis,
+                                     final int limit) {
+        if (windowMillis <= 0 || windowMillis > getMaxWindowMillis()) {
+            throw new NewsException("The window must be positive and at most "
+                    + getMaxWindowMillis() + " ms",
+                    Response.Status.BAD_REQUEST);
+        }
+        long windowSlots = (windowMillis + slotMillis - 1) / slotMillis;
+        // count and error of the keywords, less the least counts of the
+        // slots they're in, the least counts of all the slots are added
+        // back once merged
+        Map<String, long[]> merged = new HashMap<>();
+        long missing = 0;
+        synchronized (this) {
+            long now = clock.getAsLong() / slotMillis;
+            for (Slot slot : slots) {
+                if (slot.epoch <= now - windowSlots || slot.epoch > now) {
+                    continue;
+                }
+                SpaceSaving summary = slot.summary;
+                long slotMissing = summary.missingCount();
+                summary.forEach((keyword, counter) -> {
+                    long[] total = merged.computeIfAbsent(keyword,
+                            key -> new long[2]);
+                    total[0] += counter.getCount() - slotMissing;
+                    total[1] += counter.getError() - slotMissing;
+                });
+                missing += slotMissing;
+            }
+        }
+        List<KeywordCount> counts = new ArrayList<>(merged.size());
+        for (Map.Entry<String, long[]> entry : merged.entrySet()) {
+            long[] total = entry.getValue();
+            counts.add(KeywordCount.builder()
+                    .keyword(entry.getKey())
+                    .count(total[0] + missing)
+                    .error(total[1] + missing)
+                    .build());
+        }
+        counts.sort(BY_COUNT);
+        return counts.subList(0, Math.min(limit, counts.size()));
+    }
+
+    private Slot currentSlot() {
+        long epoch = clock.getAsLong() / slotMillis;
+        Slot slot = slots[(int) (epoch % slots.length)];
+        if (slot.epoch != epoch) {
+            slot.summary.clear();
+            slot.epoch = epoch;
+        }
+        return slot;
+    }
+
+    /**
+     * Keyword counts of a time slot.
+     */
+    private static final class Slot {
+
+        private final SpaceSaving summary;
+
+        private long epoch = -1;
+
+        Slot(final int capacity) {
+            this.summary = new SpaceSaving(capacity);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.github.atdi.news.server.services.repositories;
+
+import com.github.atdi.news.model.ArticleChange;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Article change feed repository, holds the changes spilled from
+ * the in memory ring buffer.
+ */
+public interface ArticleChangeJpaRepository
+        extends JpaRepository<ArticleChange, Long>,
+        ArticleChangeJpaRepositoryCustom {
+
+    /**
+     * Find the changes within a sequence range. Read from the primary
+     * database, not in a read only transaction which would go to a
+     * replica, a lagging replica would miss spilled changes.
+     *
+     * @param from     first sequence number
+     * @param to       last sequence number
+     * @param pageable page size
+     * @return changes ordered by sequence number
+     */
+    @Transactional
+    List<ArticleChange> findBySequenceBetweenOrderBySequenceAsc(
+            final long from,
+            final long to,
+            final Pageable pageable);
+}
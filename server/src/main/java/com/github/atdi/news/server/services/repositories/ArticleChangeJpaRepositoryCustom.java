@@ -0,0 +1,32 @@
+package com.github.atdi.news.server.services.repositories;
+
+import com.github.atdi.news.model.ArticleChange;
+import com.github.atdi.news.model.ArticleChangeGap;
+
+import java.util.List;
+
+/**
+ * Custom article change feed repository operations.
+ */
+public interface ArticleChangeJpaRepositoryCustom {
+
+    /**
+     * Insert the changes and the gaps of the dropped ones in a new
+     * transaction, also when called after the commit of a transaction
+     * still bound to the thread.
+     *
+     * @param changes new changes
+     * @param gaps    sequence numbers of the changes dropped
+     */
+    void append(final List<ArticleChange> changes,
+                final List<ArticleChangeGap> gaps);
+
+    /**
+     * Skip the sequence numbers following the last spilled or
+     * skipped one, on the primary database.
+     *
+     * @param count sequence numbers skipped
+     * @return all the gaps, the new one last
+     */
+    List<ArticleChangeGap> skip(final int count);
+}
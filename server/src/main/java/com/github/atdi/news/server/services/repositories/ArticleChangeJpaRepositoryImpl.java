@@ -0,0 +1,62 @@
+package com.github.atdi.news.server.services.repositories;
+
+import com.github.atdi.news.model.ArticleChange;
+import com.github.atdi.news.model.ArticleChangeGap;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+
+/**
+ * Entity manager based implementation of
+ * {@link ArticleChangeJpaRepositoryCustom}.
+ * <p>
+ * The changes are persisted without the select a merge of their
+ * assigned ids would issue, in JDBC batches of
+ * hibernate.jdbc.batch_size. Both operations run on the primary
+ * database.
+ */
+public class ArticleChangeJpaRepositoryImpl
+        implements ArticleChangeJpaRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void append(final List<ArticleChange> changes,
+                       final List<ArticleChangeGap> gaps) {
+        changes.forEach(entityManager::persist);
+        gaps.forEach(entityManager::persist);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public List<ArticleChangeGap> skip(final int count) {
+        long last = Math.max(
+                max("select max(c.sequence) from ArticleChange c"),
+                max("select max(g.last) from ArticleChangeGap g"));
+        entityManager.persist(ArticleChangeGap.builder()
+                .first(last + 1)
+                .last(last + count)
+                .build());
+        entityManager.flush();
+        return entityManager.createQuery(
+                "select g from ArticleChangeGap g order by g.first",
+                ArticleChangeGap.class)
+                .getResultList();
+    }
+
+    private long max(final String query) {
+        Long max = entityManager.createQuery(query, Long.class)
+                .getSingleResult();
+        if (max == null) {
+            return 0;
+        }
+        return max;
+    }
+}
@@ -1,20 +1,99 @@
 package com.github.atdi.news.server.services.repositories;
 
 import com.github.atdi.news.model.Article;
+import com.github.atdi.news.model.ArticleSummary;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
 import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.hibernate.annotations.QueryHints.CACHEABLE;
 
 /**
  * Article data repository.
+ * <p>
+ * Listing queries are cached in the hibernate query cache, the cached
+ * results are invalidated by any write to the articles tables.
+ * Free text searches are not cached, their patterns rarely repeat.
+ * <p>
+ * The keywords and authors of a result page are batch fetched,
+ * see hibernate.default_batch_fetch_size, so a page is loaded with
+ * one query per collection instead of one query per article.
+ * <p>
+ * The summary queries select the listed columns only, the text and
+ * the collections of the articles are not loaded.
+ * <p>
+ * Combined searches are run with the {@link ArticleSpecifications}.
  *
  * Created by aurelavramescu on 12/11/15.
  */
-public interface ArticleJpaRepository extends JpaRepository<Article, String> {
+public interface ArticleJpaRepository extends JpaRepository<Article, String>,
+        JpaSpecificationExecutor<Article>, ArticleJpaRepositoryCustom {
+
+    /**
+     * Select clause of the summary queries.
+     */
+    String SUMMARY = "select new com.github.atdi.news.model.ArticleSummary("
+            + "a.id, a.header, a.description, a.publishDate)";
+
+    /**
+     * Find all articles.
+     *
+     * @param pageable pagination details
+     * @return articles
+     */
+    @Override
+    @QueryHints(@QueryHint(name = CACHEABLE, value = "true"))
+    Page<Article> findAll(final Pageable pageable);
+
+    /**
+     * Find the version, publish date and generation of an article.
+     *
+     * @param id article id
+     * @return version stamp or null if the article doesn't exist
+     */
+    @QueryHints(@QueryHint(name = CACHEABLE, value = "true"))
+    @Query("select new com.github.atdi.news.server.services.repositories"
+            + ".VersionStamp(a.version, a.publishDate, a.generation)"
+            + " from Article a where a.id = ?1")
+    VersionStamp findStamp(final String id);
+
+    /**
+     * Find the version and generation of an article and lock its row
+     * until the end of the transaction.
+     *
+     * @param id article id
+     * @return version stamp or null if the article doesn't exist
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select new com.github.atdi.news.server.services.repositories"
+            + ".VersionStamp(a.version, a.publishDate, a.generation)"
+            + " from Article a where a.id = ?1")
+    VersionStamp findStampForUpdate(final String id);
+
+    /**
+     * Find the id and publish date of every article.
+     *
+     * @return pairs of article id and publish date
+     */
+    @Query("select a.id, a.publishDate from Article a")
+    List<Object[]> findAllPublishDates();
 
+    /**
+     * Find the id and keyword of every article keyword.
+     *
+     * @return pairs of article id and keyword
+     */
+    @Query("select a.id, k from Article a join a.keywords k")
+    List<Object[]> findAllKeywords();
 
     /**
      * Find articles published between specified dates.
@@ -24,6 +103,7 @@ public interface ArticleJpaRepository extends JpaRepository<Article, String> {
      * @param endDate   end date
      * @return articles
      */
+    @QueryHints(@QueryHint(name = CACHEABLE, value = "true"))
     Page<Article> findByPublishDateBetween(final Pageable pageable,
                                            final LocalDateTime startDate,
                                            final LocalDateTime endDate);
@@ -35,6 +115,7 @@ public interface ArticleJpaRepository extends JpaRepository<Article, String> {
      * @param startDate start date
      * @return articles
      */
+    @QueryHints(@QueryHint(name = CACHEABLE, value = "true"))
     Page<Article> findByPublishDateAfter(final Pageable pageable,
                                          final LocalDateTime startDate);
 
@@ -45,9 +126,64 @@ public interface ArticleJpaRepository extends JpaRepository<Article, String> {
      * @param endDate  end date
      * @return articles
      */
+    @QueryHints(@QueryHint(name = CACHEABLE, value = "true"))
     Page<Article> findByPublishDateBefore(final Pageable pageable,
                                           final LocalDateTime endDate);
 
+    /**
+     * Find articles published up to the end date which come after
+     * the given publish date and id, in ascending order.
+     * No count query is issued.
+     *
+     * @param publishDate last seen publish date
+     * @param id          last seen id
+     * @param endDate     end date
+     * @param pageable    page size, the page number must be 0
+     * @return articles
+     */
+    @QueryHints(@QueryHint(name = CACHEABLE, value = "true"))
+    @Query("select a from Article a where a.publishDate <= ?3"
+            + " and (a.publishDate > ?1 or (a.publishDate = ?1 and a.id > ?2))"
+            + " order by a.publishDate asc, a.id asc")
+    List<Article> seekPublishedBetween(final LocalDateTime publishDate,
+                                       final String id,
+                                       final LocalDateTime endDate,
+                                       final Pageable pageable);
+
+    /**
+     * Find articles which come after the given publish date and id,
+     * in ascending order. No count query is issued.
+     *
+     * @param publishDate last seen publish date
+     * @param id          last seen id
+     * @param pageable    page size, the page number must be 0
+     * @return articles
+     */
+    @QueryHints(@QueryHint(name = CACHEABLE, value = "true"))
+    @Query("select a from Article a"
+            + " where a.publishDate > ?1 or (a.publishDate = ?1 and a.id > ?2)"
+            + " order by a.publishDate asc, a.id asc")
+    List<Article> seekPublishedAfter(final LocalDateTime publishDate,
+                                     final String id,
+                                     final Pageable pageable);
+
+    /**
+     * Find articles which come before the given publish date and id,
+     * in descending order. No count query is issued.
+     *
+     * @param publishDate last seen publish date
+     * @param id          last seen id
+     * @param pageable    page size, the page number must be 0
+     * @return articles
+     */
+    @QueryHints(@QueryHint(name = CACHEABLE, value = "true"))
+    @Query("select a from Article a"
+            + " where a.publishDate < ?1 or (a.publishDate = ?1 and a.id < ?2)"
+            + " order by a.publishDate desc, a.id desc")
+    List<Article> seekPublishedBefore(final LocalDateTime publishDate,
+                                      final String id,
+                                      final Pageable pageable);
+
     /**
      * Find articles by given author.
      *
@@ -55,6 +191,7 @@ public interface ArticleJpaRepository extends JpaRepository<Article, String> {
      * @param authorId author id
      * @return articles
      */
+    @QueryHints(@QueryHint(name = CACHEABLE, value = "true"))
     @Query("select a from Article a join a.authors au where au.id = ?1")
     Page<Article> findByAuthor(final Pageable pageable,
                                final String authorId);
@@ -66,7 +203,153 @@ public interface ArticleJpaRepository extends JpaRepository<Article, String> {
      * @param keyword keyword
      * @return articles
      */
+    @QueryHints(@QueryHint(name = CACHEABLE, value = "true"))
     @Query("select a from Article a join a.keywords k where k = ?1")
     Page<Article> findByKeyword(final Pageable pageable,
                                 final String keyword);
+
+    /**
+     * Find articles containing the given pattern in header,
+     * description or text.
+     *
+     * @param pageable pagination details
+     * @param pattern  lower case like pattern
+     * @return articles
+     */
+    @Query("select a from Article a where lower(a.header) like ?1 escape '\\'"
+            + " or lower(a.description) like ?1 escape '\\'"
+            + " or lower(a.text) like ?1 escape '\\'")
+    Page<Article> findByText(final Pageable pageable,
+                             final String pattern);
+
+    /**
+     * Find summaries of articles published between specified dates.
+     *
+     * @param pageable  pagination details
+     * @param startDate start date
+     * @param endDate   end date
+     * @return article summaries
+     */
+    @QueryHints(@QueryHint(name = CACHEABLE, value = "true"))
+    @Query(value = SUMMARY
+            + " from Article a where a.publishDate between ?1 and ?2",
+            countQuery = "select count(a) from Article a"
+                    + " where a.publishDate between ?1 and ?2")
+    Page<ArticleSummary> findSummariesPublishedBetween(
+            final Pageable pageable,
+            final LocalDateTime startDate,
+            final LocalDateTime endDate);
+
+    /**
+     * Find summaries of articles published after specified date.
+     *
+     * @param pageable  pagination details
+     * @param startDate start date
+     * @return article summaries
+     */
+    @QueryHints(@QueryHint(name = CACHEABLE, value = "true"))
+    @Query(value = SUMMARY + " from Article a where a.publishDate > ?1",
+            countQuery = "select count(a) from Article a"
+                    + " where a.publishDate > ?1")
+    Page<ArticleSummary> findSummariesPublishedAfter(
+            final Pageable pageable,
+            final LocalDateTime startDate);
+
+    /**
+     * Find summaries of articles published before specified date.
+     *
+     * @param pageable pagination details
+     * @param endDate  end date
+     * @return article summaries
+     */
+    @QueryHints(@QueryHint(name = CACHEABLE, value = "true"))
+    @Query(value = SUMMARY + " from Article a where a.publishDate < ?1",
+            countQuery = "select count(a) from Article a"
+                    + " where a.publishDate < ?1")
+    Page<ArticleSummary> findSummariesPublishedBefore(
+            final Pageable pageable,
+            final LocalDateTime endDate);
+
+    /**
+     * Summary variant of {@link #seekPublishedBetween}.
+     *
+     * @param publishDate last seen publish date
+     * @param id          last seen id
+     * @param endDate     end date
+     * @param pageable    page size, the page number must be 0
+     * @return article summaries
+     */
+    @QueryHints(@QueryHint(name = CACHEABLE, value = "true"))
+    @Query(SUMMARY + " from Article a where a.publishDate <= ?3"
+            + " and (a.publishDate > ?1 or (a.publishDate = ?1 and a.id > ?2))"
+            + " order by a.publishDate asc, a.id asc")
+    List<ArticleSummary> seekSummariesPublishedBetween(
+            final LocalDateTime publishDate,
+            final String id,
+            final LocalDateTime endDate,
+            final Pageable pageable);
+
+    /**
+     * Summary variant of {@link #seekPublishedAfter}.
+     *
+     * @param publishDate last seen publish date
+     * @param id          last seen id
+     * @param pageable    page size, the page number must be 0
+     * @return article summaries
+     */
+    @QueryHints(@QueryHint(name = CACHEABLE, value = "true"))
+    @Query(SUMMARY + " from Article a"
+            + " where a.publishDate > ?1 or (a.publishDate = ?1 and a.id > ?2)"
+            + " order by a.publishDate asc, a.id asc")
+    List<ArticleSummary> seekSummariesPublishedAfter(
+            final LocalDateTime publishDate,
+            final String id,
+            final Pageable pageable);
+
+    /**
+     * Summary variant of {@link #seekPublishedBefore}.
+     *
+     * @param publishDate last seen publish date
+     * @param id          last seen id
+     * @param pageable    page size, the page number must be 0
+     * @return article summaries
+     */
+    @QueryHints(@QueryHint(name = CACHEABLE, value = "true"))
+    @Query(SUMMARY + " from Article a"
+            + " where a.publishDate < ?1 or (a.publishDate = ?1 and a.id < ?2)"
+            + " order by a.publishDate desc, a.id desc")
+    List<ArticleSummary> seekSummariesPublishedBefore(
+            final LocalDateTime publishDate,
+            final String id,
+            final Pageable pageable);
+
+    /**
+     * Find summaries of articles by given author.
+     *
+     * @param pageable pagination details
+     * @param authorId author id
+     * @return article summaries
+     */
+    @QueryHints(@QueryHint(name = CACHEABLE, value = "true"))
+    @Query(value = SUMMARY
+            + " from Article a join a.authors au where au.id = ?1",
+            countQuery = "select count(a) from Article a"
+                    + " join a.authors au where au.id = ?1")
+    Page<ArticleSummary> findSummariesByAuthor(final Pageable pageable,
+                                               final String authorId);
+
+    /**
+     * Find summaries of articles by given keyword.
+     *
+     * @param pageable pagination details
+     * @param keyword  keyword
+     * @return article summaries
+     */
+    @QueryHints(@QueryHint(name = CACHEABLE, value = "true"))
+    @Query(value = SUMMARY
+            + " from Article a join a.keywords k where k = ?1",
+            countQuery = "select count(a) from Article a"
+                    + " join a.keywords k where k = ?1")
+    Page<ArticleSummary> findSummariesByKeyword(final Pageable pageable,
+                                                final String keyword);
 }
@@ -0,0 +1,32 @@
+package com.github.atdi.news.server.services.repositories;
+
+import com.github.atdi.news.model.Article;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Article repository operations implemented with the entity manager.
+ */
+public interface ArticleJpaRepositoryCustom {
+
+    /**
+     * Insert the new articles and update the existing ones in one
+     * transaction. Versions are incremented, new articles get
+     * version 1. The authors must exist.
+     *
+     * @param articles articles with distinct ids
+     * @return saved articles in the same order, created when no row
+     * had their id before
+     */
+    List<UpsertedArticle> upsert(final List<Article> articles);
+
+    /**
+     * Visit all the articles ordered by publish date, the articles
+     * are read through a forward only cursor and are not kept in
+     * memory after the visit.
+     *
+     * @param consumer article consumer
+     */
+    void scrollAll(final Consumer<Article> consumer);
+}
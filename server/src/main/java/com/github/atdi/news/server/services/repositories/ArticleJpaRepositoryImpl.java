@@ -0,0 +1,164 @@
+package com.github.atdi.news.server.services.repositories;
+
+import com.github.atdi.news.model.Article;
+import com.github.atdi.news.model.Author;
+import org.hibernate.CacheMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityNotFoundException;
+import javax.persistence.LockModeType;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Entity manager based implementation of
+ * {@link ArticleJpaRepositoryCustom}.
+ * <p>
+ * The existing versions are read with one locking query and the
+ * authors with another one, new articles are persisted without the
+ * select a merge would issue. Statements are sent in JDBC batches
+ * of hibernate.jdbc.batch_size.
+ * <p>
+ * The scroll fetches the keywords and authors in the same query,
+ * rows are read from the cursor news.export.fetch-size at a time.
+ * MySQL only streams with useCursorFetch=true in the JDBC url.
+ */
+public class ArticleJpaRepositoryImpl implements ArticleJpaRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${news.export.fetch-size:500}")
+    private int fetchSize;
+
+    @Override
+    @Transactional
+    public List<UpsertedArticle> upsert(final List<Article> articles) {
+        if (articles.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<String, VersionStamp> stamps = findStampsForUpdate(articles);
+        Map<String, Author> authors = findAuthors(articles);
+        List<UpsertedArticle> saved = new ArrayList<>(articles.size());
+        for (Article article : articles) {
+            VersionStamp stamp = stamps.get(article.getId());
+            Article.ArticleBuilder builder = article.toBuilder()
+                    .authors(resolve(article.getAuthors(), authors));
+            if (stamp == null) {
+                Article created = builder.version(1)
+                        .generation(VersionStamp.newGeneration())
+                        .build();
+                entityManager.persist(created);
+                saved.add(new UpsertedArticle(created, true));
+            } else {
+                saved.add(new UpsertedArticle(entityManager.merge(builder
+                        .version(stamp.getVersion() + 1)
+                        .generation(stamp.getGeneration())
+                        .build()), false));
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return saved;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void scrollAll(final Consumer<Article> consumer) {
+        Session session = entityManager.unwrap(Session.class);
+        ScrollableResults results = session.createQuery(
+                "select a from Article a"
+                        + " left join fetch a.keywords"
+                        + " left join fetch a.authors"
+                        + " order by a.publishDate, a.id")
+                .setFetchSize(fetchSize)
+                .setReadOnly(true)
+                .setCacheMode(CacheMode.IGNORE)
+                .scroll(ScrollMode.FORWARD_ONLY);
+        try {
+            int count = 0;
+            while (results.next()) {
+                Article article = (Article) results.get(0);
+                consumer.accept(article);
+                session.evict(article);
+                count++;
+                if (count % fetchSize == 0) {
+                    session.clear();
+                }
+            }
+        } finally {
+            results.close();
+        }
+    }
+
+    private Map<String, VersionStamp> findStampsForUpdate(
+            final List<Article> articles) {
+        List<String> ids = new ArrayList<>(articles.size());
+        for (Article article : articles) {
+            ids.add(article.getId());
+        }
+        List<Object[]> rows = entityManager.createQuery(
+                "select a.id, a.version, a.generation from Article a"
+                        + " where a.id in ?1",
+                Object[].class)
+                .setParameter(1, ids)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .getResultList();
+        Map<String, VersionStamp> stamps = new HashMap<>();
+        for (Object[] row : rows) {
+            stamps.put((String) row[0],
+                    new VersionStamp((Long) row[1], null, (Long) row[2]));
+        }
+        return stamps;
+    }
+
+    private Map<String, Author> findAuthors(final List<Article> articles) {
+        Set<String> ids = new HashSet<>();
+        for (Article article : articles) {
+            if (article.getAuthors() != null) {
+                for (Author author : article.getAuthors()) {
+                    ids.add(author.getId());
+                }
+            }
+        }
+        Map<String, Author> authors = new HashMap<>();
+        if (ids.isEmpty()) {
+            return authors;
+        }
+        for (Author author : entityManager.createQuery(
+                "select a from Author a where a.id in ?1", Author.class)
+                .setParameter(1, ids)
+                .getResultList()) {
+            authors.put(author.getId(), author);
+        }
+        return authors;
+    }
+
+    private static Set<Author> resolve(final Set<Author> authors,
+                                       final Map<String, Author> managed) {
+        if (authors == null) {
+            return null;
+        }
+        Set<Author> resolved = new HashSet<>();
+        for (Author author : authors) {
+            Author existing = managed.get(author.getId());
+            if (existing == null) {
+                throw new EntityNotFoundException("Author not found "
+                        + author.getId());
+            }
+            resolved.add(existing);
+        }
+        return resolved;
+    }
+}
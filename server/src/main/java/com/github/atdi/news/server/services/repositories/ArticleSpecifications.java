@@ -0,0 +1,103 @@
+package com.github.atdi.news.server.services.repositories;
+
+import com.github.atdi.news.model.Article;
+import com.github.atdi.news.model.Author;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Article {@link Specification} of a combined search, the criteria
+ * are pushed to the database as a single conjunction and the query
+ * planner of the database picks the index to start from.
+ * A null criterion matches every article.
+ */
+public final class ArticleSpecifications {
+
+    private static final String KEYWORDS = "keywords";
+
+    private static final String AUTHORS = "authors";
+
+    private static final String PUBLISH_DATE = "publishDate";
+
+    private static final char ESCAPE = '\\';
+
+    private ArticleSpecifications() {
+    }
+
+    /**
+     * Create the specification of the criteria.
+     *
+     * @param ids           candidate article ids, null for all articles
+     * @param text          text searched in the header, description
+     *                      and text, case insensitive
+     * @param keyword       keyword
+     * @param authorId      author id
+     * @param publishedFrom earliest publish date, inclusive
+     * @param publishedTo   latest publish date, inclusive
+     * @return specification
+     */
+    public static Specification<Article> matching(
+            final Collection<String> ids,
+            final String text,
+            final String keyword,
+            final String authorId,
+            final LocalDateTime publishedFrom,
+            final LocalDateTime publishedTo) {
+        return (root, query, builder) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (ids != null) {
+                predicates.add(root.get("id").in(ids));
+            }
+            if (keyword != null) {
+                Join<Article, String> keywords = root.join(KEYWORDS);
+                predicates.add(builder.equal(keywords, keyword));
+            }
+            if (authorId != null) {
+                Join<Article, Author> authors = root.join(AUTHORS);
+                predicates.add(builder.equal(authors.get("id"), authorId));
+            }
+            if (publishedFrom != null) {
+                predicates.add(builder.greaterThanOrEqualTo(
+                        root.<LocalDateTime>get(PUBLISH_DATE), publishedFrom));
+            }
+            if (publishedTo != null) {
+                predicates.add(builder.lessThanOrEqualTo(
+                        root.<LocalDateTime>get(PUBLISH_DATE), publishedTo));
+            }
+            if (text != null) {
+                String pattern = "%" + escape(text) + "%";
+                Path<String> description = root.get("description");
+                predicates.add(builder.or(
+                        builder.like(builder.lower(root.<String>get("header")),
+                                pattern, ESCAPE),
+                        builder.like(builder.lower(description),
+                                pattern, ESCAPE),
+                        builder.like(builder.lower(root.<String>get("text")),
+                                pattern, ESCAPE)));
+            }
+            return builder.and(predicates.toArray(
+                    new Predicate[predicates.size()]));
+        };
+    }
+
+    /**
+     * Lower case the text and escape the like wildcards.
+     *
+     * @param text searched text
+     * @return like pattern, without the surrounding wildcards
+     */
+    public static String escape(final String text) {
+        return text.toLowerCase(Locale.ROOT)
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+    }
+}
@@ -2,6 +2,14 @@ package com.github.atdi.news.server.services.repositories;
 
 import com.github.atdi.news.model.Author;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+
+import static org.hibernate.annotations.QueryHints.CACHEABLE;
 
 /**
  * Author data repository.
@@ -9,4 +17,26 @@ import org.springframework.data.jpa.repository.JpaRepository;
  * Created by aurelavramescu on 12/11/15.
  */
 public interface AuthorJpaRepository extends JpaRepository<Author, String> {
+
+    /**
+     * Find the version of an author.
+     *
+     * @param id author id
+     * @return version stamp or null if the author doesn't exist
+     */
+    @QueryHints(@QueryHint(name = CACHEABLE, value = "true"))
+    @Query("select new com.github.atdi.news.server.services.repositories"
+            + ".VersionStamp(a.version) from Author a where a.id = ?1")
+    VersionStamp findStamp(final String id);
+
+    /**
+     * Find the version of an author and lock its row until the
+     * end of the transaction.
+     *
+     * @param id author id
+     * @return version or null if the author doesn't exist
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select a.version from Author a where a.id = ?1")
+    Long findVersionForUpdate(final String id);
 }
@@ -0,0 +1,19 @@
+package com.github.atdi.news.server.services.repositories;
+
+import com.github.atdi.news.model.Article;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+/**
+ * Article saved by an upsert and whether its row was inserted.
+ */
+@Getter
+@EqualsAndHashCode
+@AllArgsConstructor
+public final class UpsertedArticle {
+
+    private final Article article;
+
+    private final boolean created;
+}
@@ -0,0 +1,62 @@
+package com.github.atdi.news.server.services.repositories;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Version, last modification date and generation of an entity, read
+ * without loading the entity.
+ * <p>
+ * The versions of an entity deleted and created again with the same
+ * id start over, the generation is drawn at random on every creation
+ * so the stamps of the two don't match.
+ */
+@Getter
+@EqualsAndHashCode
+@AllArgsConstructor
+public final class VersionStamp {
+
+    private final long version;
+
+    private final LocalDateTime lastModified;
+
+    private final long generation;
+
+    /**
+     * Constructor for entities without modification date nor
+     * generation.
+     *
+     * @param version entity version
+     */
+    public VersionStamp(final long version) {
+        this(version, null);
+    }
+
+    /**
+     * Constructor for entities without generation.
+     *
+     * @param version      entity version
+     * @param lastModified last modification date
+     */
+    public VersionStamp(final long version,
+                        final LocalDateTime lastModified) {
+        this(version, lastModified, 0);
+    }
+
+    /**
+     * Draw the generation of a new entity.
+     *
+     * @return generation, never 0
+     */
+    public static long newGeneration() {
+        long generation;
+        do {
+            generation = ThreadLocalRandom.current().nextLong();
+        } while (generation == 0);
+        return generation;
+    }
+}
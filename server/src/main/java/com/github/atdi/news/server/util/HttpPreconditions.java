@@ -0,0 +1,104 @@
+package com.github.atdi.news.server.util;
+
+import com.github.atdi.news.server.services.repositories.VersionStamp;
+
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+
+/**
+ * Conditional request utilities, the ETag is the entity version
+ * and generation, Last-Modified its modification date.
+ */
+public final class HttpPreconditions {
+
+    private static final String GZIP_SUFFIX = "-gzip";
+
+    private static final String GENERATION_SEPARATOR = ".";
+
+    private HttpPreconditions() {
+    }
+
+    /**
+     * Check if the request carries validators.
+     *
+     * @param headers request headers
+     * @return true for If-None-Match or If-Modified-Since requests
+     */
+    public static boolean isConditional(final HttpHeaders headers) {
+        return headers.getHeaderString(HttpHeaders.IF_NONE_MATCH) != null
+                || headers.getHeaderString(HttpHeaders.IF_MODIFIED_SINCE)
+                != null;
+    }
+
+    /**
+     * Strong entity tag of the entity version, followed by its
+     * generation when it has one.
+     *
+     * @param stamp version stamp
+     * @param gzip  true for the gzip encoded representation
+     * @return entity tag
+     */
+    public static EntityTag entityTag(final VersionStamp stamp,
+                                      final boolean gzip) {
+        String value = Long.toString(stamp.getVersion());
+        if (stamp.getGeneration() != 0) {
+            value += GENERATION_SEPARATOR
+                    + Long.toHexString(stamp.getGeneration());
+        }
+        if (gzip) {
+            value += GZIP_SUFFIX;
+        }
+        return new EntityTag(value);
+    }
+
+    /**
+     * Last modification date, truncated to seconds as in the header.
+     *
+     * @param stamp version stamp
+     * @return last modification date or null if unknown
+     */
+    public static Date lastModified(final VersionStamp stamp) {
+        if (stamp.getLastModified() == null) {
+            return null;
+        }
+        return Date.from(stamp.getLastModified()
+                .truncatedTo(ChronoUnit.SECONDS)
+                .atZone(ZoneId.systemDefault())
+                .toInstant());
+    }
+
+    /**
+     * Evaluate the request preconditions against both the identity
+     * and the gzip representation tags.
+     *
+     * @param request request
+     * @param stamp   version stamp
+     * @return not modified response builder or null if the
+     * entity must be sent
+     */
+    public static Response.ResponseBuilder evaluate(final Request request,
+                                                    final VersionStamp stamp) {
+        Response.ResponseBuilder notModified = evaluate(request, stamp,
+                false);
+        if (notModified == null) {
+            notModified = evaluate(request, stamp, true);
+        }
+        return notModified;
+    }
+
+    private static Response.ResponseBuilder evaluate(final Request request,
+                                                     final VersionStamp stamp,
+                                                     final boolean gzip) {
+        Date lastModified = lastModified(stamp);
+        if (lastModified == null) {
+            return request.evaluatePreconditions(entityTag(stamp, gzip));
+        }
+        return request.evaluatePreconditions(lastModified,
+                entityTag(stamp, gzip));
+    }
+}
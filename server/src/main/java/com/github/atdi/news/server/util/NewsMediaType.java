@@ -0,0 +1,33 @@
+package com.github.atdi.news.server.util;
+
+import javax.ws.rs.core.MediaType;
+
+/**
+ * Media types not defined by {@link MediaType}.
+ */
+public final class NewsMediaType {
+
+    /**
+     * Newline delimited JSON, one JSON document per line.
+     */
+    public static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+    /**
+     * Newline delimited JSON, one JSON document per line.
+     */
+    public static final MediaType APPLICATION_NDJSON_TYPE =
+            new MediaType("application", "x-ndjson");
+
+    /**
+     * Prometheus text exposition format.
+     */
+    public static final String TEXT_PROMETHEUS = "text/plain; version=0.0.4";
+
+    /**
+     * Server-sent events stream.
+     */
+    public static final String TEXT_EVENT_STREAM = "text/event-stream";
+
+    private NewsMediaType() {
+    }
+}
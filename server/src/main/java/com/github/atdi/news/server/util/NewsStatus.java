@@ -0,0 +1,38 @@
+package com.github.atdi.news.server.util;
+
+import javax.ws.rs.core.Response;
+
+/**
+ * Response statuses not defined by {@link Response.Status}.
+ */
+public enum NewsStatus implements Response.StatusType {
+
+    /**
+     * 429 Too Many Requests, see RFC 6585.
+     */
+    TOO_MANY_REQUESTS(429, "Too Many Requests");
+
+    private final int code;
+
+    private final String reason;
+
+    NewsStatus(final int code, final String reason) {
+        this.code = code;
+        this.reason = reason;
+    }
+
+    @Override
+    public int getStatusCode() {
+        return code;
+    }
+
+    @Override
+    public Response.Status.Family getFamily() {
+        return Response.Status.Family.familyOf(code);
+    }
+
+    @Override
+    public String getReasonPhrase() {
+        return reason;
+    }
+}
@@ -0,0 +1,76 @@
+package com.github.atdi.news.server.util;
+
+import com.github.atdi.news.server.exceptions.NewsException;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import javax.ws.rs.core.Response;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in a listing ordered by publish date and id.
+ * <p>
+ * It is sent to clients as an opaque url safe token.
+ */
+@Getter
+@EqualsAndHashCode
+@RequiredArgsConstructor
+public final class PublishCursor {
+
+    private static final char SEPARATOR = '|';
+
+    private static final String EMPTY_ID = "";
+
+    private final LocalDateTime publishDate;
+
+    private final String id;
+
+    /**
+     * Cursor placed right at the given date, before any article
+     * published at that date in ascending order.
+     *
+     * @param publishDate publish date
+     * @return cursor
+     */
+    public static PublishCursor at(final LocalDateTime publishDate) {
+        return new PublishCursor(publishDate, EMPTY_ID);
+    }
+
+    /**
+     * Decode a token.
+     *
+     * @param token cursor token
+     * @return cursor
+     */
+    public static PublishCursor decode(final String token) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token),
+                    StandardCharsets.UTF_8);
+            int separator = value.indexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new IllegalArgumentException(token);
+            }
+            return new PublishCursor(
+                    LocalDateTime.parse(value.substring(0, separator)),
+                    value.substring(separator + 1));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new NewsException("Invalid cursor",
+                    Response.Status.BAD_REQUEST, e);
+        }
+    }
+
+    /**
+     * Encode the cursor as a token.
+     *
+     * @return cursor token
+     */
+    public String encode() {
+        String value = publishDate.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
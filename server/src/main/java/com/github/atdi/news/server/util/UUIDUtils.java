@@ -3,26 +3,118 @@ package com.github.atdi.news.server.util;
 import com.github.atdi.news.server.exceptions.NewsException;
 
 import javax.ws.rs.core.Response;
+import java.util.UUID;
 
 /**
  * UUID utilities.
+ * <p>
+ * The uuids are checked and parsed char by char, without regular
+ * expressions, nothing is allocated on the request path.
  *
  * Created by aurelavramescu on 13/11/15.
  */
 public final class UUIDUtils {
 
+    private static final int LENGTH = 36;
+
+    private static final int VERSION_INDEX = 14;
+
+    private static final int VARIANT_INDEX = 19;
+
+    private static final int FIRST_DASH = 8;
+
+    private static final int SECOND_DASH = 13;
+
+    private static final int THIRD_DASH = 18;
+
+    private static final int FOURTH_DASH = 23;
+
+    private static final int NIBBLE_BITS = 4;
+
+    private static final int DECIMAL_DIGITS = 10;
+
+    private UUIDUtils() {
+    }
+
     /**
      * Check if the string is a valid uuid.
      *
      * @param uuid string uuid
      */
     public static void checkUUID(final String uuid) {
-        if (!uuid.matches("[\\p{XDigit}]{8}-"
-                + "[\\p{XDigit}]{4}-[34]"
-                + "[\\p{XDigit}]{3}-[89ab]"
-                + "[\\p{XDigit}]{3}-[\\p{XDigit}]{12}")) {
+        if (!isUUID(uuid)) {
             throw new NewsException("Invalid uuid",
                     Response.Status.BAD_REQUEST);
         }
     }
+
+    /**
+     * Check if the string is a version 3, 4 or 7 uuid in the canonical
+     * form, the variant digit is expected in lower case.
+     *
+     * @param uuid string uuid, may be null
+     * @return true if the uuid is valid
+     */
+    public static boolean isUUID(final String uuid) {
+        if (uuid == null || uuid.length() != LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < LENGTH; i++) {
+            char c = uuid.charAt(i);
+            if (isDashIndex(i)) {
+                if (c != '-') {
+                    return false;
+                }
+            } else if (hexValue(c) < 0) {
+                return false;
+            }
+        }
+        char version = uuid.charAt(VERSION_INDEX);
+        char variant = uuid.charAt(VARIANT_INDEX);
+        return (version == '3' || version == '4' || version == '7')
+                && (variant == '8' || variant == '9'
+                || variant == 'a' || variant == 'b');
+    }
+
+    /**
+     * Parse a valid uuid.
+     *
+     * @param uuid string uuid
+     * @return uuid
+     */
+    public static UUID toUUID(final String uuid) {
+        checkUUID(uuid);
+        return new UUID(bits(uuid, 0, THIRD_DASH),
+                bits(uuid, THIRD_DASH + 1, LENGTH));
+    }
+
+    private static long bits(final String uuid,
+                             final int start,
+                             final int end) {
+        long bits = 0;
+        for (int i = start; i < end; i++) {
+            if (!isDashIndex(i)) {
+                bits = bits << NIBBLE_BITS | hexValue(uuid.charAt(i));
+            }
+        }
+        return bits;
+    }
+
+    private static boolean isDashIndex(final int index) {
+        return index == FIRST_DASH || index == SECOND_DASH
+                || index == THIRD_DASH || index == FOURTH_DASH;
+    }
+
+    private static int hexValue(final char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + DECIMAL_DIGITS;
+        }
+        if (c >= 'A' && c <= 'F') {
+            return c - 'A' + DECIMAL_DIGITS;
+        }
+        return -1;
+    }
 }
@@ -0,0 +1,101 @@
+package com.github.atdi.news.server.util;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Virtual threads support.
+ * <p>
+ * The project is compiled for Java 8, the virtual threads API of
+ * Java 21 is looked up by reflection, so the same build runs with
+ * platform threads on older runtimes.
+ * <p>
+ * Before Java 24 a virtual thread blocking inside a synchronized
+ * block pins its carrier thread, code which blocks while holding a
+ * monitor should only run on virtual threads from Java 24.
+ * <p>
+ * Experimental, the build and the tests run on Java 8, the virtual
+ * threads paths are not tested.
+ */
+public final class VirtualThreads {
+
+    private static final Method OF_VIRTUAL = method(Thread.class,
+            "ofVirtual");
+
+    private static final int UNPINNED_MONITORS_VERSION = 24;
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * Check if the runtime supports virtual threads.
+     *
+     * @return true on Java 21 or later
+     */
+    public static boolean isAvailable() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * Check if virtual threads blocking while holding a monitor
+     * release their carrier thread.
+     *
+     * @return true on Java 24 or later
+     */
+    public static boolean isMonitorUnpinned() {
+        String version = System.getProperty("java.specification.version");
+        return isAvailable() && Integer.parseInt(version)
+                >= UNPINNED_MONITORS_VERSION;
+    }
+
+    /**
+     * Create a factory of virtual threads named prefix0, prefix1...
+     *
+     * @param prefix thread name prefix
+     * @return virtual thread factory
+     */
+    public static ThreadFactory factory(final String prefix) {
+        if (!isAvailable()) {
+            throw new IllegalStateException("Virtual threads need Java 21");
+        }
+        try {
+            Object builder = OF_VIRTUAL.invoke(null);
+            Class<?> builderClass = OF_VIRTUAL.getReturnType();
+            builder = builderClass.getMethod("name", String.class, long.class)
+                    .invoke(builder, prefix, 0L);
+            return (ThreadFactory) builderClass.getMethod("factory")
+                    .invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Virtual threads unavailable",
+                    e);
+        }
+    }
+
+    /**
+     * Create an executor starting a virtual thread per task.
+     *
+     * @param prefix thread name prefix
+     * @return executor, unbounded
+     */
+    public static ExecutorService newExecutor(final String prefix) {
+        ThreadFactory factory = factory(prefix);
+        try {
+            return (ExecutorService) Executors.class
+                    .getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                    .invoke(null, factory);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Virtual threads unavailable",
+                    e);
+        }
+    }
+
+    private static Method method(final Class<?> type, final String name) {
+        try {
+            return type.getMethod(name);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
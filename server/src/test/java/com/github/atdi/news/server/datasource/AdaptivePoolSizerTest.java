@@ -0,0 +1,110 @@
+package com.github.atdi.news.server.datasource;
+
+import org.apache.tomcat.jdbc.pool.DataSource;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class AdaptivePoolSizerTest {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Mock
+    private DataSource pool;
+
+    private ConnectionPools connectionPools;
+
+    private MonitoredPool monitoredPool;
+
+    private AdaptivePoolSizer sizer;
+
+    @Before
+    public void setUp() {
+        connectionPools = new ConnectionPools();
+        monitoredPool = connectionPools.register("primary", pool);
+        sizer = new AdaptivePoolSizer(connectionPools, 10, 100, 5,
+                5 * MS, 2);
+    }
+
+    @Test
+    public void testGrowsOnWait() {
+        assertEquals(55, sizer.nextSize(monitoredPool, 50,
+                window(10 * MS, 20 * MS, 0, 50)));
+        assertEquals(55, sizer.nextSize(monitoredPool, 50,
+                window(MS, 20 * MS, 1, 50)));
+    }
+
+    @Test
+    public void testKeepsSizeInUse() {
+        assertEquals(50, sizer.nextSize(monitoredPool, 50,
+                window(MS, 20 * MS, 0, 46)));
+    }
+
+    @Test
+    public void testShrinksUnused() {
+        assertEquals(45, sizer.nextSize(monitoredPool, 50,
+                window(0, 20 * MS, 0, 45)));
+    }
+
+    @Test
+    public void testShrinksWhenDatabaseSlowsDown() {
+        assertEquals(55, sizer.nextSize(monitoredPool, 50,
+                window(10 * MS, 20 * MS, 0, 50)));
+        assertEquals(50, sizer.nextSize(monitoredPool, 55,
+                window(10 * MS, 50 * MS, 0, 55)));
+        // the baseline drifts up to the new latency
+        int size = 50;
+        for (int i = 0; i < 4; i++) {
+            size = sizer.nextSize(monitoredPool, size,
+                    window(10 * MS, 50 * MS, 0, size));
+        }
+        assertEquals(30, size);
+        assertEquals(35, sizer.nextSize(monitoredPool, size,
+                window(10 * MS, 50 * MS, 0, size)));
+    }
+
+    @Test
+    public void testStaysWithinLimits() {
+        assertEquals(100, sizer.nextSize(monitoredPool, 98,
+                window(10 * MS, 20 * MS, 0, 98)));
+        assertEquals(10, sizer.nextSize(monitoredPool, 12,
+                window(0, 20 * MS, 0, 0)));
+        assertEquals(10, sizer.nextSize(monitoredPool, 3,
+                window(0, 20 * MS, 0, 0)));
+    }
+
+    @Test
+    public void testBaselineDroppedOnUnregister() {
+        sizer.nextSize(monitoredPool, 50, window(MS, 20 * MS, 0, 50));
+        connectionPools.unregister(monitoredPool);
+        // no baseline left, the slower usage isn't compared to it
+        assertEquals(55, sizer.nextSize(monitoredPool, 50,
+                window(10 * MS, 50 * MS, 0, 50)));
+    }
+
+    @Test
+    public void testResize() {
+        when(pool.getMaxActive()).thenReturn(50);
+        when(pool.getMinIdle()).thenReturn(10);
+        sizer.resize();
+        verify(pool).setMaxActive(45);
+        verify(pool).setMaxIdle(45);
+        verify(pool, never()).setMinIdle(anyInt());
+    }
+
+    private static MonitoredPool.Window window(final long meanWaitNanos,
+                                               final long meanUsageNanos,
+                                               final long timeouts,
+                                               final int peakActive) {
+        return new MonitoredPool.Window(10, 10 * meanWaitNanos,
+                10, 10 * meanUsageNanos, timeouts, peakActive);
+    }
+}
@@ -0,0 +1,112 @@
+package com.github.atdi.news.server.datasource;
+
+import org.apache.tomcat.jdbc.pool.DataSource;
+import org.apache.tomcat.jdbc.pool.PoolExhaustedException;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class MonitoredPoolTest {
+
+    @Mock
+    private DataSource pool;
+
+    @Mock
+    private Connection connection;
+
+    private MonitoredPool monitoredPool;
+
+    @Before
+    public void setUp() throws SQLException {
+        when(pool.getConnection()).thenReturn(connection);
+        monitoredPool = new MonitoredPool("primary", pool);
+    }
+
+    @Test
+    public void testConnectionsAreMeasured() throws SQLException {
+        Connection first = monitoredPool.getConnection();
+        Connection second = monitoredPool.getConnection();
+        first.close();
+        first.close();
+        verify(connection, times(2)).close();
+        assertEquals(2, monitoredPool.getWaitTime().count());
+        assertEquals(1, monitoredPool.getUsageTime().count());
+        MonitoredPool.Window window = monitoredPool.window();
+        assertEquals(2, window.getPeakActive());
+        assertTrue(window.getMeanWaitNanos() >= 0);
+        assertTrue(window.getMeanUsageNanos() >= 0);
+        assertEquals(0, window.getTimeouts());
+
+        window = monitoredPool.window();
+        assertEquals(1, window.getPeakActive());
+        assertEquals(0, window.getMeanWaitNanos());
+        assertEquals(-1, window.getMeanUsageNanos());
+        second.close();
+        assertEquals(1, monitoredPool.window().getPeakActive());
+        assertEquals(2, monitoredPool.getUsageTime().count());
+    }
+
+    @Test
+    public void testTimeoutsAreCounted() throws SQLException {
+        when(pool.getConnection()).thenThrow(new PoolExhaustedException());
+        try {
+            monitoredPool.getConnection();
+            fail();
+        } catch (PoolExhaustedException e) {
+            assertEquals(1, monitoredPool.getTimeouts());
+        }
+        assertEquals(1, monitoredPool.window().getTimeouts());
+        assertEquals(0, monitoredPool.window().getTimeouts());
+        assertEquals(1, monitoredPool.getWaitTime().count());
+    }
+
+    @Test
+    public void testUnopenedPoolIsNotOpened() throws SQLException {
+        assertEquals(0, monitoredPool.getActive());
+        assertEquals(0, monitoredPool.getIdle());
+        assertEquals(0, monitoredPool.getPending());
+        verify(pool, never()).getActive();
+        when(pool.getActive()).thenReturn(1);
+        monitoredPool.getConnection();
+        assertEquals(1, monitoredPool.getActive());
+    }
+
+    @Test
+    public void testResize() {
+        when(pool.getMinIdle()).thenReturn(10);
+        monitoredPool.setMaxActive(5);
+        verify(pool).setMaxActive(5);
+        verify(pool).setMaxIdle(5);
+        verify(pool).setMinIdle(5);
+    }
+
+    @Test
+    public void testScrape() throws SQLException {
+        ConnectionPools connectionPools = new ConnectionPools();
+        MonitoredPool registered = connectionPools.register("primary", pool);
+        registered.getConnection().close();
+        when(pool.getIdle()).thenReturn(3);
+        when(pool.getMaxActive()).thenReturn(50);
+        String metrics = connectionPools.scrape();
+        assertTrue(metrics.contains("# TYPE news_db_pool_connections gauge\n"
+                + "news_db_pool_connections{pool=\"primary\",state=\"active\"} 0\n"
+                + "news_db_pool_connections{pool=\"primary\",state=\"idle\"} 3\n"));
+        assertTrue(metrics.contains(
+                "news_db_pool_max_connections{pool=\"primary\"} 50\n"));
+        assertTrue(metrics.contains(
+                "news_db_pool_wait_seconds_count{pool=\"primary\"} 1\n"));
+        assertTrue(metrics.contains(
+                "news_db_pool_usage_seconds_count{pool=\"primary\"} 1\n"));
+        connectionPools.unregister(registered);
+        assertFalse(connectionPools.scrape().contains("primary"));
+    }
+}
@@ -0,0 +1,57 @@
+package com.github.atdi.news.server.datasource;
+
+import org.glassfish.jersey.server.monitoring.RequestEvent;
+import org.glassfish.jersey.server.monitoring.RequestEventListener;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class ReadYourWritesListenerTest {
+
+    private final ReadYourWritesListener listener =
+            new ReadYourWritesListener();
+
+    @After
+    public void tearDown() {
+        ReadYourWrites.detach();
+    }
+
+    @Test
+    public void testDetachedWhenResourceMethodReturns() {
+        RequestEventListener requestListener =
+                listener.onRequest(event(RequestEvent.Type.START));
+        assertNotNull(ReadYourWrites.current());
+        requestListener.onEvent(event(
+                RequestEvent.Type.RESOURCE_METHOD_FINISHED));
+        assertNull(ReadYourWrites.current());
+    }
+
+    @Test
+    public void testFinishedKeepsStateOfOtherRequest() {
+        RequestEventListener requestListener =
+                listener.onRequest(event(RequestEvent.Type.START));
+        requestListener.onEvent(event(
+                RequestEvent.Type.RESOURCE_METHOD_FINISHED));
+        // resumed on a thread serving another request
+        ReadYourWrites other = new ReadYourWrites();
+        other.attach();
+        requestListener.onEvent(event(RequestEvent.Type.FINISHED));
+        assertSame(other, ReadYourWrites.current());
+    }
+
+    @Test
+    public void testDetachedWhenUnmatched() {
+        RequestEventListener requestListener =
+                listener.onRequest(event(RequestEvent.Type.START));
+        requestListener.onEvent(event(RequestEvent.Type.FINISHED));
+        assertNull(ReadYourWrites.current());
+    }
+
+    private static RequestEvent event(final RequestEvent.Type type) {
+        RequestEvent event = mock(RequestEvent.class);
+        when(event.getType()).thenReturn(type);
+        return event;
+    }
+}
@@ -0,0 +1,227 @@
+package com.github.atdi.news.server.datasource;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ReplicaRoutingDataSourceTest {
+
+    @Mock
+    private DataSource primary;
+
+    @Mock
+    private DataSource first;
+
+    @Mock
+    private DataSource second;
+
+    @Mock
+    private Connection primaryConnection;
+
+    @Mock
+    private Connection firstConnection;
+
+    @Mock
+    private Connection secondConnection;
+
+    @Before
+    public void setUp() throws SQLException {
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(first.getConnection()).thenReturn(firstConnection);
+        when(second.getConnection()).thenReturn(secondConnection);
+    }
+
+    @After
+    public void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+        ReadYourWrites.detach();
+    }
+
+    @Test
+    public void testWritesGoToPrimary() throws SQLException {
+        ReplicaRoutingDataSource routing =
+                routing(ReplicaRoutingDataSource.Selection.ROUND_ROBIN);
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        assertPrimary(routing.getConnection());
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+        assertSame(primaryConnection, routing.getConnection());
+        assertEquals(2, routing.getPrimaryConnections());
+        verifyZeroInteractions(first, second);
+    }
+
+    @Test
+    public void testReadsGoToReplicasInTurn() throws SQLException {
+        ReplicaRoutingDataSource routing =
+                routing(ReplicaRoutingDataSource.Selection.ROUND_ROBIN);
+        readOnly();
+        assertSame(firstConnection, routing.getConnection());
+        assertSame(secondConnection, routing.getConnection());
+        assertSame(firstConnection, routing.getConnection());
+        assertEquals(2, routing.getReplicas().get(0).getConnections());
+        assertEquals(1, routing.getReplicas().get(1).getConnections());
+        assertEquals(0, routing.getPrimaryConnections());
+    }
+
+    @Test
+    public void testReadsGoToLeastConnectedReplica() throws SQLException {
+        ReplicaRoutingDataSource routing = routing(
+                ReplicaRoutingDataSource.Selection.LEAST_CONNECTIONS);
+        readOnly();
+        Connection connection = routing.getConnection();
+        routing.getConnection();
+        routing.getConnection();
+        assertEquals(2, routing.getReplicas().get(0).getActive());
+        assertEquals(1, routing.getReplicas().get(1).getActive());
+        connection.close();
+        connection.close();
+        verify(firstConnection, times(2)).close();
+        assertEquals(1, routing.getReplicas().get(0).getActive());
+        routing.getConnection();
+        assertEquals(2, routing.getReplicas().get(0).getActive());
+        assertEquals(3, routing.getReplicas().get(0).getConnections());
+    }
+
+    @Test
+    public void testReadsOfWrittenRequestGoToPrimary() throws SQLException {
+        ReplicaRoutingDataSource routing =
+                routing(ReplicaRoutingDataSource.Selection.ROUND_ROBIN);
+        ReadYourWrites request = new ReadYourWrites();
+        request.attach();
+        readOnly();
+        assertSame(firstConnection, routing.getConnection());
+        assertFalse(request.isWritten());
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        assertPrimary(routing.getConnection());
+        assertTrue(request.isWritten());
+        readOnly();
+        assertSame(primaryConnection, routing.getConnection());
+        ReadYourWrites.propagate(() -> {
+            try {
+                assertSame(primaryConnection, routing.getConnection());
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }).run();
+        ReadYourWrites.detach();
+        assertSame(secondConnection, routing.getConnection());
+    }
+
+    @Test
+    public void testFailedReplicaIsSkipped() throws SQLException {
+        ReplicaRoutingDataSource routing =
+                routing(ReplicaRoutingDataSource.Selection.ROUND_ROBIN);
+        when(first.getConnection()).thenThrow(new SQLException("down"));
+        readOnly();
+        assertSame(secondConnection, routing.getConnection());
+        assertFalse(routing.getReplicas().get(0).isUp());
+        assertSame(secondConnection, routing.getConnection());
+        assertSame(secondConnection, routing.getConnection());
+        verify(first).getConnection();
+    }
+
+    @Test
+    public void testReadsFallBackToPrimary() throws SQLException {
+        ReplicaRoutingDataSource routing =
+                routing(ReplicaRoutingDataSource.Selection.ROUND_ROBIN);
+        when(firstConnection.isValid(anyInt())).thenReturn(false);
+        when(second.getConnection()).thenThrow(new SQLException("down"));
+        routing.checkHealth();
+        assertFalse(routing.getReplicas().get(0).isUp());
+        assertFalse(routing.getReplicas().get(1).isUp());
+        verify(firstConnection).close();
+        readOnly();
+        assertSame(primaryConnection, routing.getConnection());
+        assertEquals(1, routing.getPrimaryConnections());
+    }
+
+    @Test
+    public void testReplicaIsBackOnceChecked() throws SQLException {
+        ReplicaRoutingDataSource routing =
+                routing(ReplicaRoutingDataSource.Selection.ROUND_ROBIN);
+        when(firstConnection.isValid(anyInt())).thenReturn(false, true);
+        when(secondConnection.isValid(anyInt())).thenReturn(true);
+        routing.checkHealth();
+        assertFalse(routing.getReplicas().get(0).isUp());
+        readOnly();
+        assertSame(secondConnection, routing.getConnection());
+        assertSame(secondConnection, routing.getConnection());
+        routing.checkHealth();
+        assertTrue(routing.getReplicas().get(0).isUp());
+        assertNotSame(routing.getConnection(), routing.getConnection());
+    }
+
+    @Test
+    public void testReadsAfterWriteGoToPrimaryWhileLagging()
+            throws SQLException, InterruptedException {
+        ReplicaRoutingDataSource routing = routing(
+                ReplicaRoutingDataSource.Selection.ROUND_ROBIN, 60000);
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        Connection connection = routing.getConnection();
+        connection.prepareStatement("select * from articles");
+        connection.close();
+        assertFalse(routing.isLagging());
+        readOnly();
+        assertSame(firstConnection, routing.getConnection());
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        connection = routing.getConnection();
+        connection.prepareStatement("update articles set version = ?");
+        verify(primaryConnection)
+                .prepareStatement("update articles set version = ?");
+        assertTrue(routing.isLagging());
+        // another request
+        readOnly();
+        assertSame(primaryConnection, routing.getConnection());
+        assertEquals(3, routing.getPrimaryConnections());
+
+        routing = routing(ReplicaRoutingDataSource.Selection.ROUND_ROBIN, 1);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        connection = routing.getConnection();
+        connection.prepareStatement(" INSERT into articles values (?)");
+        connection.close();
+        assertTrue(routing.isLagging());
+        Thread.sleep(10);
+        assertFalse(routing.isLagging());
+        readOnly();
+        assertSame(firstConnection, routing.getConnection());
+    }
+
+    private ReplicaRoutingDataSource routing(
+            final ReplicaRoutingDataSource.Selection selection) {
+        return routing(selection, 0);
+    }
+
+    private ReplicaRoutingDataSource routing(
+            final ReplicaRoutingDataSource.Selection selection,
+            final long maxLag) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        replicas.put("first", first);
+        replicas.put("second", second);
+        return new ReplicaRoutingDataSource(primary, replicas, selection,
+                maxLag);
+    }
+
+    private void assertPrimary(final Connection connection) {
+        // the connection of a transaction is wrapped to watch the writes
+        assertEquals(primaryConnection.toString(), connection.toString());
+    }
+
+    private static void readOnly() {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+    }
+}
@@ -1,12 +1,30 @@
 package com.github.atdi.news.server.integration;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.atdi.news.model.Article;
+import com.github.atdi.news.model.ArticleChange;
+import com.github.atdi.news.model.ArticleChanges;
 import com.github.atdi.news.model.Author;
+import com.github.atdi.news.model.BatchResult;
+import com.github.atdi.news.model.CursorPage;
+import com.github.atdi.news.model.DateHistogram;
 import com.github.atdi.news.model.HttpError;
+import com.github.atdi.news.model.KeywordCount;
 import com.github.atdi.news.server.Bootstrap;
+import com.github.atdi.news.server.datasource.ConnectionPools;
+import com.github.atdi.news.server.datasource.MonitoredPool;
+import com.github.atdi.news.server.datasource.PoolMonitoringPostProcessor;
+import com.github.atdi.news.server.datasource.ReplicaRoutingDataSource;
 import com.github.atdi.news.server.integration.utils.TestPageImpl;
+import com.github.atdi.news.server.services.ArticleService;
 import com.github.atdi.news.server.util.JacksonContextResolver;
+import com.github.atdi.news.server.util.NewsMediaType;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.mockito.internal.util.collections.Sets;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.SpringApplicationConfiguration;
 import org.springframework.boot.test.WebIntegrationTest;
 import org.springframework.data.domain.Page;
@@ -16,16 +34,31 @@ import static org.testng.Assert.*;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
 import javax.ws.rs.client.Client;
 import javax.ws.rs.client.ClientBuilder;
 import javax.ws.rs.client.Entity;
 import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.GenericType;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Created by aurelavramescu on 13/11/15.
@@ -38,6 +71,18 @@ public class NewsServiceIntegrationTests extends AbstractTestNGSpringContextTest
     private static final String INTEGRATION_TESTS_URL = "http://localhost:8080/api";
     private Client client;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ConnectionPools connectionPools;
+
+    @Autowired
+    private ArticleService articleService;
+
     private String lastAuthorId;
 
     private String lastAuthorURI;
@@ -124,6 +169,22 @@ public class NewsServiceIntegrationTests extends AbstractTestNGSpringContextTest
         assertEquals(lastAuthor.getId(), lastAuthorId);
     }
 
+    @Test(dependsOnMethods = { "getAuthor" })
+    public void getAuthorNotModified() {
+        WebTarget webTarget = client.target(lastAuthorURI);
+        Response response = webTarget
+                .request(MediaType.APPLICATION_JSON_TYPE)
+                .get();
+        assertEquals(response.getStatus(), 200);
+        EntityTag entityTag = response.getEntityTag();
+        assertNotNull(entityTag);
+        response = webTarget
+                .request(MediaType.APPLICATION_JSON_TYPE)
+                .header(HttpHeaders.IF_NONE_MATCH, entityTag)
+                .get();
+        assertEquals(response.getStatus(), 304);
+    }
+
     @Test
     public void createArticle() {
         WebTarget webTarget = client.target(INTEGRATION_TESTS_URL + "/article");
@@ -220,6 +281,197 @@ public class NewsServiceIntegrationTests extends AbstractTestNGSpringContextTest
         assertEquals(article.getId(), lastArticleId);
     }
 
+    @Test(dependsOnMethods = { "getArticleById" })
+    public void getArticleByIdNotModified() {
+        WebTarget webTarget = client.target(lastArticleUri);
+        Response response = webTarget
+                .request(MediaType.APPLICATION_JSON_TYPE)
+                .get();
+        assertEquals(response.getStatus(), 200);
+        EntityTag entityTag = response.getEntityTag();
+        Date lastModified = response.getLastModified();
+        assertNotNull(entityTag);
+        assertNotNull(lastModified);
+        response = webTarget
+                .request(MediaType.APPLICATION_JSON_TYPE)
+                .header(HttpHeaders.IF_NONE_MATCH, entityTag)
+                .get();
+        assertEquals(response.getStatus(), 304);
+        response = webTarget
+                .request(MediaType.APPLICATION_JSON_TYPE)
+                .header(HttpHeaders.IF_MODIFIED_SINCE, lastModified)
+                .get();
+        assertEquals(response.getStatus(), 304);
+        response = webTarget
+                .request(MediaType.APPLICATION_JSON_TYPE)
+                .header(HttpHeaders.IF_NONE_MATCH, new EntityTag("0"))
+                .get();
+        assertEquals(response.getStatus(), 200);
+    }
+
+    @Test
+    public void getRecreatedArticleModified() {
+        String id = UUID.randomUUID().toString();
+        WebTarget webTarget = client.target(INTEGRATION_TESTS_URL
+                + "/article/" + id);
+        Response response = webTarget
+                .request(MediaType.APPLICATION_JSON_TYPE)
+                .put(Entity.entity(Article.builder()
+                        .id(id)
+                        .header("deleted")
+                        .description("short")
+                        .text("text")
+                        .keywords(Sets.newSet("etag"))
+                        .build(), MediaType.APPLICATION_JSON_TYPE));
+        assertEquals(response.getStatus(), 200);
+        response = webTarget
+                .request(MediaType.APPLICATION_JSON_TYPE)
+                .get();
+        EntityTag entityTag = response.getEntityTag();
+        assertNotNull(entityTag);
+        articleService.delete(id);
+        response = webTarget
+                .request(MediaType.APPLICATION_JSON_TYPE)
+                .put(Entity.entity(Article.builder()
+                        .id(id)
+                        .header("recreated")
+                        .description("short")
+                        .text("text")
+                        .keywords(Sets.newSet("etag"))
+                        .build(), MediaType.APPLICATION_JSON_TYPE));
+        assertEquals(response.getStatus(), 200);
+        // version 1 again, of another article
+        response = webTarget
+                .request(MediaType.APPLICATION_JSON_TYPE)
+                .header(HttpHeaders.IF_NONE_MATCH, entityTag)
+                .get();
+        assertEquals(response.getStatus(), 200);
+        assertNotEquals(response.getEntityTag(), entityTag);
+        assertEquals(response.readEntity(Article.class).getHeader(),
+                "recreated");
+        // not counted by the listing tests
+        articleService.delete(id);
+    }
+
+    @Test(dependsOnMethods = { "getArticleById" })
+    public void getArticleByIdIsCached() {
+        Cache cache = entityManagerFactory.unwrap(SessionFactory.class)
+                .getCache();
+        assertTrue(cache.containsEntity(Article.class, lastArticleId));
+        assertTrue(cache.containsCollection(
+                Article.class.getName() + ".keywords", lastArticleId));
+        assertTrue(cache.containsCollection(
+                Article.class.getName() + ".authors", lastArticleId));
+        WebTarget webTarget = client.target(lastArticleUri);
+        Response response = webTarget
+                .request(MediaType.APPLICATION_JSON_TYPE)
+                .get();
+        assertEquals(response.getStatus(), 200);
+        Article article = response.readEntity(Article.class);
+        assertEquals(article.getKeywords(), Sets.newSet("java", "php"));
+        assertTrue(article.getAuthors().contains(lastAuthor));
+    }
+
+    // runs after the listings, they count the saved articles
+    @Test(dependsOnMethods = { "getArticlesByAuthorId",
+            "getArticlesPublishedBetween", "getArticlesPublishedAfter",
+            "getArticlesPublishedBefore", "getArticlesPublishedAfterWithCursor",
+            "getArticlesByKeyword", "searchArticles" })
+    public void saveArticlesBatch() {
+        WebTarget webTarget = client.target(INTEGRATION_TESTS_URL + "/article/batch");
+        Article article = Article.builder()
+                .header("batch header")
+                .description("batch description")
+                .text("batch text")
+                .keywords(Sets.newSet("batch"))
+                .authors(Sets.newSet(lastAuthor))
+                .build();
+        Response response = webTarget
+                .request(MediaType.APPLICATION_JSON_TYPE)
+                .post(Entity.entity(Arrays.asList(article, article),
+                        MediaType.APPLICATION_JSON_TYPE));
+        assertEquals(response.getStatus(), 200);
+        List<BatchResult> results = response.readEntity(new GenericType<List<BatchResult>>() {});
+        assertEquals(results.size(), 2);
+        assertEquals(results.get(0).getStatus(), 201);
+        assertEquals(results.get(1).getStatus(), 201);
+        String id = results.get(0).getId();
+
+        response = webTarget
+                .request(MediaType.APPLICATION_JSON_TYPE)
+                .post(Entity.entity("{\"id\":\"" + id + "\",\"header\":\"updated header\","
+                                + "\"description\":\"batch description\",\"text\":\"batch text\","
+                                + "\"keywords\":[\"batch\"]}\n"
+                                + "{\"id\":\"" + id + "\"}\n",
+                        NewsMediaType.APPLICATION_NDJSON_TYPE));
+        assertEquals(response.getStatus(), 200);
+        results = response.readEntity(new GenericType<List<BatchResult>>() {});
+        assertEquals(results.size(), 2);
+        assertEquals(results.get(0).getStatus(), 200);
+        assertEquals(results.get(1).getStatus(), 400);
+
+        response = client.target(INTEGRATION_TESTS_URL + "/article/" + id)
+                .request(MediaType.APPLICATION_JSON_TYPE)
+                .get();
+        assertEquals(response.getStatus(), 200);
+        assertEquals(response.readEntity(Article.class).getHeader(), "updated header");
+    }
+
+    @Test(dependsOnMethods = { "saveArticlesBatch" })
+    public void getArticlesPageStatementCount() {
+        List<Article> articles = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            articles.add(Article.builder()
+                    .header("fetch header " + i)
+                    .description("fetch description")
+                    .text("fetch text")
+                    .keywords(Sets.newSet("fetch", "keyword" + i))
+                    .authors(Sets.newSet(lastAuthor))
+                    .build());
+        }
+        Response response = client.target(INTEGRATION_TESTS_URL + "/article/batch")
+                .request(MediaType.APPLICATION_JSON_TYPE)
+                .post(Entity.entity(articles, MediaType.APPLICATION_JSON_TYPE));
+        assertEquals(response.getStatus(), 200);
+
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        sessionFactory.getCache().evictAllRegions();
+        Statistics statistics = sessionFactory.getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        try {
+            response = client.target(INTEGRATION_TESTS_URL + "/article/keyword")
+                    .queryParam("keyword", "fetch")
+                    .queryParam("page", 0)
+                    .queryParam("size", 100)
+                    .request(MediaType.APPLICATION_JSON_TYPE)
+                    .get();
+            assertEquals(response.getStatus(), 200);
+            Page<Article> page = response.readEntity(TestPageImpl.class);
+            assertEquals(page.getContent().size(), 100);
+            // page, count, keywords and authors queries
+            assertTrue(statistics.getPrepareStatementCount() <= 4,
+                    "statements: " + statistics.getPrepareStatementCount());
+        } finally {
+            statistics.setStatisticsEnabled(false);
+        }
+    }
+
+    @Test(dependsOnMethods = { "saveArticle" })
+    public void exportArticles() {
+        WebTarget webTarget = client.target(INTEGRATION_TESTS_URL + "/article/export");
+        Response response = webTarget
+                .request(NewsMediaType.APPLICATION_NDJSON_TYPE)
+                .get();
+        assertEquals(response.getStatus(), 200);
+        String[] lines = response.readEntity(String.class).split("\n");
+        boolean found = false;
+        for (String line : lines) {
+            found |= line.contains(lastArticleId);
+        }
+        assertTrue(found);
+    }
+
     @Test(dependsOnMethods = { "saveArticle" })
     public void getArticlesByAuthorId() {
         WebTarget webTarget = client.target(INTEGRATION_TESTS_URL + "/article/author/" + lastAuthorId);
@@ -232,6 +484,26 @@ public class NewsServiceIntegrationTests extends AbstractTestNGSpringContextTest
         assertEquals(page.getContent().size(), 1);
     }
 
+    @Test(dependsOnMethods = { "saveArticle" })
+    public void getArticleSummariesByKeyword() throws Exception {
+        WebTarget webTarget = client.target(INTEGRATION_TESTS_URL + "/article/keyword");
+        Response response = webTarget
+                .queryParam("keyword", "java")
+                .queryParam("page", 0)
+                .queryParam("size", 10)
+                .queryParam("view", "summary")
+                .request(MediaType.APPLICATION_JSON_TYPE)
+                .get();
+        assertEquals(response.getStatus(), 200);
+        JsonNode content = new ObjectMapper()
+                .readTree(response.readEntity(String.class)).get("content");
+        assertEquals(content.size(), 1);
+        assertEquals(content.get(0).get("id").asText(), lastArticleId);
+        assertNotNull(content.get(0).get("header"));
+        assertNull(content.get(0).get("text"));
+        assertNull(content.get(0).get("keywords"));
+    }
+
     @Test(dependsOnMethods = { "saveArticle" })
     public void getArticlesPublishedBetween() {
         LocalDateTime now = LocalDateTime.now();
@@ -285,6 +557,32 @@ public class NewsServiceIntegrationTests extends AbstractTestNGSpringContextTest
         assertEquals(page.getContent().size(), 1);
     }
 
+    @Test(dependsOnMethods = { "saveArticle" })
+    public void getArticlesPublishedAfterWithCursor() {
+        WebTarget webTarget = client.target(INTEGRATION_TESTS_URL + "/article/published");
+        Response response = webTarget
+                .queryParam("startDate", "2015-10-10T00:00:00")
+                .queryParam("cursor", "")
+                .queryParam("size", 1)
+                .request(MediaType.APPLICATION_JSON_TYPE)
+                .get();
+        assertEquals(response.getStatus(), 200);
+        CursorPage<Article> page = response.readEntity(new GenericType<CursorPage<Article>>() { });
+        assertEquals(page.getContent().size(), 1);
+        assertNotNull(page.getNext());
+
+        response = webTarget
+                .queryParam("startDate", "2015-10-10T00:00:00")
+                .queryParam("cursor", page.getNext())
+                .queryParam("size", 1)
+                .request(MediaType.APPLICATION_JSON_TYPE)
+                .get();
+        assertEquals(response.getStatus(), 200);
+        page = response.readEntity(new GenericType<CursorPage<Article>>() { });
+        assertEquals(page.getContent().size(), 0);
+        assertNull(page.getNext());
+    }
+
     @Test
     public void getArticlesByPublishedDateBothDatesAreNull() {
         LocalDateTime now = LocalDateTime.now();
@@ -317,6 +615,37 @@ public class NewsServiceIntegrationTests extends AbstractTestNGSpringContextTest
     }
 
 
+    @Test(dependsOnMethods = { "saveArticle" })
+    public void getPublishHistogram() {
+        String endDate = LocalDateTime.now().plusDays(10).toString();
+        endDate = endDate.substring(0, endDate.indexOf("."));
+        WebTarget webTarget = client.target(INTEGRATION_TESTS_URL + "/article/stats/histogram");
+        Response response = webTarget
+                .queryParam("from", "2015-10-10T00:00:00")
+                .queryParam("to", endDate)
+                .request(MediaType.APPLICATION_JSON_TYPE)
+                .get();
+        assertEquals(response.getStatus(), 200);
+        DateHistogram histogram = response.readEntity(DateHistogram.class);
+        assertEquals(histogram.getBucket(), "day");
+        assertTrue(histogram.getTotal() >= 1);
+        assertFalse(histogram.getBuckets().isEmpty());
+    }
+
+    @Test
+    public void getPublishHistogramUnknownBucket() {
+        WebTarget webTarget = client.target(INTEGRATION_TESTS_URL + "/article/stats/histogram");
+        Response response = webTarget
+                .queryParam("from", "2015-10-10T00:00:00")
+                .queryParam("to", "2015-10-11T00:00:00")
+                .queryParam("bucket", "week")
+                .request(MediaType.APPLICATION_JSON_TYPE)
+                .get();
+        assertEquals(response.getStatus(), 400);
+        HttpError error = response.readEntity(HttpError.class);
+        assertEquals(error.getMessage(), "Unknown bucket week, expected hour or day");
+    }
+
     @Test(dependsOnMethods = { "saveArticle" })
     public void getArticlesByKeyword() {
         WebTarget webTarget = client.target(INTEGRATION_TESTS_URL + "/article/keyword");
@@ -332,6 +661,85 @@ public class NewsServiceIntegrationTests extends AbstractTestNGSpringContextTest
     }
 
 
+    @Test(dependsOnMethods = { "saveArticle" })
+    public void searchArticles() {
+        WebTarget webTarget = client.target(INTEGRATION_TESTS_URL + "/article/search");
+        Response response = webTarget
+                .queryParam("q", "header")
+                .queryParam("page", 0)
+                .queryParam("size", 10)
+                .request(MediaType.APPLICATION_JSON_TYPE)
+                .get();
+        assertEquals(response.getStatus(), 200);
+        Page<Article> page = response.readEntity(TestPageImpl.class);
+        assertEquals(page.getContent().size(), 1);
+    }
+
+    @Test(dependsOnMethods = { "saveArticle" })
+    public void searchArticlesByCriteria() {
+        WebTarget webTarget = client.target(INTEGRATION_TESTS_URL + "/article/search");
+        Response response = webTarget
+                .queryParam("keyword", "java")
+                .queryParam("author", lastAuthor.getId())
+                .queryParam("from", "2015-10-10T00:00:00")
+                .queryParam("page", 0)
+                .queryParam("size", 10)
+                .request(MediaType.APPLICATION_JSON_TYPE)
+                .get();
+        assertEquals(response.getStatus(), 200);
+        Page<Article> page = response.readEntity(TestPageImpl.class);
+        assertEquals(page.getContent().size(), 1);
+
+        response = webTarget
+                .queryParam("keyword", "java")
+                .queryParam("author", UUID.randomUUID().toString())
+                .queryParam("page", 0)
+                .queryParam("size", 10)
+                .request(MediaType.APPLICATION_JSON_TYPE)
+                .get();
+        assertEquals(response.getStatus(), 200);
+        page = response.readEntity(TestPageImpl.class);
+        assertEquals(page.getTotalElements(), 0);
+    }
+
+    @Test(dependsOnMethods = { "saveArticle" })
+    public void getArticlesPublishedOnReplica() throws Exception {
+        ReplicaRoutingDataSource routing =
+                dataSource.unwrap(ReplicaRoutingDataSource.class);
+        routing.checkHealth();
+        ReplicaRoutingDataSource.Replica replica = routing.getReplicas().get(0);
+        assertTrue(replica.isUp());
+        assertFalse(routing.getReplicas().get(1).isUp());
+        long replicaConnections = replica.getConnections();
+        long primaryConnections = routing.getPrimaryConnections();
+        // a start date of its own, the query isn't in the query cache
+        String startDate = LocalDateTime.now().minusYears(30)
+                .format(DateTimeFormatter.ofPattern("uuuu-MM-dd'T'HH:mm:ss"));
+        WebTarget webTarget = client.target(INTEGRATION_TESTS_URL + "/article/published");
+        Response response = webTarget
+                .queryParam("startDate", startDate)
+                .queryParam("page", 0)
+                .queryParam("size", 10)
+                .request(MediaType.APPLICATION_JSON_TYPE)
+                .get();
+        assertEquals(response.getStatus(), 200);
+        Page<Article> page = response.readEntity(TestPageImpl.class);
+        assertTrue(page.getTotalElements() > 0);
+        assertTrue(replica.getConnections() > replicaConnections);
+        assertEquals(routing.getPrimaryConnections(), primaryConnections);
+    }
+
+    @Test
+    public void searchArticlesQueryIsNull() {
+        WebTarget webTarget = client.target(INTEGRATION_TESTS_URL + "/article/search");
+        Response response = webTarget
+                .queryParam("page", 0)
+                .queryParam("size", 10)
+                .request(MediaType.APPLICATION_JSON_TYPE)
+                .get();
+        assertEquals(response.getStatus(), 400);
+    }
+
     @Test
     public void getArticlesByKeywordIsNull() {
         WebTarget webTarget = client.target(INTEGRATION_TESTS_URL + "/article/keyword");
@@ -343,4 +751,133 @@ public class NewsServiceIntegrationTests extends AbstractTestNGSpringContextTest
         assertEquals(response.getStatus(), 400);
     }
 
+    @Test(dependsOnMethods = { "getArticlesByKeyword" })
+    public void getTrendingKeywords() {
+        WebTarget webTarget = client.target(INTEGRATION_TESTS_URL + "/keyword/trending");
+        Response response = webTarget
+                .queryParam("window", "1h")
+                .request(MediaType.APPLICATION_JSON_TYPE)
+                .get();
+        assertEquals(response.getStatus(), 200);
+        List<KeywordCount> keywords = response.readEntity(new GenericType<List<KeywordCount>>() { });
+        KeywordCount java = keywords.stream()
+                .filter(keyword -> keyword.getKeyword().equals("java"))
+                .findFirst()
+                .get();
+        // saved once and queried once at least
+        assertTrue(java.getCount() >= 2);
+    }
+
+    @Test(dependsOnMethods = { "saveArticle" })
+    public void suggestKeywords() {
+        WebTarget webTarget = client.target(INTEGRATION_TESTS_URL + "/keyword/suggest");
+        Response response = webTarget
+                .queryParam("prefix", "ja")
+                .request(MediaType.APPLICATION_JSON_TYPE)
+                .get();
+        assertEquals(response.getStatus(), 200);
+        List<KeywordCount> keywords = response.readEntity(new GenericType<List<KeywordCount>>() { });
+        assertEquals(keywords.size(), 1);
+        assertEquals(keywords.get(0).getKeyword(), "java");
+        assertEquals(keywords.get(0).getCount(), 1);
+    }
+
+    @Test
+    public void getTrendingKeywordsInvalidWindow() {
+        WebTarget webTarget = client.target(INTEGRATION_TESTS_URL + "/keyword/trending");
+        Response response = webTarget
+                .queryParam("window", "1w")
+                .request(MediaType.APPLICATION_JSON_TYPE)
+                .get();
+        assertEquals(response.getStatus(), 400);
+    }
+
+    @Test(dependsOnMethods = { "getArticlesByKeyword", "searchArticlesQueryIsNull" })
+    public void getMetrics() {
+        WebTarget webTarget = client.target(INTEGRATION_TESTS_URL + "/metrics");
+        Response response = webTarget
+                .request(MediaType.TEXT_PLAIN_TYPE)
+                .get();
+        assertEquals(response.getStatus(), 200);
+        String metrics = response.readEntity(String.class);
+        assertTrue(metrics.contains("# TYPE news_http_request_seconds summary"));
+        assertTrue(metrics.contains("news_http_request_seconds{endpoint=\"ArticleResource.getByKeyword\",quantile=\"0.99\"}"));
+        assertTrue(metrics.contains("news_http_errors_total{endpoint=\"ArticleResource.search\",status=\"400\"}"));
+        assertTrue(metrics.contains("news_http_db_queries_sum{endpoint=\"ArticleResource.save\"}"));
+        assertFalse(metrics.contains("news_http_db_queries_sum{endpoint=\"ArticleResource.save\"} 0.0\n"));
+        assertTrue(metrics.contains("news_db_pool_connections{pool=\"primary\",state=\"idle\"}"));
+        assertTrue(metrics.contains("news_db_pool_pending{pool=\"primary\"} 0\n"));
+        assertTrue(metrics.contains("news_db_pool_max_connections{pool=\"primary\"} 50\n"));
+        assertTrue(metrics.contains("news_db_pool_wait_seconds{pool=\"primary\",quantile=\"0.99\"}"));
+        assertFalse(metrics.contains("news_db_pool_usage_seconds_count{pool=\"primary\"} 0\n"));
+        assertTrue(metrics.contains("news_db_pool_usage_seconds_count{pool=\"jdbc:h2:mem:news;"));
+    }
+
+    @Test
+    public void poolCachesPreparedStatements() {
+        MonitoredPool primary = connectionPools.getPools().get(0);
+        assertEquals(primary.getName(), PoolMonitoringPostProcessor.PRIMARY);
+        assertTrue(primary.getPool().getJdbcInterceptors().contains("StatementCache"));
+        assertEquals(connectionPools.getPools().size(), 3);
+    }
+
+    // runs after the listings, they count the saved articles
+    @Test(dependsOnMethods = { "getArticlesByAuthorId",
+            "getArticlesPublishedBetween", "getArticlesPublishedAfter",
+            "getArticlesPublishedBefore", "getArticlesPublishedAfterWithCursor",
+            "getArticlesByKeyword", "searchArticles" })
+    public void getArticleChanges() throws Exception {
+        WebTarget changes = client.target(INTEGRATION_TESTS_URL + "/changes");
+        long last = changes.queryParam("wait", 0)
+                .request(MediaType.APPLICATION_JSON_TYPE)
+                .get(ArticleChanges.class)
+                .getLast();
+        Future<ArticleChanges> longPoll = changes.queryParam("since", last)
+                .request(MediaType.APPLICATION_JSON_TYPE)
+                .async()
+                .get(ArticleChanges.class);
+        String id = client.target(INTEGRATION_TESTS_URL + "/article")
+                .request(MediaType.TEXT_PLAIN_TYPE)
+                .post(null, String.class);
+        Response response = client.target(INTEGRATION_TESTS_URL + "/article/" + id)
+                .request(MediaType.APPLICATION_JSON_TYPE)
+                .put(Entity.entity(Article.builder()
+                        .id(id)
+                        .header("changed header")
+                        .description("changed description")
+                        .text("changed text")
+                        .keywords(Sets.newSet("changes"))
+                        .build(), MediaType.APPLICATION_JSON_TYPE));
+        assertEquals(response.getStatus(), 200);
+
+        ArticleChanges polled = longPoll.get(10, TimeUnit.SECONDS);
+        ArticleChange change = polled.getChanges().get(0);
+        assertEquals(change.getSequence(), last + 1);
+        assertEquals(change.getArticleId(), id);
+        assertEquals(change.getType(), ArticleChange.Type.SAVED);
+        assertEquals(change.getVersion(), 1);
+        assertEquals(polled.getLast(), change.getSequence());
+
+        Response stream = changes.queryParam("since", last)
+                .request(NewsMediaType.TEXT_EVENT_STREAM)
+                .get();
+        assertEquals(stream.getStatus(), 200);
+        try (InputStream body = stream.readEntity(InputStream.class)) {
+            BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(body, StandardCharsets.UTF_8));
+            assertEquals(reader.readLine(), "id: " + (last + 1));
+            assertEquals(reader.readLine(), "event: saved");
+            assertTrue(reader.readLine().contains(id));
+        }
+    }
+
+    @Test
+    public void getArticleChangesInvalidLimit() {
+        Response response = client.target(INTEGRATION_TESTS_URL + "/changes")
+                .queryParam("limit", 0)
+                .request(MediaType.APPLICATION_JSON_TYPE)
+                .get();
+        assertEquals(response.getStatus(), 400);
+    }
+
 }
@@ -0,0 +1,179 @@
+package com.github.atdi.news.server.integration;
+
+import com.github.atdi.news.model.Article;
+import com.github.atdi.news.server.Bootstrap;
+import com.github.atdi.news.server.datasource.ReplicaRoutingDataSource;
+import com.github.atdi.news.server.integration.utils.TestPageImpl;
+import com.github.atdi.news.server.util.JacksonContextResolver;
+import org.mockito.internal.util.collections.Sets;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.SpringApplicationConfiguration;
+import org.springframework.boot.test.WebIntegrationTest;
+import org.springframework.data.domain.Page;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.testng.AbstractTestNGSpringContextTests;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import javax.sql.DataSource;
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.testng.Assert.*;
+
+/**
+ * Reads of other requests after a write, with a replica of its own
+ * database lagging behind the primary: it is only brought up to date
+ * by {@link #replicate()}.
+ */
+@ActiveProfiles("integration")
+@SpringApplicationConfiguration(classes = {Bootstrap.class})
+@WebIntegrationTest(randomPort = true, value = {
+        "spring.datasource.url=" + ReplicaLagIntegrationTests.PRIMARY_URL,
+        "news.datasource.replicas=" + ReplicaLagIntegrationTests.REPLICA_URL,
+        "news.datasource.replicas.max-lag="
+                + ReplicaLagIntegrationTests.MAX_LAG})
+public class ReplicaLagIntegrationTests
+        extends AbstractTestNGSpringContextTests {
+
+    static final String PRIMARY_URL = "jdbc:h2:mem:lagged;DB_CLOSE_DELAY=-1;"
+            + "DB_CLOSE_ON_EXIT=FALSE";
+
+    static final String REPLICA_URL = "jdbc:h2:mem:lagging;DB_CLOSE_DELAY=-1;"
+            + "DB_CLOSE_ON_EXIT=FALSE";
+
+    static final long MAX_LAG = 1000;
+
+    @Value("${local.server.port}")
+    private int port;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private Client client;
+
+    private ReplicaRoutingDataSource routing;
+
+    @BeforeClass
+    public void setUp() throws Exception {
+        client = ClientBuilder.newClient()
+                .register(JacksonContextResolver.class);
+        routing = dataSource.unwrap(ReplicaRoutingDataSource.class);
+        replicate();
+    }
+
+    @Test
+    public void getArticleSavedMissingOnReplica() throws Exception {
+        String id = UUID.randomUUID().toString();
+        WebTarget webTarget = client.target("http://localhost:" + port
+                + "/api/article/" + id);
+        assertEquals(save(webTarget, id, "replicated").getStatus(), 200);
+        replicate();
+        Thread.sleep(MAX_LAG);
+        assertFalse(routing.isLagging());
+        ReplicaRoutingDataSource.Replica replica = routing.getReplicas().get(0);
+        long replicaConnections = replica.getConnections();
+        Response response = webTarget
+                .request(MediaType.APPLICATION_JSON_TYPE)
+                .get();
+        assertEquals(response.getStatus(), 200);
+        assertEquals(response.readEntity(Article.class).getHeader(),
+                "replicated");
+        EntityTag entityTag = response.getEntityTag();
+        // the replica filled the caches
+        assertTrue(replica.getConnections() > replicaConnections);
+
+        // saved by a request, read by others, not replicated
+        assertEquals(save(webTarget, id, "lagging").getStatus(), 200);
+        assertTrue(routing.isLagging());
+        replicaConnections = replica.getConnections();
+        response = webTarget
+                .request(MediaType.APPLICATION_JSON_TYPE)
+                .header(HttpHeaders.IF_NONE_MATCH, entityTag)
+                .get();
+        assertEquals(response.getStatus(), 200);
+        assertEquals(response.readEntity(Article.class).getHeader(),
+                "lagging");
+        EntityTag savedTag = response.getEntityTag();
+        assertNotEquals(savedTag, entityTag);
+        response = client.target("http://localhost:" + port
+                + "/api/article/keyword")
+                .queryParam("keyword", "lag")
+                .queryParam("page", 0)
+                .queryParam("size", 10)
+                .request(MediaType.APPLICATION_JSON_TYPE)
+                .get();
+        assertEquals(response.getStatus(), 200);
+        Page<Article> page = response.readEntity(
+                new GenericType<TestPageImpl<Article>>() { });
+        assertEquals(page.getContent().get(0).getHeader(), "lagging");
+        assertEquals(replica.getConnections(), replicaConnections);
+
+        // still missing on the replica, not in the caches
+        Thread.sleep(MAX_LAG);
+        assertFalse(routing.isLagging());
+        response = webTarget
+                .request(MediaType.APPLICATION_JSON_TYPE)
+                .header(HttpHeaders.IF_NONE_MATCH, savedTag)
+                .get();
+        assertEquals(response.getStatus(), 304);
+        response = webTarget
+                .request(MediaType.APPLICATION_JSON_TYPE)
+                .get();
+        assertEquals(response.readEntity(Article.class).getHeader(),
+                "lagging");
+    }
+
+    private static Response save(final WebTarget webTarget,
+                                 final String id,
+                                 final String header) {
+        return webTarget
+                .request(MediaType.APPLICATION_JSON_TYPE)
+                .put(Entity.entity(Article.builder()
+                        .id(id)
+                        .header(header)
+                        .description("short")
+                        .text("text")
+                        .keywords(Sets.newSet("lag"))
+                        .build(), MediaType.APPLICATION_JSON_TYPE));
+    }
+
+    /**
+     * Copy the primary database to the replica.
+     */
+    private static void replicate() throws SQLException {
+        List<String> script = new ArrayList<>();
+        try (Connection primary = DriverManager.getConnection(PRIMARY_URL,
+                "sa", "sa");
+             Statement statement = primary.createStatement();
+             ResultSet resultSet = statement.executeQuery("script")) {
+            while (resultSet.next()) {
+                script.add(resultSet.getString(1));
+            }
+        }
+        try (Connection replica = DriverManager.getConnection(REPLICA_URL,
+                "sa", "sa");
+             Statement statement = replica.createStatement()) {
+            statement.execute("drop all objects");
+            for (String sql : script) {
+                statement.execute(sql);
+            }
+        }
+    }
+}
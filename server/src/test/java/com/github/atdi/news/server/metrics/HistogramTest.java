@@ -0,0 +1,58 @@
+package com.github.atdi.news.server.metrics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class HistogramTest {
+
+    private final Histogram histogram = new Histogram();
+
+    @Test
+    public void testEmpty() {
+        assertEquals(0, histogram.count());
+        assertEquals(0, histogram.sum());
+        assertEquals(0, histogram.quantile(0.99));
+    }
+
+    @Test
+    public void testSmallValuesAreExact() {
+        for (int i = 1; i <= 10; i++) {
+            histogram.record(i);
+        }
+        assertEquals(10, histogram.count());
+        assertEquals(55, histogram.sum());
+        assertEquals(5, histogram.quantile(0.5));
+        assertEquals(10, histogram.quantile(0.99));
+    }
+
+    @Test
+    public void testQuantileRelativeError() {
+        for (long i = 1; i <= 100000; i++) {
+            histogram.record(i * 1000);
+        }
+        assertEquals(50000000, histogram.quantile(0.5), 50000000 / 16);
+        assertEquals(99000000, histogram.quantile(0.99), 99000000 / 16);
+        assertEquals(99900000, histogram.quantile(0.999), 99900000 / 16);
+    }
+
+    @Test
+    public void testNegativeValue() {
+        histogram.record(-5);
+        assertEquals(1, histogram.count());
+        assertEquals(0, histogram.quantile(1));
+    }
+
+    @Test
+    public void testBuckets() {
+        long[] values = { 0, 15, 16, 17, 31, 32, 33, 1000, 123456789,
+                Long.MAX_VALUE };
+        for (long value : values) {
+            int index = Histogram.index(value);
+            assertTrue(Histogram.highestValue(index) >= value);
+            if (index > 0) {
+                assertTrue(Histogram.highestValue(index - 1) < value);
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.github.atdi.news.server.metrics;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class MeteredDataSourceTest {
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private PreparedStatement statement;
+
+    private final RequestSample sample = new RequestSample();
+
+    @Before
+    public void setUp() throws SQLException {
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement("select 1")).thenReturn(statement);
+        sample.attach();
+    }
+
+    @After
+    public void tearDown() {
+        RequestSample.detach();
+    }
+
+    @Test
+    public void testStatementsAreCounted() throws SQLException {
+        Connection metered = MeteredDataSource.wrap(dataSource)
+                .getConnection();
+        PreparedStatement prepared = metered.prepareStatement("select 1");
+        prepared.executeQuery();
+        prepared.setInt(1, 1);
+        prepared.executeQuery();
+        metered.close();
+        assertEquals(2, sample.getQueries());
+        verify(statement, times(2)).executeQuery();
+        verify(connection).close();
+    }
+
+    @Test
+    public void testFailedStatementIsCounted() throws SQLException {
+        SQLException failure = new SQLException();
+        when(statement.executeUpdate()).thenThrow(failure);
+        PreparedStatement prepared = MeteredDataSource.wrap(dataSource)
+                .getConnection().prepareStatement("select 1");
+        try {
+            prepared.executeUpdate();
+            fail();
+        } catch (SQLException e) {
+            assertSame(failure, e);
+        }
+        assertEquals(1, sample.getQueries());
+    }
+
+    @Test
+    public void testOutsideOfRequest() throws SQLException {
+        RequestSample.detach();
+        MeteredDataSource.wrap(dataSource).getConnection()
+                .prepareStatement("select 1").executeQuery();
+        assertEquals(0, sample.getQueries());
+    }
+}
@@ -0,0 +1,79 @@
+package com.github.atdi.news.server.metrics;
+
+import org.glassfish.jersey.server.ContainerResponse;
+import org.glassfish.jersey.server.ExtendedUriInfo;
+import org.glassfish.jersey.server.monitoring.RequestEvent;
+import org.glassfish.jersey.server.monitoring.RequestEventListener;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class RequestMetricsListenerTest {
+
+    private final RequestMetrics requestMetrics = new RequestMetrics();
+
+    private final RequestMetricsListener listener =
+            new RequestMetricsListener(requestMetrics);
+
+    @After
+    public void tearDown() {
+        RequestSample.detach();
+    }
+
+    @Test
+    public void testAsyncRequestDetachedFromContainerThread()
+            throws Exception {
+        RequestEventListener requestListener =
+                listener.onRequest(event(RequestEvent.Type.START, null));
+        RequestSample sample = RequestSample.current();
+        assertNotNull(sample);
+        requestListener.onEvent(event(
+                RequestEvent.Type.RESOURCE_METHOD_FINISHED, null));
+        assertNull(RequestSample.current());
+
+        // resumed by another thread, which has a request of its own
+        RequestSample resuming = new RequestSample();
+        AtomicReference<RequestSample> left = new AtomicReference<>();
+        Thread thread = new Thread(() -> {
+            resuming.attach();
+            requestListener.onEvent(event(RequestEvent.Type.FINISHED,
+                    response(200)));
+            left.set(RequestSample.current());
+        });
+        thread.start();
+        thread.join();
+        assertSame(resuming, left.get());
+        assertTrue(requestMetrics.scrape().contains(
+                "news_http_requests_total{endpoint=\"unmatched\"} 1\n"));
+    }
+
+    @Test
+    public void testRequestWithoutEntityRecorded() {
+        RequestEventListener requestListener =
+                listener.onRequest(event(RequestEvent.Type.START, null));
+        requestListener.onEvent(event(RequestEvent.Type.FINISHED,
+                response(404)));
+        assertNull(RequestSample.current());
+        assertTrue(requestMetrics.scrape().contains("news_http_errors_total"
+                + "{endpoint=\"unmatched\",status=\"404\"} 1\n"));
+    }
+
+    private static RequestEvent event(final RequestEvent.Type type,
+                                      final ContainerResponse response) {
+        RequestEvent event = mock(RequestEvent.class);
+        when(event.getType()).thenReturn(type);
+        when(event.getContainerResponse()).thenReturn(response);
+        when(event.getUriInfo()).thenReturn(mock(ExtendedUriInfo.class));
+        return event;
+    }
+
+    private static ContainerResponse response(final int status) {
+        ContainerResponse response = mock(ContainerResponse.class);
+        when(response.getStatus()).thenReturn(status);
+        return response;
+    }
+}
@@ -0,0 +1,58 @@
+package com.github.atdi.news.server.metrics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class RequestMetricsTest {
+
+    private final RequestMetrics requestMetrics = new RequestMetrics();
+
+    @Test
+    public void testScrape() {
+        RequestSample sample = new RequestSample();
+        sample.recordQuery(2000000);
+        sample.recordQuery(1000000);
+        requestMetrics.record("ArticleResource.getById", 200, sample);
+        requestMetrics.record("ArticleResource.getById", 404,
+                new RequestSample());
+        String metrics = requestMetrics.scrape();
+        assertTrue(metrics.contains("# TYPE news_http_requests_total counter\n"
+                + "news_http_requests_total"
+                + "{endpoint=\"ArticleResource.getById\"} 2\n"));
+        assertTrue(metrics.contains("news_http_errors_total"
+                + "{endpoint=\"ArticleResource.getById\",status=\"404\"} 1\n"));
+        assertTrue(metrics.contains("news_http_db_queries"
+                + "{endpoint=\"ArticleResource.getById\",quantile=\"0.99\"} "
+                + "2.0\n"));
+        assertTrue(metrics.contains("news_http_db_queries_sum"
+                + "{endpoint=\"ArticleResource.getById\"} 2.0\n"));
+        assertTrue(metrics.contains("news_http_db_seconds_count"
+                + "{endpoint=\"ArticleResource.getById\"} 2\n"));
+        assertTrue(metrics.contains("# TYPE news_http_serialization_seconds "
+                + "summary\n"));
+    }
+
+    @Test
+    public void testNoErrors() {
+        requestMetrics.record("AuthorResource.create", 201,
+                new RequestSample());
+        assertFalse(requestMetrics.scrape().contains("status="));
+    }
+
+    @Test
+    public void testPropagate() {
+        RequestSample sample = new RequestSample();
+        sample.attach();
+        try {
+            Runnable task = RequestSample.propagate(
+                    () -> RequestSample.current().recordQuery(1));
+            RequestSample.detach();
+            task.run();
+            assertNull(RequestSample.current());
+            assertEquals(1, sample.getQueries());
+        } finally {
+            RequestSample.detach();
+        }
+    }
+}
@@ -1,28 +1,70 @@
 package com.github.atdi.news.server.resources;
 
 import com.github.atdi.news.model.Article;
+import com.github.atdi.news.model.DateHistogram;
+import com.github.atdi.news.model.ArticleSummary;
+import com.github.atdi.news.model.CursorPage;
 import com.github.atdi.news.server.exceptions.NewsException;
+import com.github.atdi.news.model.BatchResult;
+import com.github.atdi.news.model.WriteStatus;
+import com.github.atdi.news.server.services.ArticleBatchService;
+import com.github.atdi.news.server.services.ArticleCriteria;
+import com.github.atdi.news.server.services.ArticleJsonCache;
 import com.github.atdi.news.server.services.ArticleSearchService;
 import com.github.atdi.news.server.services.ArticleService;
+import com.github.atdi.news.server.services.ArticleWriteBehind;
+import com.github.atdi.news.server.services.IdGenerator;
+import com.github.atdi.news.server.services.PublishCounts;
+import com.github.atdi.news.server.services.SearchExecutor;
+import com.github.atdi.news.server.services.TimeOrderedIdGenerator;
+import com.github.atdi.news.server.services.TrendingKeywords;
 import com.github.atdi.news.server.services.repositories.ArticleJpaRepository;
+import com.github.atdi.news.server.services.repositories.AuthorJpaRepository;
+import com.github.atdi.news.server.services.repositories.UpsertedArticle;
+import com.github.atdi.news.server.services.repositories.VersionStamp;
+import com.github.atdi.news.server.util.HttpPreconditions;
+import com.github.atdi.news.server.util.JacksonContextResolver;
+import com.github.atdi.news.server.util.NewsMediaType;
+import com.github.atdi.news.server.util.PublishCursor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.glassfish.jersey.internal.MapPropertiesDelegate;
+import org.glassfish.jersey.server.ContainerRequest;
 import org.h2.util.New;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.internal.util.collections.Sets;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 
+import javax.validation.Validation;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
 import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 import java.util.UUID;
+import java.util.zip.GZIPInputStream;
 
 import static org.mockito.Mockito.*;
 import static org.junit.Assert.*;
@@ -39,14 +81,47 @@ public class ArticleResourceTest {
     @Mock
     private ArticleSearchService articleSearchService;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private AuthorJpaRepository authorJpaRepository;
+
+    @Mock
+    private PublishCounts publishCounts;
+
+    @Mock
+    private TrendingKeywords trendingKeywords;
+
+    @Spy
+    private IdGenerator idGenerator = new TimeOrderedIdGenerator();
+
     @InjectMocks
     private ArticleService articleService;
 
     private ArticleResource articleResource;
 
+    private ArticleWriteBehind articleWriteBehind;
+
+    private final ObjectMapper objectMapper = new JacksonContextResolver()
+            .getContext(Article.class);
+
     @Before
     public void setUp() throws Exception {
-        articleResource = new ArticleResource(articleService);
+        ArticleBatchService articleBatchService = new ArticleBatchService(
+                articleJpaRepository,
+                authorJpaRepository,
+                Validation.buildDefaultValidatorFactory().getValidator(),
+                eventPublisher,
+                idGenerator,
+                10);
+        articleWriteBehind = new ArticleWriteBehind(articleBatchService,
+                null, 10, 10, 0, 1, 10);
+        articleResource = new ArticleResource(articleService,
+                new ArticleJsonCache(objectMapper, 10, true),
+                articleBatchService,
+                new SearchExecutor(Runnable::run, 1000),
+                articleWriteBehind);
     }
 
 
@@ -75,6 +150,46 @@ public class ArticleResourceTest {
         assertEquals(article, savedArticle);
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testSaveArticleWriteBehind() throws Exception {
+        String id = UUID.randomUUID().toString();
+        Article article = Article.builder()
+                .id(id)
+                .description("description")
+                .header("header")
+                .text("text")
+                .keywords(Sets.newSet("java", "php"))
+                .build();
+        when(articleJpaRepository.upsert(anyList())).thenAnswer(invocation ->
+                ((List<Article>) invocation.getArguments()[0]).stream()
+                        .map(saved -> new UpsertedArticle(
+                                saved.toBuilder().version(1).build(), true))
+                        .collect(Collectors.toList()));
+        articleWriteBehind.start();
+        try {
+            Response response = articleResource.save(id, article);
+            assertEquals(Response.Status.ACCEPTED.getStatusCode(),
+                    response.getStatus());
+            assertEquals(URI.create("article/" + id + "/status"),
+                    response.getLocation());
+            assertEquals(id, ((WriteStatus) response.getEntity()).getId());
+        } finally {
+            articleWriteBehind.stop();
+        }
+        verify(articleJpaRepository, never()).save(any(Article.class));
+        WriteStatus status = (WriteStatus) articleResource
+                .getWriteStatus(id).getEntity();
+        assertEquals(WriteStatus.State.SAVED, status.getState());
+        assertEquals(Response.Status.CREATED.getStatusCode(),
+                status.getStatus());
+    }
+
+    @Test(expected = NewsException.class)
+    public void testGetWriteStatusNotFound() throws Exception {
+        articleResource.getWriteStatus(UUID.randomUUID().toString());
+    }
+
     @Test(expected = NewsException.class)
     public void testSaveArticleNotFound() throws Exception {
         String id = UUID.randomUUID().toString();
@@ -114,9 +229,197 @@ public class ArticleResourceTest {
                 .keywords(Sets.newSet("java", "php"))
                 .build();
         when(articleJpaRepository.findOne(id)).thenReturn(article);
-        Response response = articleResource.getById(id);
+        Response response = articleResource.getById(id, request(), request());
         assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
-        Article retrievedArticle = (Article) response.getEntity();
+        Article retrievedArticle = objectMapper.readValue(
+                (byte[]) response.getEntity(), Article.class);
+        assertEquals(article, retrievedArticle);
+        assertEquals(new EntityTag("0"), response.getEntityTag());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testSaveBatch() throws Exception {
+        when(articleJpaRepository.upsert(anyList())).thenAnswer(invocation ->
+                ((List<Article>) invocation.getArguments()[0]).stream()
+                        .map(article -> new UpsertedArticle(
+                                article.toBuilder().version(1).build(), true))
+                        .collect(Collectors.toList()));
+        String article = "{\"header\":\"header\",\"description\":\"description\","
+                + "\"text\":\"text\",\"keywords\":[\"java\"]}";
+        Response response = articleResource.saveBatch(new ByteArrayInputStream(
+                ("[" + article + "," + article + "]").getBytes("UTF-8")));
+        List<BatchResult> results = (List<BatchResult>) response.getEntity();
+        assertEquals(2, results.size());
+        assertEquals(201, results.get(1).getStatus());
+        response = articleResource.saveBatch(new ByteArrayInputStream(
+                (article + "\n" + article + "\n").getBytes("UTF-8")));
+        results = (List<BatchResult>) response.getEntity();
+        assertEquals(2, results.size());
+        assertEquals(1, results.get(1).getIndex());
+    }
+
+    @Test(expected = NewsException.class)
+    public void testSaveBatchInvalidJson() throws Exception {
+        articleResource.saveBatch(new ByteArrayInputStream(
+                "[{\"header\":".getBytes("UTF-8")));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testExport() throws Exception {
+        Article article1 = Article.builder()
+                .id(UUID.randomUUID().toString())
+                .header("header 1")
+                .description("description")
+                .text("text")
+                .build();
+        Article article2 = article1.toBuilder()
+                .id(UUID.randomUUID().toString())
+                .header("header 2")
+                .build();
+        doAnswer(invocation -> {
+            Consumer<Article> consumer = (Consumer<Article>) invocation.getArguments()[0];
+            consumer.accept(article1);
+            consumer.accept(article2);
+            return null;
+        }).when(articleJpaRepository).scrollAll(any(Consumer.class));
+        Response response = articleResource.export();
+        assertEquals(NewsMediaType.APPLICATION_NDJSON_TYPE, response.getMediaType());
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ((StreamingOutput) response.getEntity()).write(output);
+        String[] lines = output.toString("UTF-8").split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("header 1", objectMapper.readValue(lines[0], Article.class).getHeader());
+        assertEquals("header 2", objectMapper.readValue(lines[1], Article.class).getHeader());
+        assertTrue(output.toString("UTF-8").endsWith("}\n"));
+    }
+
+    @Test
+    public void testGetArticleNotModified() throws Exception {
+        String id = UUID.randomUUID().toString();
+        LocalDateTime publishDate = LocalDateTime.of(2015, 11, 20, 10, 0, 0);
+        when(articleJpaRepository.findStamp(id)).thenReturn(new VersionStamp(3, publishDate));
+        ContainerRequest request = request(HttpHeaders.IF_NONE_MATCH, "\"3\"");
+        Response response = articleResource.getById(id, request, request);
+        assertEquals(Response.Status.NOT_MODIFIED.getStatusCode(), response.getStatus());
+        assertEquals(new EntityTag("3"), response.getEntityTag());
+        verify(articleJpaRepository, never()).findOne(id);
+    }
+
+    @Test
+    public void testGetArticleModified() throws Exception {
+        String id = UUID.randomUUID().toString();
+        LocalDateTime publishDate = LocalDateTime.of(2015, 11, 20, 10, 0, 0);
+        Article article = Article.builder()
+                .id(id)
+                .description("description")
+                .header("header")
+                .text("text")
+                .publishDate(publishDate)
+                .version(4)
+                .build();
+        when(articleJpaRepository.findStamp(id)).thenReturn(new VersionStamp(4, publishDate));
+        when(articleJpaRepository.findOne(id)).thenReturn(article);
+        ContainerRequest request = request(HttpHeaders.IF_NONE_MATCH, "\"3\"");
+        Response response = articleResource.getById(id, request, request);
+        assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+        assertEquals(new EntityTag("4"), response.getEntityTag());
+        assertEquals(HttpPreconditions.lastModified(new VersionStamp(4, publishDate)),
+                response.getLastModified());
+        // served from the serialized article cache
+        request = request(HttpHeaders.IF_NONE_MATCH, "\"4\"");
+        response = articleResource.getById(id, request, request);
+        assertEquals(Response.Status.NOT_MODIFIED.getStatusCode(), response.getStatus());
+        verify(articleJpaRepository, times(1)).findStamp(id);
+    }
+
+    @Test
+    public void testGetRecreatedArticleModified() throws Exception {
+        String id = UUID.randomUUID().toString();
+        LocalDateTime publishDate = LocalDateTime.of(2015, 11, 20, 10, 0, 0);
+        Article article = Article.builder()
+                .id(id)
+                .description("description")
+                .header("header")
+                .text("text")
+                .publishDate(publishDate)
+                .version(1)
+                .generation(42)
+                .build();
+        when(articleJpaRepository.findStamp(id)).thenReturn(new VersionStamp(1, publishDate, 42));
+        when(articleJpaRepository.findOne(id)).thenReturn(article);
+        // the tag of the deleted article, at version 1 too
+        ContainerRequest request = request(HttpHeaders.IF_NONE_MATCH, "\"1\"");
+        Response response = articleResource.getById(id, request, request);
+        assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+        assertEquals(new EntityTag("1.2a"), response.getEntityTag());
+    }
+
+    @Test
+    public void testGetArticleNotModifiedSince() throws Exception {
+        String id = UUID.randomUUID().toString();
+        LocalDateTime publishDate = LocalDateTime.of(2015, 11, 20, 10, 0, 0);
+        VersionStamp stamp = new VersionStamp(3, publishDate);
+        when(articleJpaRepository.findStamp(id)).thenReturn(stamp);
+        ContainerRequest request = request(HttpHeaders.IF_MODIFIED_SINCE,
+                DateTimeFormatter.RFC_1123_DATE_TIME.format(
+                        HttpPreconditions.lastModified(stamp).toInstant().atZone(ZoneOffset.UTC)));
+        Response response = articleResource.getById(id, request, request);
+        assertEquals(Response.Status.NOT_MODIFIED.getStatusCode(), response.getStatus());
+        verify(articleJpaRepository, never()).findOne(id);
+    }
+
+    @Test(expected = NewsException.class)
+    public void testGetArticleConditionalNotFound() throws Exception {
+        String id = UUID.randomUUID().toString();
+        ContainerRequest request = request(HttpHeaders.IF_NONE_MATCH, "\"3\"");
+        articleResource.getById(id, request, request);
+    }
+
+    @Test
+    public void testGetArticleFromCache() throws Exception {
+        String id = UUID.randomUUID().toString();
+        Article article = Article.builder()
+                .id(id)
+                .description("description")
+                .header("header")
+                .text("text")
+                .keywords(Sets.newSet("java", "php"))
+                .build();
+        when(articleJpaRepository.findOne(id)).thenReturn(article);
+        Response first = articleResource.getById(id, request(), request());
+        Response second = articleResource.getById(id, request(), request());
+        assertSame(first.getEntity(), second.getEntity());
+        assertEquals(first.getEntityTag(), second.getEntityTag());
+        verify(articleJpaRepository, times(1)).findOne(id);
+    }
+
+    @Test
+    public void testGetArticleGzip() throws Exception {
+        String id = UUID.randomUUID().toString();
+        char[] text = new char[2000];
+        Arrays.fill(text, 'a');
+        Article article = Article.builder()
+                .id(id)
+                .description("description")
+                .header("header")
+                .text(new String(text))
+                .keywords(Sets.newSet("java", "php"))
+                .build();
+        when(articleJpaRepository.findOne(id)).thenReturn(article);
+        ContainerRequest gzipRequest = request(HttpHeaders.ACCEPT_ENCODING, "deflate, gzip");
+        Response response = articleResource.getById(id, gzipRequest, gzipRequest);
+        assertEquals("gzip", response.getHeaderString(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(HttpHeaders.ACCEPT_ENCODING, response.getHeaderString(HttpHeaders.VARY));
+        Article retrievedArticle = objectMapper.readValue(new GZIPInputStream(
+                new ByteArrayInputStream((byte[]) response.getEntity())), Article.class);
+        assertEquals(article, retrievedArticle);
+        ContainerRequest noGzipRequest = request(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0");
+        response = articleResource.getById(id, noGzipRequest, noGzipRequest);
+        assertNull(response.getHeaderString(HttpHeaders.CONTENT_ENCODING));
+        retrievedArticle = objectMapper.readValue(
+                (byte[]) response.getEntity(), Article.class);
         assertEquals(article, retrievedArticle);
     }
 
@@ -124,14 +427,14 @@ public class ArticleResourceTest {
     public void testGetArticleNotFound() throws Exception {
         String id = UUID.randomUUID().toString();
         when(articleJpaRepository.findOne(id)).thenReturn(null);
-        Response response = articleResource.getById(id);
+        Response response = articleResource.getById(id, request(), request());
     }
 
     @Test(expected = NewsException.class)
     public void testGetArticleInvalidUUID() throws Exception {
         String id = "invaliduuid";
         when(articleJpaRepository.findOne(id)).thenThrow(NullPointerException.class);
-        Response response = articleResource.getById(id);
+        Response response = articleResource.getById(id, request(), request());
     }
 
     @Test
@@ -145,12 +448,33 @@ public class ArticleResourceTest {
         when(page.getContent()).thenReturn(Arrays.asList(article1, article2));
         Pageable pageable = new PageRequest(0, 10);
         when(articleSearchService.searchByAuthor(eq(pageable), eq(id))).thenReturn(page);
-        Response response = articleResource.getByAuthorId(id, 0, 10);
+        Response response = resume(async -> articleResource.getByAuthorId(async, id, 0, 10, null));
         assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
         Page<Article> retrievedArticles = (Page<Article>) response.getEntity();
         assertEquals(2, retrievedArticles.getContent().size());
     }
 
+    @Test
+    public void testGetArticleSummariesByAuthorId() throws Exception {
+        String id = UUID.randomUUID().toString();
+        ArticleSummary summary = ArticleSummary.builder()
+                .id(UUID.randomUUID().toString())
+                .header("header")
+                .build();
+        Pageable pageable = new PageRequest(0, 10);
+        when(articleJpaRepository.findSummariesByAuthor(eq(pageable), eq(id)))
+                .thenReturn(new PageImpl<>(Arrays.asList(summary), pageable, 1));
+        Response response = resume(async -> articleResource.getByAuthorId(async, id, 0, 10, "summary"));
+        assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+        Page<ArticleSummary> retrievedArticles = (Page<ArticleSummary>) response.getEntity();
+        assertEquals(Arrays.asList(summary), retrievedArticles.getContent());
+        verify(articleSearchService, never()).searchByAuthor(any(), any());
+    }
+
+    @Test(expected = NewsException.class)
+    public void testGetArticlesByAuthorIdUnknownView() throws Exception {
+        resume(async -> articleResource.getByAuthorId(async, UUID.randomUUID().toString(), 0, 10, "compact"));
+    }
 
     @Test
     public void testGetArticlesByKeryword() throws Exception {
@@ -163,13 +487,53 @@ public class ArticleResourceTest {
         when(page.getContent()).thenReturn(Arrays.asList(article1, article2));
         Pageable pageable = new PageRequest(0, 10);
         when(articleSearchService.searchByKeyword(eq(pageable), eq(keyword))).thenReturn(page);
-        Response response = articleResource.getByKeyword(keyword, 0, 10);
+        Response response = resume(async -> articleResource.getByKeyword(async, keyword, 0, 10, null));
         assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
         Page<Article> retrievedArticles = (Page<Article>) response.getEntity();
         assertEquals(2, retrievedArticles.getContent().size());
     }
 
 
+    @Test
+    public void testSearch() throws Exception {
+        String query = "\"peace talks\"";
+        Page<Article> page = mock(Page.class);
+        Article article1 = mock(Article.class);
+        when(page.getContent()).thenReturn(Arrays.asList(article1));
+        Pageable pageable = new PageRequest(0, 10);
+        when(articleSearchService.searchByText(eq(pageable), eq(query))).thenReturn(page);
+        Response response = resume(async -> articleResource.search(async, query, null, null, null, null, 0, 10));
+        assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+        Page<Article> retrievedArticles = (Page<Article>) response.getEntity();
+        assertEquals(1, retrievedArticles.getContent().size());
+    }
+
+    @Test
+    public void testSearchByCriteria() throws Exception {
+        String authorId = UUID.randomUUID().toString();
+        ArticleCriteria criteria = ArticleCriteria.builder()
+                .keyword("java")
+                .authorId(authorId)
+                .publishedFrom(LocalDateTime.of(2015, 10, 1, 0, 0, 0))
+                .build();
+        Page<Article> page = mock(Page.class);
+        when(articleSearchService.searchByCriteria(eq(new PageRequest(0, 10)), eq(criteria))).thenReturn(page);
+        Response response = resume(async -> articleResource.search(async, null, "java", authorId, "2015-10-01T00:00:00", null, 0, 10));
+        assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+        assertSame(page, response.getEntity());
+        verify(articleSearchService, never()).searchByText(any(Pageable.class), anyString());
+    }
+
+    @Test(expected = NewsException.class)
+    public void testSearchNoCriteria() throws Exception {
+        articleResource.search(mock(AsyncResponse.class), null, null, null, null, null, 0, 10);
+    }
+
+    @Test(expected = NewsException.class)
+    public void testSearchInvalidAuthor() throws Exception {
+        articleResource.search(mock(AsyncResponse.class), null, "java", "not a uuid", null, null, 0, 10);
+    }
+
     @Test
     public void testGetArticlesPublishedBetween() throws Exception {
         LocalDateTime startDate = LocalDateTime.of(2015, 10, 1, 0, 0, 0);
@@ -182,7 +546,7 @@ public class ArticleResourceTest {
         when(page.getContent()).thenReturn(Arrays.asList(article1, article2));
         Pageable pageable = new PageRequest(0, 10);
         when(articleSearchService.searchPublishedBetween(eq(pageable), eq(startDate), eq(endDate))).thenReturn(page);
-        Response response = articleResource.getByPublishedDate("2015-10-01T00:00:00", "2015-12-01T00:00:00", 0, 10);
+        Response response = resume(async -> articleResource.getByPublishedDate(async, "2015-10-01T00:00:00", "2015-12-01T00:00:00", 0, 10, null, null));
         assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
         Page<Article> retrievedArticles = (Page<Article>) response.getEntity();
         assertEquals(2, retrievedArticles.getContent().size());
@@ -199,7 +563,7 @@ public class ArticleResourceTest {
         when(page.getContent()).thenReturn(Arrays.asList(article1, article2));
         Pageable pageable = new PageRequest(0, 10);
         when(articleSearchService.searchPublishedBefore(eq(pageable), eq(endDate))).thenReturn(page);
-        Response response = articleResource.getByPublishedDate(null, "2015-12-01T00:00:00", 0, 10);
+        Response response = resume(async -> articleResource.getByPublishedDate(async, null, "2015-12-01T00:00:00", 0, 10, null, null));
         assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
         Page<Article> retrievedArticles = (Page<Article>) response.getEntity();
         assertEquals(2, retrievedArticles.getContent().size());
@@ -216,23 +580,144 @@ public class ArticleResourceTest {
         when(page.getContent()).thenReturn(Arrays.asList(article1, article2));
         Pageable pageable = new PageRequest(0, 10);
         when(articleSearchService.searchPublishedAfter(eq(pageable), eq(startDate))).thenReturn(page);
-        Response response = articleResource.getByPublishedDate("2015-10-01T00:00:00", null, 0, 10);
+        Response response = resume(async -> articleResource.getByPublishedDate(async, "2015-10-01T00:00:00", null, 0, 10, null, null));
         assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
         Page<Article> retrievedArticles = (Page<Article>) response.getEntity();
         assertEquals(2, retrievedArticles.getContent().size());
     }
 
 
+    @Test
+    public void testGetArticlesPublishedAfterFirstCursor() throws Exception {
+        LocalDateTime startDate = LocalDateTime.of(2015, 10, 1, 0, 0, 0);
+        Article article1 = Article.builder().id(UUID.randomUUID().toString())
+                .publishDate(startDate.plusDays(1)).build();
+        Article article2 = Article.builder().id(UUID.randomUUID().toString())
+                .publishDate(startDate.plusDays(2)).build();
+        when(articleSearchService.seekPublishedAfter(PublishCursor.at(startDate), 2))
+                .thenReturn(Arrays.asList(article1, article2));
+        Response response = resume(async -> articleResource.getByPublishedDate(async, "2015-10-01T00:00:00", null, 0, 2, "", null));
+        assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+        CursorPage<Article> retrievedArticles = (CursorPage<Article>) response.getEntity();
+        assertEquals(2, retrievedArticles.getContent().size());
+        assertEquals(new PublishCursor(article2.getPublishDate(), article2.getId()),
+                PublishCursor.decode(retrievedArticles.getNext()));
+    }
+
+    @Test
+    public void testGetArticleSummariesPublishedAfterFirstCursor() throws Exception {
+        LocalDateTime startDate = LocalDateTime.of(2015, 10, 1, 0, 0, 0);
+        ArticleSummary summary1 = ArticleSummary.builder().id(UUID.randomUUID().toString())
+                .publishDate(startDate.plusDays(1)).build();
+        ArticleSummary summary2 = ArticleSummary.builder().id(UUID.randomUUID().toString())
+                .publishDate(startDate.plusDays(2)).build();
+        when(articleJpaRepository.seekSummariesPublishedAfter(startDate, PublishCursor.at(startDate).getId(),
+                new PageRequest(0, 2)))
+                .thenReturn(Arrays.asList(summary1, summary2));
+        Response response = resume(async -> articleResource.getByPublishedDate(async, "2015-10-01T00:00:00", null, 0, 2, "", "summary"));
+        CursorPage<ArticleSummary> retrievedArticles = (CursorPage<ArticleSummary>) response.getEntity();
+        assertEquals(2, retrievedArticles.getContent().size());
+        assertEquals(new PublishCursor(summary2.getPublishDate(), summary2.getId()),
+                PublishCursor.decode(retrievedArticles.getNext()));
+    }
+
+    @Test
+    public void testGetArticleSummariesPublishedBefore() throws Exception {
+        LocalDateTime endDate = LocalDateTime.of(2015, 12, 1, 0, 0, 0);
+        Pageable pageable = new PageRequest(0, 10);
+        when(articleJpaRepository.findSummariesPublishedBefore(pageable, endDate))
+                .thenReturn(new PageImpl<>(Arrays.<ArticleSummary>asList(), pageable, 0));
+        Response response = resume(async -> articleResource.getByPublishedDate(async, null, "2015-12-01T00:00:00", 0, 10, null, "summary"));
+        assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+        Page<ArticleSummary> retrievedArticles = (Page<ArticleSummary>) response.getEntity();
+        assertTrue(retrievedArticles.getContent().isEmpty());
+    }
+
+    @Test
+    public void testGetArticlesPublishedBetweenNextCursor() throws Exception {
+        LocalDateTime endDate = LocalDateTime.of(2015, 12, 1, 0, 0, 0);
+        PublishCursor cursor = new PublishCursor(LocalDateTime.of(2015, 11, 1, 10, 0, 0),
+                UUID.randomUUID().toString());
+        Article article1 = mock(Article.class);
+        when(articleSearchService.seekPublishedBetween(cursor, endDate, 10))
+                .thenReturn(Arrays.asList(article1));
+        Response response = resume(async -> articleResource.getByPublishedDate(async, "2015-10-01T00:00:00",
+                "2015-12-01T00:00:00", 0, 10, cursor.encode(), null));
+        CursorPage<Article> retrievedArticles = (CursorPage<Article>) response.getEntity();
+        assertEquals(1, retrievedArticles.getContent().size());
+        assertNull(retrievedArticles.getNext());
+    }
+
+    @Test
+    public void testGetArticlesPublishedBeforeFirstCursor() throws Exception {
+        LocalDateTime endDate = LocalDateTime.of(2015, 12, 1, 0, 0, 0);
+        when(articleSearchService.seekPublishedBefore(PublishCursor.at(endDate), 10))
+                .thenReturn(Arrays.<Article>asList());
+        Response response = resume(async -> articleResource.getByPublishedDate(async, null, "2015-12-01T00:00:00", 0, 10, "", null));
+        CursorPage<Article> retrievedArticles = (CursorPage<Article>) response.getEntity();
+        assertTrue(retrievedArticles.getContent().isEmpty());
+        assertNull(retrievedArticles.getNext());
+    }
+
+    @Test(expected = NewsException.class)
+    public void testGetArticlesPublishedInvalidCursor() throws Exception {
+        resume(async -> articleResource.getByPublishedDate(async, "2015-10-01T00:00:00", null, 0, 10, "not a cursor", null));
+    }
+
     @Test(expected = NewsException.class)
     public void testGetArticlesPublishedNoDateInserted() throws Exception {
-        Response response = articleResource.getByPublishedDate(null, null, 0, 10);
+        Response response = resume(async -> articleResource.getByPublishedDate(async, null, null, 0, 10, null, null));
     }
 
 
     @Test(expected = NewsException.class)
     public void testGetArticlesPublishedIncorectDateFormat() throws Exception {
-        Response response = articleResource.getByPublishedDate("2015/12/01 00:00:00", null, 0, 10);
+        Response response = resume(async -> articleResource.getByPublishedDate(async, "2015/12/01 00:00:00", null, 0, 10, null, null));
     }
 
+    @Test
+    public void testGetPublishHistogram() throws Exception {
+        LocalDateTime startDate = LocalDateTime.of(2015, 10, 1, 0, 0, 0);
+        LocalDateTime endDate = LocalDateTime.of(2015, 12, 1, 0, 0, 0);
+        DateHistogram histogram = DateHistogram.builder().bucket("hour").build();
+        when(publishCounts.histogram(startDate, endDate, ChronoUnit.HOURS)).thenReturn(histogram);
+        Response response = articleResource.getPublishHistogram("2015-10-01T00:00:00", "2015-12-01T00:00:00", "hour");
+        assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+        assertSame(histogram, response.getEntity());
+    }
 
-}
\ No newline at end of file
+    @Test(expected = NewsException.class)
+    public void testGetPublishHistogramUnknownBucket() throws Exception {
+        articleResource.getPublishHistogram("2015-10-01T00:00:00", "2015-12-01T00:00:00", "week");
+    }
+
+    @Test(expected = NewsException.class)
+    public void testGetPublishHistogramEmptyRange() throws Exception {
+        articleResource.getPublishHistogram("2015-10-01T00:00:00", "2015-10-01T00:00:00", "day");
+    }
+
+    @Test(expected = NewsException.class)
+    public void testGetPublishHistogramNoDate() throws Exception {
+        articleResource.getPublishHistogram("2015-10-01T00:00:00", null, "day");
+    }
+
+    private static Response resume(final Consumer<AsyncResponse> call) {
+        AsyncResponse asyncResponse = mock(AsyncResponse.class);
+        when(asyncResponse.isSuspended()).thenReturn(true);
+        call.accept(asyncResponse);
+        ArgumentCaptor<Object> response = ArgumentCaptor.forClass(Object.class);
+        verify(asyncResponse).resume(response.capture());
+        return (Response) response.getValue();
+    }
+
+    private static ContainerRequest request(final String... headers) {
+        ContainerRequest request = new ContainerRequest(
+                URI.create("http://localhost/api/"),
+                URI.create("http://localhost/api/article"),
+                "GET", null, new MapPropertiesDelegate());
+        for (int i = 0; i < headers.length; i += 2) {
+            request.header(headers[i], headers[i + 1]);
+        }
+        return request;
+    }
+}
@@ -3,6 +3,9 @@ package com.github.atdi.news.server.resources;
 import com.github.atdi.news.model.Author;
 import com.github.atdi.news.server.exceptions.NewsException;
 import com.github.atdi.news.server.services.AuthorService;
+import com.github.atdi.news.server.services.repositories.VersionStamp;
+import org.glassfish.jersey.internal.MapPropertiesDelegate;
+import org.glassfish.jersey.server.ContainerRequest;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
@@ -10,8 +13,10 @@ import org.mockito.Mock;
 import org.mockito.internal.matchers.Null;
 import org.mockito.runners.MockitoJUnitRunner;
 
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.Response;
+import java.net.URI;
 import java.util.UUID;
 
 import static org.junit.Assert.*;
@@ -85,20 +90,65 @@ public class AuthorResourceTest {
                 .lastName("Krieger")
                 .build();
         when(authorService.find(uuid)).thenReturn(author);
-        Response response = authorResource.getById(uuid);
+        Response response = authorResource.getById(uuid, request(), request());
         Author retrievedAuthor = (Author) response.getEntity();
         assertEquals(author, retrievedAuthor);
+        assertEquals(new EntityTag("0"), response.getEntityTag());
+    }
+
+    @Test
+    public void testGetByIdNotModified() throws Exception {
+        String uuid = UUID.randomUUID().toString();
+        when(authorService.findStamp(uuid)).thenReturn(new VersionStamp(2));
+        ContainerRequest request = request(HttpHeaders.IF_NONE_MATCH, "\"2\"");
+        Response response = authorResource.getById(uuid, request, request);
+        assertEquals(Response.Status.NOT_MODIFIED.getStatusCode(), response.getStatus());
+        verify(authorService, never()).find(uuid);
+    }
+
+    @Test
+    public void testGetByIdModified() throws Exception {
+        String uuid = UUID.randomUUID().toString();
+        Author author = Author.builder().id(uuid)
+                .firstName("Max")
+                .lastName("Krieger")
+                .version(3)
+                .build();
+        when(authorService.findStamp(uuid)).thenReturn(new VersionStamp(3));
+        when(authorService.find(uuid)).thenReturn(author);
+        ContainerRequest request = request(HttpHeaders.IF_NONE_MATCH, "\"2\"");
+        Response response = authorResource.getById(uuid, request, request);
+        assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+        assertEquals(new EntityTag("3"), response.getEntityTag());
+    }
+
+    @Test(expected = NewsException.class)
+    public void testGetByIdConditionalNotFound() throws Exception {
+        String uuid = UUID.randomUUID().toString();
+        ContainerRequest request = request(HttpHeaders.IF_NONE_MATCH, "\"2\"");
+        authorResource.getById(uuid, request, request);
     }
 
     @Test(expected = NewsException.class)
     public void testGetByIdInvalidUUID() throws Exception {
         String uuid = UUID.randomUUID().toString();
-        Response response = authorResource.getById("invaliduuid");
+        Response response = authorResource.getById("invaliduuid", request(), request());
     }
 
     @Test(expected = NewsException.class)
     public void testByIdNotFound() throws Exception {
         String uuid = UUID.randomUUID().toString();
-        Response response = authorResource.getById(uuid);
+        Response response = authorResource.getById(uuid, request(), request());
+    }
+
+    private static ContainerRequest request(final String... headers) {
+        ContainerRequest request = new ContainerRequest(
+                URI.create("http://localhost/api/"),
+                URI.create("http://localhost/api/author"),
+                "GET", null, new MapPropertiesDelegate());
+        for (int i = 0; i < headers.length; i += 2) {
+            request.header(headers[i], headers[i + 1]);
+        }
+        return request;
     }
-}
\ No newline at end of file
+}
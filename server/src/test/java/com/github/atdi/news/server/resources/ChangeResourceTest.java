@@ -0,0 +1,159 @@
+package com.github.atdi.news.server.resources;
+
+import com.github.atdi.news.model.Article;
+import com.github.atdi.news.model.ArticleChangeGap;
+import com.github.atdi.news.model.ArticleChanges;
+import com.github.atdi.news.server.exceptions.NewsException;
+import com.github.atdi.news.server.services.ArticleChangeLog;
+import com.github.atdi.news.server.services.ArticleEvent;
+import com.github.atdi.news.server.services.repositories.ArticleChangeJpaRepository;
+import org.glassfish.jersey.server.ChunkedOutput;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import javax.ws.rs.container.AsyncResponse;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ChangeResourceTest {
+
+    @Mock
+    private ArticleChangeJpaRepository articleChangeJpaRepository;
+
+    private ArticleChangeLog articleChangeLog;
+
+    private ChangeResource changeResource;
+
+    @Before
+    public void setUp() throws Exception {
+        when(articleChangeJpaRepository.skip(10)).thenReturn(
+                Collections.singletonList(gap(1, 10)));
+        articleChangeLog = new ArticleChangeLog(articleChangeJpaRepository,
+                10, 60, 1000);
+        articleChangeLog.open();
+        changeResource = new ChangeResource(articleChangeLog);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        changeResource.close();
+        articleChangeLog.close();
+    }
+
+    @Test
+    public void testGetChanges() throws Exception {
+        articleChangeLog.onApplicationEvent(ArticleEvent.deleted(this, "a"));
+        articleChangeLog.onApplicationEvent(ArticleEvent.deleted(this, "b"));
+        AsyncResponse asyncResponse = mock(AsyncResponse.class);
+        changeResource.getChanges(asyncResponse, 10L, 1, 30);
+        ArticleChanges changes = resumed(asyncResponse, 0);
+        assertEquals(1, changes.getChanges().size());
+        assertEquals("a", changes.getChanges().get(0).getArticleId());
+        assertEquals(11, changes.getLast());
+        verify(asyncResponse, never()).setTimeout(anyLong(),
+                any(TimeUnit.class));
+    }
+
+    @Test
+    public void testGetChangesWaitsForNextChange() throws Exception {
+        articleChangeLog.onApplicationEvent(ArticleEvent.deleted(this, "a"));
+        AsyncResponse asyncResponse = mock(AsyncResponse.class);
+        changeResource.getChanges(asyncResponse, null, 10, 30);
+        verify(asyncResponse).setTimeout(30, TimeUnit.SECONDS);
+        verify(asyncResponse, never()).resume(any());
+        articleChangeLog.onApplicationEvent(ArticleEvent.saved(this,
+                Article.builder().id("b").version(3).build()));
+        ArticleChanges changes = resumed(asyncResponse, 1000);
+        assertEquals(1, changes.getChanges().size());
+        assertEquals("b", changes.getChanges().get(0).getArticleId());
+        assertEquals(3, changes.getChanges().get(0).getVersion());
+        assertEquals(12, changes.getLast());
+    }
+
+    @Test
+    public void testGetChangesWithoutWait() throws Exception {
+        AsyncResponse asyncResponse = mock(AsyncResponse.class);
+        changeResource.getChanges(asyncResponse, null, 10, 0);
+        ArticleChanges changes = resumed(asyncResponse, 0);
+        assertTrue(changes.getChanges().isEmpty());
+        assertEquals(10, changes.getLast());
+    }
+
+    @Test(expected = NewsException.class)
+    public void testGetChangesInvalidLimit() throws Exception {
+        changeResource.getChanges(mock(AsyncResponse.class), 0L, 0, 30);
+    }
+
+    @Test(expected = NewsException.class)
+    public void testGetChangesNegativeSince() throws Exception {
+        changeResource.getChanges(mock(AsyncResponse.class), -1L, 10, 30);
+    }
+
+    @Test(expected = NewsException.class)
+    public void testStreamChangesInvalidLimit() throws Exception {
+        changeResource.streamChanges(null, null, 1001);
+    }
+
+    @Test
+    public void testStreamChangesBacklogTooLong() throws Exception {
+        articleChangeLog.close();
+        // 20000 changes spilled before the start
+        when(articleChangeJpaRepository.skip(10)).thenReturn(
+                Collections.singletonList(gap(20001, 20010)));
+        articleChangeLog.open();
+        try {
+            changeResource.streamChanges(0L, null, 100);
+            fail("Backlog too long expected");
+        } catch (NewsException e) {
+            assertEquals(400, e.getResponse().getStatus());
+        }
+        assertNotNull(changeResource.streamChanges(null, 10000L, 100));
+    }
+
+    @Test
+    public void testClosedStreamRemoved() throws Exception {
+        ChunkedOutput<String> output = changeResource.streamChanges(null,
+                null, 100);
+        assertEquals(1, changeResource.getStreams());
+        // the client went away, noticed on the next write
+        output.close();
+        articleChangeLog.onApplicationEvent(ArticleEvent.deleted(this, "a"));
+        for (int i = 0; i < 100 && changeResource.getStreams() > 0; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, changeResource.getStreams());
+    }
+
+    @Test
+    public void testStreamsClosedOnShutdown() throws Exception {
+        ChunkedOutput<String> output = changeResource.streamChanges(null,
+                null, 100);
+        changeResource.close();
+        assertTrue(output.isClosed());
+        assertEquals(0, changeResource.getStreams());
+    }
+
+    private static ArticleChangeGap gap(final long first, final long last) {
+        return ArticleChangeGap.builder()
+                .first(first)
+                .last(last)
+                .build();
+    }
+
+    private static ArticleChanges resumed(final AsyncResponse asyncResponse,
+                                          final long timeout) {
+        ArgumentCaptor<Object> response = ArgumentCaptor.forClass(Object.class);
+        verify(asyncResponse, timeout(timeout).times(1))
+                .resume(response.capture());
+        return (ArticleChanges) response.getValue();
+    }
+}
@@ -0,0 +1,71 @@
+package com.github.atdi.news.server.resources;
+
+import com.github.atdi.news.model.KeywordCount;
+import com.github.atdi.news.server.exceptions.NewsException;
+import com.github.atdi.news.server.services.KeywordSuggestions;
+import com.github.atdi.news.server.services.TrendingKeywords;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class KeywordResourceTest {
+
+    @Mock
+    private TrendingKeywords trendingKeywords;
+
+    @Mock
+    private KeywordSuggestions keywordSuggestions;
+
+    @InjectMocks
+    private KeywordResource keywordResource;
+
+    @Test
+    public void testGetTrending() throws Exception {
+        List<KeywordCount> top = Collections.singletonList(KeywordCount.builder()
+                .keyword("java").count(2).build());
+        when(trendingKeywords.getTop(TimeUnit.HOURS.toMillis(1), 10)).thenReturn(top);
+        assertSame(top, keywordResource.getTrending("1h", 10));
+        keywordResource.getTrending("30m", 5);
+        verify(trendingKeywords).getTop(TimeUnit.MINUTES.toMillis(30), 5);
+        keywordResource.getTrending("2d", 5);
+        verify(trendingKeywords).getTop(TimeUnit.DAYS.toMillis(2), 5);
+    }
+
+    @Test(expected = NewsException.class)
+    public void testGetTrendingInvalidWindow() throws Exception {
+        keywordResource.getTrending("1w", 10);
+    }
+
+    @Test(expected = NewsException.class)
+    public void testGetTrendingEmptyWindow() throws Exception {
+        keywordResource.getTrending("", 10);
+    }
+
+    @Test(expected = NewsException.class)
+    public void testGetTrendingInvalidLimit() throws Exception {
+        keywordResource.getTrending("1h", 0);
+    }
+
+    @Test
+    public void testSuggest() throws Exception {
+        List<KeywordCount> keywords = Collections.singletonList(KeywordCount.builder()
+                .keyword("java").count(2).build());
+        when(keywordSuggestions.suggest("ja", 10)).thenReturn(keywords);
+        assertSame(keywords, keywordResource.suggest("ja", 10));
+    }
+
+    @Test(expected = NewsException.class)
+    public void testSuggestInvalidLimit() throws Exception {
+        keywordResource.suggest("ja", 101);
+    }
+}
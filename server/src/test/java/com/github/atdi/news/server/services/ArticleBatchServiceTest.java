@@ -0,0 +1,132 @@
+package com.github.atdi.news.server.services;
+
+import com.github.atdi.news.model.Article;
+import com.github.atdi.news.model.Author;
+import com.github.atdi.news.model.BatchResult;
+import com.github.atdi.news.server.services.repositories.ArticleJpaRepository;
+import com.github.atdi.news.server.services.repositories.AuthorJpaRepository;
+import com.github.atdi.news.server.services.repositories.UpsertedArticle;
+import com.github.atdi.news.server.util.UUIDUtils;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.internal.util.collections.Sets;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.context.ApplicationEventPublisher;
+
+import javax.validation.Validation;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ArticleBatchServiceTest {
+
+    @Mock
+    private ArticleJpaRepository articleJpaRepository;
+
+    @Mock
+    private AuthorJpaRepository authorJpaRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private ArticleBatchService articleBatchService;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() throws Exception {
+        articleBatchService = new ArticleBatchService(articleJpaRepository,
+                authorJpaRepository,
+                Validation.buildDefaultValidatorFactory().getValidator(),
+                eventPublisher,
+                new TimeOrderedIdGenerator(),
+                2);
+        when(articleJpaRepository.upsert(anyList())).thenAnswer(invocation ->
+                ((List<Article>) invocation.getArguments()[0]).stream()
+                        .map(article -> new UpsertedArticle(
+                                article.toBuilder().version(1).build(), true))
+                        .collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testSaveAssignsIdsInChunks() throws Exception {
+        List<BatchResult> results = articleBatchService.save(Arrays.asList(
+                article(null), article(null), article(null)).iterator());
+        assertEquals(3, results.size());
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(i, results.get(i).getIndex());
+            assertEquals(201, results.get(i).getStatus());
+            UUIDUtils.checkUUID(results.get(i).getId());
+        }
+        verify(articleJpaRepository, times(2)).upsert(anyList());
+        verify(eventPublisher, times(3)).publishEvent(any(ArticleEvent.class));
+    }
+
+    @Test
+    public void testSaveUpdated() throws Exception {
+        String id = UUID.randomUUID().toString();
+        // a row of version 0, from before the versions, is updated
+        when(articleJpaRepository.upsert(anyList())).thenReturn(
+                Collections.singletonList(new UpsertedArticle(
+                        article(id).toBuilder().version(1).build(), false)));
+        List<BatchResult> results = articleBatchService.save(
+                Collections.singletonList(article(id)).iterator());
+        assertEquals(200, results.get(0).getStatus());
+        assertEquals(id, results.get(0).getId());
+    }
+
+    @Test
+    public void testSaveRejectsInvalidArticles() throws Exception {
+        String id = UUID.randomUUID().toString();
+        Author unknown = Author.builder().id(UUID.randomUUID().toString()).build();
+        articleBatchService = new ArticleBatchService(articleJpaRepository,
+                authorJpaRepository,
+                Validation.buildDefaultValidatorFactory().getValidator(),
+                eventPublisher,
+                new TimeOrderedIdGenerator(),
+                10);
+        when(authorJpaRepository.findAll(anyList())).thenReturn(Collections.emptyList());
+        List<BatchResult> results = articleBatchService.save(Arrays.asList(
+                article("invaliduuid"),
+                article(id),
+                article(id),
+                article(null).toBuilder().header(null).build(),
+                null,
+                article(null).toBuilder().authors(Sets.newSet(unknown)).build())
+                .iterator());
+        assertEquals(6, results.size());
+        assertEquals(400, results.get(0).getStatus());
+        assertEquals("Invalid uuid", results.get(0).getMessage());
+        assertEquals(201, results.get(1).getStatus());
+        assertEquals(400, results.get(2).getStatus());
+        assertEquals("Duplicate id", results.get(2).getMessage());
+        assertEquals(400, results.get(3).getStatus());
+        assertTrue(results.get(3).getMessage().startsWith("header"));
+        assertEquals(400, results.get(4).getStatus());
+        assertNull(results.get(4).getId());
+        assertEquals(400, results.get(5).getStatus());
+        assertEquals("Author not found " + unknown.getId(), results.get(5).getMessage());
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(i, results.get(i).getIndex());
+        }
+        verify(articleJpaRepository).upsert(Collections.singletonList(article(id)));
+        verify(eventPublisher, times(1)).publishEvent(any(ArticleEvent.class));
+    }
+
+    private static Article article(final String id) {
+        return Article.builder()
+                .id(id)
+                .header("header")
+                .description("description")
+                .text("text")
+                .keywords(Sets.newSet("java"))
+                .build();
+    }
+}
@@ -0,0 +1,259 @@
+package com.github.atdi.news.server.services;
+
+import com.github.atdi.news.model.Article;
+import com.github.atdi.news.model.ArticleChange;
+import com.github.atdi.news.model.ArticleChangeGap;
+import com.github.atdi.news.model.ArticleChanges;
+import com.github.atdi.news.server.services.repositories.ArticleChangeJpaRepository;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.data.domain.Pageable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ArticleChangeLogTest {
+
+    @Mock
+    private ArticleChangeJpaRepository articleChangeJpaRepository;
+
+    private final List<ArticleChange> spilled = new ArrayList<>();
+
+    private final List<ArticleChangeGap> spilledGaps = new ArrayList<>();
+
+    private ArticleChangeLog articleChangeLog;
+
+    @Before
+    public void setUp() throws Exception {
+        doAnswer(this::spill)
+                .when(articleChangeJpaRepository).append(anyList(), anyList());
+        when(articleChangeJpaRepository.skip(2)).thenReturn(
+                Collections.singletonList(gap(1, 2)));
+        articleChangeLog = new ArticleChangeLog(articleChangeJpaRepository,
+                2, 60, 2000);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        articleChangeLog.close();
+    }
+
+    @Test
+    public void testChangesAreSequenced() throws Exception {
+        articleChangeLog.open();
+        // the first capacity numbers are skipped
+        assertEquals(2, articleChangeLog.getLastSequence());
+        articleChangeLog.onApplicationEvent(ArticleEvent.saved(this,
+                article("a", 1)));
+        articleChangeLog.onApplicationEvent(ArticleEvent.deleted(this, "a"));
+        ArticleChanges changes = articleChangeLog.read(0, 10);
+        assertEquals(4, changes.getLast());
+        assertEquals(2, changes.getChanges().size());
+        ArticleChange saved = changes.getChanges().get(0);
+        assertEquals(3, saved.getSequence());
+        assertEquals("a", saved.getArticleId());
+        assertEquals(ArticleChange.Type.SAVED, saved.getType());
+        assertEquals(1, saved.getVersion());
+        assertEquals(ArticleChange.Type.DELETED,
+                changes.getChanges().get(1).getType());
+        assertEquals(4, articleChangeLog.read(3, 1).getLast());
+        ArticleChanges none = articleChangeLog.read(4, 10);
+        assertTrue(none.getChanges().isEmpty());
+        assertEquals(4, none.getLast());
+        assertEquals(2, articleChangeLog.countSince(0));
+        verify(articleChangeJpaRepository, never()).append(anyList(), anyList());
+    }
+
+    @Test
+    public void testSequenceSkipsGapsAfterRestart() throws Exception {
+        // changes 3 to 42 spilled before the restart
+        when(articleChangeJpaRepository.skip(2)).thenReturn(
+                Arrays.asList(gap(1, 2), gap(43, 44)));
+        when(articleChangeJpaRepository
+                .findBySequenceBetweenOrderBySequenceAsc(eq(41L), eq(44L),
+                        any(Pageable.class)))
+                .thenReturn(Arrays.asList(change(41), change(42)));
+        articleChangeLog.open();
+        articleChangeLog.onApplicationEvent(ArticleEvent.saved(this,
+                article("a", 1)));
+        assertEquals(45, articleChangeLog.getLastSequence());
+        assertEquals(45, articleChangeLog.read(44, 10).getChanges().get(0)
+                .getSequence());
+        ArticleChanges changes = articleChangeLog.read(40, 10);
+        assertEquals(3, changes.getChanges().size());
+        assertEquals(42, changes.getChanges().get(1).getSequence());
+        assertEquals(45, changes.getLast());
+        assertEquals(41, articleChangeLog.countSince(0));
+        assertEquals(1, articleChangeLog.countSince(43));
+    }
+
+    @Test
+    public void testMissingChangeNotSkipped() throws Exception {
+        when(articleChangeJpaRepository
+                .findBySequenceBetweenOrderBySequenceAsc(eq(3L), eq(5L),
+                        any(Pageable.class)))
+                .thenReturn(Collections.singletonList(change(5)));
+        articleChangeLog.open();
+        for (int i = 1; i <= 5; i++) {
+            articleChangeLog.onApplicationEvent(ArticleEvent.saved(this,
+                    article("a", i)));
+        }
+        // change 3 not read back, a lagging database
+        ArticleChanges changes = articleChangeLog.read(2, 10);
+        assertTrue(changes.getChanges().isEmpty());
+        assertEquals(2, changes.getLast());
+    }
+
+    @Test
+    public void testOverwrittenChangesAreSpilled() throws Exception {
+        articleChangeLog.open();
+        for (int i = 1; i <= 3; i++) {
+            articleChangeLog.onApplicationEvent(ArticleEvent.saved(this,
+                    article("a", i)));
+        }
+        assertEquals(2, spilled.size());
+        when(articleChangeJpaRepository
+                .findBySequenceBetweenOrderBySequenceAsc(eq(3L), eq(3L),
+                        any(Pageable.class)))
+                .thenReturn(new ArrayList<>(spilled.subList(0, 1)));
+        ArticleChanges changes = articleChangeLog.read(2, 10);
+        assertEquals(3, changes.getChanges().size());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(i + 3, changes.getChanges().get(i).getSequence());
+        }
+        ArgumentCaptor<Pageable> page = ArgumentCaptor.forClass(Pageable.class);
+        assertEquals(3, articleChangeLog.read(2, 1).getLast());
+        verify(articleChangeJpaRepository, times(2))
+                .findBySequenceBetweenOrderBySequenceAsc(eq(3L), eq(3L),
+                        page.capture());
+        assertEquals(1, page.getValue().getPageSize());
+    }
+
+    @Test
+    public void testFailedSpillBlocksOverwrite() throws Exception {
+        doThrow(new IllegalStateException("database down"))
+                .doAnswer(this::spill)
+                .when(articleChangeJpaRepository).append(anyList(), anyList());
+        articleChangeLog.open();
+        for (int i = 1; i <= 3; i++) {
+            articleChangeLog.onApplicationEvent(ArticleEvent.saved(this,
+                    article("a", i)));
+        }
+        // the third change waited for the spill to be retried
+        verify(articleChangeJpaRepository, times(2)).append(anyList(), anyList());
+        assertEquals(2, spilled.size());
+        assertEquals(3, spilled.get(0).getSequence());
+        assertEquals(5, articleChangeLog.getLastSequence());
+    }
+
+    @Test
+    public void testUnspilledChangesDroppedAfterWait() throws Exception {
+        doThrow(new IllegalStateException("database down"))
+                .doAnswer(this::spill)
+                .when(articleChangeJpaRepository).append(anyList(), anyList());
+        articleChangeLog = new ArticleChangeLog(articleChangeJpaRepository,
+                2, 60, 100);
+        articleChangeLog.open();
+        for (int i = 1; i <= 3; i++) {
+            articleChangeLog.onApplicationEvent(ArticleEvent.saved(this,
+                    article("a", i)));
+        }
+        // 3 and 4 dropped for 5, 4 is still read from memory
+        assertEquals(5, articleChangeLog.getLastSequence());
+        assertEquals(1, articleChangeLog.countSince(2));
+        assertEquals(5, articleChangeLog.read(2, 10).getLast());
+        articleChangeLog.close();
+        assertEquals(1, spilled.size());
+        assertEquals(5, spilled.get(0).getSequence());
+        assertEquals(1, spilledGaps.size());
+        assertEquals(3, spilledGaps.get(0).getFirst());
+        assertEquals(4, spilledGaps.get(0).getLast());
+    }
+
+    @Test
+    public void testSpillDoesNotBlockEventsAndReads() throws Exception {
+        CountDownLatch spilling = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            spilling.countDown();
+            release.await();
+            return spill(invocation);
+        }).when(articleChangeJpaRepository).append(anyList(), anyList());
+        articleChangeLog.open();
+        articleChangeLog.onApplicationEvent(ArticleEvent.deleted(this, "a"));
+        Thread flush = new Thread(articleChangeLog::flush);
+        flush.start();
+        assertTrue(spilling.await(1, TimeUnit.SECONDS));
+        articleChangeLog.onApplicationEvent(ArticleEvent.deleted(this, "b"));
+        assertEquals(2, articleChangeLog.read(2, 10).getChanges().size());
+        release.countDown();
+        flush.join();
+        assertEquals(1, spilled.size());
+    }
+
+    @Test
+    public void testFlushSpillsOnce() throws Exception {
+        articleChangeLog.open();
+        articleChangeLog.onApplicationEvent(ArticleEvent.deleted(this, "a"));
+        articleChangeLog.flush();
+        articleChangeLog.flush();
+        assertEquals(1, spilled.size());
+        articleChangeLog.onApplicationEvent(ArticleEvent.deleted(this, "b"));
+        articleChangeLog.flush();
+        assertEquals(2, spilled.size());
+        assertEquals("b", spilled.get(1).getArticleId());
+    }
+
+    @Test
+    public void testListenersAreNotified() throws Exception {
+        articleChangeLog.open();
+        CountDownLatch notified = new CountDownLatch(1);
+        articleChangeLog.addListener(notified::countDown);
+        articleChangeLog.onApplicationEvent(ArticleEvent.deleted(this, "a"));
+        assertTrue(notified.await(1, TimeUnit.SECONDS));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object spill(final InvocationOnMock invocation) {
+        spilled.addAll((List<ArticleChange>) invocation.getArguments()[0]);
+        spilledGaps.addAll(
+                (List<ArticleChangeGap>) invocation.getArguments()[1]);
+        return null;
+    }
+
+    private static ArticleChange change(final long sequence) {
+        return ArticleChange.builder()
+                .sequence(sequence)
+                .articleId("a")
+                .type(ArticleChange.Type.SAVED)
+                .build();
+    }
+
+    private static ArticleChangeGap gap(final long first, final long last) {
+        return ArticleChangeGap.builder()
+                .first(first)
+                .last(last)
+                .build();
+    }
+
+    private static Article article(final String id, final long version) {
+        return Article.builder()
+                .id(id)
+                .version(version)
+                .build();
+    }
+}
@@ -0,0 +1,138 @@
+package com.github.atdi.news.server.services;
+
+import com.github.atdi.news.model.Article;
+import com.github.atdi.news.server.services.repositories.ArticleJpaRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.internal.util.collections.Sets;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ArticleIndexSearchTest {
+
+    @Mock
+    private ArticleJpaRepository articleJpaRepository;
+
+    private ArticleIndexSearch articleIndexSearch;
+
+    private Article older;
+
+    private Article newer;
+
+    @Before
+    public void setUp() {
+        older = article(LocalDateTime.of(2015, 11, 10, 8, 0), "fire", "water");
+        newer = article(LocalDateTime.of(2015, 11, 12, 8, 0), "fire");
+        when(articleJpaRepository.findAll(any(Pageable.class)))
+                .thenReturn(new PageImpl<>(Arrays.asList(older, newer)));
+        articleIndexSearch = new ArticleIndexSearch(articleJpaRepository,
+                new KeywordIndex(), 1);
+        articleIndexSearch.rebuild();
+    }
+
+    @Test
+    public void testSearchByKeyword() throws Exception {
+        when(articleJpaRepository.findAll(Arrays.asList(newer.getId(), older.getId())))
+                .thenReturn(Arrays.asList(older, newer));
+        Page<Article> page = articleIndexSearch.searchByKeyword(new PageRequest(0, 10), "fire");
+        assertEquals(2, page.getTotalElements());
+        assertEquals(Arrays.asList(newer, older), page.getContent());
+        verify(articleJpaRepository, never()).findByKeyword(any(Pageable.class), anyString());
+    }
+
+    @Test
+    public void testSearchByKeywordNotFound() throws Exception {
+        Page<Article> page = articleIndexSearch.searchByKeyword(new PageRequest(0, 10), "earth");
+        assertEquals(0, page.getTotalElements());
+        assertTrue(page.getContent().isEmpty());
+    }
+
+    @Test
+    public void testIndexUpdatedByEvents() throws Exception {
+        articleIndexSearch.onApplicationEvent(ArticleEvent.deleted(this, older.getId()));
+        Article updated = newer.toBuilder().keywords(Sets.newSet("earth")).build();
+        articleIndexSearch.onApplicationEvent(ArticleEvent.saved(this, updated));
+        when(articleJpaRepository.findAll(Collections.singletonList(newer.getId())))
+                .thenReturn(Collections.singletonList(updated));
+        assertEquals(0, articleIndexSearch.searchByKeyword(new PageRequest(0, 10), "fire")
+                .getTotalElements());
+        assertEquals(0, articleIndexSearch.searchByKeyword(new PageRequest(0, 10), "water")
+                .getTotalElements());
+        Page<Article> page = articleIndexSearch.searchByKeyword(new PageRequest(0, 10), "earth");
+        assertEquals(Collections.singletonList(updated), page.getContent());
+    }
+
+    @Test
+    public void testSearchByCriteriaFromPostingList() throws Exception {
+        when(articleJpaRepository.findAll(Collections.singletonList(older.getId())))
+                .thenReturn(Collections.singletonList(older));
+        Page<Article> page = articleIndexSearch.searchByCriteria(new PageRequest(0, 10), ArticleCriteria.builder()
+                .keyword("water")
+                .publishedTo(LocalDateTime.of(2015, 11, 11, 0, 0))
+                .build());
+        assertEquals(1, page.getTotalElements());
+        assertEquals(Collections.singletonList(older), page.getContent());
+        page = articleIndexSearch.searchByCriteria(new PageRequest(0, 10), ArticleCriteria.builder()
+                .keyword("water")
+                .publishedFrom(LocalDateTime.of(2015, 11, 11, 0, 0))
+                .build());
+        assertEquals(0, page.getTotalElements());
+        verify(articleJpaRepository, never()).findAll(any(Specification.class), any(Pageable.class));
+    }
+
+    @Test
+    public void testSearchByCriteriaChecksCandidatesInDatabase() throws Exception {
+        Page<Article> result = new PageImpl<>(Collections.singletonList(older));
+        when(articleJpaRepository.findAll(any(Specification.class), any(Pageable.class))).thenReturn(result);
+        String authorId = UUID.randomUUID().toString();
+        Page<Article> page = articleIndexSearch.searchByCriteria(new PageRequest(0, 10), ArticleCriteria.builder()
+                .keyword("water")
+                .authorId(authorId)
+                .build());
+        assertSame(result, page);
+        page = articleIndexSearch.searchByCriteria(new PageRequest(0, 10), ArticleCriteria.builder()
+                .keyword("water")
+                .authorId(authorId)
+                .publishedFrom(LocalDateTime.of(2015, 11, 11, 0, 0))
+                .build());
+        assertEquals(0, page.getTotalElements());
+        verify(articleJpaRepository, times(1)).findAll(any(Specification.class), any(Pageable.class));
+    }
+
+    @Test
+    public void testSearchByCriteriaLargePostingListInDatabase() throws Exception {
+        Page<Article> result = new PageImpl<>(Arrays.asList(newer, older));
+        when(articleJpaRepository.findAll(any(Specification.class), any(Pageable.class))).thenReturn(result);
+        Page<Article> page = articleIndexSearch.searchByCriteria(new PageRequest(0, 10), ArticleCriteria.builder()
+                .keyword("fire")
+                .publishedTo(LocalDateTime.of(2015, 11, 30, 0, 0))
+                .build());
+        assertSame(result, page);
+    }
+
+    private static Article article(LocalDateTime publishDate, String... keywords) {
+        return Article.builder()
+                .id(UUID.randomUUID().toString())
+                .header("header")
+                .description("description")
+                .text("text")
+                .publishDate(publishDate)
+                .keywords(Sets.newSet(keywords))
+                .build();
+    }
+}
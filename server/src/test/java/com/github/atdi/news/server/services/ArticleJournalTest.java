@@ -0,0 +1,99 @@
+package com.github.atdi.news.server.services;
+
+import com.github.atdi.news.model.Article;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.internal.util.collections.Sets;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class ArticleJournalTest {
+
+    private Path directory;
+
+    private Path path;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("journal");
+        path = directory.resolve("articles");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        for (Path file : files()) {
+            Files.delete(file);
+        }
+        Files.delete(directory);
+    }
+
+    @Test
+    public void testSegmentDeletedOnceReleased() throws Exception {
+        ArticleJournal journal = new ArticleJournal(path, true, 2);
+        journal.open();
+        long first = journal.append(article("first"));
+        journal.append(article("second"));
+        long third = journal.append(article("third"));
+        journal.sync();
+        assertEquals(first + 1, third);
+        assertEquals(2, files().size());
+        journal.release(first);
+        assertEquals(2, files().size());
+        journal.release(first);
+        assertEquals(1, files().size());
+        journal.release(third);
+        assertEquals(0, journal.getSegments());
+        journal.close();
+        assertEquals(0, files().size());
+    }
+
+    @Test
+    public void testUnreleasedArticlesReplayed() throws Exception {
+        ArticleJournal journal = new ArticleJournal(path, false, 2);
+        journal.open();
+        long first = journal.append(article("written"));
+        journal.append(article("left"));
+        journal.release(first);
+        journal.append(article("later"));
+        journal.close();
+        Files.write(directory.resolve("articles.2"),
+                "{\"torn".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+
+        ArticleJournal reopened = new ArticleJournal(path, false, 2);
+        List<ArticleJournal.Entry> entries = reopened.open();
+        assertEquals(3, entries.size());
+        assertEquals("written", entries.get(0).getArticle().getHeader());
+        assertEquals("later", entries.get(2).getArticle().getHeader());
+        assertEquals(2, entries.get(2).getSegment());
+        // appended to a new segment
+        assertEquals(3, reopened.append(article("new")));
+        reopened.close();
+    }
+
+    private List<Path> files() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.collect(Collectors.toList());
+        }
+    }
+
+    private static Article article(final String header) {
+        return Article.builder()
+                .id(UUID.randomUUID().toString())
+                .header(header)
+                .description("description")
+                .text("text")
+                .keywords(Sets.newSet("java"))
+                .build();
+    }
+}
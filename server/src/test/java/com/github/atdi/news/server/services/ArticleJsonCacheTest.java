@@ -0,0 +1,129 @@
+package com.github.atdi.news.server.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.atdi.news.model.Article;
+import com.github.atdi.news.server.util.JacksonContextResolver;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.internal.util.collections.Sets;
+
+import java.io.ByteArrayInputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.*;
+
+public class ArticleJsonCacheTest {
+
+    private final ObjectMapper objectMapper = new JacksonContextResolver()
+            .getContext(Article.class);
+
+    private final Map<String, Article> articles = new HashMap<>();
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private ArticleJsonCache articleJsonCache;
+
+    @Before
+    public void setUp() {
+        articleJsonCache = new ArticleJsonCache(objectMapper, 2, true);
+        articles.put("a", article("a", "text"));
+        articles.put("b", article("b", "text"));
+        articles.put("c", article("c", "text"));
+    }
+
+    @Test
+    public void testGetCachesSerializedArticle() throws Exception {
+        ArticleJsonCache.Json json = articleJsonCache.get("a", this::load);
+        assertEquals(articles.get("a"), objectMapper.readValue(json.getBytes(), Article.class));
+        assertNull(json.getGzipBytes());
+        assertSame(json, articleJsonCache.get("a", this::load));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void testGetMissing() throws Exception {
+        assertNull(articleJsonCache.get("d", this::load));
+        assertEquals(0, articleJsonCache.size());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEvicted() throws Exception {
+        articleJsonCache.get("a", this::load);
+        articleJsonCache.get("b", this::load);
+        articleJsonCache.get("a", this::load);
+        articleJsonCache.get("c", this::load);
+        assertEquals(2, articleJsonCache.size());
+        articleJsonCache.get("a", this::load);
+        assertEquals(3, loads.get());
+        articleJsonCache.get("b", this::load);
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    public void testEvictedOnEvent() throws Exception {
+        ArticleJsonCache.Json json = articleJsonCache.get("a", this::load);
+        articles.put("a", article("a", "changed").toBuilder().version(1).build());
+        articleJsonCache.onApplicationEvent(ArticleEvent.saved(this, articles.get("a")));
+        ArticleJsonCache.Json changed = articleJsonCache.get("a", this::load);
+        assertEquals(0, json.getStamp().getVersion());
+        assertEquals(1, changed.getStamp().getVersion());
+        assertEquals("changed", objectMapper.readValue(changed.getBytes(), Article.class).getText());
+        articleJsonCache.onApplicationEvent(ArticleEvent.deleted(this, "a"));
+        assertEquals(0, articleJsonCache.size());
+    }
+
+    @Test
+    public void testLoadRacingWithEvictionNotCached() throws Exception {
+        ArticleJsonCache.Json json = articleJsonCache.get("a", id -> {
+            Article stale = articles.get(id);
+            articleJsonCache.evict(id);
+            return stale;
+        });
+        assertNotNull(json);
+        assertEquals(0, articleJsonCache.size());
+    }
+
+    @Test
+    public void testGzip() throws Exception {
+        char[] text = new char[2000];
+        Arrays.fill(text, 'a');
+        articles.put("a", article("a", new String(text)));
+        ArticleJsonCache.Json json = articleJsonCache.get("a", this::load);
+        assertNotNull(json.getGzipBytes());
+        assertTrue(json.getGzipBytes().length < json.getBytes().length);
+        Article article = objectMapper.readValue(new GZIPInputStream(
+                new ByteArrayInputStream(json.getGzipBytes())), Article.class);
+        assertEquals(new String(text), article.getText());
+    }
+
+    @Test
+    public void testDisabled() throws Exception {
+        articleJsonCache = new ArticleJsonCache(objectMapper, 0, false);
+        assertNotNull(articleJsonCache.get("a", this::load));
+        assertNotNull(articleJsonCache.get("a", this::load));
+        assertEquals(0, articleJsonCache.size());
+        assertEquals(2, loads.get());
+    }
+
+    private Article load(final String id) {
+        Article article = articles.get(id);
+        if (article != null) {
+            loads.incrementAndGet();
+        }
+        return article;
+    }
+
+    private static Article article(final String id, final String text) {
+        return Article.builder()
+                .id(id)
+                .header("header")
+                .description("description")
+                .text(text)
+                .keywords(Sets.newSet("java"))
+                .build();
+    }
+}
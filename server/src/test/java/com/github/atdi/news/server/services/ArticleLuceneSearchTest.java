@@ -0,0 +1,146 @@
+package com.github.atdi.news.server.services;
+
+import com.github.atdi.news.model.Article;
+import com.github.atdi.news.model.Author;
+import com.github.atdi.news.server.exceptions.NewsException;
+import com.github.atdi.news.server.services.repositories.ArticleJpaRepository;
+import org.apache.lucene.store.RAMDirectory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.internal.util.collections.Sets;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ArticleLuceneSearchTest {
+
+    @Mock
+    private ArticleJpaRepository articleJpaRepository;
+
+    private ArticleLuceneSearch articleLuceneSearch;
+
+    private Article elections;
+
+    private Article football;
+
+    @Before
+    public void setUp() throws Exception {
+        elections = article("Elections results",
+                "The votes were counted overnight",
+                "Parliament elections ended with a surprise winner.",
+                LocalDateTime.of(2015, 11, 10, 8, 0), "politics");
+        football = article("Football cup final",
+                "Late goal decides the final",
+                "The cup final was decided by a late goal after the elections break.",
+                LocalDateTime.of(2015, 11, 12, 8, 0), "sport", "politics");
+        when(articleJpaRepository.findAll(any(Pageable.class)))
+                .thenReturn(new PageImpl<>(Arrays.asList(elections, football)));
+        when(articleJpaRepository.findAll(anyListOf(String.class)))
+                .thenReturn(Arrays.asList(elections, football));
+        articleLuceneSearch = new ArticleLuceneSearch(articleJpaRepository,
+                new RAMDirectory(), 60);
+        articleLuceneSearch.open();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        articleLuceneSearch.close();
+    }
+
+    @Test
+    public void testSearchByTextRanksHeaderFirst() throws Exception {
+        Page<Article> page = articleLuceneSearch.searchByText(new PageRequest(0, 10), "election");
+        assertEquals(2, page.getTotalElements());
+        assertEquals(Arrays.asList(elections, football), page.getContent());
+    }
+
+    @Test
+    public void testSearchByPhrase() throws Exception {
+        Page<Article> page = articleLuceneSearch.searchByText(new PageRequest(0, 10), "\"late goal\"");
+        assertEquals(1, page.getTotalElements());
+        assertEquals(Collections.singletonList(football), page.getContent());
+        page = articleLuceneSearch.searchByText(new PageRequest(0, 10), "\"goal late\"");
+        assertEquals(0, page.getTotalElements());
+    }
+
+    @Test
+    public void testSearchByKeywordNewestFirst() throws Exception {
+        Page<Article> page = articleLuceneSearch.searchByKeyword(new PageRequest(0, 10), "politics");
+        assertEquals(2, page.getTotalElements());
+        assertEquals(Arrays.asList(football, elections), page.getContent());
+        page = articleLuceneSearch.searchByKeyword(new PageRequest(1, 1), "politics");
+        assertEquals(2, page.getTotalElements());
+        assertEquals(Collections.singletonList(elections), page.getContent());
+    }
+
+    @Test
+    public void testIndexUpdatedByEvents() throws Exception {
+        articleLuceneSearch.onApplicationEvent(ArticleEvent.deleted(this, football.getId()));
+        Article updated = elections.toBuilder().header("Referendum results").build();
+        articleLuceneSearch.onApplicationEvent(ArticleEvent.saved(this, updated));
+        when(articleJpaRepository.findAll(anyListOf(String.class)))
+                .thenReturn(Collections.singletonList(updated));
+        assertEquals(0, articleLuceneSearch.searchByText(new PageRequest(0, 10), "goal")
+                .getTotalElements());
+        List<Article> content = articleLuceneSearch
+                .searchByText(new PageRequest(0, 10), "referendum").getContent();
+        assertEquals(Collections.singletonList(updated), content);
+    }
+
+    @Test
+    public void testSearchByCriteria() throws Exception {
+        String authorId = football.getAuthors().iterator().next().getId();
+        when(articleJpaRepository.findAll(Collections.singletonList(football.getId())))
+                .thenReturn(Collections.singletonList(football));
+        Page<Article> page = articleLuceneSearch.searchByCriteria(new PageRequest(0, 10), ArticleCriteria.builder()
+                .keyword("politics")
+                .authorId(authorId)
+                .publishedFrom(LocalDateTime.of(2015, 11, 11, 0, 0))
+                .build());
+        assertEquals(1, page.getTotalElements());
+        assertEquals(Collections.singletonList(football), page.getContent());
+        page = articleLuceneSearch.searchByCriteria(new PageRequest(0, 10), ArticleCriteria.builder()
+                .text("elections")
+                .keyword("politics")
+                .publishedTo(LocalDateTime.of(2015, 11, 12, 8, 0))
+                .build());
+        assertEquals(2, page.getTotalElements());
+        assertEquals(0, articleLuceneSearch.searchByCriteria(new PageRequest(0, 10), ArticleCriteria.builder()
+                .keyword("sport")
+                .publishedTo(LocalDateTime.of(2015, 11, 11, 0, 0))
+                .build()).getTotalElements());
+    }
+
+    @Test(expected = NewsException.class)
+    public void testSearchByTextInvalidQuery() throws Exception {
+        articleLuceneSearch.searchByText(new PageRequest(0, 10), "\"unbalanced");
+    }
+
+    private static Article article(String header, String description, String text,
+                                   LocalDateTime publishDate, String... keywords) {
+        return Article.builder()
+                .id(UUID.randomUUID().toString())
+                .header(header)
+                .description(description)
+                .text(text)
+                .publishDate(publishDate)
+                .keywords(Sets.newSet(keywords))
+                .authors(Sets.newSet(Author.builder().id(UUID.randomUUID().toString()).build()))
+                .build();
+    }
+}
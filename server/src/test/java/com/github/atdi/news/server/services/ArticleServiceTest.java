@@ -2,12 +2,16 @@ package com.github.atdi.news.server.services;
 
 import com.github.atdi.news.model.Article;
 import com.github.atdi.news.server.services.repositories.ArticleJpaRepository;
+import com.github.atdi.news.server.services.repositories.VersionStamp;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentMatcher;
 import org.mockito.Mock;
 import org.mockito.internal.util.collections.Sets;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -29,6 +33,9 @@ public class ArticleServiceTest {
     @Mock
     private ArticleJpaRepository articleJpaRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     private ArticleService articleService;
 
 
@@ -36,7 +43,9 @@ public class ArticleServiceTest {
     public void setUp() {
         ArticleSearchService searchService = new ArticleJpaSearch(articleJpaRepository);
         articleService = new ArticleService(articleJpaRepository,
-                searchService);
+                searchService, eventPublisher, new RandomIdGenerator(),
+                new PublishCounts(articleJpaRepository),
+                new TrendingKeywords(10, 60000, 10, true));
     }
 
     @Test
@@ -57,6 +66,30 @@ public class ArticleServiceTest {
         when(articleJpaRepository.save(article)).thenReturn(article);
         Article savedInstance = articleService.save(article);
         assertEquals(article, savedInstance);
+        verify(eventPublisher).publishEvent(argThat(
+                new ArticleEventMatcher(ArticleEvent.Type.SAVED, article.getId())));
+    }
+
+    @Test
+    public void testSaveIncrementsVersion() throws Exception {
+        Article article = Article.builder()
+                .id(articleService.generateId())
+                .header("This is a test")
+                .description("This is a small article")
+                .keywords(Sets.<String>newSet("fire", "water"))
+                .text("Content")
+                .build();
+        when(articleJpaRepository.findStampForUpdate(article.getId()))
+                .thenReturn(new VersionStamp(4, null, 7));
+        when(articleJpaRepository.save(any(Article.class))).thenAnswer(
+                invocation -> invocation.getArguments()[0]);
+        Article savedInstance = articleService.save(article);
+        assertEquals(5, savedInstance.getVersion());
+        assertEquals(7, savedInstance.getGeneration());
+        Article created = articleService.save(article.toBuilder()
+                .id(articleService.generateId()).build());
+        assertEquals(1, created.getVersion());
+        assertNotEquals(0, created.getGeneration());
     }
 
     @Test
@@ -74,6 +107,8 @@ public class ArticleServiceTest {
         articleService.delete(id);
         Article deletedArticle = articleService.find(id);
         assertNull(deletedArticle);
+        verify(eventPublisher).publishEvent(argThat(
+                new ArticleEventMatcher(ArticleEvent.Type.DELETED, id)));
     }
 
     @Test
@@ -179,4 +214,37 @@ public class ArticleServiceTest {
         Page<Article> result = articleService.getAllByAuthor(pageable, id);
         assertEquals(2, result.getContent().size());
     }
+
+    @Test
+    public void testSearchByText() throws Exception {
+        Page<Article> page = mock(Page.class);
+        when(page.getContent()).
+                thenReturn(Arrays.asList(mock(Article.class)));
+        Pageable pageable = new PageRequest(0, 10);
+        when(articleJpaRepository.findByText(pageable, "%100\\% fire\\_%")).thenReturn(page);
+        Page<Article> result = articleService.searchByText(pageable, "100% Fire_");
+        assertEquals(1, result.getContent().size());
+    }
+
+    private static class ArticleEventMatcher extends ArgumentMatcher<ApplicationEvent> {
+
+        private final ArticleEvent.Type type;
+
+        private final String articleId;
+
+        ArticleEventMatcher(ArticleEvent.Type type, String articleId) {
+            this.type = type;
+            this.articleId = articleId;
+        }
+
+        @Override
+        public boolean matches(Object argument) {
+            if (!(argument instanceof ArticleEvent)) {
+                return false;
+            }
+            ArticleEvent event = (ArticleEvent) argument;
+            return event.getType() == type
+                    && articleId.equals(event.getArticleId());
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,287 @@
+package com.github.atdi.news.server.services;
+
+import com.github.atdi.news.model.Article;
+import com.github.atdi.news.model.BatchResult;
+import com.github.atdi.news.model.WriteStatus;
+import com.github.atdi.news.server.exceptions.NewsException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.internal.util.collections.Sets;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.invocation.InvocationOnMock;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ArticleWriteBehindTest {
+
+    @Mock
+    private ArticleBatchService articleBatchService;
+
+    private final List<List<Article>> batches = new ArrayList<>();
+
+    private final CountDownLatch saving = new CountDownLatch(1);
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private Path journalDirectory;
+
+    private Path journalPath;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() throws Exception {
+        journalDirectory = Files.createTempDirectory("journal");
+        journalPath = journalDirectory.resolve("articles");
+        when(articleBatchService.save(any(Iterator.class)))
+                .thenAnswer(invocation -> {
+                    List<BatchResult> results = created(batches, invocation);
+                    saving.countDown();
+                    release.await();
+                    return results;
+                });
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        release.countDown();
+        try (Stream<Path> files = Files.list(journalDirectory)) {
+            for (Path file : files.collect(Collectors.toList())) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(journalDirectory);
+    }
+
+    @Test
+    public void testSubmitWritesInBatches() throws Exception {
+        ArticleWriteBehind writeBehind = new ArticleWriteBehind(
+                articleBatchService, null, 10, 10, 0, 1, 10);
+        writeBehind.start();
+        Article first = article(UUID.randomUUID().toString(), "first");
+        WriteStatus queued = writeBehind.submit(first);
+        assertEquals(WriteStatus.State.QUEUED, queued.getState());
+        assertEquals(202, queued.getStatus());
+        assertTrue(saving.await(1, TimeUnit.SECONDS));
+        String id = UUID.randomUUID().toString();
+        writeBehind.submit(article(id, "older"));
+        writeBehind.submit(article(id, "newer"));
+        assertEquals(WriteStatus.State.QUEUED,
+                writeBehind.getStatus(first.getId()).getState());
+        release.countDown();
+        writeBehind.stop();
+        assertEquals(2, batches.size());
+        assertEquals(1, batches.get(1).size());
+        assertEquals("newer", batches.get(1).get(0).getHeader());
+        assertEquals(WriteStatus.State.SAVED,
+                writeBehind.getStatus(first.getId()).getState());
+        assertEquals(201, writeBehind.getStatus(id).getStatus());
+    }
+
+    @Test
+    public void testSubmitQueueFull() throws Exception {
+        ArticleWriteBehind writeBehind = new ArticleWriteBehind(
+                articleBatchService, null, 1, 10, 0, 1, 10);
+        writeBehind.start();
+        writeBehind.submit(article(UUID.randomUUID().toString(), "taken"));
+        assertTrue(saving.await(1, TimeUnit.SECONDS));
+        writeBehind.submit(article(UUID.randomUUID().toString(), "queued"));
+        try {
+            writeBehind.submit(article(UUID.randomUUID().toString(),
+                    "rejected"));
+            fail("Queue full expected");
+        } catch (NewsException e) {
+            assertEquals(429, e.getResponse().getStatus());
+        }
+        assertEquals(1, writeBehind.getQueued());
+        release.countDown();
+        writeBehind.stop();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testFailedBatchIsRetried() throws Exception {
+        reset(articleBatchService);
+        when(articleBatchService.save(any(Iterator.class)))
+                .thenThrow(new IllegalStateException("database down"));
+        ArticleWriteBehind writeBehind = new ArticleWriteBehind(
+                articleBatchService, null, 10, 10, 0, 2, 10);
+        writeBehind.start();
+        String id = UUID.randomUUID().toString();
+        writeBehind.submit(article(id, "header"));
+        writeBehind.stop();
+        // twice the batch, then the article alone
+        verify(articleBatchService, times(3)).save(any(Iterator.class));
+        assertEquals(WriteStatus.State.FAILED,
+                writeBehind.getStatus(id).getState());
+        assertEquals(500, writeBehind.getStatus(id).getStatus());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testFailingArticleIsolated() throws Exception {
+        reset(articleBatchService);
+        when(articleBatchService.save(any(Iterator.class)))
+                .thenAnswer(invocation -> {
+                    List<BatchResult> results = created(batches, invocation);
+                    List<Article> batch = batches.get(batches.size() - 1);
+                    if (batch.size() > 1 || "bad".equals(
+                            batch.get(0).getHeader())) {
+                        throw new IllegalStateException("bad article");
+                    }
+                    return results;
+                });
+        ArticleJournal journal = new ArticleJournal(journalPath, false, 10);
+        ArticleWriteBehind writeBehind = new ArticleWriteBehind(
+                articleBatchService, journal, 10, 10, 1000, 1, 10);
+        writeBehind.start();
+        String good = submit(writeBehind, "good");
+        String bad = submit(writeBehind, "bad");
+        writeBehind.stop();
+        assertEquals(WriteStatus.State.SAVED,
+                writeBehind.getStatus(good).getState());
+        assertEquals(WriteStatus.State.FAILED,
+                writeBehind.getStatus(bad).getState());
+        // the failed article is kept in the journal
+        assertEquals(1, journal.getSegments());
+    }
+
+    @Test
+    public void testFailedSyncReportedInStatus() throws Exception {
+        release.countDown();
+        ArticleJournal journal = mock(ArticleJournal.class);
+        doThrow(new IOException("disk full")).when(journal).sync();
+        ArticleWriteBehind writeBehind = new ArticleWriteBehind(
+                articleBatchService, journal, 10, 10, 0, 1, 10);
+        writeBehind.start();
+        String id = UUID.randomUUID().toString();
+        WriteStatus queued = writeBehind.submit(article(id, "header"));
+        assertEquals(202, queued.getStatus());
+        assertNotNull(queued.getMessage());
+        writeBehind.stop();
+        // queued all the same, the answer holds
+        assertEquals(WriteStatus.State.SAVED,
+                writeBehind.getStatus(id).getState());
+    }
+
+    @Test
+    public void testWrittenSegmentsDeleted() throws Exception {
+        release.countDown();
+        ArticleJournal journal = new ArticleJournal(journalPath, true, 2);
+        ArticleWriteBehind writeBehind = new ArticleWriteBehind(
+                articleBatchService, journal, 10, 2, 0, 1, 10);
+        writeBehind.start();
+        for (int i = 0; i < 7; i++) {
+            submit(writeBehind, "header" + i);
+        }
+        writeBehind.stop();
+        assertEquals(0, journal.getSegments());
+        try (Stream<Path> files = Files.list(journalDirectory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testRejectedArticle() throws Exception {
+        reset(articleBatchService);
+        String id = UUID.randomUUID().toString();
+        when(articleBatchService.save(any(Iterator.class))).thenReturn(
+                Collections.singletonList(BatchResult.builder()
+                        .id(id)
+                        .status(400)
+                        .message("Author not found")
+                        .build()));
+        ArticleWriteBehind writeBehind = new ArticleWriteBehind(
+                articleBatchService, null, 10, 10, 0, 1, 10);
+        writeBehind.start();
+        writeBehind.submit(article(id, "header"));
+        writeBehind.stop();
+        WriteStatus status = writeBehind.getStatus(id);
+        assertEquals(WriteStatus.State.REJECTED, status.getState());
+        assertEquals("Author not found", status.getMessage());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testJournalReplayedOnStart() throws Exception {
+        ArticleWriteBehind crashed = new ArticleWriteBehind(
+                articleBatchService,
+                new ArticleJournal(journalPath, true, 10), 10, 10, 0, 1, 10);
+        crashed.start();
+        submit(crashed, "taken");
+        assertTrue(saving.await(1, TimeUnit.SECONDS));
+        String id = submit(crashed, "journaled");
+
+        ArticleBatchService restarted = mock(ArticleBatchService.class);
+        List<List<Article>> replayed = new ArrayList<>();
+        when(restarted.save(any(Iterator.class))).thenAnswer(invocation ->
+                created(replayed, invocation));
+        ArticleJournal journal = new ArticleJournal(journalPath, false, 10);
+        ArticleWriteBehind writeBehind = new ArticleWriteBehind(restarted,
+                journal, 10, 10, 0, 1, 10);
+        writeBehind.start();
+        writeBehind.stop();
+        assertEquals(1, replayed.size());
+        assertEquals(2, replayed.get(0).size());
+        assertEquals("journaled", replayed.get(0).get(1).getHeader());
+        assertEquals(WriteStatus.State.SAVED,
+                writeBehind.getStatus(id).getState());
+        assertEquals(0, journal.getSegments());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<BatchResult> created(
+            final List<List<Article>> batches,
+            final InvocationOnMock invocation) {
+        List<Article> batch = new ArrayList<>();
+        ((Iterator<Article>) invocation.getArguments()[0])
+                .forEachRemaining(batch::add);
+        synchronized (batches) {
+            batches.add(batch);
+        }
+        List<BatchResult> results = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            results.add(BatchResult.builder()
+                    .index(i)
+                    .id(batch.get(i).getId())
+                    .status(201)
+                    .build());
+        }
+        return results;
+    }
+
+    private static String submit(final ArticleWriteBehind writeBehind,
+                                 final String header) {
+        String id = UUID.randomUUID().toString();
+        writeBehind.submit(article(id, header));
+        return id;
+    }
+
+    private static Article article(final String id, final String header) {
+        return Article.builder()
+                .id(id)
+                .header(header)
+                .description("description")
+                .text("text")
+                .keywords(Sets.newSet("java"))
+                .build();
+    }
+}
@@ -8,6 +8,7 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.runners.MockitoJUnitRunner;
 
 import java.util.UUID;
@@ -25,6 +26,9 @@ public class AuthorServiceTest {
     @Mock
     private AuthorJpaRepository authorJpaRepository;
 
+    @Spy
+    private IdGenerator idGenerator = new RandomIdGenerator();
+
     @InjectMocks
     private AuthorService authorService;
 
@@ -46,6 +50,19 @@ public class AuthorServiceTest {
         assertEquals(author, savedAuthor);
     }
 
+    @Test
+    public void testSaveIncrementsVersion() throws Exception {
+        String id = UUID.randomUUID().toString();
+        Author author = Author.builder()
+                .lastName("Krieger")
+                .firstName("Max")
+                .id(id).build();
+        when(authorJpaRepository.findVersionForUpdate(id)).thenReturn(2L);
+        when(authorJpaRepository.save(any(Author.class))).thenAnswer(
+                invocation -> invocation.getArguments()[0]);
+        assertEquals(3, authorService.save(author).getVersion());
+    }
+
     @Test
     public void testFind() throws Exception {
         String id = UUID.randomUUID().toString();
@@ -0,0 +1,55 @@
+package com.github.atdi.news.server.services;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.Assert.*;
+
+public class BoundedExecutorTest {
+
+    private final List<Runnable> submitted = new ArrayList<>();
+
+    private final BoundedExecutor executor =
+            new BoundedExecutor(submitted::add, 2);
+
+    @Test
+    public void testExecute() {
+        executor.execute(() -> { });
+        executor.execute(() -> { });
+        assertEquals(2, submitted.size());
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void testRejected() {
+        executor.execute(() -> { });
+        executor.execute(() -> { });
+        executor.execute(() -> { });
+    }
+
+    @Test
+    public void testReleasedAfterRun() {
+        executor.execute(() -> { });
+        executor.execute(() -> { });
+        submitted.remove(0).run();
+        executor.execute(() -> { });
+        assertEquals(2, submitted.size());
+    }
+
+    @Test
+    public void testReleasedAfterFailure() {
+        executor.execute(() -> {
+            throw new IllegalStateException();
+        });
+        try {
+            submitted.remove(0).run();
+            fail();
+        } catch (IllegalStateException e) {
+            executor.execute(() -> { });
+            executor.execute(() -> { });
+            assertEquals(2, submitted.size());
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.github.atdi.news.server.services;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class KeywordIndexTest {
+
+    private KeywordIndex keywordIndex;
+
+    private final LocalDateTime now = LocalDateTime.of(2015, 11, 20, 10, 0, 0);
+
+    @Before
+    public void setUp() {
+        keywordIndex = new KeywordIndex();
+    }
+
+    @Test
+    public void testFindNewestFirst() throws Exception {
+        keywordIndex.put("a", now.minusDays(2), Arrays.asList("java", "php"));
+        keywordIndex.put("b", now, Arrays.asList("java"));
+        keywordIndex.put("c", now.minusDays(1), Arrays.asList("java"));
+        assertEquals(3, keywordIndex.count("java"));
+        assertEquals(1, keywordIndex.count("php"));
+        assertEquals(Arrays.asList("b", "c", "a"), keywordIndex.find("java", 0, 10));
+        assertEquals(Arrays.asList("c"), keywordIndex.find("java", 1, 1));
+        assertEquals(Collections.emptyList(), keywordIndex.find("java", 3, 10));
+        assertEquals(Collections.emptyList(), keywordIndex.find("scala", 0, 10));
+    }
+
+    @Test
+    public void testFindPublishedInRange() throws Exception {
+        keywordIndex.put("a", now.minusDays(2), Arrays.asList("java"));
+        keywordIndex.put("b", now, Arrays.asList("java"));
+        keywordIndex.put("c", now.minusDays(1), Arrays.asList("java"));
+        keywordIndex.put("d", null, Arrays.asList("java"));
+        long from = time(now.minusDays(1));
+        long to = time(now);
+        assertEquals(2, keywordIndex.count("java", from, to));
+        assertEquals(Arrays.asList("b", "c"), keywordIndex.find("java", from, to, 0, 10));
+        assertEquals(Arrays.asList("c"), keywordIndex.find("java", from, to, 1, 10));
+        assertEquals(Arrays.asList("c", "a"), keywordIndex.find("java", Long.MIN_VALUE + 1, from, 0, 10));
+        assertEquals(4, keywordIndex.count("java", Long.MIN_VALUE, Long.MAX_VALUE));
+        assertEquals(0, keywordIndex.count("java", to + 1, Long.MAX_VALUE));
+        assertEquals(Collections.emptyList(), keywordIndex.find("java", to + 1, Long.MAX_VALUE, 0, 10));
+        assertEquals(0, keywordIndex.count("scala", from, to));
+    }
+
+    @Test
+    public void testPutReplacesKeywordsAndDate() throws Exception {
+        keywordIndex.put("a", now.minusDays(2), Arrays.asList("java", "php"));
+        keywordIndex.put("b", now.minusDays(1), Arrays.asList("java"));
+        keywordIndex.put("a", now, Arrays.asList("java", "scala"));
+        assertEquals(0, keywordIndex.count("php"));
+        assertEquals(Arrays.asList("a"), keywordIndex.find("scala", 0, 10));
+        assertEquals(Arrays.asList("a", "b"), keywordIndex.find("java", 0, 10));
+        assertEquals(2, keywordIndex.size());
+    }
+
+    @Test
+    public void testRemoveReusesDocument() throws Exception {
+        keywordIndex.put("a", now, Arrays.asList("java"));
+        keywordIndex.put("b", now, Arrays.asList("java"));
+        keywordIndex.remove("a");
+        keywordIndex.remove("unknown");
+        assertEquals(Arrays.asList("b"), keywordIndex.find("java", 0, 10));
+        keywordIndex.put("c", null, Arrays.asList("java"));
+        assertEquals(Arrays.asList("b", "c"), keywordIndex.find("java", 0, 10));
+        assertEquals(2, keywordIndex.size());
+    }
+
+    @Test
+    public void testGrow() throws Exception {
+        for (int i = 0; i < 5000; i++) {
+            keywordIndex.put("id" + i, now.plusSeconds(i), Arrays.asList("java"));
+        }
+        assertEquals(5000, keywordIndex.count("java"));
+        assertEquals(Arrays.asList("id4999", "id4998"), keywordIndex.find("java", 0, 2));
+        keywordIndex.clear();
+        assertEquals(0, keywordIndex.count("java"));
+        assertEquals(0, keywordIndex.size());
+    }
+
+    private static long time(final LocalDateTime date) {
+        return date.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+}
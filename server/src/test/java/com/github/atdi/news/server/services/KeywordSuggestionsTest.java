@@ -0,0 +1,74 @@
+package com.github.atdi.news.server.services;
+
+import com.github.atdi.news.model.Article;
+import com.github.atdi.news.model.KeywordCount;
+import com.github.atdi.news.server.services.repositories.ArticleJpaRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.internal.util.collections.Sets;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class KeywordSuggestionsTest {
+
+    @Mock
+    private ArticleJpaRepository articleJpaRepository;
+
+    private KeywordSuggestions keywordSuggestions;
+
+    @Before
+    public void setUp() {
+        when(articleJpaRepository.findAllKeywords()).thenReturn(Arrays.asList(
+                new Object[]{"a", "java"},
+                new Object[]{"a", "php"},
+                new Object[]{"b", "java"},
+                new Object[]{"c", "javascript"}));
+        keywordSuggestions = new KeywordSuggestions(articleJpaRepository);
+        keywordSuggestions.rebuild();
+    }
+
+    @Test
+    public void testSuggestLoadedKeywords() {
+        List<KeywordCount> keywords = keywordSuggestions.suggest("ja", 10);
+        assertEquals(2, keywords.size());
+        assertEquals("java", keywords.get(0).getKeyword());
+        assertEquals(2, keywords.get(0).getCount());
+        assertEquals("javascript", keywords.get(1).getKeyword());
+    }
+
+    @Test
+    public void testSavedArticleMovesKeywords() {
+        keywordSuggestions.onApplicationEvent(ArticleEvent.saved(this, article("a", "php", "javascript")));
+        keywordSuggestions.onApplicationEvent(ArticleEvent.saved(this, article("d", "javascript")));
+        List<KeywordCount> keywords = keywordSuggestions.suggest("ja", 10);
+        assertEquals("javascript", keywords.get(0).getKeyword());
+        assertEquals(3, keywords.get(0).getCount());
+        assertEquals("java", keywords.get(1).getKeyword());
+        assertEquals(1, keywords.get(1).getCount());
+        assertEquals(1, keywordSuggestions.suggest("p", 10).get(0).getCount());
+    }
+
+    @Test
+    public void testDeletedArticleRemovesKeywords() {
+        keywordSuggestions.onApplicationEvent(ArticleEvent.deleted(this, "a"));
+        keywordSuggestions.onApplicationEvent(ArticleEvent.deleted(this, "unknown"));
+        assertTrue(keywordSuggestions.suggest("p", 10).isEmpty());
+        assertEquals(1, keywordSuggestions.suggest("java", 1).get(0).getCount());
+    }
+
+    private static Article article(final String id, final String... keywords) {
+        return Article.builder()
+                .id(id)
+                .header("header")
+                .keywords(Sets.newSet(keywords))
+                .build();
+    }
+}
@@ -0,0 +1,109 @@
+package com.github.atdi.news.server.services;
+
+import com.github.atdi.news.model.KeywordCount;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class KeywordTrieTest {
+
+    private KeywordTrie trie;
+
+    @Before
+    public void setUp() {
+        trie = new KeywordTrie();
+        add("java", 5);
+        add("javascript", 3);
+        add("jar", 1);
+        add("jaxb", 3);
+        add("php", 2);
+    }
+
+    @Test
+    public void testSuggestByWeight() {
+        assertEquals(Arrays.asList("java", "javascript", "jaxb", "jar"), keywords("ja", 10));
+        assertEquals(5, trie.suggest("ja", 1).get(0).getCount());
+        assertEquals(Arrays.asList("java", "javascript"), keywords("jav", 10));
+        assertEquals(Arrays.asList("javascript"), keywords("javas", 10));
+        assertEquals(Arrays.asList("java", "javascript", "jaxb"), keywords("", 3));
+    }
+
+    @Test
+    public void testSuggestUnknownPrefix() {
+        assertTrue(trie.suggest("py", 10).isEmpty());
+        assertTrue(trie.suggest("jb", 10).isEmpty());
+        assertTrue(trie.suggest("javax", 10).isEmpty());
+        assertTrue(trie.suggest("Java", 10).isEmpty());
+    }
+
+    @Test
+    public void testRemoveKeywords() {
+        assertEquals(5, trie.size());
+        add("java", -5);
+        assertEquals(Arrays.asList("javascript"), keywords("jav", 10));
+        add("jar", -1);
+        add("jaxb", -3);
+        assertEquals(2, trie.size());
+        assertEquals(Arrays.asList("javascript"), keywords("ja", 10));
+        add("unknown", -1);
+        add("javas", -1);
+        assertEquals(2, trie.size());
+        add("java", 1);
+        assertEquals(Arrays.asList("javascript", "java"), keywords("j", 10));
+    }
+
+    @Test
+    public void testClear() {
+        trie.clear();
+        assertEquals(0, trie.size());
+        assertTrue(trie.suggest("", 10).isEmpty());
+    }
+
+    @Test
+    public void testMatchesFullScan() {
+        trie.clear();
+        Map<String, Integer> weights = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 5000; i++) {
+            String keyword = Integer.toString(random.nextInt(2000), 36);
+            int delta = 1;
+            if (random.nextInt(4) == 0) {
+                delta = -1;
+            }
+            int weight = Math.max(0, weights.getOrDefault(keyword, 0) + delta);
+            weights.put(keyword, weight);
+            trie.add(keyword, delta);
+        }
+        for (String prefix : new String[]{"", "1", "a", "1a", "z"}) {
+            List<String> expected = weights.entrySet().stream()
+                    .filter(entry -> entry.getValue() > 0 && entry.getKey().startsWith(prefix))
+                    .sorted(Map.Entry.<String, Integer>comparingByValue().reversed()
+                            .thenComparing(Map.Entry.comparingByKey()))
+                    .limit(10)
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toList());
+            assertEquals(expected, keywords(prefix, 10));
+        }
+    }
+
+    private void add(final String keyword, final int delta) {
+        trie.add(keyword, delta);
+    }
+
+    private List<String> keywords(final String prefix, final int limit) {
+        List<String> keywords = new ArrayList<>();
+        for (KeywordCount count : trie.suggest(prefix, limit)) {
+            keywords.add(count.getKeyword());
+        }
+        return keywords;
+    }
+}
@@ -0,0 +1,106 @@
+package com.github.atdi.news.server.services;
+
+import com.github.atdi.news.model.Article;
+import com.github.atdi.news.model.DateBucket;
+import com.github.atdi.news.model.DateHistogram;
+import com.github.atdi.news.server.services.repositories.ArticleJpaRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class PublishCountsTest {
+
+    private static final LocalDateTime FROM = LocalDateTime.of(2015, 11, 1, 0, 0);
+
+    private static final LocalDateTime TO = LocalDateTime.of(2015, 11, 3, 0, 0);
+
+    @Mock
+    private ArticleJpaRepository articleJpaRepository;
+
+    private PublishCounts publishCounts;
+
+    @Before
+    public void setUp() {
+        when(articleJpaRepository.findAllPublishDates()).thenReturn(Arrays.asList(
+                new Object[]{"a", LocalDateTime.of(2015, 11, 1, 10, 15)},
+                new Object[]{"b", LocalDateTime.of(2015, 11, 1, 10, 45)},
+                new Object[]{"c", LocalDateTime.of(2015, 11, 2, 23, 59)},
+                new Object[]{"d", null}));
+        publishCounts = new PublishCounts(articleJpaRepository);
+        publishCounts.rebuild();
+    }
+
+    @Test
+    public void testHourlyHistogram() {
+        DateHistogram histogram = publishCounts.histogram(FROM, TO, ChronoUnit.HOURS);
+        assertEquals("hour", histogram.getBucket());
+        assertEquals(3, histogram.getTotal());
+        assertEquals(2, histogram.getBuckets().size());
+        assertBucket(LocalDateTime.of(2015, 11, 1, 10, 0), 2, histogram.getBuckets().get(0));
+        assertBucket(LocalDateTime.of(2015, 11, 2, 23, 0), 1, histogram.getBuckets().get(1));
+    }
+
+    @Test
+    public void testDailyHistogram() {
+        DateHistogram histogram = publishCounts.histogram(FROM, TO, ChronoUnit.DAYS);
+        assertEquals("day", histogram.getBucket());
+        assertEquals(3, histogram.getTotal());
+        assertBucket(FROM, 2, histogram.getBuckets().get(0));
+        assertBucket(LocalDateTime.of(2015, 11, 2, 0, 0), 1, histogram.getBuckets().get(1));
+    }
+
+    @Test
+    public void testBucketsCountedWhole() {
+        DateHistogram histogram = publishCounts.histogram(LocalDateTime.of(2015, 11, 1, 10, 30),
+                LocalDateTime.of(2015, 11, 1, 10, 31), ChronoUnit.HOURS);
+        assertEquals(2, histogram.getTotal());
+        histogram = publishCounts.histogram(LocalDateTime.of(2015, 11, 1, 11, 0), TO.minusHours(1),
+                ChronoUnit.HOURS);
+        assertEquals(0, histogram.getTotal());
+        assertTrue(histogram.getBuckets().isEmpty());
+    }
+
+    @Test
+    public void testUpdateMovesArticle() {
+        publishCounts.onApplicationEvent(ArticleEvent.saved(this, article("a",
+                LocalDateTime.of(2015, 11, 2, 8, 0))));
+        publishCounts.onApplicationEvent(ArticleEvent.saved(this, article("e",
+                LocalDateTime.of(2015, 11, 2, 8, 30))));
+        DateHistogram histogram = publishCounts.histogram(FROM, TO, ChronoUnit.HOURS);
+        assertEquals(4, histogram.getTotal());
+        assertBucket(LocalDateTime.of(2015, 11, 1, 10, 0), 1, histogram.getBuckets().get(0));
+        assertBucket(LocalDateTime.of(2015, 11, 2, 8, 0), 2, histogram.getBuckets().get(1));
+    }
+
+    @Test
+    public void testDeleteRemovesArticle() {
+        publishCounts.onApplicationEvent(ArticleEvent.deleted(this, "c"));
+        publishCounts.onApplicationEvent(ArticleEvent.deleted(this, "d"));
+        DateHistogram histogram = publishCounts.histogram(FROM, TO, ChronoUnit.DAYS);
+        assertEquals(2, histogram.getTotal());
+        assertEquals(1, histogram.getBuckets().size());
+    }
+
+    private static void assertBucket(final LocalDateTime start, final long count, final DateBucket bucket) {
+        assertEquals(start, bucket.getStart());
+        assertEquals(count, bucket.getCount());
+    }
+
+    private static Article article(final String id, final LocalDateTime publishDate) {
+        return Article.builder()
+                .id(id)
+                .header("header")
+                .publishDate(publishDate)
+                .build();
+    }
+}
@@ -0,0 +1,87 @@
+package com.github.atdi.news.server.services;
+
+import com.github.atdi.news.server.exceptions.NewsException;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.TimeoutHandler;
+import javax.ws.rs.core.Response;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SearchExecutorTest {
+
+    @Mock
+    private AsyncResponse asyncResponse;
+
+    private final SearchExecutor searchExecutor =
+            new SearchExecutor(Runnable::run, 1000);
+
+    @Before
+    public void setUp() {
+        when(asyncResponse.isSuspended()).thenReturn(true);
+    }
+
+    @Test
+    public void testExecute() {
+        searchExecutor.execute(asyncResponse, () -> "result");
+        verify(asyncResponse).setTimeout(1000, TimeUnit.MILLISECONDS);
+        verify(asyncResponse).resume((Object) "result");
+    }
+
+    @Test
+    public void testSearchFailure() {
+        IllegalStateException failure = new IllegalStateException();
+        searchExecutor.execute(asyncResponse, () -> {
+            throw failure;
+        });
+        verify(asyncResponse).resume(failure);
+    }
+
+    @Test
+    public void testTimeout() {
+        ArgumentCaptor<TimeoutHandler> handler =
+                ArgumentCaptor.forClass(TimeoutHandler.class);
+        searchExecutor.execute(asyncResponse, () -> "result");
+        verify(asyncResponse).setTimeoutHandler(handler.capture());
+        handler.getValue().handleTimeout(asyncResponse);
+        assertEquals(Response.Status.SERVICE_UNAVAILABLE.getStatusCode(),
+                resumedStatus());
+    }
+
+    @Test
+    public void testRejected() {
+        SearchExecutor saturated = new SearchExecutor(runnable -> {
+            throw new RejectedExecutionException();
+        }, 1000);
+        saturated.execute(asyncResponse, () -> "result");
+        verify(asyncResponse, never()).resume(any(Object.class));
+        assertEquals(Response.Status.SERVICE_UNAVAILABLE.getStatusCode(),
+                resumedStatus());
+    }
+
+    @Test
+    public void testSkippedAfterTimeout() {
+        when(asyncResponse.isSuspended()).thenReturn(false);
+        searchExecutor.execute(asyncResponse, () -> {
+            throw new AssertionError("search ran after the timeout");
+        });
+        verify(asyncResponse, never()).resume(any(Object.class));
+        verify(asyncResponse, never()).resume(any(Throwable.class));
+    }
+
+    private int resumedStatus() {
+        ArgumentCaptor<Throwable> error = ArgumentCaptor.forClass(Throwable.class);
+        verify(asyncResponse).resume(error.capture());
+        return ((NewsException) error.getValue()).getResponse().getStatus();
+    }
+}
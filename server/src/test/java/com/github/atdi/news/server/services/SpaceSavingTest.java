@@ -0,0 +1,87 @@
+package com.github.atdi.news.server.services;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class SpaceSavingTest {
+
+    @Test
+    public void testCountsExactlyBelowCapacity() {
+        SpaceSaving summary = new SpaceSaving(3);
+        add(summary, "java", 3);
+        add(summary, "php", 1);
+        add(summary, "go", 2);
+        Map<String, SpaceSaving.Counter> counters = counters(summary);
+        assertEquals(3, counters.get("java").getCount());
+        assertEquals(1, counters.get("php").getCount());
+        assertEquals(2, counters.get("go").getCount());
+        assertEquals(0, counters.get("go").getError());
+        assertEquals(0, summary.missingCount());
+    }
+
+    @Test
+    public void testNewKeyReplacesLeastCounted() {
+        SpaceSaving summary = new SpaceSaving(2);
+        add(summary, "java", 3);
+        add(summary, "php", 1);
+        summary.add("go");
+        Map<String, SpaceSaving.Counter> counters = counters(summary);
+        assertFalse(counters.containsKey("php"));
+        assertEquals(2, counters.get("go").getCount());
+        assertEquals(1, counters.get("go").getError());
+        assertEquals(2, summary.missingCount());
+    }
+
+    @Test
+    public void testHeavyHittersKept() {
+        SpaceSaving summary = new SpaceSaving(10);
+        Map<String, Integer> exact = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 10000; i++) {
+            String key;
+            if (i % 4 == 0) {
+                key = "hot";
+            } else if (i % 10 == 1) {
+                key = "warm";
+            } else {
+                key = "cold" + random.nextInt(1000);
+            }
+            summary.add(key);
+            exact.merge(key, 1, Integer::sum);
+        }
+        Map<String, SpaceSaving.Counter> counters = counters(summary);
+        assertEquals(10, counters.size());
+        for (String key : new String[]{"hot", "warm"}) {
+            SpaceSaving.Counter counter = counters.get(key);
+            assertTrue(counter.getCount() >= exact.get(key));
+            assertTrue(counter.getCount() - counter.getError() <= exact.get(key));
+        }
+    }
+
+    @Test
+    public void testClear() {
+        SpaceSaving summary = new SpaceSaving(1);
+        add(summary, "java", 2);
+        summary.clear();
+        summary.add("php");
+        assertEquals(1, counters(summary).get("php").getCount());
+        assertEquals(1, counters(summary).size());
+    }
+
+    private static void add(final SpaceSaving summary, final String key, final int times) {
+        for (int i = 0; i < times; i++) {
+            summary.add(key);
+        }
+    }
+
+    private static Map<String, SpaceSaving.Counter> counters(final SpaceSaving summary) {
+        Map<String, SpaceSaving.Counter> counters = new HashMap<>();
+        summary.forEach(counters::put);
+        return counters;
+    }
+}
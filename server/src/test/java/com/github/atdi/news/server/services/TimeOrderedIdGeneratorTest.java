@@ -0,0 +1,71 @@
+package com.github.atdi.news.server.services;
+
+import com.github.atdi.news.server.util.UUIDUtils;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class TimeOrderedIdGeneratorTest {
+
+    @Test
+    public void testGenerateId() {
+        long now = System.currentTimeMillis();
+        String id = new TimeOrderedIdGenerator(() -> now).generateId();
+        UUIDUtils.checkUUID(id);
+        UUID uuid = UUID.fromString(id);
+        assertEquals(7, uuid.version());
+        assertEquals(2, uuid.variant());
+        assertEquals(now, uuid.getMostSignificantBits() >>> 16);
+    }
+
+    @Test
+    public void testIdsIncrease() {
+        AtomicLong clock = new AtomicLong(1000);
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(clock::get);
+        String previous = generator.generateId();
+        // same millisecond, past the sequence capacity, and clock going back
+        for (int i = 0; i < 10000; i++) {
+            if (i == 5000) {
+                clock.set(10);
+            }
+            String id = generator.generateId();
+            assertTrue(previous + " < " + id, id.compareTo(previous) > 0);
+            previous = id;
+        }
+        clock.set(System.currentTimeMillis());
+        assertTrue(generator.generateId().compareTo(previous) > 0);
+    }
+
+    @Test
+    public void testUniqueAcrossThreads() throws Exception {
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator();
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 10000; i++) {
+                        ids.add(generator.generateId());
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(40000, ids.size());
+    }
+}
@@ -0,0 +1,101 @@
+package com.github.atdi.news.server.services;
+
+import com.github.atdi.news.model.Article;
+import com.github.atdi.news.model.KeywordCount;
+import com.github.atdi.news.server.exceptions.NewsException;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.internal.util.collections.Sets;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class TrendingKeywordsTest {
+
+    private static final long SLOT = 60000;
+
+    private final AtomicLong clock = new AtomicLong(SLOT * 1000);
+
+    private TrendingKeywords trendingKeywords;
+
+    @Before
+    public void setUp() {
+        trendingKeywords = new TrendingKeywords(2, SLOT, 10, true, clock::get);
+    }
+
+    @Test
+    public void testSavedKeywordsCounted() {
+        save("java", "php");
+        save("java");
+        List<KeywordCount> top = trendingKeywords.getTop(SLOT, 10);
+        assertEquals(2, top.size());
+        assertCount("java", 2, 0, top.get(0));
+        assertCount("php", 1, 0, top.get(1));
+    }
+
+    @Test
+    public void testDeletesNotCounted() {
+        trendingKeywords.onApplicationEvent(ArticleEvent.deleted(this, "a"));
+        assertTrue(trendingKeywords.getTop(SLOT, 10).isEmpty());
+    }
+
+    @Test
+    public void testQueriesCounted() {
+        trendingKeywords.recordQuery("java");
+        assertCount("java", 1, 0, trendingKeywords.getTop(SLOT, 10).get(0));
+        trendingKeywords = new TrendingKeywords(2, SLOT, 10, false, clock::get);
+        trendingKeywords.recordQuery("java");
+        assertTrue(trendingKeywords.getTop(SLOT, 10).isEmpty());
+    }
+
+    @Test
+    public void testWindowSlides() {
+        save("php");
+        clock.addAndGet(SLOT);
+        save("java");
+        assertEquals(1, trendingKeywords.getTop(SLOT, 10).size());
+        assertEquals(2, trendingKeywords.getTop(2 * SLOT, 10).size());
+        clock.addAndGet(10 * SLOT);
+        save("go");
+        List<KeywordCount> top = trendingKeywords.getTop(10 * SLOT, 10);
+        assertEquals(1, top.size());
+        assertCount("go", 1, 0, top.get(0));
+    }
+
+    @Test
+    public void testMergedSlotsBoundCounts() {
+        save("java", "php");
+        save("java");
+        save("go");
+        clock.addAndGet(SLOT);
+        save("php", "go");
+        List<KeywordCount> top = trendingKeywords.getTop(2 * SLOT, 2);
+        assertEquals(2, top.size());
+        // go took over the counter of php in the first slot, php may
+        // have occurred there as many times as the least counted keyword
+        assertCount("go", 3, 1, top.get(0));
+        assertCount("php", 3, 2, top.get(1));
+        assertCount("java", 2, 0, trendingKeywords.getTop(2 * SLOT, 3).get(2));
+    }
+
+    @Test(expected = NewsException.class)
+    public void testWindowTooLong() {
+        trendingKeywords.getTop(11 * SLOT, 10);
+    }
+
+    private void save(final String... keywords) {
+        trendingKeywords.onApplicationEvent(ArticleEvent.saved(this, Article.builder()
+                .id("a")
+                .keywords(Sets.newSet(keywords))
+                .build()));
+    }
+
+    private static void assertCount(final String keyword, final long count, final long error,
+                                    final KeywordCount keywordCount) {
+        assertEquals(keyword, keywordCount.getKeyword());
+        assertEquals(count, keywordCount.getCount());
+        assertEquals(error, keywordCount.getError());
+    }
+}
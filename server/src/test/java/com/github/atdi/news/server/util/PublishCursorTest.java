@@ -0,0 +1,43 @@
+package com.github.atdi.news.server.util;
+
+import com.github.atdi.news.server.exceptions.NewsException;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.junit.Assert.*;
+
+public class PublishCursorTest {
+
+    @Test
+    public void testEncodeDecode() {
+        PublishCursor cursor = new PublishCursor(
+                LocalDateTime.of(2015, 11, 13, 10, 15, 30, 123000000),
+                "3897c18c-e5a6-4cbb-85be-b3226c850200");
+        String token = cursor.encode();
+        assertFalse(token.contains("="));
+        assertEquals(cursor, PublishCursor.decode(token));
+    }
+
+    @Test
+    public void testAt() {
+        LocalDateTime date = LocalDateTime.of(2015, 11, 13, 10, 0);
+        PublishCursor cursor = PublishCursor.at(date);
+        assertEquals(date, cursor.getPublishDate());
+        assertEquals("", cursor.getId());
+        assertEquals(cursor, PublishCursor.decode(cursor.encode()));
+    }
+
+    @Test(expected = NewsException.class)
+    public void testDecodeInvalidBase64() {
+        PublishCursor.decode("not a cursor");
+    }
+
+    @Test(expected = NewsException.class)
+    public void testDecodeInvalidDate() {
+        PublishCursor.decode(Base64.getUrlEncoder().encodeToString(
+                "yesterday|id".getBytes(StandardCharsets.UTF_8)));
+    }
+}
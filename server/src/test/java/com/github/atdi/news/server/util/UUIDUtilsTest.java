@@ -3,6 +3,8 @@ package com.github.atdi.news.server.util;
 import com.github.atdi.news.server.exceptions.NewsException;
 import org.junit.Test;
 
+import java.util.UUID;
+
 import static org.junit.Assert.*;
 
 /**
@@ -21,4 +23,34 @@ public class UUIDUtilsTest {
         String uuid = "3897c18c-e5a6-4cbb-85be-b3226c850200";
         UUIDUtils.checkUUID(uuid);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testIsUUID() {
+        assertTrue(UUIDUtils.isUUID("3897C18C-E5A6-3CBB-95BE-B3226C850200"));
+        assertFalse(UUIDUtils.isUUID(null));
+        assertFalse(UUIDUtils.isUUID("3897c18c-e5a6-4cbb-85be-b3226c85020"));
+        assertFalse(UUIDUtils.isUUID("3897c18c-e5a6-4cbb-85be-b3226c8502000"));
+        assertFalse(UUIDUtils.isUUID("3897c18ce-5a6-4cbb-85be-b3226c850200"));
+        assertFalse(UUIDUtils.isUUID("3897c18c-e5a6-4cbb-85be-b3226c85020g"));
+        // version
+        assertFalse(UUIDUtils.isUUID("3897c18c-e5a6-1cbb-85be-b3226c850200"));
+        // variant
+        assertFalse(UUIDUtils.isUUID("3897c18c-e5a6-4cbb-c5be-b3226c850200"));
+        assertFalse(UUIDUtils.isUUID("3897c18c-e5a6-4cbb-B5be-b3226c850200"));
+    }
+
+    @Test
+    public void testToUUID() {
+        for (int i = 0; i < 100; i++) {
+            UUID uuid = UUID.randomUUID();
+            assertEquals(uuid, UUIDUtils.toUUID(uuid.toString()));
+        }
+        assertEquals(UUID.fromString("ffffffff-ffff-4fff-bfff-ffffffffffff"),
+                UUIDUtils.toUUID("FFFFFFFF-FFFF-4FFF-bFFF-FFFFFFFFFFFF"));
+    }
+
+    @Test(expected = NewsException.class)
+    public void testToUUIDFail() {
+        UUIDUtils.toUUID("3897c18c-e5a6-4cbb-85be-b3226c85020x");
+    }
+}